@@ -0,0 +1,210 @@
+package com.pink.family.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pink.family.api.rest.client.model.BatchPersonCheckRequest;
+import com.pink.family.api.rest.client.model.BatchPersonCheckResponse;
+import com.pink.family.api.rest.client.model.ErrorResponse;
+import com.pink.family.api.rest.client.model.PersonCheckResult;
+import com.pink.family.api.rest.client.model.SpecificPersonCheckRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client of the person checks, for callers that make many of them.
+ * <p>
+ * Unlike the generated {@code com.pink.family.api.rest.client} client, which blocks a thread for every call, requests
+ * are made asynchronously over a pool of kept alive connections, using HTTP/2 where the server supports it. Single
+ * checks made within a few milliseconds of each other are combined into one batch request, see {@link MicroBatcher},
+ * so many callers checking one person each cost a few requests rather than one each.
+ * <p>
+ * The returned futures complete on the client's I/O threads, heavy work on their results belongs on the callers' own
+ * executors ({@code thenApplyAsync} and the like). Thread safe, meant to be shared and closed when done.
+ */
+@Slf4j
+public class FamilyClient implements AutoCloseable {
+
+    static final String BATCH_CHECK_PATH = "/v1/people/check-existing-persons";
+    static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final FamilyClientConfig config;
+    private final ObjectMapper objectMapper;
+    private final CloseableHttpAsyncClient httpClient;
+    private final MicroBatcher<SpecificPersonCheckRequest, PersonCheckResult> batcher;
+
+    public FamilyClient(FamilyClientConfig config) {
+        this.config = config;
+        this.objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(config.getMaxConnections())
+            .setMaxConnPerRoute(config.getMaxConnections())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                .build())
+            .setDefaultTlsConfig(TlsConfig.custom()
+                .setVersionPolicy(config.getVersionPolicy())
+                .build())
+            .build();
+
+        this.httpClient = HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.of(config.getRequestTimeout()))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+        this.httpClient.start();
+
+        this.batcher = new MicroBatcher<>(this::batchCheck, config.getMaxBatchSize(), config.getBatchWindow());
+    }
+
+    /**
+     * Check a single person. Sent along with the other checks made at about the same time.
+     */
+    public CompletableFuture<PersonCheckResult> check(SpecificPersonCheckRequest request) {
+        return batcher.submit(request);
+    }
+
+    /**
+     * Check many persons, in batch requests made at the same time.
+     *
+     * @return a result for each request, in the same order.
+     */
+    public CompletableFuture<List<PersonCheckResult>> checkAll(List<SpecificPersonCheckRequest> requests) {
+        List<CompletableFuture<List<PersonCheckResult>>> batches = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += config.getMaxBatchSize()) {
+            int to = Math.min(requests.size(), from + config.getMaxBatchSize());
+            batches.add(batchCheck(requests.subList(from, to)));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+            .thenApply(done -> batches.stream()
+                .flatMap(batch -> batch.join().stream())
+                .toList());
+    }
+
+    private CompletableFuture<List<PersonCheckResult>> batchCheck(List<SpecificPersonCheckRequest> requests) {
+        return post(BATCH_CHECK_PATH, new BatchPersonCheckRequest().requests(new ArrayList<>(requests)),
+            BatchPersonCheckResponse.class)
+            .thenApply(BatchPersonCheckResponse::getResults);
+    }
+
+    private <T> CompletableFuture<T> post(String path, Object body, Class<T> type) {
+        SimpleRequestBuilder request;
+        try {
+            request = SimpleRequestBuilder.post(config.getBaseUrl() + path)
+                .setBody(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON)
+                .addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType())
+                .addHeader(REQUEST_TIMEOUT_HEADER, String.valueOf(config.getRequestTimeout().toMillis()));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (config.getClientId() != null) {
+            request.addHeader(CLIENT_ID_HEADER, config.getClientId());
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        SimpleHttpRequest httpRequest = request.build();
+        httpClient.execute(httpRequest, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    result.complete(read(response, type));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                log.debug("{} {} failed: {}", httpRequest.getMethod(), path, e.getMessage());
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private <T> T read(SimpleHttpResponse response, Class<T> type) throws IOException {
+        byte[] body = response.getBodyBytes();
+        if (response.getCode() == 200) {
+            return objectMapper.readValue(body, type);
+        }
+
+        String message = "HTTP " + response.getCode();
+        if (body != null && body.length > 0) {
+            try {
+                message = objectMapper.readValue(body, ErrorResponse.class).getMessage();
+            } catch (IOException e) {
+                log.debug("Error response without an ErrorResponse body: {}", e.getMessage());
+            }
+        }
+        throw new FamilyClientException(response.getCode(), message, retryAfter(response));
+    }
+
+    private static Duration retryAfter(SimpleHttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.getValue().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends the checks still waiting for their batch, then closes the connections.
+     */
+    @Override
+    public void close() {
+        try {
+            batcher.shutdown().get(config.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Last checks did not complete before closing: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            httpClient.close(CloseMode.GRACEFUL);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.pink.family.client;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link FamilyClient}.
+ */
+@Value
+@Builder
+public class FamilyClientConfig {
+
+    /**
+     * Where the API is served, e.g. {@code https://family.example.com}.
+     */
+    @NonNull
+    String baseUrl;
+
+    /**
+     * Connections kept open to the API. Over HTTP/2 a single connection carries many requests at once, so few are
+     * needed.
+     */
+    @Builder.Default
+    int maxConnections = 20;
+
+    /**
+     * HTTP/2 is negotiated over TLS where the server supports it. {@link HttpVersionPolicy#FORCE_HTTP_2} uses it over
+     * plain HTTP as well, for a server known to speak it.
+     */
+    @Builder.Default
+    HttpVersionPolicy versionPolicy = HttpVersionPolicy.NEGOTIATE;
+
+    @Builder.Default
+    Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * How long a request may take. Also sent along as the request's deadline, so the server gives up on it at the
+     * same time.
+     */
+    @Builder.Default
+    Duration requestTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a single check waits for others to share its batch request with.
+     */
+    @Builder.Default
+    Duration batchWindow = Duration.ofMillis(5);
+
+    /**
+     * Most checks in a single batch request, at most the 1000 the API accepts.
+     */
+    @Builder.Default
+    int maxBatchSize = 100;
+
+    /**
+     * Sent as X-Client-Id, for the API's per-client admission control. Optional.
+     */
+    String clientId;
+}
@@ -0,0 +1,25 @@
+package com.pink.family.client;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The API answered with an error.
+ */
+@Getter
+public class FamilyClientException extends RuntimeException {
+
+    private final int statusCode;
+
+    /**
+     * How long the API asked to wait before retrying, given with a 429 or 503. Null if it did not say.
+     */
+    private final Duration retryAfter;
+
+    public FamilyClientException(int statusCode, String message, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,155 @@
+package com.pink.family.client;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Combines single calls made close together into batch calls.
+ * <p>
+ * The first item submitted opens a batch, which is sent once the window has passed or it holds the most items allowed,
+ * whichever comes first. Each caller gets the result at its own position in the batch's results, or the batch's
+ * failure. Under light load an item waits at most the window, under heavy load batches fill up before it ends.
+ *
+ * @param <T> the single item.
+ * @param <R> the result for a single item.
+ */
+public class MicroBatcher<T, R> implements AutoCloseable {
+
+    private final Function<List<T>, CompletableFuture<List<R>>> batchCall;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final ScheduledExecutorService scheduler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Pending<T, R>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    /**
+     * @param batchCall makes the batch call, giving a result for each item in the same order.
+     */
+    public MicroBatcher(Function<List<T>, CompletableFuture<List<R>>> batchCall, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1");
+        }
+        this.batchCall = batchCall;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("family-client-batcher").factory());
+    }
+
+    public CompletableFuture<R> submit(T item) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        List<Pending<T, R>> full = null;
+
+        lock.lock();
+        try {
+            if (closed) {
+                result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+                return result;
+            }
+            pending.add(new Pending<>(item, result));
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule((Runnable) this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            send(full);
+        }
+        return result;
+    }
+
+    /**
+     * Send what is pending now, without waiting for the window to pass.
+     *
+     * @return completes once the batch call made for it completes, right away if nothing was pending.
+     */
+    public CompletableFuture<Void> flush() {
+        List<Pending<T, R>> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+
+        return batch.isEmpty() ? CompletableFuture.completedFuture(null) : send(batch);
+    }
+
+    /**
+     * Sends what is pending, further items are refused.
+     *
+     * @return completes once the last batch call completes.
+     */
+    public CompletableFuture<Void> shutdown() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        scheduler.shutdown();
+        return flush();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private List<Pending<T, R>> takePending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Pending<T, R>> taken = pending;
+        pending = new ArrayList<>();
+        return taken;
+    }
+
+    private CompletableFuture<Void> send(List<Pending<T, R>> batch) {
+        CompletableFuture<List<R>> call;
+        try {
+            call = batchCall.apply(batch.stream().map(Pending::getItem).toList());
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        return call.handle((results, failure) -> {
+            if (failure == null && results.size() != batch.size()) {
+                failure = new IllegalStateException(
+                    "Got " + results.size() + " results for a batch of " + batch.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (failure == null) {
+                    batch.get(i).getResult().complete(results.get(i));
+                } else {
+                    batch.get(i).getResult().completeExceptionally(failure);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Value
+    private static class Pending<T, R> {
+        T item;
+        CompletableFuture<R> result;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pink.family.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pink.family.api.rest.client.model.BatchPersonCheckRequest;
+import com.pink.family.api.rest.client.model.BatchPersonCheckResponse;
+import com.pink.family.api.rest.client.model.ErrorResponse;
+import com.pink.family.api.rest.client.model.PersonCheckResult;
+import com.pink.family.api.rest.client.model.SpecificPersonCheckRequest;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the client against a stand-in for the API that answers each check with passed for even IDs.
+ */
+class FamilyClientTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<BatchPersonCheckRequest> received = new CopyOnWriteArrayList<>();
+    private final List<Headers> receivedHeaders = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private FamilyClient client;
+
+    private volatile int status = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(FamilyClient.BATCH_CHECK_PATH, this::answer);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        BatchPersonCheckRequest request = objectMapper.readValue(exchange.getRequestBody(),
+            BatchPersonCheckRequest.class);
+        received.add(request);
+        receivedHeaders.add(exchange.getRequestHeaders());
+
+        Object body;
+        if (status == 200) {
+            body = new BatchPersonCheckResponse().results(request.getRequests().stream()
+                .map(check -> new PersonCheckResult()
+                    .requestId(check.getRequestId())
+                    .passed(check.getId() % 2 == 0))
+                .toList());
+        } else {
+            body = new ErrorResponse().code("ERR_TOO_MANY_REQUESTS").message("Too many requests");
+            exchange.getResponseHeaders().add("Retry-After", "3");
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private FamilyClient client(int maxBatchSize, Duration batchWindow) {
+        return new FamilyClient(FamilyClientConfig.builder()
+            .baseUrl("http://localhost:" + server.getAddress().getPort())
+            .maxBatchSize(maxBatchSize)
+            .batchWindow(batchWindow)
+            .requestTimeout(Duration.ofSeconds(5))
+            .clientId("batch")
+            .build());
+    }
+
+    private static SpecificPersonCheckRequest check(long id) {
+        return new SpecificPersonCheckRequest().requestId("RQ" + id).id(id);
+    }
+
+    @Test
+    @DisplayName("checkAll splits the checks into batches of maxBatchSize and returns the results in order")
+    void checkAll_batchesInOrder() throws Exception {
+        client = client(10, Duration.ofMillis(5));
+
+        List<PersonCheckResult> results = client.checkAll(IntStream.rangeClosed(1, 25)
+                .mapToObj(FamilyClientTest::check)
+                .toList())
+            .get(5, TimeUnit.SECONDS);
+
+        assertThat(results).hasSize(25);
+        assertThat(results).extracting(PersonCheckResult::getRequestId)
+            .containsExactlyElementsOf(IntStream.rangeClosed(1, 25).mapToObj(id -> "RQ" + id).toList());
+        assertThat(results).extracting(PersonCheckResult::getPassed)
+            .containsExactlyElementsOf(IntStream.rangeClosed(1, 25).mapToObj(id -> id % 2 == 0).toList());
+        assertThat(received).extracting(request -> request.getRequests().size())
+            .containsExactlyInAnyOrder(10, 10, 5);
+    }
+
+    @Test
+    @DisplayName("Single checks made together go out in one batch request, each caller getting its own result")
+    void check_combinedIntoOneRequest() throws Exception {
+        client = client(100, Duration.ofMillis(100));
+
+        CompletableFuture<PersonCheckResult> first = client.check(check(1));
+        CompletableFuture<PersonCheckResult> second = client.check(check(2));
+        CompletableFuture<PersonCheckResult> third = client.check(check(3));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getPassed()).isFalse();
+        assertThat(second.get(5, TimeUnit.SECONDS).getPassed()).isTrue();
+        assertThat(third.get(5, TimeUnit.SECONDS).getRequestId()).isEqualTo("RQ3");
+        assertThat(received).hasSize(1);
+        assertThat(received.getFirst().getRequests()).extracting(SpecificPersonCheckRequest::getId)
+            .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("The client ID and the request timeout are sent along with each request")
+    void headers_sent() throws Exception {
+        client = client(10, Duration.ofMillis(5));
+
+        client.checkAll(List.of(check(2))).get(5, TimeUnit.SECONDS);
+
+        Headers headers = receivedHeaders.getFirst();
+        assertThat(headers.getFirst(FamilyClient.CLIENT_ID_HEADER)).isEqualTo("batch");
+        assertThat(headers.getFirst(FamilyClient.REQUEST_TIMEOUT_HEADER)).isEqualTo("5000");
+    }
+
+    @Test
+    @DisplayName("An error response fails the checks with its status, message and Retry-After")
+    void errorResponse_failsChecks() {
+        client = client(10, Duration.ofMillis(5));
+        status = 429;
+
+        assertThatThrownBy(() -> client.check(check(2)).get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .cause()
+            .isInstanceOfSatisfying(FamilyClientException.class, e -> {
+                assertThat(e.getStatusCode()).isEqualTo(429);
+                assertThat(e.getMessage()).isEqualTo("Too many requests");
+                assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3));
+            });
+    }
+}
@@ -0,0 +1,95 @@
+package com.pink.family.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicroBatcherTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    private MicroBatcher<Integer, String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.close();
+    }
+
+    private CompletableFuture<List<String>> echo(List<Integer> items) {
+        batches.add(items);
+        return CompletableFuture.completedFuture(items.stream().map(item -> "result-" + item).toList());
+    }
+
+    @Test
+    @DisplayName("Items submitted within the window go out in one batch, each caller getting its own result")
+    void window_combinesItems() throws Exception {
+        batcher = new MicroBatcher<>(this::echo, 100, Duration.ofMillis(50));
+
+        CompletableFuture<String> first = batcher.submit(1);
+        CompletableFuture<String> second = batcher.submit(2);
+        CompletableFuture<String> third = batcher.submit(3);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result-2");
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("result-3");
+        assertThat(batches).containsExactly(List.of(1, 2, 3));
+    }
+
+    @Test
+    @DisplayName("A full batch is sent right away, without waiting for the window")
+    void fullBatch_sentRightAway() throws Exception {
+        batcher = new MicroBatcher<>(this::echo, 2, Duration.ofMinutes(1));
+
+        CompletableFuture<String> first = batcher.submit(1);
+        CompletableFuture<String> second = batcher.submit(2);
+        CompletableFuture<String> third = batcher.submit(3);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result-2");
+        assertThat(third).isNotDone();
+
+        batcher.flush();
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("result-3");
+        assertThat(batches).containsExactly(List.of(1, 2), List.of(3));
+    }
+
+    @Test
+    @DisplayName("A failed batch call fails every item in it, later batches are unaffected")
+    void failedBatch_failsItsItems() throws Exception {
+        batcher = new MicroBatcher<>(items -> items.contains(1) ?
+            CompletableFuture.failedFuture(new IllegalStateException("unavailable")) :
+            echo(items), 2, Duration.ofMinutes(1));
+
+        CompletableFuture<String> first = batcher.submit(1);
+        CompletableFuture<String> second = batcher.submit(2);
+        CompletableFuture<String> third = batcher.submit(3);
+        batcher.flush();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+            .hasRootCauseMessage("unavailable");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("result-3");
+    }
+
+    @Test
+    @DisplayName("Closing sends what is pending and refuses further items")
+    void close_sendsPending() throws Exception {
+        batcher = new MicroBatcher<>(this::echo, 100, Duration.ofMinutes(1));
+
+        CompletableFuture<String> pending = batcher.submit(1);
+        batcher.shutdown().get(5, TimeUnit.SECONDS);
+
+        assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        assertThat(batcher.submit(2)).isCompletedExceptionally();
+    }
+}
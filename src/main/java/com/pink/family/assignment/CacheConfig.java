@@ -1,7 +1,9 @@
 package com.pink.family.assignment;
 
+import com.pink.family.assignment.database.cache.PersonCacheWeigher;
 import com.pink.family.assignment.properties.CacheProperties;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -9,12 +11,25 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Caching config. Set up cache managers using configurable values.
+ * <p>
+ * The person graph is cached in a normalized form: persons and their adjacency lists are stored once per internal ID
+ * and the lookup caches only map a search key (external ID, name + date of birth) onto internal IDs.
+ * <p>
+ * Caches are bounded by entry count unless a maximum weight is configured, in which case they are bounded by the
+ * estimated memory use of their entries (see {@link PersonCacheWeigher}). The total maximum weight is shared by the
+ * person graph caches only, by their weight share: the lookup caches hold little more than IDs and get a smaller share
+ * than the persons and adjacency lists. The last known check results are small strings and stay bounded by entry count,
+ * unless given a maximum weight of their own.
  */
+@Slf4j
 @Configuration
 @EnableCaching
 @RequiredArgsConstructor
@@ -27,48 +42,114 @@ public class CacheConfig {
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
 
-        CacheProperties.CacheSpec spec =
-            cacheProperties.getCaches() == null?
-                null:
-                cacheProperties.getCaches().get(Constant.PERSON_BY_EXTERNAL_ID);
+        Constant.ALL_CACHES.forEach(name -> registerCache(cacheManager, name));
 
-        cacheManager.registerCustomCache(Constant.PERSON_BY_EXTERNAL_ID, Caffeine.newBuilder()
-            .expireAfterWrite(
-                spec == null?
-                    Duration.ofMinutes(Constant.DEFAULT_MINUTE_DURATION) :
-                    spec.getExpireAfterWrite())
-            .maximumSize(
-                spec == null?
-                    Constant.DEFAULT_MAX_SIZE :
-                    spec.getMaximumSize())
-            .recordStats()
-            .build());
+        return cacheManager;
+    }
 
-        spec =
-            cacheProperties.getCaches() == null?
-                null:
-                cacheProperties.getCaches().get(Constant.PERSON_BY_EXTERNAL_ID);
+    private CacheProperties.CacheSpec spec(String name) {
+        return cacheProperties.getCaches() == null?
+            null:
+            cacheProperties.getCaches().get(name);
+    }
 
-        cacheManager.registerCustomCache(Constant.PERSONS_BY_NAME_DOB, Caffeine.newBuilder()
+    private void registerCache(CaffeineCacheManager cacheManager, String name) {
+        CacheProperties.CacheSpec spec = spec(name);
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
             .expireAfterWrite(
                 spec == null?
                     Duration.ofMinutes(Constant.DEFAULT_MINUTE_DURATION) :
                     spec.getExpireAfterWrite())
-            .maximumSize(
+            .recordStats();
+
+        DataSize maximumWeight = maximumWeight(name, spec);
+        if (maximumWeight != null) {
+            log.info("Bounding cache {} by weight {}", name, maximumWeight);
+            builder
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher(new PersonCacheWeigher());
+        } else {
+            builder.maximumSize(
                 spec == null?
                     Constant.DEFAULT_MAX_SIZE :
-                    spec.getMaximumSize())
-            .recordStats()
-            .build());
-        return cacheManager;
+                    spec.getMaximumSize());
+        }
+
+        cacheManager.registerCustomCache(name, builder.build());
+    }
+
+    /**
+     * The cache's own weight bound, or otherwise, for a person graph cache, its share of the total budget. The budget is
+     * shared by the person graph caches without a weight bound of their own. Null if bound by entry count.
+     */
+    private DataSize maximumWeight(String name, CacheProperties.CacheSpec spec) {
+        if (spec != null && spec.getMaximumWeight() != null) {
+            return spec.getMaximumWeight();
+        }
+        if (cacheProperties.getMaximumWeight() != null && Constant.PERSON_GRAPH_CACHES.contains(name)) {
+            int totalShares = Constant.PERSON_GRAPH_CACHES.stream()
+                .filter(graphCache -> spec(graphCache) == null || spec(graphCache).getMaximumWeight() == null)
+                .mapToInt(this::weightShare)
+                .sum();
+            return DataSize.ofBytes(cacheProperties.getMaximumWeight().toBytes() * weightShare(name) / totalShares);
+        }
+        return null;
+    }
+
+    private int weightShare(String name) {
+        CacheProperties.CacheSpec spec = spec(name);
+        return spec == null || spec.getWeightShare() == null?
+            Constant.DEFAULT_WEIGHT_SHARES.get(name) :
+            spec.getWeightShare();
     }
 
 
     public static class Constant {
+        /**
+         * External ID to internal ID.
+         */
         public static final String PERSON_BY_EXTERNAL_ID = "personsByExternalIdCache";
+        /**
+         * Name + date of birth to the set of matching internal IDs.
+         */
         public static final String PERSONS_BY_NAME_DOB = "personsByNameSurnameCache";
+        /**
+         * Internal ID to a single person, without relationships.
+         */
+        public static final String PERSON_NODE_BY_INTERNAL_ID = "personNodesByInternalIdCache";
+        /**
+         * Internal ID to the internal IDs of related persons, grouped by relationship type.
+         */
+        public static final String ADJACENCY_BY_INTERNAL_ID = "adjacencyByInternalIdCache";
+        /**
+         * Check key to the last known check result, served when the database is degraded.
+         */
+        public static final String LAST_KNOWN_CHECK_RESULT = "lastKnownCheckResultCache";
+        /**
+         * The caches sharing the total maximum weight.
+         */
+        public static final List<String> PERSON_GRAPH_CACHES = List.of(
+            PERSON_BY_EXTERNAL_ID,
+            PERSONS_BY_NAME_DOB,
+            PERSON_NODE_BY_INTERNAL_ID,
+            ADJACENCY_BY_INTERNAL_ID);
+        /**
+         * The share of the total maximum weight of each person graph cache, relative to the others.
+         */
+        public static final Map<String, Integer> DEFAULT_WEIGHT_SHARES = Map.of(
+            PERSON_BY_EXTERNAL_ID, 1,
+            PERSONS_BY_NAME_DOB, 1,
+            PERSON_NODE_BY_INTERNAL_ID, 4,
+            ADJACENCY_BY_INTERNAL_ID, 4);
+        public static final List<String> ALL_CACHES = List.of(
+            PERSON_BY_EXTERNAL_ID,
+            PERSONS_BY_NAME_DOB,
+            PERSON_NODE_BY_INTERNAL_ID,
+            ADJACENCY_BY_INTERNAL_ID,
+            LAST_KNOWN_CHECK_RESULT);
         public static final int DEFAULT_MINUTE_DURATION = 10;
         public static final int DEFAULT_MAX_SIZE = 1000;
     }
 
-}
\ No newline at end of file
+}
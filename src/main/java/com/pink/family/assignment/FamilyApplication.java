@@ -2,8 +2,18 @@ package com.pink.family.assignment;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+@SpringBootApplication(exclude = {
+    // the reactive stack sets up R2DBC itself, see ReactiveDBConfig.
+    R2dbcAutoConfiguration.class,
+    R2dbcDataAutoConfiguration.class,
+    R2dbcRepositoriesAutoConfiguration.class,
+    R2dbcTransactionManagerAutoConfiguration.class
+})
 public class FamilyApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,81 @@
+package com.pink.family.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.pink.family.assignment.api.converter.PreSerializedErrorResponseConverter;
+import com.pink.family.assignment.api.converter.ProtobufJacksonHttpMessageConverter;
+import com.pink.family.assignment.constants.ErrorMessages;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.openapitools.jackson.nullable.JsonNullableModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary encodings of the API, next to JSON. Clients pick one with the Content-Type and Accept headers:
+ * <ul>
+ *     <li>{@code application/cbor}</li>
+ *     <li>{@code application/x-jackson-smile}</li>
+ *     <li>{@code application/x-protobuf}</li>
+ * </ul>
+ * All of them are built from Spring Boot's Jackson configuration, so dates and such come out the same as in JSON.
+ * Spring Boot puts these in front of its default converters of the same type, and a converter of a type of its own,
+ * such as the Protobuf one, in front of all of them. That one is moved behind JSON, so a client that does not ask for
+ * an encoding (no Accept header, or any) still gets JSON, errors included.
+ * <p>
+ * The JSON for failed checks is serialized up front, see {@link PreSerializedErrorResponseConverter}.
+ * <p>
+ * Generated models with nullable members, such as the merge patch of a person, tell a member set to null from one
+ * left out with {@link JsonNullable}, which needs its module registered.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.cbor().build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.smile().build());
+    }
+
+    @Bean
+    public ProtobufJacksonHttpMessageConverter protobufHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new ProtobufJacksonHttpMessageConverter(builder.factory(new ProtobufFactory()).build());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        List<HttpMessageConverter<?>> protobuf = converters.stream()
+            .filter(ProtobufJacksonHttpMessageConverter.class::isInstance)
+            .toList();
+        converters.removeAll(protobuf);
+
+        int json = 0;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                json = i + 1;
+            }
+        }
+        converters.addAll(json, protobuf);
+    }
+
+    @Bean
+    public JsonNullableModule jsonNullableModule() {
+        return new JsonNullableModule();
+    }
+
+    @Bean
+    public PreSerializedErrorResponseConverter preSerializedErrorResponseConverter(ObjectMapper objectMapper) {
+        return new PreSerializedErrorResponseConverter(objectMapper, 444, ErrorMessages.CHECK_FAILURES);
+    }
+}
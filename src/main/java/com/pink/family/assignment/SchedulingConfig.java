@@ -0,0 +1,12 @@
+package com.pink.family.assignment;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled background tasks, e.g. the cache heap pressure checks.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
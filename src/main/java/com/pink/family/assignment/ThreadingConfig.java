@@ -0,0 +1,46 @@
+package com.pink.family.assignment;
+
+import com.pink.family.assignment.util.MdcUtil;
+import io.undertow.Undertow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Threading config.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} every request is handled on its own virtual thread instead of a
+ * bounded pool of platform worker threads, so requests blocked on JDBC no longer hold on to a scarce worker. The
+ * connection pool then becomes the limit, as it should be. Spring Boot does this for Tomcat itself; the customizer
+ * below does the same for Undertow.
+ * <p>
+ * Work handed off to Spring's task executors carries the MDC (and so the request ID) along.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig {
+
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return MdcUtil::wrap;
+    }
+
+    @Bean
+    @ConditionalOnClass(Undertow.class)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> undertowVirtualThreadCustomizer() {
+        return factory -> factory.addDeploymentInfoCustomizers(deploymentInfo -> {
+            log.info("Handling Undertow requests on virtual threads");
+            deploymentInfo.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            deploymentInfo.setAsyncExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        });
+    }
+}
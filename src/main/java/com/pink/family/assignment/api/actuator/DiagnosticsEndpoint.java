@@ -0,0 +1,62 @@
+package com.pink.family.assignment.api.actuator;
+
+import com.pink.family.assignment.properties.DiagnosticsProperties;
+import com.pink.family.assignment.service.DiagnosticsService;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Actuator endpoint used to trace single requests at runtime, see {@link DiagnosticsService}.
+ * <ul>
+ *     <li>GET /actuator/diagnostics - the traced request IDs and the sample rate</li>
+ *     <li>POST /actuator/diagnostics/{requestId} - trace the request with this ID</li>
+ *     <li>DELETE /actuator/diagnostics/{requestId} - stop tracing it</li>
+ * </ul>
+ * Read only by default, tracing is switched on and off only where the endpoint's access is opened up.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "diagnostics", defaultAccess = Access.READ_ONLY)
+public class DiagnosticsEndpoint {
+
+    private final DiagnosticsService diagnosticsService;
+    private final DiagnosticsProperties diagnosticsProperties;
+
+    @ReadOperation
+    public Tracing tracing() {
+        return Tracing.builder()
+            .requestIds(new TreeSet<>(diagnosticsService.getTracedRequestIds()))
+            .sampleRate(diagnosticsProperties.getTraceSampleRate())
+            .build();
+    }
+
+    @WriteOperation
+    public Tracing trace(@Selector String requestId) {
+        diagnosticsService.trace(requestId);
+        return tracing();
+    }
+
+    @DeleteOperation
+    public Tracing untrace(@Selector String requestId) {
+        diagnosticsService.untrace(requestId);
+        return tracing();
+    }
+
+    @Value
+    @Builder
+    public static class Tracing {
+        Set<String> requestIds;
+        double sampleRate;
+    }
+}
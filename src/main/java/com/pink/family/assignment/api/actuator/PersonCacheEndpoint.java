@@ -0,0 +1,198 @@
+package com.pink.family.assignment.api.actuator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pink.family.assignment.service.CacheHeapPressureMonitor;
+import com.pink.family.assignment.util.MaskUtil;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Actuator endpoint used to inspect, resize and invalidate the caches at runtime, without a restart (and so without
+ * losing the warm cache).
+ * <ul>
+ *     <li>GET /actuator/personcaches - all caches</li>
+ *     <li>GET /actuator/personcaches/{name} - a single cache</li>
+ *     <li>POST /actuator/personcaches/{name} {"maximum": 5000} - change the eviction bound (entries or bytes)</li>
+ *     <li>DELETE /actuator/personcaches/{name}?pattern=12.* - invalidate the keys matching the pattern, or all</li>
+ * </ul>
+ * Unknown caches result in a 404. The hottest keys are masked the way IDs are in the logs, as they hold IDs, names and
+ * dates of birth. The operations that change a cache are only open with
+ * {@code management.endpoint.personcaches.access=unrestricted}, by default the endpoint is read only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "personcaches", defaultAccess = Access.READ_ONLY)
+public class PersonCacheEndpoint {
+
+    private static final int HOTTEST_SAMPLE = 10;
+
+    /**
+     * Prefixes of the keys of the last known check results, see
+     * {@link com.pink.family.assignment.service.DegradedModeService}.
+     */
+    private static final List<String> KEY_PREFIXES = List.of("ID_", "NAME_DOB_");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    private final CacheManager cacheManager;
+    private final CacheHeapPressureMonitor cacheHeapPressureMonitor;
+
+    @ReadOperation
+    public Map<String, CacheDetails> caches() {
+        Map<String, CacheDetails> caches = new TreeMap<>();
+        cacheManager.getCacheNames().forEach(name -> {
+            Cache<Object, Object> cache = nativeCache(name);
+            if (cache != null) {
+                caches.put(name, details(name, cache));
+            }
+        });
+        return caches;
+    }
+
+    /**
+     * @return the cache details, null (not found) if there is no such cache.
+     */
+    @ReadOperation
+    public CacheDetails cache(@Selector String name) {
+        Cache<Object, Object> cache = nativeCache(name);
+        return cache == null ? null : details(name, cache);
+    }
+
+    /**
+     * Change the eviction bound. This is an entry count or a weight in bytes depending on how the cache is bounded.
+     * The new bound also becomes the bound the cache is restored to after heap pressure.
+     */
+    @WriteOperation
+    public CacheDetails resize(@Selector String name, long maximum) {
+        if (maximum < 0) {
+            throw new InvalidEndpointRequestException("Maximum may not be negative", "negative maximum");
+        }
+        Cache<Object, Object> cache = nativeCache(name);
+        if (cache == null) {
+            return null;
+        }
+        Policy.Eviction<Object, Object> eviction = cache.policy().eviction()
+            .orElseThrow(() -> new InvalidEndpointRequestException("Cache " + name + " is not bounded", "unbounded"));
+
+        log.info("Resizing cache {} from {} to {}", name, eviction.getMaximum(), maximum);
+        eviction.setMaximum(maximum);
+        cacheHeapPressureMonitor.setBaseline(name, maximum);
+        return details(name, cache);
+    }
+
+    /**
+     * Invalidate every key whose string form matches the pattern, or the whole cache if there is no pattern.
+     */
+    @DeleteOperation
+    public CacheDetails invalidate(@Selector String name, @Nullable String pattern) {
+        Cache<Object, Object> cache = nativeCache(name);
+        if (cache == null) {
+            return null;
+        }
+
+        if (ObjectUtils.isEmpty(pattern)) {
+            log.info("Invalidating all entries of cache {}", name);
+            cache.invalidateAll();
+        } else {
+            Pattern compiled;
+            try {
+                compiled = Pattern.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                throw new InvalidEndpointRequestException("Invalid pattern: " + e.getDescription(), "invalid pattern");
+            }
+            List<Object> matching = cache.asMap().keySet().stream()
+                .filter(key -> compiled.matcher(String.valueOf(key)).matches())
+                .toList();
+            log.info("Invalidating {} entries of cache {} matching {}", matching.size(), name, pattern);
+            cache.invalidateAll(matching);
+        }
+        return details(name, cache);
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        // the caffeine cache manager creates caches on demand, so only look up the ones that exist.
+        if (cacheManager.getCacheNames().contains(name)
+            && cacheManager.getCache(name) instanceof CaffeineCache caffeineCache)
+        {
+            return caffeineCache.getNativeCache();
+        }
+        return null;
+    }
+
+    private static CacheDetails details(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+
+        return CacheDetails.builder()
+            .name(name)
+            .size(cache.estimatedSize())
+            .weighted(eviction.map(Policy.Eviction::isWeighted).orElse(false))
+            .weight(eviction.isPresent() && eviction.get().weightedSize().isPresent() ?
+                eviction.get().weightedSize().getAsLong() :
+                null)
+            .maximum(eviction.map(Policy.Eviction::getMaximum).orElse(null))
+            .hitCount(stats.hitCount())
+            .missCount(stats.missCount())
+            .hitRatio(stats.hitRate())
+            .evictionCount(stats.evictionCount())
+            .hottestKeys(eviction
+                .map(e -> e.hottest(HOTTEST_SAMPLE).keySet().stream().map(PersonCacheEndpoint::maskKey).toList())
+                .orElse(List.of()))
+            .build();
+    }
+
+    /**
+     * Mask a key: IDs reveal their first and last two digits, anything else (names and dates of birth) is fully masked.
+     * A key prefix such as {@code ID_} stays readable.
+     */
+    static String maskKey(Object key) {
+        String value = String.valueOf(key);
+        String prefix = KEY_PREFIXES.stream().filter(value::startsWith).findFirst().orElse("");
+        String rest = value.substring(prefix.length());
+        return prefix + (DIGITS.matcher(rest).matches() ? MaskUtil.mask(rest, 2, 2, 4) : MaskUtil.fullyMask(rest));
+    }
+
+    @Value
+    @Builder
+    public static class CacheDetails {
+        String name;
+        long size;
+        boolean weighted;
+        /**
+         * Estimated bytes, only for caches bounded by weight.
+         */
+        Long weight;
+        /**
+         * Entry count or bytes, depending on {@link #weighted}.
+         */
+        Long maximum;
+        long hitCount;
+        long missCount;
+        double hitRatio;
+        long evictionCount;
+        List<String> hottestKeys;
+    }
+}
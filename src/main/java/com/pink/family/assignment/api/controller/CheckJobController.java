@@ -0,0 +1,71 @@
+package com.pink.family.assignment.api.controller;
+
+import com.pink.family.assignment.dto.CheckJobDto;
+import com.pink.family.assignment.service.CheckJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.InputStream;
+
+/**
+ * Batch check jobs, see {@link CheckJobService}.
+ * <p>
+ * The input is a file or stream of check requests, one per line as in the body of
+ * {@code POST /v1/people/check-existing-person}. It is read straight from the request body to disk, so it can be far
+ * larger than a single request would be allowed to, up to {@code pink.config.jobs.max-input-size}. These endpoints are
+ * not part of the generated V1Api, which keeps the generated clients unchanged.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "pink.config.jobs", name = "enabled", havingValue = "true")
+public class CheckJobController {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final CheckJobService checkJobService;
+
+    /**
+     * Accepts the job, the Location header points at its progress.
+     */
+    @PostMapping(
+        value = "/v1/jobs/checks",
+        consumes = {NDJSON, MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE},
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CheckJobDto> submit(InputStream body) {
+        CheckJobDto job = checkJobService.submit(body);
+        return ResponseEntity
+            .accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").build(job.getJobId()))
+            .body(job);
+    }
+
+    @GetMapping(value = "/v1/jobs/checks/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CheckJobDto> status(@PathVariable String jobId) {
+        return ResponseEntity.ok(checkJobService.status(jobId));
+    }
+
+    /**
+     * The results once the job is done, one per line in the order of the input. A 409 while it is not.
+     */
+    @GetMapping("/v1/jobs/checks/{jobId}/results")
+    public ResponseEntity<Resource> results(@PathVariable String jobId) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + "-results.ndjson\"")
+            .body(new FileSystemResource(checkJobService.results(jobId)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.pink.family.assignment.api.controller;
+
+import com.pink.family.assignment.dto.DeleteJobDto;
+import com.pink.family.assignment.service.DeleteJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Soft delete jobs, see {@link DeleteJobService}.
+ * <p>
+ * The body is a JSON array of IDs, as in {@code DELETE /v1/people}, which deletes them within the request. These
+ * endpoints are not part of the generated V1Api, which keeps the generated clients unchanged.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "pink.config.deletion.jobs", name = "enabled", havingValue = "true")
+public class DeleteJobController {
+
+    private final DeleteJobService deleteJobService;
+
+    /**
+     * Accepts the job, the Location header points at its progress.
+     */
+    @PostMapping(
+        value = "/v1/jobs/deletes",
+        consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DeleteJobDto> submit(@RequestBody List<Long> externalIds) {
+        DeleteJobDto job = deleteJobService.submit(externalIds.stream().filter(Objects::nonNull).toList());
+        return ResponseEntity
+            .accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").build(job.getJobId()))
+            .body(job);
+    }
+
+    @GetMapping(value = "/v1/jobs/deletes/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DeleteJobDto> status(@PathVariable String jobId) {
+        return ResponseEntity.ok(deleteJobService.status(jobId));
+    }
+}
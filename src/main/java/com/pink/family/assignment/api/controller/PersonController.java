@@ -1,38 +1,74 @@
 package com.pink.family.assignment.api.controller;
 
+import com.pink.family.api.rest.server.model.BatchPersonCheckRequest;
+import com.pink.family.api.rest.server.model.BatchPersonCheckResponse;
+import com.pink.family.api.rest.server.model.ErrorResponse;
 import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonCheckResult;
 import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.PersonLookupRequest;
+import com.pink.family.api.rest.server.model.PersonLookupResponse;
+import com.pink.family.api.rest.server.model.PersonMergePatch;
 import com.pink.family.api.rest.server.model.Relation;
 import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
 import com.pink.family.api.rest.server.reference.V1Api;
+import com.pink.family.assignment.api.exception.ApiExceptionHandler;
 import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.filter.AdmissionControlFilter;
 import com.pink.family.assignment.api.mapper.PersonApiMapper;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.dto.CheckResultDto;
 import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.properties.AdmissionProperties;
+import com.pink.family.assignment.properties.IdempotencyProperties;
+import com.pink.family.assignment.service.AdmissionControlService;
+import com.pink.family.assignment.service.AdmissionControlService.Admission;
+import com.pink.family.assignment.service.AdmissionControlService.Operation;
+import com.pink.family.assignment.service.IdempotencyService;
 import com.pink.family.assignment.service.LoggingService;
 import com.pink.family.assignment.service.PersonService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Servlet implementation of the API. With {@code spring.main.web-application-type=reactive} the
+ * {@link ReactivePersonController} serves the API instead.
+ */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PersonController implements V1Api {
 
+    /**
+     * Set on a response replayed for a retried update.
+     */
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final PersonService personService;
     private final LoggingService loggingService;
+    private final IdempotencyService idempotencyService;
+    private final IdempotencyProperties idempotencyProperties;
+    private final AdmissionControlService admissionControlService;
+    private final AdmissionProperties admissionProperties;
+    private final HttpServletRequest request;
 
     @Override
     public ResponseEntity<Void> v1PeopleCheckExistingPersonPost(SpecificPersonCheckRequest specificPersonCheckRequest) {
@@ -44,26 +80,124 @@ public class PersonController implements V1Api {
             """);
         loggingService.setRequestId(specificPersonCheckRequest.getRequestId());
 
-        Optional<String> result;
+        CheckResultDto result;
 
         if (!ObjectUtils.isEmpty(specificPersonCheckRequest.getId())) {
-            result = personService.hasPartnerAndChildrenExternalId(specificPersonCheckRequest.getId());
-            log.debug("Result From ID: {}", result.map(String::valueOf).orElse("N/A"));
+            result = personService.checkExternalId(specificPersonCheckRequest.getId());
+            log.debug("Result From ID: {}", result.asOptional().orElse("N/A"));
         } else if (ObjectUtils.isEmpty(specificPersonCheckRequest.getName()) || ObjectUtils.isEmpty(specificPersonCheckRequest.getDateOfBirth())) {
-            throw new PinkApiException("Request is missing ID, Name or Date of Birth", 444);
+            return checkFailed(ErrorMessages.MISSING_ID_NAME_DOB, false);
         } else {
             log.debug("No ID, but fallback information available.");
-            result = personService.hasPartnerAndChildrenNameSurnameDob(
+            result = personService.checkNameSurnameDob(
                 specificPersonCheckRequest.getName(),
                 specificPersonCheckRequest.getDateOfBirth()
             );
         }
 
-        if (result.isEmpty() || result.get().isEmpty()) {
-            return ResponseEntity.ok().build();
+        if (result.asOptional().isEmpty()) {
+            return result.isStale() ?
+                ResponseEntity.ok().header(HttpHeaders.WARNING, ApiExceptionHandler.STALE_WARNING).build() :
+                ResponseEntity.ok().build();
         } else {
-            throw new PinkApiException(result.get(), 444);
+            return checkFailed(result.getReason(), result.isStale());
+        }
+    }
+
+    /**
+     * Most checks fail, so a failed check is returned as a value instead of thrown at the {@link ApiExceptionHandler},
+     * which would capture a stack trace every time. The body is then written from pre-serialized JSON, see
+     * {@link com.pink.family.assignment.api.converter.PreSerializedErrorResponseConverter}.
+     * <p>
+     * V1Api declares no body for the check, as only its 444 has one, hence the cast.
+     */
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<Void> checkFailed(String reason, boolean stale) {
+        ResponseEntity<?> response =
+            ApiExceptionHandler.errorResponse(444, reason, loggingService.getRequestId(), stale);
+        return (ResponseEntity<Void>) response;
+    }
+
+    /**
+     * The persons asked for by ID are checked together, with set based queries, see
+     * {@link PersonService#checkExternalIds(Set)}. Those asked for by name and date of birth are checked one by one.
+     */
+    @Override
+    public ResponseEntity<BatchPersonCheckResponse> v1PeopleCheckExistingPersonsPost(
+        BatchPersonCheckRequest batchPersonCheckRequest)
+    {
+        List<SpecificPersonCheckRequest> requests = batchPersonCheckRequest.getRequests();
+        log.debug("Batch check of {} persons", requests.size());
+        chargeAdmission(requests.size());
+
+        Set<Long> externalIds = requests.stream()
+            .map(SpecificPersonCheckRequest::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, Optional<String>> byExternalId = externalIds.isEmpty() ?
+            Map.of() :
+            personService.checkExternalIds(externalIds);
+
+        BatchPersonCheckResponse response = new BatchPersonCheckResponse();
+        for (SpecificPersonCheckRequest check : requests) {
+            String requestId = ObjectUtils.isEmpty(check.getRequestId()) ?
+                loggingService.generateID() :
+                check.getRequestId();
+
+            if (!ObjectUtils.isEmpty(check.getId())) {
+                response.addResultsItem(checkResult(requestId, CheckResultDto.fresh(byExternalId.get(check.getId()))));
+            } else if (ObjectUtils.isEmpty(check.getName()) || ObjectUtils.isEmpty(check.getDateOfBirth())) {
+                response.addResultsItem(checkResult(requestId, 444, ErrorMessages.MISSING_ID_NAME_DOB, false));
+            } else {
+                try {
+                    response.addResultsItem(checkResult(
+                        requestId,
+                        personService.checkNameSurnameDob(check.getName(), check.getDateOfBirth())));
+                } catch (PinkApiException e) {
+                    response.addResultsItem(checkResult(requestId, e.getResponseCode(), e.getMessage(), e.isStale()));
+                }
+            }
         }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * A bulk request costs as much of its client's check budget as the single requests it stands for. The admission
+     * filter took one check's worth, the rest is taken here once the body is read.
+     */
+    private void chargeAdmission(int items) {
+        if (request.getAttribute(AdmissionControlFilter.CLIENT_ATTRIBUTE) instanceof String client) {
+            Admission charged = admissionControlService.charge(client, Operation.CHECK, items - 1);
+            if (!charged.isAdmitted()) {
+                throw new PinkApiException(ErrorMessages.TOO_MANY_REQUESTS, 429, charged.getRetryAfterSeconds());
+            }
+        }
+    }
+
+    /**
+     * The client the admission filter admitted the request for, or with admission control off, who it would have been.
+     */
+    private String client() {
+        if (request.getAttribute(AdmissionControlFilter.CLIENT_ATTRIBUTE) instanceof String client) {
+            return client;
+        }
+        return admissionControlService.clientOf(
+            request.getHeader(admissionProperties.getClientHeader()),
+            request.getHeader(admissionProperties.getApiKeyHeader()));
+    }
+
+    private static PersonCheckResult checkResult(String requestId, CheckResultDto result) {
+        return result.asOptional()
+            .map(reason -> checkResult(requestId, 444, reason, result.isStale()))
+            .orElseGet(() -> new PersonCheckResult().requestId(requestId).passed(true).stale(result.isStale()));
+    }
+
+    private static PersonCheckResult checkResult(String requestId, int code, String reason, boolean stale) {
+        ErrorResponse error = new ErrorResponse();
+        error.setCode(String.valueOf(code));
+        error.setMessage(reason);
+        error.setRequestId(requestId);
+        return new PersonCheckResult().requestId(requestId).passed(false).stale(stale).error(error);
     }
 
     @Override
@@ -77,8 +211,101 @@ public class PersonController implements V1Api {
             .build();
     }
 
+    /**
+     * Read only, so it never goes near the transaction of an update. The ETag is compared before the person is mapped,
+     * a match is answered with a 304 without mapping or serializing anything.
+     */
+    @Override
+    public ResponseEntity<FullPerson> v1PeopleIdGet(Long id, String fields) {
+        Set<PersonApiMapper.Field> selected = PersonApiMapper.parseFields(fields);
+        PersonDto person = personService.findPerson(id, !selected.isEmpty())
+            .orElseThrow(() -> new PinkApiException(ErrorMessages.NO_RECORD, 404));
+
+        String eTag = PersonApiMapper.eTag(person, selected);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            return ResponseEntity.status(304).header(HttpHeaders.ETAG, eTag).build();
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.ETAG, eTag)
+            .body(PersonApiMapper.mapToApi(person, selected));
+    }
+
+    /**
+     * Only the persons named in the patch are looked up, so a change costs about the same however large the family is.
+     */
+    @Override
+    public ResponseEntity<FullPerson> v1PeopleIdPatch(Long id, PersonMergePatch personMergePatch) {
+        PersonDto patched = personService.patchPerson(
+                id,
+                personMergePatch.getName(),
+                personMergePatch.getBirthDate(),
+                PersonApiMapper.mapRelations(personMergePatch))
+            .orElseThrow(() -> new PinkApiException(ErrorMessages.NO_RECORD, 404));
+
+        return ResponseEntity.ok(PersonApiMapper.mapToApi(patched, EnumSet.allOf(PersonApiMapper.Field.class)));
+    }
+
+    /**
+     * Read only, same as {@link #v1PeopleIdGet(Long, String)} for many persons, without the ETags. The persons are
+     * loaded together, so an enrichment job costs one round trip per thousand persons rather than one per person, but
+     * as much of its check budget as reading them one by one.
+     */
+    @Override
+    public ResponseEntity<PersonLookupResponse> v1PeopleLookupPost(
+        PersonLookupRequest personLookupRequest,
+        String fields
+    ) {
+        Set<PersonApiMapper.Field> selected = PersonApiMapper.parseFields(fields);
+        List<Long> ids = personLookupRequest.getIds().stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+        chargeAdmission(ids.size());
+        Map<Long, PersonDto> persons = personService.findPersons(new HashSet<>(ids), !selected.isEmpty());
+
+        PersonLookupResponse response = new PersonLookupResponse();
+        for (Long id : ids) {
+            PersonDto person = persons.get(id);
+            if (person == null) {
+                response.addNotFoundItem(id);
+            } else {
+                response.addPersonsItem(PersonApiMapper.mapToApi(person, selected));
+            }
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Weak comparison, as If-None-Match asks for.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ObjectUtils.isEmpty(ifNoneMatch)) {
+            return false;
+        }
+        String opaque = eTag.substring(2);
+        return Stream.of(ifNoneMatch.split(","))
+            .map(String::trim)
+            .anyMatch(tag -> "*".equals(tag) || opaque.equals(tag.startsWith("W/") ? tag.substring(2) : tag));
+    }
+
+    /**
+     * Retries carrying the same Idempotency-Key header get the response of the first successful update, see
+     * {@link IdempotencyService}.
+     */
     @Override
     public ResponseEntity<FullPerson> v1PeoplePost(PersonDetailsRequest personDetailsRequest) {
+        IdempotencyService.Outcome<FullPerson> outcome = idempotencyService.execute(
+            client(),
+            request.getHeader(idempotencyProperties.getHeader()),
+            personDetailsRequest,
+            () -> update(personDetailsRequest));
+
+        return outcome.isReplayed() ?
+            ResponseEntity.ok().header(IDEMPOTENT_REPLAYED_HEADER, "true").body(outcome.getResponse()) :
+            ResponseEntity.ok(outcome.getResponse());
+    }
+
+    private FullPerson update(PersonDetailsRequest personDetailsRequest) {
         PersonDto updated =
             personService.retrieveAndUpdate(
                 personDetailsRequest.getId(),
@@ -102,6 +329,6 @@ public class PersonController implements V1Api {
                     : personDetailsRequest.getChildren().stream().map(Relation::getId).collect(Collectors.toSet())
             );
 
-        return ResponseEntity.ok(PersonApiMapper.mapToApi(updated, personDetailsRequest));
+        return PersonApiMapper.mapToApi(updated, personDetailsRequest);
     }
 }
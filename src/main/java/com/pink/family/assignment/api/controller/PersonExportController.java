@@ -0,0 +1,76 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.assignment.api.mapper.PersonApiMapper;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.properties.ExportProperties;
+import com.pink.family.assignment.service.DeadlineService;
+import com.pink.family.assignment.service.PersonService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Export of all persons, see {@link PersonService#exportPersons(int)}.
+ * <p>
+ * Written straight to the response as the pages are read, one {@link FullPerson} per line, so the export takes about
+ * the same memory however many persons there are. Not part of the generated V1Api, which keeps the generated clients
+ * unchanged.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "pink.config.export", name = "enabled", havingValue = "true")
+public class PersonExportController {
+
+    private static final Set<PersonApiMapper.Field> ALL_FIELDS = EnumSet.allOf(PersonApiMapper.Field.class);
+
+    private final PersonService personService;
+    private final DeadlineService deadlineService;
+    private final ExportProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Once the first line is written the status can no longer change, a failure part way through ends the response
+     * early, without a last line break.
+     */
+    @GetMapping("/v1/exports/people")
+    public void export(HttpServletResponse response) throws IOException {
+        // the deadline bounds the wait for a response, an export starts answering right away and then runs for as
+        // long as there are persons. Every page is still bounded by the bulkhead it is read through.
+        deadlineService.clearDeadline();
+
+        response.setContentType(CheckJobController.NDJSON);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"people.ndjson\"");
+
+        ObjectWriter writer = objectMapper.writerFor(FullPerson.class);
+        long exported = 0;
+        try (Stream<PersonDto> persons = personService.exportPersons(properties.getPageSize());
+             OutputStream out = new BufferedOutputStream(response.getOutputStream())) {
+            Iterator<PersonDto> iterator = persons.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(PersonApiMapper.mapToApi(iterator.next(), ALL_FIELDS)));
+                out.write('\n');
+                exported++;
+            }
+        } finally {
+            log.info("Exported {} persons", exported);
+        }
+    }
+}
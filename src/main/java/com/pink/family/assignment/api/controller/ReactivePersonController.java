@@ -0,0 +1,128 @@
+package com.pink.family.assignment.api.controller;
+
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.api.exception.ApiExceptionHandler;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.api.mapper.PersonApiMapper;
+import com.pink.family.assignment.service.LoggingService;
+import com.pink.family.assignment.service.ReactivePersonService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.pool.PoolAcquirePendingLimitException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reactive implementation of the API, used with {@code spring.main.web-application-type=reactive}.
+ * <p>
+ * Nothing blocks between the HTTP request and the database: the request body is read, the database is queried through
+ * R2DBC and the response is written without holding on to a thread. The request ID is not kept in the MDC here, as
+ * the work hops between threads, it is passed along explicitly instead.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonController {
+
+    private final ReactivePersonService reactivePersonService;
+    private final LoggingService loggingService;
+
+    @PostMapping(
+        value = "/v1/people/check-existing-person",
+        consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ErrorResponse>> checkExistingPerson(
+        @RequestBody Mono<SpecificPersonCheckRequest> specificPersonCheckRequest)
+    {
+        return specificPersonCheckRequest.flatMap(request -> {
+            String requestId = ObjectUtils.isEmpty(request.getRequestId()) ?
+                loggingService.generateID() :
+                request.getRequestId();
+
+            return check(request)
+                .map(result -> result
+                    .map(reason -> ApiExceptionHandler.errorResponse(444, reason, requestId, false))
+                    .orElseGet(() -> ResponseEntity.ok().<ErrorResponse>build()))
+                .onErrorResume(PinkApiException.class, e -> Mono.just(error(e, requestId)))
+                .onErrorResume(PoolAcquirePendingLimitException.class, e -> Mono.just(
+                    error(new PinkApiException("Service temporarily unavailable", 503), requestId)));
+        });
+    }
+
+    private Mono<Optional<String>> check(SpecificPersonCheckRequest request) {
+        if (!ObjectUtils.isEmpty(request.getId())) {
+            return reactivePersonService.checkExternalId(request.getId());
+        }
+        if (ObjectUtils.isEmpty(request.getName()) || ObjectUtils.isEmpty(request.getDateOfBirth())) {
+            return Mono.just(Optional.of(ErrorMessages.MISSING_ID_NAME_DOB));
+        }
+        log.debug("No ID, but fallback information available.");
+        return reactivePersonService.checkNameSurnameDob(request.getName(), request.getDateOfBirth());
+    }
+
+    @DeleteMapping(value = "/v1/people", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Void>> deletePeople(@RequestBody Mono<List<Long>> requestBody) {
+        return requestBody
+            .flatMap(ids -> reactivePersonService.softDeletePersons(new HashSet<>(ids)))
+            .then(Mono.fromSupplier(() -> {
+                log.debug("Soft Delete Complete. Responding with no content");
+                return ResponseEntity.ok().contentLength(0).build();
+            }));
+    }
+
+    @PostMapping(
+        value = "/v1/people",
+        consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<FullPerson>> postPerson(@RequestBody Mono<PersonDetailsRequest> personDetailsRequest) {
+        return personDetailsRequest.flatMap(request -> reactivePersonService
+            .retrieveAndUpdate(
+                request.getId(),
+                request.getName(),
+                request.getBirthDate(),
+                ids(request.getParent1(), request.getParent2()),
+                ids(request.getPartner()),
+                CollectionUtils.isEmpty(request.getChildren()) ?
+                    Set.of() :
+                    request.getChildren().stream().map(Relation::getId).collect(Collectors.toSet()))
+            .map(updated -> ResponseEntity.ok(PersonApiMapper.mapToApi(updated, request)))
+            // a deleted person is ignored, as on the servlet stack.
+            .defaultIfEmpty(ResponseEntity.ok().build()));
+    }
+
+    private static Set<Long> ids(Relation... relations) {
+        return Stream.of(relations)
+            .filter(Objects::nonNull)
+            .map(Relation::getId)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Same response as the {@link ApiExceptionHandler} gives on the servlet stack.
+     */
+    private static ResponseEntity<ErrorResponse> error(PinkApiException ex, String requestId) {
+        return ApiExceptionHandler.errorResponse(ex.getResponseCode(), ex.getMessage(), requestId, ex.isStale());
+    }
+}
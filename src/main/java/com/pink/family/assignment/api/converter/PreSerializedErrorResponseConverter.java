@@ -0,0 +1,124 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link ErrorResponse}s as JSON from bytes serialized up front.
+ * <p>
+ * Failed checks are the bulk of the traffic and their responses only differ in the reason and the request ID. The JSON
+ * for each known reason is serialized once, by the application's {@link ObjectMapper} so it is byte for byte what it
+ * would otherwise write, and only the escaped request ID is spliced in per response. Any other error response is
+ * serialized as usual.
+ */
+public class PreSerializedErrorResponseConverter extends AbstractHttpMessageConverter<ErrorResponse> {
+
+    private static final String REQUEST_ID_PLACEHOLDER = "REQUEST_ID_PLACEHOLDER";
+
+    private final ObjectMapper objectMapper;
+    private final String code;
+    private final Map<String, Template> templates = new HashMap<>();
+
+    /**
+     * @param code The response code the messages are pre-serialized for.
+     */
+    public PreSerializedErrorResponseConverter(ObjectMapper objectMapper, int code, List<String> messages) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.code = String.valueOf(code);
+        for (String message : messages) {
+            templates.put(message, template(message));
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ErrorResponse.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ErrorResponse readInternal(Class<? extends ErrorResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Error responses are only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ErrorResponse errorResponse, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        Template template = templateFor(errorResponse);
+        if (template == null) {
+            objectMapper.writeValue(body, errorResponse);
+            return;
+        }
+        template.write(requestId(errorResponse), body);
+    }
+
+    private Template templateFor(ErrorResponse errorResponse) {
+        if (errorResponse.getRequestId() == null || !code.equals(errorResponse.getCode())) {
+            return null;
+        }
+        return templates.get(errorResponse.getMessage());
+    }
+
+    private static byte[] requestId(ErrorResponse errorResponse) {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(errorResponse.getRequestId());
+    }
+
+    private Template template(String message) {
+        try {
+            ErrorResponse placeholder = new ErrorResponse().code(code).message(message).requestId(REQUEST_ID_PLACEHOLDER);
+            byte[] json = objectMapper.writeValueAsBytes(placeholder);
+            byte[] marker = REQUEST_ID_PLACEHOLDER.getBytes(StandardCharsets.UTF_8);
+            int at = indexOf(json, marker);
+            return new Template(
+                Arrays.copyOfRange(json, 0, at),
+                Arrays.copyOfRange(json, at + marker.length, json.length));
+        } catch (IOException e) {
+            throw new PinkSystemException("Could not serialize the error response for: " + message, e);
+        }
+    }
+
+    private static int indexOf(byte[] array, byte[] target) {
+        outer:
+        for (int i = 0; i <= array.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (array[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new PinkSystemException("Request ID placeholder not found in the serialized error response");
+    }
+
+    /**
+     * The serialized response around the request ID.
+     */
+    private record Template(byte[] prefix, byte[] suffix) {
+
+        void write(byte[] requestId, OutputStream out) throws IOException {
+            out.write(prefix);
+            out.write(requestId);
+            out.write(suffix);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes the API models as Protobuf ({@code application/x-protobuf}).
+ * <p>
+ * The models are the classes generated from the OpenAPI spec, not Protobuf messages, so Jackson does the encoding.
+ * The messages, and so the field numbers, are published in {@value #SCHEMA_RESOURCE} next to the OpenAPI spec: a model
+ * is encoded with the message of the same name. Only the API models with a message are handled, anything else (e.g.
+ * the list of IDs to delete, or the merge patch of a person) is left to the other converters.
+ */
+public class ProtobufJacksonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final String SCHEMA_RESOURCE = "family-api.proto";
+
+    private static final String MODEL_PACKAGE = ErrorResponse.class.getPackageName();
+
+    private final NativeProtobufSchema messages;
+    private final Map<Class<?>, ProtobufSchema> schemas = new ConcurrentHashMap<>();
+
+    public ProtobufJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_PROTOBUF);
+        Assert.isInstanceOf(ProtobufFactory.class, objectMapper.getFactory(), "ProtobufFactory required");
+        this.messages = loadMessages();
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return isModel(clazz) && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return type instanceof Class<?> clazz && isModel(clazz) && super.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        return isModel(clazz) && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+        throws IOException, HttpMessageNotWritableException
+    {
+        // the schema is picked by the type, which may not be passed in or be a supertype.
+        super.writeInternal(object, object.getClass(), outputMessage);
+    }
+
+    @Override
+    protected ObjectReader customizeReader(ObjectReader reader, JavaType javaType) {
+        return reader.with(schemaFor(javaType.getRawClass()));
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(
+        ObjectWriter writer, @Nullable JavaType javaType, @Nullable MediaType mediaType)
+    {
+        Assert.notNull(javaType, "The type to write is always known");
+        return writer.with(schemaFor(javaType.getRawClass()));
+    }
+
+    /**
+     * The schema the model is encoded with.
+     */
+    public ProtobufSchema schemaFor(Class<?> clazz) {
+        return schemas.computeIfAbsent(clazz, c -> messages.forType(c.getSimpleName()));
+    }
+
+    private boolean isModel(Class<?> clazz) {
+        return MODEL_PACKAGE.equals(clazz.getPackageName()) && messages.hasMessageType(clazz.getSimpleName());
+    }
+
+    private static NativeProtobufSchema loadMessages() {
+        URL resource = ProtobufJacksonHttpMessageConverter.class.getClassLoader().getResource(SCHEMA_RESOURCE);
+        if (resource == null) {
+            throw new PinkSystemException("Protobuf schema " + SCHEMA_RESOURCE + " is not on the classpath");
+        }
+        try {
+            return ProtobufSchemaLoader.std.loadNative(resource);
+        } catch (IOException e) {
+            throw new PinkSystemException("Could not load Protobuf schema " + SCHEMA_RESOURCE, e);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.pink.family.assignment.api.exception;
 
 import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.constants.ErrorMessages;
 import com.pink.family.assignment.service.LoggingService;
+import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+
+import java.util.stream.Collectors;
 
 /**
  * Exception handling for the API
@@ -18,6 +27,11 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 @RequiredArgsConstructor
 public class ApiExceptionHandler {
 
+    /**
+     * RFC 7234 warning used to mark a result served from the last known value.
+     */
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final LoggingService loggingService;
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
@@ -27,25 +41,102 @@ public class ApiExceptionHandler {
             .body("Malformed JSON request");
     }
 
+    /**
+     * A request breaking the constraints of the API spec, e.g. more than the 1000 persons a batch may hold.
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidBody(MethodArgumentNotValidException ex) {
+        String violations = ex.getBindingResult().getFieldErrors().stream()
+            .map(error -> error.getField() + " " + error.getDefaultMessage())
+            .collect(Collectors.joining(", "));
+        return invalidRequest(violations);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidParameters(HandlerMethodValidationException ex) {
+        String violations = ex.getAllErrors().stream()
+            .map(error -> error instanceof FieldError field ?
+                field.getField() + " " + field.getDefaultMessage() :
+                error.getDefaultMessage())
+            .collect(Collectors.joining(", "));
+        return invalidRequest(violations);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ErrorResponse> handleConstraintViolation(ConstraintViolationException ex) {
+        String violations = ex.getConstraintViolations().stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .collect(Collectors.joining(", "));
+        return invalidRequest(violations);
+    }
+
+    private ResponseEntity<ErrorResponse> invalidRequest(String violations) {
+        return errorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            ErrorMessages.INVALID_REQUEST + ": " + violations,
+            loggingService.getRequestId(),
+            false);
+    }
+
+    /**
+     * E.g. Protobuf for a request that has no Protobuf message.
+     */
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<Object> handleUnsupportedMediaType(HttpMediaTypeNotSupportedException ex) {
+        return ResponseEntity
+            .status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+            .body(ex.getMessage());
+    }
+
     /**
      * And expected error occurred during an API call.
      */
     @ExceptionHandler(PinkApiException.class)
     public ResponseEntity<ErrorResponse> handleApiError(PinkApiException ex) {
+        ResponseEntity<ErrorResponse> response =
+            errorResponse(ex.getResponseCode(), ex.getMessage(), loggingService.getRequestId(), ex.isStale());
+        if (ex.getRetryAfterSeconds() <= 0) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(response.getBody());
+    }
+
+    /**
+     * The response for an expected error, for callers that return it rather than throw.
+     */
+    public static ResponseEntity<ErrorResponse> errorResponse(int code, String message, String requestId, boolean stale) {
 
         ErrorResponse error = new ErrorResponse();
-        error.setCode(String.valueOf(ex.getResponseCode()));
-        error.setMessage(ex.getMessage());
-        error.setRequestId(loggingService.getRequestId());
-        return ResponseEntity.status(ex.getResponseCode()).body(error);
+        error.setCode(String.valueOf(code));
+        error.setMessage(message);
+        error.setRequestId(requestId);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(code);
+        if (stale) {
+            response.header(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return response.body(error);
     }
 
     /**
-     * Catch any unexpected errors
+     * Catch any unexpected errors. The exceptions Spring MVC raises itself, such as a method not allowed, carry their
+     * own status and headers and keep them.
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
 
+        if (ex instanceof org.springframework.web.ErrorResponse webError) {
+            log.debug("Request rejected by Spring MVC: {}", ex.getMessage());
+            ResponseEntity<ErrorResponse> response = errorResponse(
+                webError.getStatusCode().value(), webError.getBody().getDetail(), loggingService.getRequestId(), false);
+            return ResponseEntity.status(response.getStatusCode())
+                .headers(webError.getHeaders())
+                .body(response.getBody());
+        }
+
         log.error("Unexpected Error!", ex);
         ErrorResponse error = new ErrorResponse();
         error.setCode("500");
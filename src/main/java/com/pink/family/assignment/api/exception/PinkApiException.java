@@ -10,9 +10,32 @@ public class PinkApiException extends RuntimeException {
 
     private final int responseCode;
 
+    /**
+     * The outcome is the last known one, served because the database could not answer in time.
+     */
+    private final boolean stale;
+
+    /**
+     * Seconds the client should wait before trying again, sent as Retry-After. Zero if there is no such advice.
+     */
+    private final long retryAfterSeconds;
+
     public PinkApiException(String message, int code){
+        this(message, code, false);
+    }
+
+    public PinkApiException(String message, int code, boolean stale){
+        super(message);
+        responseCode = code;
+        this.stale = stale;
+        this.retryAfterSeconds = 0;
+    }
+
+    public PinkApiException(String message, int code, long retryAfterSeconds){
         super(message);
         responseCode = code;
+        this.stale = false;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
 
@@ -1,5 +1,9 @@
 package com.pink.family.assignment.api.exception;
 
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
 /**
  * Exception used to get debug information.
  */
@@ -12,4 +16,21 @@ public class PinkDebugException extends Exception {
     public static PinkDebugException inst(){
         return new PinkDebugException("DEBUG");
     }
+
+    /**
+     * Debug log event with a {@link PinkDebugException} attached for its stack trace. The exception is only created
+     * when debug is enabled, e.g. for a traced request, otherwise the event is a no-op.
+     * <pre>{@code
+     * PinkDebugException.atDebug(log)
+     *     .addArgument(() -> MaskUtil.maskExternalId(externalId))
+     *     .log("No person found for external ID {}");
+     * }</pre>
+     */
+    public static LoggingEventBuilder atDebug(Logger log) {
+        LoggingEventBuilder event = log.atDebug();
+        if (event instanceof NOPLoggingEventBuilder) {
+            return event;
+        }
+        return event.setCause(inst());
+    }
 }
@@ -8,4 +8,8 @@ public class PinkSystemException extends RuntimeException {
     public PinkSystemException(String message) {
         super(message);
     }
+
+    public PinkSystemException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,113 @@
+package com.pink.family.assignment.api.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.properties.AdmissionProperties;
+import com.pink.family.assignment.service.AdmissionControlService;
+import com.pink.family.assignment.service.AdmissionControlService.Admission;
+import com.pink.family.assignment.service.AdmissionControlService.Operation;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control in front of the {@link com.pink.family.assignment.api.controller.PersonController}, see
+ * {@link AdmissionControlService}. A request over its client's budget gets a 429 before its body is even read.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "pink.config.admission", name = "enabled", havingValue = "true")
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the client a request was admitted for. Bulk requests take the rest of their weight
+     * once their body is read, see {@link AdmissionControlService#charge(String, Operation, int)}.
+     */
+    public static final String CLIENT_ATTRIBUTE = AdmissionControlFilter.class.getName() + ".client";
+
+    private static final String PEOPLE_PATH = "/v1/people";
+    private static final String CHECK_PATH = "/v1/people/check-existing-person";
+    private static final String BATCH_CHECK_PATH = "/v1/people/check-existing-persons";
+    private static final String LOOKUP_PATH = "/v1/people/lookup";
+
+    private final AdmissionControlService admissionControlService;
+    private final AdmissionProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return operationOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        String client = admissionControlService.clientOf(
+            request.getHeader(properties.getClientHeader()),
+            request.getHeader(properties.getApiKeyHeader()));
+
+        try (Admission admission = admissionControlService.admit(client, operationOf(request))) {
+            if (admission.isAdmitted()) {
+                request.setAttribute(CLIENT_ATTRIBUTE, client);
+                chain.doFilter(request, response);
+            } else {
+                reject(response, admission);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, Admission admission) throws IOException {
+        ErrorResponse error = new ErrorResponse();
+        error.setCode(String.valueOf(HttpStatus.TOO_MANY_REQUESTS.value()));
+        error.setMessage(ErrorMessages.TOO_MANY_REQUESTS);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static Operation operationOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+
+        if ((CHECK_PATH.equals(path) || BATCH_CHECK_PATH.equals(path) || LOOKUP_PATH.equals(path))
+            && HttpMethod.POST.matches(method)) {
+            return Operation.CHECK;
+        }
+        if (path.startsWith(PEOPLE_PATH + "/") && HttpMethod.GET.matches(method)) {
+            // reading a person costs about what a check does.
+            return Operation.CHECK;
+        }
+        if (path.startsWith(PEOPLE_PATH + "/") && HttpMethod.PATCH.matches(method)) {
+            return Operation.UPDATE;
+        }
+        if (PEOPLE_PATH.equals(path)) {
+            if (HttpMethod.POST.matches(method)) {
+                return Operation.UPDATE;
+            }
+            if (HttpMethod.DELETE.matches(method)) {
+                return Operation.DELETE;
+            }
+        }
+        return null;
+    }
+}
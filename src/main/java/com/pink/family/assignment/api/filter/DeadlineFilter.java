@@ -0,0 +1,43 @@
+package com.pink.family.assignment.api.filter;
+
+import com.pink.family.assignment.properties.DeadlineProperties;
+import com.pink.family.assignment.service.DeadlineService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sets the deadline of every request, from the client's timeout header or the default, see {@link DeadlineService}.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "pink.config.deadline", name = "enabled", havingValue = "true")
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final DeadlineService deadlineService;
+    private final DeadlineProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        deadlineService.setDeadline(request.getHeader(properties.getHeader()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            deadlineService.clearDeadline();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.pink.family.assignment.api.filter;
+
+import com.pink.family.assignment.service.LoggingService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Clears the request ID from the {@link org.slf4j.MDC} once a request is done.
+ * <p>
+ * Platform worker threads are reused, so without this the next request on the same thread starts out with the
+ * previous request's ID until it sets its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MdcCleanupFilter extends OncePerRequestFilter {
+
+    private final LoggingService loggingService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            loggingService.clearRequestId();
+        }
+    }
+}
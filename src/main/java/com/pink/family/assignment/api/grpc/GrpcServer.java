@@ -0,0 +1,85 @@
+package com.pink.family.assignment.api.grpc;
+
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.properties.GrpcProperties;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gRPC server next to the web server, on its own port, started and stopped with the application context.
+ * <p>
+ * Clients are expected to keep their connection (and streams) open, HTTP/2 multiplexes the calls over it. With
+ * {@code spring.threads.virtual.enabled=true} calls are handled on virtual threads, as REST requests are.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "pink.config.grpc", name = "enabled", havingValue = "true")
+public class GrpcServer implements SmartLifecycle {
+
+    private final PersonCheckGrpcService personCheckGrpcService;
+    private final GrpcProperties grpcProperties;
+    private final Environment environment;
+
+    private Server server;
+    private ExecutorService executor;
+
+    @Override
+    public void start() {
+        executor = Threading.VIRTUAL.isActive(environment) ?
+            Executors.newVirtualThreadPerTaskExecutor() :
+            Executors.newCachedThreadPool();
+
+        server = NettyServerBuilder.forPort(grpcProperties.getPort())
+            .addService(personCheckGrpcService)
+            .executor(executor)
+            .maxInboundMessageSize((int) grpcProperties.getMaxInboundMessageSize().toBytes())
+            .build();
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new PinkSystemException("Could not start the gRPC server on port " + grpcProperties.getPort(), e);
+        }
+        log.info("gRPC server listening on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(grpcProperties.getShutdownGracePeriod().toMillis(), TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null && !server.isShutdown();
+    }
+
+    /**
+     * The port the server listens on, useful when configured with port 0.
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,165 @@
+package com.pink.family.assignment.api.grpc;
+
+import com.pink.family.api.grpc.BatchCheckRequest;
+import com.pink.family.api.grpc.BatchCheckResponse;
+import com.pink.family.api.grpc.CheckResponse;
+import com.pink.family.api.grpc.ErrorResponse;
+import com.pink.family.api.grpc.PersonCheckServiceGrpc;
+import com.pink.family.api.grpc.SpecificPersonCheckRequest;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.properties.GrpcProperties;
+import com.pink.family.assignment.service.LoggingService;
+import com.pink.family.assignment.service.PersonService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * gRPC implementation of the person check, see spec/family-check.proto.
+ * <p>
+ * Gives the same results as the REST API. A check that fails is not a gRPC error, the response carries the same
+ * {@link ErrorResponse} the REST API would have returned with its 444, so a single failing person never ends a batch or
+ * a stream.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "pink.config.grpc", name = "enabled", havingValue = "true")
+public class PersonCheckGrpcService extends PersonCheckServiceGrpc.PersonCheckServiceImplBase {
+
+    private final PersonService personService;
+    private final LoggingService loggingService;
+    private final GrpcProperties grpcProperties;
+
+    @Override
+    public void check(SpecificPersonCheckRequest request, StreamObserver<CheckResponse> responseObserver) {
+        responseObserver.onNext(checkOne(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void batchCheck(BatchCheckRequest request, StreamObserver<BatchCheckResponse> responseObserver) {
+        if (request.getRequestsCount() > grpcProperties.getMaxBatchSize()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                .withDescription("At most " + grpcProperties.getMaxBatchSize() + " persons can be checked per batch")
+                .asRuntimeException());
+            return;
+        }
+
+        BatchCheckResponse.Builder response = BatchCheckResponse.newBuilder();
+        for (SpecificPersonCheckRequest check : request.getRequestsList()) {
+            response.addResponses(checkOne(check));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Requests are only read off the stream while the client keeps up with the responses, so a slow reader holds back
+     * its own requests instead of having the responses pile up in memory.
+     */
+    @Override
+    public StreamObserver<SpecificPersonCheckRequest> checkStream(StreamObserver<CheckResponse> responseObserver) {
+        ServerCallStreamObserver<CheckResponse> serverObserver =
+            (ServerCallStreamObserver<CheckResponse>) responseObserver;
+        serverObserver.disableAutoRequest();
+
+        AtomicBoolean wasReady = new AtomicBoolean();
+        serverObserver.setOnReadyHandler(() -> {
+            if (serverObserver.isReady() && !wasReady.getAndSet(true)) {
+                serverObserver.request(1);
+            }
+        });
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(SpecificPersonCheckRequest request) {
+                serverObserver.onNext(checkOne(request));
+                if (serverObserver.isReady()) {
+                    serverObserver.request(1);
+                } else {
+                    // the on ready handler asks for the next one once the client catches up.
+                    wasReady.set(false);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Check stream ended by the client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                serverObserver.onCompleted();
+            }
+        };
+    }
+
+    private CheckResponse checkOne(SpecificPersonCheckRequest request) {
+        loggingService.setRequestId(request.getRequestId());
+        String requestId = loggingService.getRequestId();
+        try {
+            CheckResultDto result = check(request);
+            CheckResponse.Builder response = CheckResponse.newBuilder()
+                .setRequestId(requestId)
+                .setStale(result.isStale());
+            return result.asOptional()
+                .map(reason -> response.setError(error(444, reason, requestId)))
+                .orElseGet(() -> response.setPassed(true))
+                .build();
+        } catch (PinkApiException e) {
+            return CheckResponse.newBuilder()
+                .setRequestId(requestId)
+                .setStale(e.isStale())
+                .setError(error(e.getResponseCode(), e.getMessage(), requestId))
+                .build();
+        } catch (Exception e) {
+            log.error("Unexpected Error!", e);
+            return CheckResponse.newBuilder()
+                .setRequestId(requestId)
+                .setError(error(500, e.getMessage(), requestId))
+                .build();
+        } finally {
+            loggingService.clearRequestId();
+        }
+    }
+
+    private CheckResultDto check(SpecificPersonCheckRequest request) {
+        if (request.hasId()) {
+            return personService.checkExternalId(request.getId());
+        }
+        if (ObjectUtils.isEmpty(request.getName()) || ObjectUtils.isEmpty(request.getDateOfBirth())) {
+            return CheckResultDto.fresh(Optional.of(ErrorMessages.MISSING_ID_NAME_DOB));
+        }
+        log.debug("No ID, but fallback information available.");
+        return personService.checkNameSurnameDob(request.getName(), parseDate(request.getDateOfBirth()));
+    }
+
+    private static LocalDate parseDate(String dateOfBirth) {
+        try {
+            return LocalDate.parse(dateOfBirth);
+        } catch (DateTimeParseException e) {
+            throw new PinkApiException("Date of Birth must be in YYYY-MM-DD format", 400);
+        }
+    }
+
+    private static ErrorResponse error(int code, String message, String requestId) {
+        return ErrorResponse.newBuilder()
+            .setCode(String.valueOf(code))
+            .setMessage(message == null ? "" : message)
+            .setRequestId(requestId)
+            .build();
+    }
+}
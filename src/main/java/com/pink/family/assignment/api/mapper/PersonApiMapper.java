@@ -3,17 +3,136 @@ package com.pink.family.assignment.api.mapper;
 import com.pink.family.api.rest.server.model.FullPerson;
 import com.pink.family.api.rest.server.model.PersonBasic;
 import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.PersonMergePatch;
 import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
 import com.pink.family.assignment.dto.PersonDto;
 import lombok.extern.slf4j.Slf4j;
-
+import org.springframework.util.ObjectUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class PersonApiMapper {
 
+    /**
+     * Relations that can be selected with the {@code fields} parameter of {@code GET /v1/people/{id}}. The person's
+     * own ID, name and date of birth are always returned.
+     */
+    public enum Field {
+        PARENTS, PARTNER, CHILDREN
+    }
+
+    /**
+     * @param fields comma separated, every relation if not given.
+     */
+    public static Set<Field> parseFields(String fields) {
+        if (fields == null) {
+            return EnumSet.allOf(Field.class);
+        }
+
+        Set<Field> selected = EnumSet.noneOf(Field.class);
+        for (String field : fields.split(",")) {
+            if (ObjectUtils.isEmpty(field.trim())) {
+                continue;
+            }
+            try {
+                selected.add(Field.valueOf(field.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new PinkApiException("Unknown field " + field.trim() + ", expected parents, partner or children", 400);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Map a person with only the selected relations, parents and children ordered by ID.
+     */
+    public static FullPerson mapToApi(PersonDto dto, Set<Field> fields) {
+        if (dto == null) {
+            return null;
+        }
+
+        FullPerson person = new FullPerson()
+            .id(dto.getExternalId())
+            .name(dto.getName())
+            .birthDate(dto.getDateOfBirth());
+
+        if (fields.contains(Field.PARENTS)) {
+            List<PersonDto> parents = sorted(dto.getRelations(RelationshipType.CHILD));
+            if (!parents.isEmpty()) {
+                person.setParent1(mapPersonDtoToBasic(parents.get(0)));
+            }
+            if (parents.size() > 1) {
+                person.setParent2(mapPersonDtoToBasic(parents.get(1)));
+            }
+        }
+        if (fields.contains(Field.PARTNER)) {
+            sorted(dto.getRelations(RelationshipType.PARTNER)).stream()
+                .findFirst()
+                .ifPresent(partner -> person.setPartner(mapPersonDtoToBasic(partner)));
+        }
+        if (fields.contains(Field.CHILDREN)) {
+            sorted(dto.getRelations(RelationshipType.PARENT))
+                .forEach(child -> person.addChildrenItem(mapPersonDtoToBasic(child)));
+        }
+        return person;
+    }
+
+    /**
+     * Weak entity tag of what {@link #mapToApi(PersonDto, Set)} would return for the person, taken from the person and
+     * the selected relations without mapping or serializing them. Changes with every change to any of them, as well
+     * as with the selection.
+     */
+    public static String eTag(PersonDto dto, Set<Field> fields) {
+        StringBuilder version = new StringBuilder();
+        appendVersion(version, dto);
+        for (Field field : fields) {
+            version.append('|').append(field.name());
+            RelationshipType type = switch (field) {
+                case PARENTS -> RelationshipType.CHILD;
+                case PARTNER -> RelationshipType.PARTNER;
+                case CHILDREN -> RelationshipType.PARENT;
+            };
+            sorted(dto.getRelations(type)).forEach(related -> appendVersion(version, related));
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(version.toString().getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new PinkSystemException("SHA-256 not available", e);
+        }
+    }
+
+    private static void appendVersion(StringBuilder version, PersonDto person) {
+        version.append(';').append(person.getExternalId())
+            .append(',').append(person.getName())
+            .append(',').append(person.getDateOfBirth());
+    }
+
+    private static List<PersonDto> sorted(Set<PersonDto> persons) {
+        return persons.stream()
+            .sorted(Comparator.comparing(PersonDto::getExternalId, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+    }
+
     public static FullPerson mapToApi(PersonDto dto, PersonDetailsRequest request) {
         if (dto == null) {
             return null;
@@ -68,6 +187,35 @@ public class PersonApiMapper {
         return person;
     }
 
+    /**
+     * The relations named in a merge patch, keyed the way the person's own relationships are stored: parents are
+     * {@link RelationshipType#CHILD}, children {@link RelationshipType#PARENT}. A relation set to null maps to an
+     * empty set, relations left out of the patch are left out of the map.
+     */
+    public static Map<RelationshipType, Set<Long>> mapRelations(PersonMergePatch patch) {
+        Map<RelationshipType, Set<Long>> relations = new EnumMap<>(RelationshipType.class);
+        if (patch.getPartner().isPresent()) {
+            relations.put(RelationshipType.PARTNER, idSet(Collections.singletonList(patch.getPartner().get())));
+        }
+        if (patch.getParents().isPresent()) {
+            Set<Long> parents = idSet(patch.getParents().get());
+            if (parents.size() > 2) {
+                throw new PinkApiException("A person has at most two parents", 400);
+            }
+            relations.put(RelationshipType.CHILD, parents);
+        }
+        if (patch.getChildren().isPresent()) {
+            relations.put(RelationshipType.PARENT, idSet(patch.getChildren().get()));
+        }
+        return relations;
+    }
+
+    private static Set<Long> idSet(List<Long> ids) {
+        return ids == null ?
+            Set.of() :
+            ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
     private static PersonBasic mapPersonDtoToBasic(PersonDto p) {
         if (p == null) return null;
         return new PersonBasic()
@@ -3,6 +3,8 @@ package com.pink.family.assignment.constants;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Hold common error messages for convenience.
  */
@@ -14,4 +16,23 @@ public class ErrorMessages {
         public static final String NO_UNDERAGE_CHILD = "Does not have a child under 18";
         public static final String NOT_EXACTLY_3_CHILDREN = "Does not have exactly 3 children";
         public static final String NO_DISTINCT_RECORD = "Could not find a single matching record";
+        public static final String MISSING_ID_NAME_DOB = "Request is missing ID, Name or Date of Birth";
+        public static final String TOO_MANY_REQUESTS = "Too many requests, retry later";
+        public static final String DEADLINE_EXCEEDED = "Request deadline exceeded";
+        public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency-Key was already used for a different request";
+        public static final String IDEMPOTENCY_STORE_FULL = "Too many updates with an Idempotency-Key kept, try again later";
+        public static final String UNREADABLE_CHECK_REQUEST = "Check request could not be read";
+        public static final String INVALID_REQUEST = "Request is not valid";
+
+        /**
+         * Every reason a check can fail with, the 444 responses for these are serialized up front.
+         */
+        public static final List<String> CHECK_FAILURES = List.of(
+            NO_RECORD,
+            NO_PARTNER,
+            NO_SHARED_CHILDREN,
+            NO_UNDERAGE_CHILD,
+            NOT_EXACTLY_3_CHILDREN,
+            NO_DISTINCT_RECORD,
+            MISSING_ID_NAME_DOB);
     }
@@ -15,4 +15,37 @@ public class MeterKeys {
     public static final String COUNT_CHECK_PARTNER_CHILDREN_ID = "CHECK.PARTNER.CHILDREN.ID.COUNT";
     public static final String TIME_RETRIEVE_AND_UPDATE = "RETRIEVE.UPDATE.TIME";
     public static final String COUNT_RETRIEVE_AND_UPDATE = "RETRIEVE.UPDATE.COUNT";
+    public static final String TIME_PATCH = "PATCH.TIME";
+    public static final String COUNT_PATCH = "PATCH.COUNT";
+    public static final String COUNT_CACHE_SHRINK = "CACHE.HEAP.PRESSURE.SHRINK.COUNT";
+    public static final String COUNT_CHECK_STALE = "CHECK.STALE.COUNT";
+    public static final String COUNT_DB_CIRCUIT_OPEN = "DB.CIRCUIT.OPEN.COUNT";
+    public static final String COUNT_DB_CIRCUIT_REJECTED = "DB.CIRCUIT.REJECTED.COUNT";
+    public static final String TIME_DB_CIRCUIT_OPEN = "DB.CIRCUIT.OPEN.TIME";
+    public static final String GAUGE_DB_CIRCUIT_OPEN = "DB.CIRCUIT.OPEN";
+    public static final String COUNT_TOMBSTONE_HIT = "TOMBSTONE.HIT.COUNT";
+    public static final String COUNT_ADMISSION_ADMITTED = "ADMISSION.ADMITTED.COUNT";
+    public static final String COUNT_ADMISSION_REJECTED = "ADMISSION.REJECTED.COUNT";
+    public static final String GAUGE_DB_LIMIT = "DB.LIMIT";
+    public static final String GAUGE_DB_LIMIT_IN_FLIGHT = "DB.LIMIT.IN.FLIGHT";
+    public static final String GAUGE_DB_LIMIT_QUEUED = "DB.LIMIT.QUEUED";
+    public static final String COUNT_DB_LIMIT_REJECTED = "DB.LIMIT.REJECTED.COUNT";
+    public static final String GAUGE_DB_LANE_IN_USE = "DB.LANE.IN.USE";
+    public static final String GAUGE_DB_LANE_WAITING = "DB.LANE.WAITING";
+    public static final String COUNT_DB_LANE_REJECTED = "DB.LANE.REJECTED.COUNT";
+    public static final String TIME_DB_LANE = "DB.LANE.TIME";
+    public static final String COUNT_IDEMPOTENT_REPLAYED = "IDEMPOTENT.REPLAYED.COUNT";
+    public static final String COUNT_IDEMPOTENT_WAITED = "IDEMPOTENT.WAITED.COUNT";
+    public static final String GAUGE_IDEMPOTENT_STORED = "IDEMPOTENT.STORED";
+    public static final String COUNT_IDEMPOTENT_REFUSED = "IDEMPOTENT.REFUSED.COUNT";
+    public static final String COUNT_JOB_CHECKED = "JOB.CHECKED.COUNT";
+    public static final String GAUGE_JOB_QUEUED = "JOB.QUEUED";
+    public static final String COUNT_JOB_DELETED = "JOB.DELETED.COUNT";
+    public static final String GAUGE_DELETE_JOB_QUEUED = "JOB.DELETE.QUEUED";
+    public static final String COUNT_PERSONS_PURGED = "PURGE.PERSONS.COUNT";
+    public static final String COUNT_GROUP_COMMIT = "GROUP.COMMIT.COUNT";
+    public static final String COUNT_GROUP_COMMIT_UPDATES = "GROUP.COMMIT.UPDATES.COUNT";
+    public static final String COUNT_GROUP_COMMIT_SPLIT = "GROUP.COMMIT.SPLIT.COUNT";
+    public static final String GAUGE_GROUP_COMMIT_QUEUED = "GROUP.COMMIT.QUEUED";
+    public static final String COUNT_PERSON_LOCK_TIMEOUT = "PERSON.LOCK.TIMEOUT.COUNT";
 }
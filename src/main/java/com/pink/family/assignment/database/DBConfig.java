@@ -1,18 +1,34 @@
 package com.pink.family.assignment.database;
 
+import com.pink.family.assignment.CacheConfig;
 import com.pink.family.assignment.database.entity.PersonEntity;
 import com.pink.family.assignment.database.repository.PersonRepository;
+import com.pink.family.assignment.properties.PersonLockProperties;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
  * Configuration used to setup JPA and Hibernate.
+ * The DAOs read through the person graph cache, so the cache config is always pulled in along with it, and may lock
+ * rows as configured by {@link PersonLockProperties}.
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = {
+    // the reactive stack sets up R2DBC itself, see ReactiveDBConfig.
+    R2dbcAutoConfiguration.class,
+    R2dbcDataAutoConfiguration.class,
+    R2dbcRepositoriesAutoConfiguration.class,
+    R2dbcTransactionManagerAutoConfiguration.class
+})
 @EnableTransactionManagement
 @EnableJpaRepositories(basePackageClasses = PersonRepository.class)
 @EntityScan(basePackageClasses = PersonEntity.class)
+@Import({CacheConfig.class, PersonLockProperties.class})
 public class DBConfig {
 }
@@ -0,0 +1,78 @@
+package com.pink.family.assignment.database.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the retained size in bytes of the entries held by the person caches.
+ * <p>
+ * The figures assume a 64 bit JVM with compressed oops and are deliberately rough, the point is that a person with a
+ * hundred relations weighs a lot more than one with none, not to be byte exact.
+ * <p>
+ * Besides the person graph, the last known check results are weighed when given a maximum weight of their own: a
+ * check key and either the shared empty string of a passed check or the reason it failed, all strings.
+ */
+public class PersonCacheWeigher implements Weigher<Object, Object> {
+
+    /**
+     * Caffeine's own bookkeeping per entry (node, hash table slot, policy links).
+     */
+    static final int ENTRY_OVERHEAD = 64;
+    static final int OBJECT_HEADER = 16;
+    static final int REFERENCE = 4;
+    static final int BOXED_LONG = 16;
+    static final int LOCAL_DATE = 24;
+    static final int STRING_OVERHEAD = 40;
+    static final int COLLECTION_OVERHEAD = 48;
+    /**
+     * A hash set/map node: header, hash, key, value and next pointer.
+     */
+    static final int HASH_NODE = 32;
+
+    @Override
+    public int weigh(@NonNull Object key, @NonNull Object value) {
+        long weight = ENTRY_OVERHEAD + estimate(key) + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long) {
+            return BOXED_LONG;
+        }
+        if (value instanceof String s) {
+            // The empty string is a single shared instance, only the reference to it counts.
+            return s.isEmpty() ? REFERENCE : STRING_OVERHEAD + s.length();
+        }
+        if (value instanceof PersonNode node) {
+            return OBJECT_HEADER
+                + 4L * REFERENCE + 1
+                + estimate(node.getInternalId())
+                + estimate(node.getExternalId())
+                + estimate(node.getName())
+                + (node.getDateOfBirth() == null ? 0 : LOCAL_DATE);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long weight = COLLECTION_OVERHEAD;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                // Enum keys are shared singletons, only the slot and the value count.
+                weight += (entry.getKey() instanceof Enum<?> ? REFERENCE : HASH_NODE + estimate(entry.getKey()))
+                    + estimate(entry.getValue());
+            }
+            return weight;
+        }
+        if (value instanceof Collection<?> collection) {
+            long weight = COLLECTION_OVERHEAD;
+            for (Object element : collection) {
+                weight += HASH_NODE + estimate(element);
+            }
+            return weight;
+        }
+        return OBJECT_HEADER;
+    }
+}
@@ -0,0 +1,287 @@
+package com.pink.family.assignment.database.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.pink.family.assignment.CacheConfig;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
+import com.pink.family.assignment.database.mapper.PersonDbMapper;
+import com.pink.family.assignment.database.repository.PersonRelationshipRepository;
+import com.pink.family.assignment.database.repository.PersonRepository;
+import com.pink.family.assignment.dto.PersonDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Normalized cache of the person graph.
+ * <p>
+ * Rather than caching a whole sub graph per search key, every person is cached once by internal ID (as a
+ * {@link PersonNode}) along with its adjacency list (related internal IDs per {@link RelationshipType}).
+ * A neighbourhood is then assembled from memory, level by level, and only the nodes that are not cached are fetched
+ * using one batched query per level.
+ * <p>
+ * Families overlap heavily (partners and children are roots in their own checks) so storing each person once gives a
+ * much better hit ratio for the same amount of memory.
+ */
+@Slf4j
+@Service
+public class PersonGraphCache {
+
+    private final PersonRepository personRepository;
+    private final PersonRelationshipRepository personRelationshipRepository;
+
+    private final Cache<Object, Object> internalIdByExternalId;
+    private final Cache<Object, Object> internalIdsByNameDob;
+    private final Cache<Object, Object> nodes;
+    private final Cache<Object, Object> adjacency;
+
+    public PersonGraphCache(
+        PersonRepository personRepository,
+        PersonRelationshipRepository personRelationshipRepository,
+        CacheManager cacheManager)
+    {
+        this.personRepository = personRepository;
+        this.personRelationshipRepository = personRelationshipRepository;
+        this.internalIdByExternalId = nativeCache(cacheManager, CacheConfig.Constant.PERSON_BY_EXTERNAL_ID);
+        this.internalIdsByNameDob = nativeCache(cacheManager, CacheConfig.Constant.PERSONS_BY_NAME_DOB);
+        this.nodes = nativeCache(cacheManager, CacheConfig.Constant.PERSON_NODE_BY_INTERNAL_ID);
+        this.adjacency = nativeCache(cacheManager, CacheConfig.Constant.ADJACENCY_BY_INTERNAL_ID);
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        if (cacheManager.getCache(name) instanceof CaffeineCache caffeineCache) {
+            return caffeineCache.getNativeCache();
+        }
+        throw new PinkSystemException("Cache " + name + " is not configured as a caffeine cache");
+    }
+
+    /**
+     * Resolve an external ID to an internal ID.
+     */
+    public Optional<Long> findInternalId(Long externalId) {
+        Object cached = internalIdByExternalId.getIfPresent(externalId);
+        if (cached instanceof Long internalId) {
+            return Optional.of(internalId);
+        }
+
+        Optional<Long> found = personRepository.findInternalIdByExternalId(externalId);
+        found.ifPresent(id -> internalIdByExternalId.put(externalId, id));
+        return found;
+    }
+
+    /**
+     * Resolve several external IDs to internal IDs at once, those not in the cache with a single query.
+     *
+     * @return internal ID by external ID, without the external IDs that are not known.
+     */
+    public Map<Long, Long> findInternalIds(Set<Long> externalIds) {
+        Map<Long, Long> found = new HashMap<>();
+        internalIdByExternalId.getAllPresent(externalIds).forEach((k, v) -> found.put((Long) k, (Long) v));
+
+        Set<Long> missing = new HashSet<>(externalIds);
+        missing.removeAll(found.keySet());
+
+        if (!missing.isEmpty()) {
+            personRepository.findIdPairsByExternalIdIn(missing).forEach(pair -> {
+                internalIdByExternalId.put(pair.getExternalId(), pair.getInternalId());
+                found.put(pair.getExternalId(), pair.getInternalId());
+            });
+        }
+        return found;
+    }
+
+    /**
+     * Resolve a name and date of birth to all matching internal IDs.
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Long> findInternalIds(String name, LocalDate dob) {
+        String key = nameDobKey(name, dob);
+        Object cached = internalIdsByNameDob.getIfPresent(key);
+        if (cached instanceof Set<?> internalIds) {
+            return (Set<Long>) internalIds;
+        }
+
+        Set<Long> found = Set.copyOf(personRepository.findInternalIdsByNameAndDateOfBirth(name, dob));
+        if (!found.isEmpty()) {
+            internalIdsByNameDob.put(key, found);
+        }
+        return found;
+    }
+
+    /**
+     * Assemble the neighbourhood of a single person up to the given depth.
+     */
+    public Optional<PersonDto> loadGraph(Long internalId, int depth) {
+        return loadGraphs(Set.of(internalId), depth).stream().findFirst();
+    }
+
+    /**
+     * Assemble the neighbourhood of several persons up to the given depth.
+     * Every root is mapped separately, but the nodes are loaded for all roots together.
+     */
+    public Set<PersonDto> loadGraphs(Set<Long> rootInternalIds, int depth) {
+        if (CollectionUtils.isEmpty(rootInternalIds)) {
+            return Set.of();
+        }
+
+        Map<Long, PersonNode> loadedNodes = new HashMap<>();
+        Map<Long, Map<RelationshipType, Set<Long>>> loadedAdjacency = new HashMap<>();
+
+        Set<Long> frontier = new LinkedHashSet<>(rootInternalIds);
+        for (int level = 0; level <= depth && !frontier.isEmpty(); level++) {
+            loadedNodes.putAll(getNodes(frontier));
+
+            if (level == depth) {
+                break;
+            }
+
+            Map<Long, Map<RelationshipType, Set<Long>>> levelAdjacency = getAdjacency(frontier);
+            loadedAdjacency.putAll(levelAdjacency);
+
+            Set<Long> next = new LinkedHashSet<>();
+            levelAdjacency.values().forEach(byType -> byType.values().forEach(next::addAll));
+            next.removeAll(loadedNodes.keySet());
+            frontier = next;
+        }
+
+        return rootInternalIds.stream()
+            .map(root -> PersonDbMapper.mapDto(root, depth, loadedNodes, loadedAdjacency))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    }
+
+    private Map<Long, PersonNode> getNodes(Set<Long> internalIds) {
+        Map<Long, PersonNode> found = new HashMap<>();
+        nodes.getAllPresent(internalIds).forEach((k, v) -> found.put((Long) k, (PersonNode) v));
+
+        Set<Long> missing = new HashSet<>(internalIds);
+        missing.removeAll(found.keySet());
+
+        if (!missing.isEmpty()) {
+            log.debug("Person node cache hit {} miss {}", found.size(), missing.size());
+            personRepository.findAllByInternalIdIn(missing).forEach(entity -> {
+                PersonNode node = PersonDbMapper.mapNode(entity);
+                nodes.put(node.getInternalId(), node);
+                found.put(node.getInternalId(), node);
+            });
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Map<RelationshipType, Set<Long>>> getAdjacency(Set<Long> internalIds) {
+        Map<Long, Map<RelationshipType, Set<Long>>> found = new HashMap<>();
+        adjacency.getAllPresent(internalIds)
+            .forEach((k, v) -> found.put((Long) k, (Map<RelationshipType, Set<Long>>) v));
+
+        Set<Long> missing = new HashSet<>(internalIds);
+        missing.removeAll(found.keySet());
+
+        if (!missing.isEmpty()) {
+            log.debug("Adjacency cache hit {} miss {}", found.size(), missing.size());
+            List<PersonRelationshipId> relationshipIds = personRelationshipRepository.findIdsByPersonIdIn(missing);
+
+            Map<Long, Map<RelationshipType, Set<Long>>> building = new HashMap<>();
+            missing.forEach(id -> building.put(id, new EnumMap<>(RelationshipType.class)));
+            for (PersonRelationshipId relId : relationshipIds) {
+                building.get(relId.getPersonId())
+                    .computeIfAbsent(relId.getRelationshipType(), t -> new LinkedHashSet<>())
+                    .add(relId.getRelatedPersonId());
+            }
+
+            building.forEach((id, byType) -> {
+                Map<RelationshipType, Set<Long>> frozen = freeze(byType);
+                adjacency.put(id, frozen);
+                found.put(id, frozen);
+            });
+        }
+        return found;
+    }
+
+    private static Map<RelationshipType, Set<Long>> freeze(Map<RelationshipType, Set<Long>> byType) {
+        Map<RelationshipType, Set<Long>> frozen = new EnumMap<>(RelationshipType.class);
+        byType.forEach((type, ids) -> frozen.put(type, Collections.unmodifiableSet(ids)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * Evict persons and their adjacency lists.
+     * Evicts immediately and again once the surrounding transaction (if any) completes, so that a concurrent reader
+     * can not keep data that was read before the change was committed.
+     */
+    public void evict(Collection<Long> internalIds) {
+        if (CollectionUtils.isEmpty(internalIds)) {
+            return;
+        }
+        Set<Long> toEvict = Set.copyOf(internalIds);
+        evictNowAndAfterCompletion(() -> {
+            nodes.invalidateAll(toEvict);
+            adjacency.invalidateAll(toEvict);
+        });
+    }
+
+    /**
+     * Evict the external ID lookup.
+     */
+    public void evictExternalId(Long externalId) {
+        if (externalId == null) {
+            return;
+        }
+        evictNowAndAfterCompletion(() -> internalIdByExternalId.invalidate(externalId));
+    }
+
+    /**
+     * Evict the name and date of birth lookup.
+     */
+    public void evictNameDob(String name, LocalDate dob) {
+        String key = nameDobKey(name, dob);
+        evictNowAndAfterCompletion(() -> internalIdsByNameDob.invalidate(key));
+    }
+
+    /**
+     * Drop everything, used when the underlying tables are cleared.
+     */
+    public void clear() {
+        evictNowAndAfterCompletion(() -> {
+            internalIdByExternalId.invalidateAll();
+            internalIdsByNameDob.invalidateAll();
+            nodes.invalidateAll();
+            adjacency.invalidateAll();
+        });
+    }
+
+    private static void evictNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static String nameDobKey(String name, LocalDate dob) {
+        return name + '_' + dob;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pink.family.assignment.database.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of a single person row, without any relationships.
+ * This is what gets stored in the normalized person cache, so that each person is only stored once no matter how
+ * many families they are part of.
+ */
+@Value
+@Builder
+public class PersonNode {
+    Long internalId;
+    Long externalId;
+    String name;
+    LocalDate dateOfBirth;
+    boolean deleted;
+}
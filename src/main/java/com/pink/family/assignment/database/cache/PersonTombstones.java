@@ -0,0 +1,155 @@
+package com.pink.family.assignment.database.cache;
+
+import com.pink.family.assignment.database.repository.ArchivedPersonRepository;
+import com.pink.family.assignment.database.repository.PersonRepository;
+import com.pink.family.assignment.util.CompressedLongBitmap;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * In memory set of the external IDs of soft deleted persons, including the ones purged into the archive since.
+ * <p>
+ * Deleted persons are ignored in all future operations, so both the checks and the updates consult this before going
+ * to the database at all. It is rebuilt from the database at startup and kept up to date by the DAO.
+ * <p>
+ * Only a hit is conclusive. An ID that is not in here may still be deleted (e.g. if the rebuild failed), in which case
+ * the caller finds out from the database as before.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PersonTombstones {
+
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+
+    private final PersonRepository personRepository;
+    private final ArchivedPersonRepository archivedPersonRepository;
+
+    private final CompressedLongBitmap deleted = new CompressedLongBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    void rebuild() {
+        try {
+            long count = load(personRepository::findDeletedExternalIdsAfter);
+            // persons deleted long ago have been moved to the archive by the purge, they are still deleted.
+            count += load(archivedPersonRepository::findExternalIdsAfter);
+
+            log.info("Loaded {} tombstones ({} bytes)", count, sizeInBytes());
+        } catch (DataAccessException e) {
+            // not fatal, deleted persons are then found out about in the database.
+            log.warn("Could not load tombstones, deleted persons will be looked up in the database", e);
+        }
+    }
+
+    private long load(BiFunction<Long, Pageable, List<Long>> findAfter) {
+        long count = 0;
+        Long after = Long.MIN_VALUE;
+        List<Long> batch;
+        do {
+            batch = findAfter.apply(after, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            addAll(batch);
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                after = batch.getLast();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return count;
+    }
+
+    public boolean isDeleted(Long externalId) {
+        if (externalId == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return deleted.contains(externalId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record the external IDs as deleted once the current transaction commits (or right away if there is none), so a
+     * rollback never leaves a person marked deleted.
+     */
+    public void markDeleted(Collection<Long> externalIds) {
+        afterCommit(() -> addAll(externalIds));
+    }
+
+    /**
+     * Forget the external IDs, e.g. because the persons were removed. Done right away, as a missing tombstone is only
+     * a missed shortcut.
+     */
+    public void unmark(Collection<Long> externalIds) {
+        lock.writeLock().lock();
+        try {
+            externalIds.stream().filter(Objects::nonNull).forEach(deleted::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            deleted.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return deleted.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addAll(Collection<Long> externalIds) {
+        lock.writeLock().lock();
+        try {
+            externalIds.stream().filter(Objects::nonNull).forEach(deleted::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
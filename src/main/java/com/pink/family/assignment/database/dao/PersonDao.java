@@ -1,20 +1,37 @@
 package com.pink.family.assignment.database.dao;
 
 import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.database.cache.PersonGraphCache;
+import com.pink.family.assignment.database.cache.PersonNode;
+import com.pink.family.assignment.database.cache.PersonTombstones;
+import com.pink.family.assignment.database.entity.ArchivedPersonEntity;
+import com.pink.family.assignment.database.entity.ArchivedPersonRelationshipEntity;
 import com.pink.family.assignment.database.entity.PersonEntity;
 import com.pink.family.assignment.database.entity.PersonRelationshipEntity;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
 import com.pink.family.assignment.database.mapper.PersonDbMapper;
+import com.pink.family.assignment.database.repository.ArchivedPersonRelationshipRepository;
+import com.pink.family.assignment.database.repository.ArchivedPersonRepository;
 import com.pink.family.assignment.database.repository.PersonRepository;
 import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.dto.PersonUpdateDto;
+import com.pink.family.assignment.properties.PersonLockProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -36,6 +53,19 @@ public class PersonDao {
 
     private final PersonRepository personRepository;
     private final PersonRelationshipDao personRelationshipDao;
+    private final PersonGraphCache personGraphCache;
+    private final PersonTombstones personTombstones;
+    private final ArchivedPersonRepository archivedPersonRepository;
+    private final ArchivedPersonRelationshipRepository archivedPersonRelationshipRepository;
+    private final PersonLockProperties personLockProperties;
+
+    /**
+     * True if the person is known to be soft deleted, without going to the database. False means the person is not
+     * deleted, or it is not known yet.
+     */
+    public boolean isKnownDeleted(Long externalId) {
+        return personTombstones.isDeleted(externalId);
+    }
 
     /**
      * Attempt to find a PersonEntity record in the database and any associated Children and Partners using an external
@@ -46,16 +76,30 @@ public class PersonDao {
      */
     @Transactional(readOnly = true)
     public Optional<PersonDto> findPersonFromExternalId(Long externalId, int relationshipDepth) {
-        return personRepository
-            .findByExternalId(externalId)
-            .map(personEntity -> {
-                log.debug("\nLoaded person entity (with relationships, depth={}):\n{}", relationshipDepth, personEntity.prettyPrint());
-                PersonDto dto = PersonDbMapper.mapDto(personEntity, relationshipDepth);
-                log.debug("\nMapped person DTO (with relationships, depth={}):\n{}", relationshipDepth, dto.prettyPersonDtoString());
+        return personGraphCache
+            .findInternalId(externalId)
+            .flatMap(internalId -> personGraphCache.loadGraph(internalId, relationshipDepth))
+            .map(dto -> {
+                log.atDebug()
+                    .addArgument(relationshipDepth)
+                    .addArgument(dto::prettyPersonDtoString)
+                    .log("\nMapped person DTO (with relationships, depth={}):\n{}");
                 return dto;
             });
     }
 
+    /**
+     * Same as {@link #findPersonFromExternalId(Long, int)} for many persons at once, with set based queries.
+     *
+     * @return the persons by external ID, without the external IDs that are not known.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PersonDto> findPersonsFromExternalIds(Set<Long> externalIds, int relationshipDepth) {
+        Map<Long, Long> internalIds = personGraphCache.findInternalIds(externalIds);
+        return personGraphCache.loadGraphs(new HashSet<>(internalIds.values()), relationshipDepth)
+            .stream()
+            .collect(Collectors.toMap(PersonDto::getExternalId, Function.identity(), (a, b) -> a));
+    }
 
     /**
      * Attempt to find a PersonEntity record in the database and any associated Children and Partners using a name,
@@ -68,11 +112,7 @@ public class PersonDao {
         String name,
         LocalDate dob
     ) {
-        return personRepository
-            .findAllByNameAndDateOfBirth(name, dob)
-            .stream()
-            .map(e -> PersonDbMapper.mapDto(e, 2))
-            .collect(Collectors.toSet());
+        return personGraphCache.loadGraphs(personGraphCache.findInternalIds(name, dob), 2);
     }
 
     @Transactional()
@@ -82,6 +122,12 @@ public class PersonDao {
         LocalDate dateOfBirth,
         Map<RelationshipType, Set<Long>> relatedIdsByType
     ) {
+        if (personTombstones.isDeleted(externalId)) {
+            log.debug("Person is deleted, not updating");
+            return null;
+        }
+        lockRows(PersonUpdateDto.touchedIds(externalId, relatedIdsByType));
+
         // Find existing main entity
         Optional<PersonEntity> existingMainOpt = findByExternalIdEntity(externalId);
         log.debug("Found Person(s) {}", existingMainOpt);
@@ -90,8 +136,15 @@ public class PersonDao {
         if (existingMainOpt.isPresent()) {
             mainEntity = existingMainOpt.get();
             if (mainEntity.isDeleted()) {
+                personTombstones.markDeleted(List.of(externalId));
                 return null;
             }
+            // the name or date of birth may change, so the old lookup has to go.
+            personGraphCache.evictNameDob(mainEntity.getName(), mainEntity.getDateOfBirth());
+        } else if (archivedPersonRepository.existsByExternalId(externalId)) {
+            // deleted and purged since, the ID stays deleted.
+            personTombstones.markDeleted(List.of(externalId));
+            return null;
         } else {
             log.debug("Found empty person. Constructing new one");
             mainEntity = PersonEntity.builder().externalId(externalId).deleted(false).build();
@@ -115,11 +168,15 @@ public class PersonDao {
         // Build full set of persons to save (existing related + new ones)
         Set<PersonEntity> allPersons = new HashSet<>(existingRelated);
 
-        // Add any missing persons that are referenced but do not exist yet
-        for (Long id : allIds) {
-            boolean exists = existingRelated.stream()
-                .anyMatch(p -> Objects.equals(p.getExternalId(), id));
-            if (!exists) {
+        // Add any missing persons that are referenced but do not exist yet, unless they were deleted and purged since.
+        Set<Long> missing = allIds.stream()
+            .filter(id -> existingRelated.stream().noneMatch(p -> Objects.equals(p.getExternalId(), id)))
+            .collect(Collectors.toSet());
+        Set<Long> purged = findPurged(missing);
+        for (Long id : missing) {
+            if (purged.contains(id)) {
+                log.debug("Person with id {} is deleted, not relating it", id);
+            } else {
                 log.debug("Did Not Find Person with id {}. Will add.", id);
                 allPersons.add(PersonEntity.builder().externalId(id).deleted(false).build());
             }
@@ -204,17 +261,193 @@ public class PersonDao {
         // Save just to be sure.
         saveAndFlush(mainEntity);
 
-        log.debug("Updated Entity:\n{}", mainEntity.prettyPrint());
-        log.debug("Returning DTO:\n{}", mainDto.prettyPersonDtoString());
+        // Both sides of every relationship changed.
+        personGraphCache.evict(
+            personById.values().stream().map(PersonEntity::getInternalId).collect(Collectors.toSet()));
+
+        log.atDebug().addArgument(mainEntity::prettyPrint).log("Updated Entity:\n{}");
+        log.atDebug().addArgument(mainDto::prettyPersonDtoString).log("Returning DTO:\n{}");
         return mainDto;
     }
 
+    /**
+     * Apply the updates one after the other in a single transaction, see
+     * {@link #updatePerson(Long, String, LocalDate, Map)}. Updates of the same person apply in the order given, the
+     * last one wins. If one of them fails, none of them are applied.
+     *
+     * @return the result of each update, in the same order.
+     */
+    @Transactional
+    public List<PersonDto> updatePersons(List<PersonUpdateDto> updates) {
+        // all at once, taking them update by update would not be in one order across the batch.
+        lockRows(updates.stream().flatMap(update -> update.touchedIds().stream()).collect(Collectors.toSet()));
+
+        List<PersonDto> results = new ArrayList<>(updates.size());
+        for (PersonUpdateDto update : updates) {
+            results.add(updatePerson(
+                update.getExternalId(), update.getName(), update.getDateOfBirth(), update.getRelatedIdsByType()));
+        }
+        return results;
+    }
+
+    /**
+     * With {@link PersonLockProperties#isDatabase()}, lock the rows of the persons an update touches for the rest of
+     * its transaction, in order of their external ID. Orders the updates of different nodes, which do not share the
+     * in-process {@link com.pink.family.assignment.service.PersonLocks}. Persons the update creates have no row to
+     * lock yet.
+     */
+    private void lockRows(Set<Long> externalIds) {
+        if (personLockProperties.isDatabase() && !externalIds.isEmpty()) {
+            personRepository.lockByExternalIdIn(externalIds);
+        }
+    }
+
+    /**
+     * Change part of an existing person. Unlike {@link #updatePerson(Long, String, LocalDate, Map)}, only the persons
+     * named in the change are looked up, and the relationships of the other types are not read or written at all.
+     *
+     * @param name           replaces the current one if not empty.
+     * @param dateOfBirth    replaces the current one if not null.
+     * @param relatedIdsByType for every type present, the external IDs of all persons related that way afterwards.
+     *                       Relationships of that type to persons not in the set are removed, both ways.
+     * @return the person with its direct relations after the change, empty if it does not exist or is deleted.
+     */
+    @Transactional
+    public Optional<PersonDto> patchPerson(
+        Long externalId,
+        String name,
+        LocalDate dateOfBirth,
+        Map<RelationshipType, Set<Long>> relatedIdsByType
+    ) {
+        if (personTombstones.isDeleted(externalId)) {
+            log.debug("Person is deleted, not patching");
+            return Optional.empty();
+        }
+        lockRows(PersonUpdateDto.touchedIds(externalId, relatedIdsByType));
+
+        Set<Long> relatedIds = relatedIdsByType.values().stream()
+            .flatMap(Set::stream)
+            .filter(id -> !Objects.equals(id, externalId))
+            .collect(Collectors.toSet());
+
+        Set<Long> lookup = new HashSet<>(relatedIds);
+        lookup.add(externalId);
+        Map<Long, PersonEntity> personById = personRepository.findAllByExternalIdIn(lookup).stream()
+            .collect(Collectors.toMap(PersonEntity::getExternalId, Function.identity(), (a, b) -> a));
+
+        PersonEntity mainEntity = personById.get(externalId);
+        if (mainEntity == null) {
+            log.debug("Person does not exist, not patching");
+            return Optional.empty();
+        }
+        if (mainEntity.isDeleted()) {
+            personTombstones.markDeleted(List.of(externalId));
+            return Optional.empty();
+        }
+
+        boolean nameChanged = !ObjectUtils.isEmpty(name) && !name.equals(mainEntity.getName());
+        boolean dobChanged = dateOfBirth != null && !dateOfBirth.equals(mainEntity.getDateOfBirth());
+        if (nameChanged || dobChanged) {
+            personGraphCache.evictNameDob(mainEntity.getName(), mainEntity.getDateOfBirth());
+            if (nameChanged) {
+                mainEntity.setName(name);
+            }
+            if (dobChanged) {
+                mainEntity.setDateOfBirth(dateOfBirth);
+            }
+            personGraphCache.evictNameDob(mainEntity.getName(), mainEntity.getDateOfBirth());
+        }
+
+        // Persons referenced that do not exist yet are added, same as on a full update, unless they were purged.
+        Set<Long> purged = findPurged(relatedIds.stream()
+            .filter(id -> !personById.containsKey(id))
+            .collect(Collectors.toSet()));
+        List<PersonEntity> newPersons = relatedIds.stream()
+            .filter(id -> !personById.containsKey(id) && !purged.contains(id))
+            .map(id -> PersonEntity.builder().externalId(id).deleted(false).build())
+            .toList();
+        if (!newPersons.isEmpty()) {
+            saveAll(newPersons).forEach(saved -> personById.put(saved.getExternalId(), saved));
+        }
+
+        Map<RelationshipType, Set<Long>> existingByType = new EnumMap<>(RelationshipType.class);
+        if (!relatedIdsByType.isEmpty()) {
+            personRelationshipDao.findIdsByPersonId(mainEntity.getInternalId()).forEach(id ->
+                existingByType.computeIfAbsent(id.getRelationshipType(), type -> new HashSet<>())
+                    .add(id.getRelatedPersonId()));
+        }
+
+        Set<Long> changedInternalIds = new HashSet<>();
+        changedInternalIds.add(mainEntity.getInternalId());
+
+        Set<PersonRelationshipEntity> added = new HashSet<>();
+        for (Map.Entry<RelationshipType, Set<Long>> entry : relatedIdsByType.entrySet()) {
+            RelationshipType type = entry.getKey();
+            Map<Long, PersonEntity> wanted = entry.getValue().stream()
+                .filter(id -> !Objects.equals(id, externalId))
+                .map(personById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(PersonEntity::getInternalId, Function.identity(), (a, b) -> a));
+            Set<Long> existing = existingByType.getOrDefault(type, Set.of());
+
+            Set<Long> removed = new HashSet<>(existing);
+            removed.removeAll(wanted.keySet());
+            personRelationshipDao.deleteBothWays(mainEntity.getInternalId(), type, removed);
+            changedInternalIds.addAll(removed);
+
+            for (PersonEntity related : wanted.values()) {
+                if (existing.contains(related.getInternalId())) {
+                    continue;
+                }
+                added.add(relationship(mainEntity, related, type));
+                added.add(relationship(related, mainEntity, type.getInverse()));
+                changedInternalIds.add(related.getInternalId());
+            }
+        }
+        personRelationshipDao.saveAll(added);
+        personRepository.flush();
+
+        // Both sides of every relationship changed.
+        personGraphCache.evict(changedInternalIds);
+        log.debug("Patched person {}, {} relationships added", mainEntity.getInternalId(), added.size());
+
+        return personGraphCache.loadGraph(mainEntity.getInternalId(), 1);
+    }
+
+    /**
+     * Of the external IDs that are not in the persons table, those deleted and purged since. They stay deleted, so are
+     * neither created again nor related to.
+     */
+    private Set<Long> findPurged(Set<Long> missingExternalIds) {
+        if (missingExternalIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> purged = missingExternalIds.stream()
+            .filter(personTombstones::isDeleted)
+            .collect(Collectors.toCollection(HashSet::new));
+        Set<Long> unknown = new HashSet<>(missingExternalIds);
+        unknown.removeAll(purged);
+        if (!unknown.isEmpty()) {
+            Set<Long> archived = archivedPersonRepository.findExternalIdsIn(unknown);
+            personTombstones.markDeleted(archived);
+            purged.addAll(archived);
+        }
+        return purged;
+    }
+
+    private static PersonRelationshipEntity relationship(PersonEntity person, PersonEntity related, RelationshipType type) {
+        return new PersonRelationshipEntity(
+            new PersonRelationshipId(person.getInternalId(), related.getInternalId(), type), person, related);
+    }
+
 
 
     @Transactional
     public void deleteAll() {
         log.info("Deleting all PersonEntity records");
         personRepository.deleteAll();
+        personGraphCache.clear();
+        personTombstones.clear();
         log.debug("All PersonEntity records deleted");
     }
 
@@ -243,8 +476,9 @@ public class PersonDao {
         log.info("Saved {} relationships", main.getRelationships().size());
 
         PersonEntity saved = personRepository.save(main);
+        evictFromCache(List.of(saved));
         log.info("Saved PersonEntity: internalId={}, externalId={}", saved.getInternalId(), saved.getExternalId());
-        log.debug("Saved PersonEntity:\n{}", saved.prettyPrint());
+        log.atDebug().addArgument(saved::prettyPrint).log("Saved PersonEntity:\n{}");
 
         return saved;
     }
@@ -299,6 +533,7 @@ public class PersonDao {
         // Save all persons
         List<PersonEntity> savedPersons = personRepository.saveAll(persons);
         personRepository.flush();
+        evictFromCache(savedPersons);
         log.info("Saved {} PersonEntity records", savedPersons.size());
 
         return savedPersons;
@@ -321,6 +556,8 @@ public class PersonDao {
     public void delete(PersonEntity saved) {
         log.info("Deleting PersonEntity: {}", saved);
         personRepository.delete(saved);
+        evictFromCache(List.of(saved));
+        personTombstones.unmark(List.of(saved.getExternalId()));
         log.debug("Deleted PersonEntity");
     }
 
@@ -348,15 +585,76 @@ public class PersonDao {
     @Transactional
     public void softDeletePersons(Set<Long> toDelete) {
         log.info("Soft Deleting PersonEntities: {}", toDelete);
-        personRepository.updateDeleteByExternalId(toDelete, true);
+        personRepository.updateDeleteByExternalId(toDelete, true, Instant.now());
+        // IDs that do not exist are ignored, so only remember the ones that were actually deleted.
+        personTombstones.markDeleted(personRepository.findDeletedExternalIdsIn(toDelete));
+        personGraphCache.evict(personRepository.findInternalIdsByExternalIdIn(toDelete));
         log.debug("Soft Deleted PersonEntities");
     }
 
+    /**
+     * Move one batch of persons soft deleted before the cutoff, and every relationship from or to them, out of the
+     * hot tables into the archive tables. Relatives of a purged person no longer see it among their relations. The
+     * purged external IDs stay deleted, they are kept in the tombstones and found in the archive.
+     *
+     * @return the number of persons purged, less than the batch size once there are none left.
+     */
+    @Transactional
+    public int purgeDeletedBefore(Instant cutoff, int batchSize) {
+        List<PersonEntity> purged = personRepository.findDeletedBefore(cutoff, PageRequest.ofSize(batchSize));
+        if (purged.isEmpty()) {
+            return 0;
+        }
+
+        Instant archivedAt = Instant.now();
+        Set<Long> internalIds = purged.stream().map(PersonEntity::getInternalId).collect(Collectors.toSet());
+        List<PersonRelationshipId> relationshipIds = personRelationshipDao.findIdsInvolving(internalIds);
+
+        archivedPersonRepository.saveAll(purged.stream()
+            .map(person -> ArchivedPersonEntity.builder()
+                .internalId(person.getInternalId())
+                .externalId(person.getExternalId())
+                .name(person.getName())
+                .dateOfBirth(person.getDateOfBirth())
+                .deletedAt(person.getDeletedAt())
+                .archivedAt(archivedAt)
+                .build())
+            .toList());
+        archivedPersonRelationshipRepository.saveAll(relationshipIds.stream()
+            .map(id -> new ArchivedPersonRelationshipEntity(id, archivedAt))
+            .toList());
+        archivedPersonRepository.flush();
+        archivedPersonRelationshipRepository.flush();
+
+        personRelationshipDao.deleteAllInvolving(internalIds);
+        personRepository.deleteByInternalIdIn(internalIds);
+
+        personTombstones.markDeleted(purged.stream().map(PersonEntity::getExternalId).toList());
+        Set<Long> changed = new HashSet<>(internalIds);
+        relationshipIds.forEach(id -> changed.add(id.getRelatedPersonId()));
+        personGraphCache.evict(changed);
+        purged.forEach(person -> {
+            personGraphCache.evictExternalId(person.getExternalId());
+            personGraphCache.evictNameDob(person.getName(), person.getDateOfBirth());
+        });
+
+        log.info("Purged {} persons and {} relationships", purged.size(), relationshipIds.size());
+        return purged.size();
+    }
+
+    /**
+     * Every person at once, which only works for small data sets such as in tests. Use {@link #findPageAfter(Long, int)}
+     * to go through all persons.
+     */
     @Transactional(readOnly = true)
     public Set<PersonEntity> findAll() {
         return new HashSet<>(personRepository.findAll());
     }
 
+    /**
+     * Every person at once, mapped to depth 3, which only works for small data sets such as in tests. Use
+     * {@link #findPageAfter(Long, int)} to go through all persons.
+     */
     @Transactional(readOnly = true)
     public Set<PersonDto> findAllDto() {
         return personRepository
@@ -366,4 +664,72 @@ public class PersonDao {
                 PersonDbMapper.mapDto(e, 3))
             .collect(Collectors.toSet());
     }
+
+    /**
+     * A page of the persons that are not deleted, with their direct relations, for going through all of them with
+     * keyset pagination. Read with projections rather than entities and past the graph cache, so a run through all
+     * persons neither grows the persistence context nor pushes the persons in use out of the cache.
+     *
+     * @param afterInternalId the internal ID of the last person of the previous page, {@link Long#MIN_VALUE} to start.
+     * @return at most pageSize persons in ascending internal ID order, fewer on the last page.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonDto> findPageAfter(Long afterInternalId, int pageSize) {
+        Map<Long, PersonNode> nodes = new LinkedHashMap<>();
+        personRepository.findRowsAfter(afterInternalId, PageRequest.ofSize(pageSize))
+            .forEach(row -> nodes.put(row.getInternalId(), PersonDbMapper.mapNode(row)));
+        if (nodes.isEmpty()) {
+            return List.of();
+        }
+        List<Long> page = List.copyOf(nodes.keySet());
+
+        Map<Long, Map<RelationshipType, Set<Long>>> adjacency = new HashMap<>();
+        page.forEach(id -> adjacency.put(id, new EnumMap<>(RelationshipType.class)));
+        Set<Long> related = new HashSet<>();
+        personRelationshipDao.findIdsByPersonIdIn(new HashSet<>(page)).forEach(id -> {
+            adjacency.get(id.getPersonId())
+                .computeIfAbsent(id.getRelationshipType(), type -> new LinkedHashSet<>())
+                .add(id.getRelatedPersonId());
+            related.add(id.getRelatedPersonId());
+        });
+
+        related.removeAll(nodes.keySet());
+        if (!related.isEmpty()) {
+            personRepository.findRowsByInternalIdIn(related)
+                .forEach(row -> nodes.put(row.getInternalId(), PersonDbMapper.mapNode(row)));
+        }
+
+        return page.stream()
+            .map(id -> PersonDbMapper.mapDto(id, 1, nodes, adjacency))
+            .toList();
+    }
+
+    /**
+     * Evict the given persons, everyone they are related to and their lookups from the graph cache, and bring their
+     * tombstones in line with what was saved.
+     */
+    private void evictFromCache(List<PersonEntity> persons) {
+        Set<Long> internalIds = new HashSet<>();
+        for (PersonEntity person : persons) {
+            if (person.isDeleted()) {
+                personTombstones.markDeleted(List.of(person.getExternalId()));
+            } else {
+                personTombstones.unmark(List.of(person.getExternalId()));
+            }
+
+            if (person.getInternalId() != null) {
+                internalIds.add(person.getInternalId());
+            }
+            person.getRelationships().stream()
+                .map(PersonRelationshipEntity::getRelatedPerson)
+                .filter(Objects::nonNull)
+                .map(PersonEntity::getInternalId)
+                .filter(Objects::nonNull)
+                .forEach(internalIds::add);
+
+            personGraphCache.evictExternalId(person.getExternalId());
+            personGraphCache.evictNameDob(person.getName(), person.getDateOfBirth());
+        }
+        personGraphCache.evict(internalIds);
+    }
 }
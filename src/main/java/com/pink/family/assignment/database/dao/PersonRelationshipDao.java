@@ -1,6 +1,7 @@
 package com.pink.family.assignment.database.dao;
 
 import com.pink.family.assignment.database.entity.PersonRelationshipEntity;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
 import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
 import com.pink.family.assignment.database.repository.PersonRelationshipRepository;
 import lombok.RequiredArgsConstructor;
@@ -79,6 +80,54 @@ public class PersonRelationshipDao {
         log.debug("Deleted PersonRelationshipEntity record with id {}", relId);
     }
 
+    /**
+     * The relationship keys of the given persons, without loading any entities.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonRelationshipId> findIdsByPersonIdIn(Set<Long> personIds) {
+        return personRelationshipRepository.findIdsByPersonIdIn(personIds);
+    }
+
+    /**
+     * The relationship keys of a single person, without loading any entities.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonRelationshipId> findIdsByPersonId(Long personId) {
+        return personRelationshipRepository.findIdsByPersonIdIn(Set.of(personId));
+    }
+
+    /**
+     * The keys of every relationship from or to the given persons.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonRelationshipId> findIdsInvolving(Set<Long> personIds) {
+        return personRelationshipRepository.findIdsInvolving(personIds);
+    }
+
+    /**
+     * Remove every relationship from or to the given persons, in a single statement.
+     */
+    @Transactional
+    public int deleteAllInvolving(Set<Long> personIds) {
+        int deleted = personRelationshipRepository.deleteAllInvolving(personIds);
+        log.debug("Deleted {} relationships of {} persons", deleted, personIds.size());
+        return deleted;
+    }
+
+    /**
+     * Remove the relationships of one type between a person and the given related persons, both ways, in a single
+     * statement.
+     */
+    @Transactional
+    public int deleteBothWays(Long personId, RelationshipType type, Set<Long> relatedPersonIds) {
+        if (CollectionUtils.isEmpty(relatedPersonIds)) {
+            return 0;
+        }
+        int deleted = personRelationshipRepository.deleteBothWays(personId, type, type.getInverse(), relatedPersonIds);
+        log.debug("Deleted {} {} relationships of person {}", deleted, type, personId);
+        return deleted;
+    }
+
     public Optional<PersonRelationshipEntity> findById(PersonRelationshipId relId) {
         log.debug("Finding PersonRelationshipEntity record with id {}", relId);
         var toReturn = personRelationshipRepository.findById(relId);
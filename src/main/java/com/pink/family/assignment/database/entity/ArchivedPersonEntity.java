@@ -0,0 +1,67 @@
+package com.pink.family.assignment.database.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A soft deleted person moved out of {@code persons} by the purge, so that its external ID is still known to be
+ * deleted. Only ever inserted, never changed.
+ */
+@Entity
+@Table(name = "persons_archive", indexes = @Index(name = "persons_archive_external_id", columnList = "external_id"))
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPersonEntity implements Persistable<Long> {
+
+    /**
+     * The internal ID the person had in {@code persons}.
+     */
+    @Id
+    @Column(name = "internal_id")
+    private Long internalId;
+
+    @Column(name = "external_id")
+    private Long externalId;
+
+    @Column(name = "person_name")
+    private String name;
+
+    @Column(name = "person_date_of_birth")
+    private LocalDate dateOfBirth;
+
+    @Column(name = "person_deleted_at")
+    private Instant deletedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    @Override
+    public Long getId() {
+        return internalId;
+    }
+
+    /**
+     * Always new, so saving inserts without first looking for the row.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
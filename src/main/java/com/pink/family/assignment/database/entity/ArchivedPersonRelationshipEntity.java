@@ -0,0 +1,43 @@
+package com.pink.family.assignment.database.entity;
+
+import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * A relationship from or to a purged person, moved out of {@code person_relationships} along with it. Only ever
+ * inserted, never changed.
+ */
+@Entity
+@Table(name = "person_relationships_archive")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPersonRelationshipEntity implements Persistable<PersonRelationshipId> {
+
+    @EmbeddedId
+    private PersonRelationshipId id;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    /**
+     * Always new, so saving inserts without first looking for the row.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
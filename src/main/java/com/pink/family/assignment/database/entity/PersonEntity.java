@@ -19,6 +19,7 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.proxy.HibernateProxy;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Map;
@@ -64,6 +65,13 @@ public class PersonEntity {
     @Column(name = "person_deleted", nullable = false)
     private boolean deleted = false;
 
+    /**
+     * When the person was soft deleted, null if it is not, or was deleted before this was kept. The purge of deleted
+     * persons goes by it.
+     */
+    @Column(name = "person_deleted_at")
+    private Instant deletedAt;
+
     @OneToMany(
         mappedBy = "person",
         cascade = CascadeType.ALL,
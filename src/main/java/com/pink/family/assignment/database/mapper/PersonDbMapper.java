@@ -1,13 +1,17 @@
 package com.pink.family.assignment.database.mapper;
 
+import com.pink.family.assignment.database.cache.PersonNode;
 import com.pink.family.assignment.database.entity.PersonEntity;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.reactive.PersonRow;
+import com.pink.family.assignment.database.repository.PersonRepository;
 import com.pink.family.assignment.dto.PersonDto;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Map between the DTOs and the Database Entities.
@@ -74,6 +78,119 @@ public class PersonDbMapper {
     }
 
 
+    /**
+     * Assemble a PersonDto graph from normalized (cached) nodes and adjacency lists rather than from attached entities.
+     * Follows the same depth and cycle rules as {@link #mapDto(PersonEntity, int)}.
+     *
+     * @param rootInternalId internal ID of the person to start from
+     * @param maxDepth Maximum depth of relationships to recurse (0 = no relationships)
+     * @param nodes all persons known for the neighbourhood, by internal ID
+     * @param adjacency related internal IDs by relationship type, by internal ID
+     * @return PersonDto with relationships mapped up to maxDepth, null if the root node is not available
+     */
+    public static PersonDto mapDto(
+        @NonNull Long rootInternalId,
+        int maxDepth,
+        @NonNull Map<Long, PersonNode> nodes,
+        @NonNull Map<Long, Map<RelationshipType, Set<Long>>> adjacency)
+    {
+        if (!nodes.containsKey(rootInternalId)) {
+            return null;
+        }
+        return mapDto(rootInternalId, maxDepth, 0, nodes, adjacency, new HashMap<>());
+    }
+
+    private static PersonDto mapDto(
+        Long internalId,
+        int maxDepth,
+        int currentDepth,
+        Map<Long, PersonNode> nodes,
+        Map<Long, Map<RelationshipType, Set<Long>>> adjacency,
+        Map<Long, PersonDto> mappedDtos)
+    {
+        if (mappedDtos.containsKey(internalId)) {
+            return mappedDtos.get(internalId);
+        }
+
+        PersonDto dto = mapDtoNoRel(nodes.get(internalId));
+        mappedDtos.put(internalId, dto);
+
+        if (currentDepth >= maxDepth || maxDepth == 0) {
+            return dto;
+        }
+
+        Map<RelationshipType, Set<Long>> related = adjacency.get(internalId);
+        if (related == null) {
+            log.warn("Missing adjacency for internal ID {} at depth {}", internalId, currentDepth);
+            return dto;
+        }
+
+        for (var entry : related.entrySet()) {
+            for (Long relatedId : entry.getValue()) {
+                if (!nodes.containsKey(relatedId)) {
+                    log.warn("Relationship {} of {} points to unknown person {}", entry.getKey(), internalId, relatedId);
+                    continue;
+                }
+                PersonDto relatedDto = mapDto(relatedId, maxDepth, currentDepth + 1, nodes, adjacency, mappedDtos);
+                dto.addRelationship(entry.getKey(), relatedDto);
+            }
+        }
+
+        return dto;
+    }
+
+    /**
+     * Take an immutable, relationship free snapshot of an entity suitable for caching.
+     */
+    public static PersonNode mapNode(@NonNull PersonEntity person) {
+        return PersonNode.builder()
+            .internalId(person.getInternalId())
+            .externalId(person.getExternalId())
+            .name(person.getName())
+            .dateOfBirth(person.getDateOfBirth())
+            .deleted(person.isDeleted())
+            .build();
+    }
+
+    /**
+     * Same as {@link #mapNode(PersonEntity)}, for a row read by the reactive stack.
+     */
+    public static PersonNode mapNode(@NonNull PersonRow person) {
+        return PersonNode.builder()
+            .internalId(person.getInternalId())
+            .externalId(person.getExternalId())
+            .name(person.getName())
+            .dateOfBirth(person.getDateOfBirth())
+            .deleted(person.isDeleted())
+            .build();
+    }
+
+    /**
+     * Same as {@link #mapNode(PersonEntity)}, for a row read as a projection.
+     */
+    public static PersonNode mapNode(@NonNull PersonRepository.NodeRow person) {
+        return PersonNode.builder()
+            .internalId(person.getInternalId())
+            .externalId(person.getExternalId())
+            .name(person.getName())
+            .dateOfBirth(person.getDateOfBirth())
+            .deleted(person.isDeleted())
+            .build();
+    }
+
+    /**
+     * Map a cached PersonNode to PersonDto without relationships (shallow).
+     */
+    public static PersonDto mapDtoNoRel(@NonNull PersonNode person) {
+        return PersonDto.builder()
+            .internalId(person.getInternalId())
+            .externalId(person.getExternalId())
+            .name(person.getName())
+            .dateOfBirth(person.getDateOfBirth())
+            .deleted(person.isDeleted())
+            .build();
+    }
+
     /**
      * Map PersonEntity to PersonDto without relationships (shallow).
      * Used to break recursion cycles or for depth zero.
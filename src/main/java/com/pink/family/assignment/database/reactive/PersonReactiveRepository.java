@@ -0,0 +1,41 @@
+package com.pink.family.assignment.database.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+/**
+ * Reactive repository for the persons table, used by the reactive stack only.
+ */
+public interface PersonReactiveRepository extends R2dbcRepository<PersonRow, Long> {
+
+    Flux<PersonRow> findAllByExternalId(Long externalId);
+
+    Flux<PersonRow> findAllByNameAndDateOfBirth(String name, LocalDate dateOfBirth);
+
+    Flux<PersonRow> findAllByInternalIdIn(Collection<Long> internalIds);
+
+    Flux<PersonRow> findAllByExternalIdIn(Collection<Long> externalIds);
+
+    @Query("SELECT external_id FROM persons WHERE person_deleted = TRUE AND external_id IN (:externalIds)")
+    Flux<Long> findDeletedExternalIdsIn(@Param("externalIds") Collection<Long> externalIds);
+
+    /**
+     * Persons already deleted are left alone, so they keep when they were first deleted.
+     */
+    @Modifying
+    @Query("""
+        UPDATE persons SET person_deleted = TRUE, person_deleted_at = :deletedAt
+        WHERE external_id IN (:externalIds) AND person_deleted = FALSE
+        """)
+    Mono<Integer> softDeleteByExternalIdIn(
+        @Param("externalIds") Collection<Long> externalIds,
+        @Param("deletedAt") OffsetDateTime deletedAt);
+}
@@ -0,0 +1,29 @@
+package com.pink.family.assignment.database.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Reactive repository for the person_relationships table, used by the reactive stack only.
+ * The table has a composite key, so rows are inserted with an explicit statement rather than saved. The type is cast
+ * as some drivers bind strings as CLOBs, which do not convert to an enum column.
+ */
+public interface PersonRelationshipReactiveRepository extends R2dbcRepository<PersonRelationshipRow, Long> {
+
+    Flux<PersonRelationshipRow> findAllByPersonIdIn(Collection<Long> personIds);
+
+    @Modifying
+    @Query("""
+        INSERT INTO person_relationships (person_id, related_person_id, relationship_type)
+        VALUES (:personId, :relatedPersonId, CAST(:relationshipType AS VARCHAR(20)))""")
+    Mono<Integer> insert(
+        @Param("personId") Long personId,
+        @Param("relatedPersonId") Long relatedPersonId,
+        @Param("relationshipType") String relationshipType);
+}
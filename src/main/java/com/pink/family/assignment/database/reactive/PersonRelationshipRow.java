@@ -0,0 +1,24 @@
+package com.pink.family.assignment.database.reactive;
+
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import lombok.Value;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * R2DBC mapping of the person_relationships table, see
+ * {@link com.pink.family.assignment.database.entity.PersonRelationshipEntity}.
+ */
+@Value
+@Table("person_relationships")
+public class PersonRelationshipRow {
+
+    @Column("person_id")
+    Long personId;
+
+    @Column("related_person_id")
+    Long relatedPersonId;
+
+    @Column("relationship_type")
+    RelationshipType relationshipType;
+}
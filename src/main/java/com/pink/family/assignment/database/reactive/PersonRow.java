@@ -0,0 +1,37 @@
+package com.pink.family.assignment.database.reactive;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * R2DBC mapping of the persons table, see {@link com.pink.family.assignment.database.entity.PersonEntity}.
+ * Relationships are read separately, there is no lazy loading on this side.
+ */
+@With
+@Value
+@Builder
+@Table("persons")
+public class PersonRow {
+
+    @Id
+    @Column("internal_id")
+    Long internalId;
+
+    @Column("external_id")
+    Long externalId;
+
+    @Column("person_name")
+    String name;
+
+    @Column("person_date_of_birth")
+    LocalDate dateOfBirth;
+
+    @Column("person_deleted")
+    boolean deleted;
+}
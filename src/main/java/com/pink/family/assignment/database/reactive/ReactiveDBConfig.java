@@ -0,0 +1,93 @@
+package com.pink.family.assignment.database.reactive;
+
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.properties.ReactiveProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Configuration used to setup R2DBC for the reactive stack.
+ * <p>
+ * Only active with {@code spring.main.web-application-type=reactive}. Spring Boot's own R2DBC auto configuration is
+ * excluded (see {@link com.pink.family.assignment.FamilyApplication}), as its transaction manager would replace the
+ * JPA one that the servlet stack and the DAOs depend on. The R2DBC transaction manager is therefore only reachable
+ * through the {@link TransactionalOperator}. Boot's JDBC data source likewise backs off as soon as there is a
+ * {@link ConnectionFactory}, so it is declared here as well.
+ * <p>
+ * Connections are pooled. The pool size bounds the concurrent database work and the pending acquire limit bounds
+ * what may queue behind it, so demand is pushed back to the callers instead of piling up in memory.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties({R2dbcProperties.class, DataSourceProperties.class})
+@EnableR2dbcRepositories(basePackageClasses = PersonReactiveRepository.class)
+public class ReactiveDBConfig extends AbstractR2dbcConfiguration {
+
+    private final R2dbcProperties r2dbcProperties;
+    private final ReactiveProperties reactiveProperties;
+
+    @Override
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory() {
+        if (ObjectUtils.isEmpty(r2dbcProperties.getUrl())) {
+            throw new PinkSystemException("spring.r2dbc.url is required for the reactive stack");
+        }
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbcProperties.getUrl()).mutate();
+        if (r2dbcProperties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername());
+        }
+        if (r2dbcProperties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword());
+        }
+
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        ConnectionPoolConfiguration.Builder poolConfiguration = ConnectionPoolConfiguration
+            .builder(ConnectionFactories.get(options.build()))
+            .name("reactive-person-pool")
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .customizer(builder -> builder.maxPendingAcquire(reactiveProperties.getMaxPendingAcquire()));
+        if (pool.getMaxAcquireTime() != null) {
+            poolConfiguration.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        if (pool.getValidationQuery() != null) {
+            poolConfiguration.validationQuery(pool.getValidationQuery());
+        }
+
+        log.info("Reactive stack using up to {} database connections", pool.getMaxSize());
+        return new ConnectionPool(poolConfiguration.build());
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
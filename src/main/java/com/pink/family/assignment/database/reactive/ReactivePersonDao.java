@@ -0,0 +1,280 @@
+package com.pink.family.assignment.database.reactive;
+
+import com.pink.family.assignment.database.cache.PersonNode;
+import com.pink.family.assignment.database.cache.PersonTombstones;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.mapper.PersonDbMapper;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.properties.ReactiveProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The reactive counterpart of {@link com.pink.family.assignment.database.dao.PersonDao}, used by the reactive stack.
+ * <p>
+ * Neighbourhoods are loaded level by level like the person graph cache does, with one query for the persons and one
+ * for the relationships per level, and are then mapped with the same mapper. Nothing is cached on this side, but
+ * deleted persons are still recognised from the tombstones before any database access.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonDao {
+
+    private final PersonReactiveRepository personRepository;
+    private final PersonRelationshipReactiveRepository personRelationshipRepository;
+    private final TransactionalOperator reactiveTransactionalOperator;
+    private final PersonTombstones personTombstones;
+    private final ReactiveProperties reactiveProperties;
+
+    public boolean isKnownDeleted(Long externalId) {
+        return personTombstones.isDeleted(externalId);
+    }
+
+    /**
+     * @return The person along with their relations up to the given depth, empty if there is no such person.
+     */
+    public Mono<PersonDto> findPersonFromExternalId(Long externalId, int relationshipDepth) {
+        return personRepository.findAllByExternalId(externalId)
+            .next()
+            .flatMap(person -> loadGraphs(Set.of(person.getInternalId()), relationshipDepth).next());
+    }
+
+    /**
+     * @return All persons matching the name and date of birth, along with their partners and children.
+     */
+    public Flux<PersonDto> findAllPersonFromNameDobWithPartnerChildren(String name, LocalDate dob) {
+        return personRepository.findAllByNameAndDateOfBirth(name, dob)
+            .map(PersonRow::getInternalId)
+            .collect(Collectors.toSet())
+            .flatMapMany(internalIds -> loadGraphs(internalIds, 2));
+    }
+
+    private Flux<PersonDto> loadGraphs(Set<Long> rootInternalIds, int depth) {
+        if (CollectionUtils.isEmpty(rootInternalIds)) {
+            return Flux.empty();
+        }
+
+        Map<Long, PersonNode> loadedNodes = new HashMap<>();
+        Map<Long, Map<RelationshipType, Set<Long>>> loadedAdjacency = new HashMap<>();
+
+        return loadLevel(new LinkedHashSet<>(rootInternalIds), 0, depth, loadedNodes, loadedAdjacency)
+            .thenMany(Flux.fromIterable(rootInternalIds))
+            .mapNotNull(root -> PersonDbMapper.mapDto(root, depth, loadedNodes, loadedAdjacency));
+    }
+
+    /**
+     * Load the nodes of one level and, unless it is the last, their adjacency lists. Then move on to the next level.
+     * The levels run one after the other, so the maps are never written concurrently.
+     */
+    private Mono<Void> loadLevel(
+        Set<Long> frontier,
+        int level,
+        int depth,
+        Map<Long, PersonNode> loadedNodes,
+        Map<Long, Map<RelationshipType, Set<Long>>> loadedAdjacency)
+    {
+        if (frontier.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Mono<Void> nodes = personRepository.findAllByInternalIdIn(frontier)
+            .map(PersonDbMapper::mapNode)
+            .collectList()
+            .doOnNext(found -> found.forEach(node -> loadedNodes.put(node.getInternalId(), node)))
+            .then();
+
+        if (level == depth) {
+            return nodes;
+        }
+
+        Mono<Map<Long, Map<RelationshipType, Set<Long>>>> adjacency = personRelationshipRepository
+            .findAllByPersonIdIn(frontier)
+            .collectList()
+            .map(relationships -> {
+                Map<Long, Map<RelationshipType, Set<Long>>> byPerson = new HashMap<>();
+                frontier.forEach(id -> byPerson.put(id, new EnumMap<>(RelationshipType.class)));
+                relationships.forEach(r -> byPerson.get(r.getPersonId())
+                    .computeIfAbsent(r.getRelationshipType(), t -> new LinkedHashSet<>())
+                    .add(r.getRelatedPersonId()));
+                return byPerson;
+            });
+
+        return nodes
+            .then(adjacency)
+            .flatMap(levelAdjacency -> {
+                loadedAdjacency.putAll(levelAdjacency);
+
+                Set<Long> next = new LinkedHashSet<>();
+                levelAdjacency.values().forEach(byType -> byType.values().forEach(next::addAll));
+                next.removeAll(loadedNodes.keySet());
+                return loadLevel(next, level + 1, depth, loadedNodes, loadedAdjacency);
+            });
+    }
+
+    /**
+     * Same as {@link com.pink.family.assignment.database.dao.PersonDao#updatePerson}, in a single reactive
+     * transaction.
+     *
+     * @return The updated person with the requested relations, empty if the person is deleted.
+     */
+    public Mono<PersonDto> updatePerson(
+        Long externalId,
+        String name,
+        LocalDate dateOfBirth,
+        Map<RelationshipType, Set<Long>> relatedIdsByType
+    ) {
+        if (personTombstones.isDeleted(externalId)) {
+            log.debug("Person is deleted, not updating");
+            return Mono.empty();
+        }
+
+        Set<Long> relatedIds = relatedIdsByType.values().stream()
+            .filter(Objects::nonNull)
+            .flatMap(Set::stream)
+            .filter(id -> !Objects.equals(id, externalId))
+            .collect(Collectors.toSet());
+
+        Mono<PersonDto> update = personRepository.findAllByExternalId(externalId)
+            .next()
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(existing -> {
+                if (existing.isPresent() && existing.get().isDeleted()) {
+                    personTombstones.markDeleted(List.of(externalId));
+                    return Mono.empty();
+                }
+
+                PersonRow main = existing.orElseGet(() -> PersonRow.builder().externalId(externalId).build());
+                if (!ObjectUtils.isEmpty(name)) {
+                    main = main.withName(name);
+                }
+                if (dateOfBirth != null) {
+                    main = main.withDateOfBirth(dateOfBirth);
+                }
+
+                // one statement after the other, the transaction has a single connection.
+                return personRepository.save(main)
+                    .flatMap(saved -> findOrCreate(relatedIds)
+                        .flatMap(related -> {
+                            Map<Long, PersonRow> personById = new HashMap<>(related);
+                            personById.put(externalId, saved);
+                            return addRelationships(saved, personById, relatedIdsByType)
+                                .then(Mono.fromSupplier(() -> mapResult(saved, personById, relatedIdsByType)));
+                        }));
+            });
+
+        return reactiveTransactionalOperator.transactional(update);
+    }
+
+    /**
+     * @return The persons with the given external IDs by external ID, created if they do not exist yet.
+     */
+    private Mono<Map<Long, PersonRow>> findOrCreate(Set<Long> externalIds) {
+        if (externalIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return personRepository.findAllByExternalIdIn(externalIds)
+            .collectMap(PersonRow::getExternalId)
+            .flatMap(existing -> Flux.fromIterable(externalIds)
+                .filter(id -> !existing.containsKey(id))
+                .concatMap(id -> {
+                    log.debug("Did Not Find Person with id {}. Will add.", id);
+                    return personRepository.save(PersonRow.builder().externalId(id).build());
+                })
+                .collectMap(PersonRow::getExternalId)
+                .map(created -> {
+                    Map<Long, PersonRow> all = new HashMap<>(existing);
+                    all.putAll(created);
+                    return all;
+                }));
+    }
+
+    /**
+     * Add every requested relationship and its inverse, unless it already exists.
+     */
+    private Mono<Void> addRelationships(
+        PersonRow main,
+        Map<Long, PersonRow> personById,
+        Map<RelationshipType, Set<Long>> relatedIdsByType)
+    {
+        Set<Long> involved = personById.values().stream().map(PersonRow::getInternalId).collect(Collectors.toSet());
+
+        return personRelationshipRepository.findAllByPersonIdIn(involved)
+            .collect(Collectors.toSet())
+            .flatMapMany(existing -> {
+                Set<PersonRelationshipRow> toAdd = new LinkedHashSet<>();
+                relatedIdsByType.forEach((type, ids) -> {
+                    if (ids == null) {
+                        return;
+                    }
+                    ids.stream().map(personById::get).filter(Objects::nonNull).forEach(related -> {
+                        toAdd.add(new PersonRelationshipRow(main.getInternalId(), related.getInternalId(), type));
+                        toAdd.add(new PersonRelationshipRow(related.getInternalId(), main.getInternalId(), type.getInverse()));
+                    });
+                });
+                toAdd.removeAll(existing);
+                return Flux.fromIterable(toAdd);
+            })
+            .concatMap(row -> personRelationshipRepository.insert(
+                row.getPersonId(), row.getRelatedPersonId(), row.getRelationshipType().name()))
+            .then();
+    }
+
+    private static PersonDto mapResult(
+        PersonRow main,
+        Map<Long, PersonRow> personById,
+        Map<RelationshipType, Set<Long>> relatedIdsByType)
+    {
+        PersonDto mainDto = PersonDbMapper.mapDtoNoRel(PersonDbMapper.mapNode(main));
+        relatedIdsByType.forEach((type, ids) -> {
+            if (ids == null) {
+                return;
+            }
+            ids.stream()
+                .map(personById::get)
+                .filter(Objects::nonNull)
+                .map(related -> PersonDbMapper.mapDtoNoRel(PersonDbMapper.mapNode(related)))
+                .forEach(dto -> mainDto.addRelationship(type, dto));
+        });
+        return mainDto;
+    }
+
+    /**
+     * Soft delete the persons in batches, then remember the ones that actually existed once committed.
+     */
+    public Mono<Void> softDeletePersons(Set<Long> toDelete) {
+        log.info("Soft Deleting PersonEntities: {}", toDelete);
+        OffsetDateTime deletedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        return Flux.fromIterable(toDelete)
+            .buffer(reactiveProperties.getDeleteBatchSize())
+            .concatMap(batch -> personRepository.softDeleteByExternalIdIn(batch, deletedAt)
+                .thenMany(personRepository.findDeletedExternalIdsIn(batch)))
+            .collect(Collectors.toCollection(HashSet::new))
+            .as(reactiveTransactionalOperator::transactional)
+            .doOnNext(personTombstones::markDeleted)
+            .then();
+    }
+}
@@ -0,0 +1,16 @@
+package com.pink.family.assignment.database.repository;
+
+import com.pink.family.assignment.database.entity.ArchivedPersonRelationshipEntity;
+import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for the {@link ArchivedPersonRelationshipEntity}
+ */
+@Repository
+@Transactional
+public interface ArchivedPersonRelationshipRepository
+    extends JpaRepository<ArchivedPersonRelationshipEntity, PersonRelationshipId> {
+}
@@ -0,0 +1,31 @@
+package com.pink.family.assignment.database.repository;
+
+import com.pink.family.assignment.database.entity.ArchivedPersonEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repository for the {@link ArchivedPersonEntity}
+ */
+@Repository
+@Transactional
+public interface ArchivedPersonRepository extends JpaRepository<ArchivedPersonEntity, Long> {
+
+    boolean existsByExternalId(Long externalId);
+
+    @Query("SELECT p.externalId FROM ArchivedPersonEntity p WHERE p.externalId in :externalIds")
+    Set<Long> findExternalIdsIn(@Param("externalIds") Set<Long> externalIds);
+
+    /**
+     * Keyset paged external IDs of the archived persons, in ascending order.
+     */
+    @Query("SELECT p.externalId FROM ArchivedPersonEntity p WHERE p.externalId > :after ORDER BY p.externalId")
+    List<Long> findExternalIdsAfter(@Param("after") Long after, Pageable limit);
+}
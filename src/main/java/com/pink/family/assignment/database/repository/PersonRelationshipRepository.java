@@ -1,15 +1,57 @@
 package com.pink.family.assignment.database.repository;
 
 import com.pink.family.assignment.database.entity.PersonRelationshipEntity;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
 import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * Repository for the {@link PersonRelationshipEntity}
  */
 @Repository
 @Transactional
 public interface PersonRelationshipRepository extends JpaRepository<PersonRelationshipEntity, PersonRelationshipId> {
+
+    /**
+     * Fetch only the relationship keys (the adjacency) for the given persons, without loading any person entities.
+     */
+    @Query("SELECT r.id FROM PersonRelationshipEntity r WHERE r.id.personId in :personIds")
+    List<PersonRelationshipId> findIdsByPersonIdIn(@Param("personIds") Set<Long> personIds);
+
+    /**
+     * The keys of every relationship from or to the given persons.
+     */
+    @Query("SELECT r.id FROM PersonRelationshipEntity r WHERE r.id.personId in :personIds OR r.id.relatedPersonId in :personIds")
+    List<PersonRelationshipId> findIdsInvolving(@Param("personIds") Set<Long> personIds);
+
+    @Modifying
+    @Query("DELETE FROM PersonRelationshipEntity r WHERE r.id.personId in :personIds OR r.id.relatedPersonId in :personIds")
+    int deleteAllInvolving(@Param("personIds") Set<Long> personIds);
+
+    /**
+     * Remove relationships of one type between a person and the given related persons, along with their inverses.
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM PersonRelationshipEntity r
+        WHERE (r.id.personId = :personId
+                AND r.id.relationshipType = :type
+                AND r.id.relatedPersonId in :relatedPersonIds)
+            OR (r.id.relatedPersonId = :personId
+                AND r.id.relationshipType = :inverseType
+                AND r.id.personId in :relatedPersonIds)
+        """)
+    int deleteBothWays(
+        @Param("personId") Long personId,
+        @Param("type") RelationshipType type,
+        @Param("inverseType") RelationshipType inverseType,
+        @Param("relatedPersonIds") Set<Long> relatedPersonIds);
 }
@@ -1,18 +1,21 @@
 package com.pink.family.assignment.database.repository;
 
-import com.pink.family.assignment.CacheConfig;
 import com.pink.family.assignment.database.entity.PersonEntity;
+import jakarta.persistence.LockModeType;
 import jakarta.validation.constraints.NotNull;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -24,23 +27,123 @@ import java.util.Set;
 public interface PersonRepository extends JpaRepository<PersonEntity, Long> {
 
     @EntityGraph(attributePaths = {"relationships"})
-    @Cacheable(
-        cacheNames = CacheConfig.Constant.PERSON_BY_EXTERNAL_ID,
-        key = "#externalId")
     Optional<PersonEntity> findByExternalId(@NotNull Long externalId);
 
     @EntityGraph(attributePaths = {"relationships", "relationships.relatedPerson.relationships"})
-    @Cacheable(
-        value = CacheConfig.Constant.PERSONS_BY_NAME_DOB,
-        key = "#name + '_' + #dob")
     Set<PersonEntity> findAllByNameAndDateOfBirth(String name, LocalDate dob);
 
+    /**
+     * Plain batch lookup by internal ID. Relationships are not fetched.
+     */
+    Set<PersonEntity> findAllByInternalIdIn(Set<Long> internalIds);
+
+    @Query("SELECT p.internalId FROM PersonEntity p WHERE p.externalId = :externalId")
+    Optional<Long> findInternalIdByExternalId(@Param("externalId") Long externalId);
+
+    @Query("SELECT p.internalId FROM PersonEntity p WHERE p.externalId in :externalIds")
+    Set<Long> findInternalIdsByExternalIdIn(@Param("externalIds") Set<Long> externalIds);
+
+    @Query("SELECT p.externalId AS externalId, p.internalId AS internalId FROM PersonEntity p WHERE p.externalId in :externalIds")
+    List<IdPair> findIdPairsByExternalIdIn(@Param("externalIds") Set<Long> externalIds);
+
+    /**
+     * Keyset paged persons that are not deleted, in ascending internal ID order. Read as projections rather than
+     * entities, so paging through all of them does not grow the persistence context.
+     */
+    @Query("""
+        SELECT p.internalId AS internalId, p.externalId AS externalId, p.name AS name,
+            p.dateOfBirth AS dateOfBirth, p.deleted AS deleted
+        FROM PersonEntity p
+        WHERE p.deleted = false AND p.internalId > :after
+        ORDER BY p.internalId
+        """)
+    List<NodeRow> findRowsAfter(@Param("after") Long after, Pageable limit);
+
+    @Query("""
+        SELECT p.internalId AS internalId, p.externalId AS externalId, p.name AS name,
+            p.dateOfBirth AS dateOfBirth, p.deleted AS deleted
+        FROM PersonEntity p
+        WHERE p.internalId in :internalIds
+        """)
+    List<NodeRow> findRowsByInternalIdIn(@Param("internalIds") Set<Long> internalIds);
+
+    @Query("SELECT p.internalId FROM PersonEntity p WHERE p.name = :name AND p.dateOfBirth = :dob")
+    Set<Long> findInternalIdsByNameAndDateOfBirth(@Param("name") String name, @Param("dob") LocalDate dob);
+
+    /**
+     * Keyset paged external IDs of the soft deleted persons, in ascending order.
+     */
+    @Query("SELECT p.externalId FROM PersonEntity p WHERE p.deleted = true AND p.externalId > :after ORDER BY p.externalId")
+    List<Long> findDeletedExternalIdsAfter(@Param("after") Long after, Pageable limit);
+
+    @Query("SELECT p.externalId FROM PersonEntity p WHERE p.deleted = true AND p.externalId in :externalIds")
+    Set<Long> findDeletedExternalIdsIn(@Param("externalIds") Set<Long> externalIds);
+
     @EntityGraph(attributePaths = {"relationships", "relationships.relatedPerson.relationships"})
     Set<PersonEntity> findByExternalIdIn(Set<Long> externalIds);
 
+    /**
+     * Lock the rows of the persons for the rest of the transaction, in order of their external ID so that transactions
+     * locking overlapping persons take them in the same order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PersonEntity p WHERE p.externalId in :externalIds ORDER BY p.externalId, p.internalId")
+    List<PersonEntity> lockByExternalIdIn(@Param("externalIds") Set<Long> externalIds);
+
+    /**
+     * Plain batch lookup by external ID. Relationships are not fetched.
+     */
+    Set<PersonEntity> findAllByExternalIdIn(Set<Long> externalIds);
+
+    /**
+     * Only persons not already in that state are changed, so a person deleted again keeps when it was first deleted.
+     */
     @Modifying
     @Transactional
-    @Query("UPDATE PersonEntity p SET p.deleted = :delete WHERE p.externalId in :externalIds")
-    int updateDeleteByExternalId(@Param("externalIds") Set<Long> externalId, @Param("delete") boolean delete);
+    @Query("""
+        UPDATE PersonEntity p SET p.deleted = :delete, p.deletedAt = :deletedAt
+        WHERE p.externalId in :externalIds AND p.deleted <> :delete
+        """)
+    int updateDeleteByExternalId(
+        @Param("externalIds") Set<Long> externalId,
+        @Param("delete") boolean delete,
+        @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Persons soft deleted before the cutoff, or at an unknown time, oldest internal ID first.
+     */
+    @Query("""
+        SELECT p FROM PersonEntity p
+        WHERE p.deleted = true AND (p.deletedAt IS NULL OR p.deletedAt < :cutoff)
+        ORDER BY p.internalId
+        """)
+    List<PersonEntity> findDeletedBefore(@Param("cutoff") Instant cutoff, Pageable limit);
+
+    @Modifying
+    @Query("DELETE FROM PersonEntity p WHERE p.internalId in :internalIds")
+    int deleteByInternalIdIn(@Param("internalIds") Set<Long> internalIds);
+
+    /**
+     * The columns of a person, without its relationships.
+     */
+    interface NodeRow {
+        Long getInternalId();
+
+        Long getExternalId();
+
+        String getName();
+
+        LocalDate getDateOfBirth();
+
+        boolean isDeleted();
+    }
+
+    /**
+     * External ID of a person along with its internal ID.
+     */
+    interface IdPair {
+        Long getExternalId();
 
+        Long getInternalId();
+    }
 }
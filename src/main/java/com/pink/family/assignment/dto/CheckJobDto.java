@@ -0,0 +1,46 @@
+package com.pink.family.assignment.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Progress of a batch check job.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CheckJobDto {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    String jobId;
+    State state;
+
+    /**
+     * Lines in the submitted input, including any that could not be read.
+     */
+    long total;
+
+    /**
+     * Lines processed so far, their results are available once the job is done.
+     */
+    long processed;
+
+    long passed;
+    long failed;
+
+    Instant submitted;
+
+    /**
+     * When the job was done or failed, null while it is still going.
+     */
+    Instant finished;
+
+    /**
+     * Why the job failed, null unless it did.
+     */
+    String error;
+}
@@ -0,0 +1,37 @@
+package com.pink.family.assignment.dto;
+
+import lombok.Value;
+
+import java.util.Optional;
+
+/**
+ * Outcome of a person check.
+ */
+@Value
+public class CheckResultDto {
+
+    /**
+     * Why the person does not meet the criteria, null if they do.
+     */
+    String reason;
+
+    /**
+     * True if this is the last known result, served because the database could not answer in time.
+     */
+    boolean stale;
+
+    public static CheckResultDto fresh(Optional<String> reason) {
+        return new CheckResultDto(reason.filter(r -> !r.isEmpty()).orElse(null), false);
+    }
+
+    public static CheckResultDto stale(Optional<String> reason) {
+        return new CheckResultDto(reason.filter(r -> !r.isEmpty()).orElse(null), true);
+    }
+
+    /**
+     * The reason as an optional, empty if the person meets the criteria.
+     */
+    public Optional<String> asOptional() {
+        return Optional.ofNullable(reason);
+    }
+}
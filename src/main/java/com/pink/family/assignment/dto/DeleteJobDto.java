@@ -0,0 +1,43 @@
+package com.pink.family.assignment.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Progress of a soft delete job.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DeleteJobDto {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    String jobId;
+    State state;
+
+    /**
+     * Distinct IDs submitted.
+     */
+    long total;
+
+    /**
+     * IDs soft deleted so far, a chunk at a time.
+     */
+    long processed;
+
+    Instant submitted;
+
+    /**
+     * When the job was done or failed, null while it is still going.
+     */
+    Instant finished;
+
+    /**
+     * Why the job failed, null unless it did.
+     */
+    String error;
+}
@@ -0,0 +1,43 @@
+package com.pink.family.assignment.dto;
+
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A single update of a person, as applied by
+ * {@link com.pink.family.assignment.database.dao.PersonDao#updatePerson(Long, String, LocalDate, Map)}.
+ */
+@Value
+@Builder
+public class PersonUpdateDto {
+    Long externalId;
+    String name;
+    LocalDate dateOfBirth;
+    Map<RelationshipType, Set<Long>> relatedIdsByType;
+
+    /**
+     * The person updated and every person it is related to by the update, both sides of whose relationships are
+     * written.
+     */
+    public static Set<Long> touchedIds(Long externalId, Map<RelationshipType, Set<Long>> relatedIdsByType) {
+        Set<Long> touched = relatedIdsByType.values().stream()
+            .filter(Objects::nonNull)
+            .flatMap(Set::stream)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(HashSet::new));
+        touched.add(externalId);
+        return touched;
+    }
+
+    public Set<Long> touchedIds() {
+        return touchedIds(externalId, relatedIdsByType);
+    }
+}
@@ -0,0 +1,82 @@
+package com.pink.family.assignment.properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-client admission control in front of the API. Every client gets its own token bucket (rate and burst) and
+ * concurrency limit for each kind of operation, so a single client can not take all the database connections.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Header identifying the client.
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Header carrying the client's API key, used as its identity when the client header is absent.
+     */
+    private String apiKeyHeader = "X-API-Key";
+
+    /**
+     * Clients that do not identify themselves share a single budget under this name.
+     */
+    private String anonymousClient = "anonymous";
+
+    /**
+     * How long an idle client's budget is kept, after which it starts out with a full bucket again.
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Number of clients tracked at once, the least recently seen are dropped beyond this.
+     */
+    private long maxClients = 10_000;
+
+    /**
+     * Clients counted under their own name in the metrics. The client header is not authenticated, so any other client
+     * is counted as {@link #otherClient}, which keeps the number of metric series bounded.
+     */
+    private Set<String> metricClients = new HashSet<>();
+
+    private String otherClient = "other";
+
+    private Budget check = new Budget(200, 400, 32);
+
+    private Budget update = new Budget(20, 40, 4);
+
+    private Budget delete = new Budget(5, 10, 2);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Budget {
+        /**
+         * Requests per second a client is admitted on average.
+         */
+        private double ratePerSecond;
+
+        /**
+         * Requests a client may make at once above the rate, i.e. the size of the bucket.
+         */
+        private int burst;
+
+        /**
+         * Requests of a client that may be in progress at the same time.
+         */
+        private int maxConcurrent;
+    }
+}
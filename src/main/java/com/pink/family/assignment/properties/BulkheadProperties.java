@@ -0,0 +1,43 @@
+package com.pink.family.assignment.properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Separate budgets for the database reads of the checks and the database writes of the updates and deletes, so a
+ * burst of long write transactions can not take all the request threads and connections the checks need.
+ * <p>
+ * Each lane's concurrency bounds both the request threads busy with it and the connections it holds. The two together
+ * should not exceed {@code spring.datasource.hikari.maximum-pool-size}, so the reads always have connections left.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled = false;
+
+    private Lane read = new Lane(7, Duration.ofMillis(500));
+
+    private Lane write = new Lane(3, Duration.ofSeconds(2));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Lane {
+        /**
+         * Database calls of the lane that may be in progress at the same time.
+         */
+        private int maxConcurrent;
+
+        /**
+         * How long a call may wait for the lane before it is refused with a 503.
+         */
+        private Duration maxWait;
+    }
+}
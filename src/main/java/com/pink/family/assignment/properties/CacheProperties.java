@@ -5,6 +5,7 @@ import com.pink.family.assignment.CacheConfig;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 import java.util.Map;
@@ -16,10 +17,54 @@ public class CacheProperties {
 
     private Map<String, CacheSpec> caches;
 
+    /**
+     * Total (estimated) memory the caches may use, e.g. 2GB.
+     * When set, every person graph cache without its own {@link CacheSpec#getMaximumWeight()} gets a part of it by its
+     * {@link CacheSpec#getWeightShare()} and is bounded by weight rather than by entry count. The last known check
+     * results are not part of it.
+     */
+    private DataSize maximumWeight;
+
+    private HeapPressure heapPressure = new HeapPressure();
+
 
     @Data
     public static class CacheSpec {
         private Duration expireAfterWrite = Duration.ofMinutes(CacheConfig.Constant.DEFAULT_MINUTE_DURATION);
         private long maximumSize = CacheConfig.Constant.DEFAULT_MAX_SIZE;
+        /**
+         * Bound the cache by estimated memory use rather than {@link #maximumSize}.
+         */
+        private DataSize maximumWeight;
+        /**
+         * The person graph cache's share of the total maximum weight, relative to the other person graph caches. Defaults
+         * to {@link CacheConfig.Constant#DEFAULT_WEIGHT_SHARES}.
+         */
+        private Integer weightShare;
+    }
+
+    /**
+     * Shrink the caches when the heap is under pressure and grow them back once it is not.
+     */
+    @Data
+    public static class HeapPressure {
+        private boolean enabled = true;
+        private Duration checkInterval = Duration.ofSeconds(5);
+        /**
+         * Fraction of the heap in use (after GC) above which the caches are shrunk.
+         */
+        private double highWatermark = 0.85;
+        /**
+         * Fraction of the heap in use (after GC) below which the caches are grown back to their configured bound.
+         */
+        private double lowWatermark = 0.70;
+        /**
+         * Each check above the high watermark multiplies the bound by this factor.
+         */
+        private double shrinkFactor = 0.5;
+        /**
+         * The bound is never shrunk below this fraction of the configured bound.
+         */
+        private double minimumFraction = 0.1;
     }
 }
@@ -0,0 +1,53 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the batch check jobs, see {@link com.pink.family.assignment.service.CheckJobService}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.jobs")
+public class CheckJobProperties {
+
+    /**
+     * Whether to accept batch check jobs.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where the input, results and checkpoint of every job are kept. Jobs found here on startup that did not finish
+     * are resumed, so keep it on a disk that survives a restart.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "family-jobs");
+
+    /**
+     * Jobs processed at the same time, each takes one database read at a time.
+     */
+    private int workers = 2;
+
+    /**
+     * Jobs waiting for a worker, further submissions get a 503.
+     */
+    private int maxQueued = 20;
+
+    /**
+     * Check requests read, resolved and checkpointed together.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Largest input accepted, a larger one gets a 413 and nothing of it is kept.
+     */
+    private DataSize maxInputSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Finished jobs kept, along with their input and results. The oldest are deleted first.
+     */
+    private int retained = 100;
+}
@@ -0,0 +1,53 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the adaptive limit on concurrent database work, see
+ * {@link com.pink.family.assignment.util.AdaptiveConcurrencyLimiter}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.database-limiter")
+public class DatabaseLimiterProperties {
+
+    private boolean enabled = false;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 4;
+
+    /**
+     * Should not exceed the connection pool size, beyond that work waits on the pool instead.
+     */
+    private int maxLimit = 100;
+
+    /**
+     * Database calls that may wait for a slot once the limit is reached. Beyond this they are refused with a 503.
+     */
+    private int maxQueue = 200;
+
+    /**
+     * How long a database call may wait for a slot before it is refused with a 503.
+     */
+    private Duration maxWait = Duration.ofMillis(500);
+
+    /**
+     * How much slower recent database calls may be than the long term average before the limit shrinks.
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * Weight of a new limit estimate against the current limit, between 0 and 1.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Number of database calls the long term latency is averaged over.
+     */
+    private int longTermWindow = 600;
+}
@@ -0,0 +1,34 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Request deadlines. A request's deadline bounds how long it may wait for and hold the database, it is applied as the
+ * query timeout of its database calls.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Header in which the client gives how long it is prepared to wait for the response, in milliseconds.
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * Deadline of a request that does not give one.
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Longest deadline a client can ask for.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(60);
+}
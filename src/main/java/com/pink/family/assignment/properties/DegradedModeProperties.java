@@ -0,0 +1,50 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the degraded mode, in which the last known check result is served (marked stale) when the
+ * database is too slow or unavailable.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.degraded-mode")
+public class DegradedModeProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * How long a check may wait on the database before the last known result is served instead.
+     * The database call carries on in the background and refreshes the last known result once it completes.
+     */
+    private Duration latencyBudget = Duration.ofMillis(250);
+
+    /**
+     * Threads available to run database reads while the request thread waits on the latency budget.
+     */
+    private int readThreads = 32;
+
+    /**
+     * Reads that may queue for a read thread. Once full the read runs on the request thread instead.
+     */
+    private int readQueueCapacity = 256;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Consecutive failed or slow database reads after which the circuit opens.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long the circuit stays open before a single trial read is let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,65 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Soft deletes and the purge of the persons deleted long ago.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.deletion")
+public class DeletionProperties {
+
+    /**
+     * Persons soft deleted per transaction. A longer list is deleted a chunk at a time, so no single statement locks
+     * a large part of the table.
+     */
+    private int chunkSize = 1000;
+
+    private Jobs jobs = new Jobs();
+
+    private Purge purge = new Purge();
+
+    /**
+     * Soft deletes of long lists in the background, see {@link com.pink.family.assignment.service.DeleteJobService}.
+     */
+    @Data
+    public static class Jobs {
+        private boolean enabled = false;
+
+        /**
+         * Jobs waiting for the worker, further submissions get a 503.
+         */
+        private int maxQueued = 20;
+
+        /**
+         * Finished jobs whose progress can still be looked up, the oldest are forgotten first.
+         */
+        private int retained = 1000;
+    }
+
+    /**
+     * Moving persons soft deleted long ago out of the hot tables, see
+     * {@link com.pink.family.assignment.service.PurgeService}.
+     */
+    @Data
+    public static class Purge {
+        private boolean enabled = false;
+
+        /**
+         * How long a person stays in the hot tables after it was deleted.
+         */
+        private Duration retention = Duration.ofDays(90);
+
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * Persons moved per transaction.
+         */
+        private int batchSize = 500;
+    }
+}
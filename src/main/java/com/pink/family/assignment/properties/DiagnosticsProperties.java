@@ -0,0 +1,45 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracing of single requests, i.e. debug logging of everything the application does for them while the rest stays at
+ * the configured log level.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.diagnostics")
+public class DiagnosticsProperties {
+
+    /**
+     * Request IDs to trace from startup, more can be added at runtime through /actuator/diagnostics.
+     */
+    private Set<String> traceRequestIds = new HashSet<>();
+
+    /**
+     * How long a request ID added at runtime is traced, after which it is dropped.
+     */
+    private Duration traceDuration = Duration.ofHours(1);
+
+    /**
+     * Number of request IDs traced at runtime at once, the oldest are dropped beyond this.
+     */
+    private long maxTracedRequests = 1_000;
+
+    /**
+     * Fraction of all requests to trace, between 0 and 1. Decided by the request ID, so retries of a traced request are
+     * traced as well.
+     */
+    private double traceSampleRate = 0;
+
+    /**
+     * Loggers that log at debug for traced requests.
+     */
+    private String traceLoggerPrefix = "com.pink.family";
+}
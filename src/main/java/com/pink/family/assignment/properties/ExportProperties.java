@@ -0,0 +1,24 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the export of all persons, see {@link com.pink.family.assignment.service.PersonService#exportPersons(int)}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.export")
+public class ExportProperties {
+
+    /**
+     * Whether to serve the export endpoint. The internal API is always available.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Persons read per query, each page in a transaction of its own.
+     */
+    private int pageSize = 500;
+}
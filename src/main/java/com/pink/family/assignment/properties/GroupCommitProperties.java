@@ -0,0 +1,33 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the group commit of updates, see {@link com.pink.family.assignment.service.GroupCommitService}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.group-commit")
+public class GroupCommitProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * How long the first update of a batch waits for others to join it.
+     */
+    private Duration window = Duration.ofMillis(5);
+
+    /**
+     * Updates applied in one transaction at most. A full batch is committed without waiting for the window.
+     */
+    private int maxBatchSize = 50;
+
+    /**
+     * Updates waiting for their batch, further updates get a 503.
+     */
+    private int maxQueued = 1000;
+}
@@ -0,0 +1,36 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the gRPC interface, see spec/family-check.proto.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.grpc")
+public class GrpcProperties {
+
+    /**
+     * Whether to start the gRPC server alongside the REST API.
+     */
+    private boolean enabled = false;
+
+    private int port = 9090;
+
+    /**
+     * Most persons accepted in a single batch check.
+     */
+    private int maxBatchSize = 1000;
+
+    private DataSize maxInboundMessageSize = DataSize.ofMegabytes(4);
+
+    /**
+     * How long running calls, e.g. open streams, are given to finish on shutdown.
+     */
+    private Duration shutdownGracePeriod = Duration.ofSeconds(10);
+}
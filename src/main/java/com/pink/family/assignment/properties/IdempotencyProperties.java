@@ -0,0 +1,44 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Idempotent updates, see {@link com.pink.family.assignment.service.IdempotencyService}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Header in which the client gives the key identifying the update, the same for every retry of it.
+     */
+    private String header = "Idempotency-Key";
+
+    /**
+     * How long a response is kept for replay. A retry within this time must get the same response however many other
+     * updates were made meanwhile, so a response is never dropped before.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * Number of responses kept at once, of all clients. Beyond this new updates with a key are refused with a 503 until
+     * responses expire, rather than dropping one that may still be retried.
+     */
+    private long maxStored = 100_000;
+
+    /**
+     * Number of responses kept at once for a single client, so one client choosing many keys can not fill the store
+     * for all the others.
+     */
+    private long maxStoredPerClient = 1_000;
+
+    /**
+     * How long a duplicate waits for the update with the same key that is still in progress.
+     */
+    private Duration inFlightWait = Duration.ofSeconds(30);
+}
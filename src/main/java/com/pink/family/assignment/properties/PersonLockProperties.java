@@ -0,0 +1,40 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the locks taken on the persons an update touches, see
+ * {@link com.pink.family.assignment.service.PersonLocks}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.person-locks")
+public class PersonLockProperties {
+
+    /**
+     * On unless turned off: without the locks, overlapping updates can deadlock, fail on a duplicate relationship or
+     * create the same person twice.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Locks the external IDs are spread over. More stripes mean fewer unrelated updates waiting on each other.
+     */
+    private int stripes = 1024;
+
+    /**
+     * How long an update waits for its locks before it gets a 503.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Also lock the rows of the persons touched, in order of their external ID, at the start of each update's
+     * transaction. For deployments of more than one node, where the in-process locks only order the updates of a
+     * single node.
+     */
+    private boolean database = false;
+}
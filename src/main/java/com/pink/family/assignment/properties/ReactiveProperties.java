@@ -0,0 +1,27 @@
+package com.pink.family.assignment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the reactive stack, used when the application runs with
+ * {@code spring.main.web-application-type=reactive}. The connection itself is configured with the standard
+ * {@code spring.r2dbc.*} properties.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pink.config.reactive")
+public class ReactiveProperties {
+
+    /**
+     * Requests that may wait for a database connection once the pool is exhausted. Beyond this requests are refused
+     * with a 503 rather than queued without bound.
+     */
+    private int maxPendingAcquire = 1000;
+
+    /**
+     * Number of external IDs soft deleted per statement.
+     */
+    private int deleteBatchSize = 500;
+}
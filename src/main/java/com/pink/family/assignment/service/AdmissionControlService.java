@@ -0,0 +1,251 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.AdmissionProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides whether a client's request is admitted, before any work is done for it.
+ * <p>
+ * Each client has, per {@link Operation}, a token bucket bounding its rate and a semaphore bounding how many of its
+ * requests are in progress at once. A request over either budget is rejected straight away rather than queued, so a
+ * misbehaving client can not hold on to the database connections everyone else needs.
+ * <p>
+ * Admitted and rejected requests are counted per operation, and per client for the clients named in
+ * {@link AdmissionProperties#getMetricClients()} and the anonymous one.
+ */
+@Slf4j
+@Service
+public class AdmissionControlService {
+
+    public enum Operation {
+        CHECK,
+        UPDATE,
+        DELETE
+    }
+
+    public enum Rejection {
+        RATE,
+        CONCURRENCY
+    }
+
+    private final AdmissionProperties properties;
+    private final MicrometerService micrometerService;
+    private final Cache<LimiterKey, Limiter> limiters;
+
+    public AdmissionControlService(AdmissionProperties properties, MicrometerService micrometerService) {
+        this.properties = properties;
+        this.micrometerService = micrometerService;
+        this.limiters = Caffeine.newBuilder()
+            .expireAfterAccess(properties.getClientIdleTimeout())
+            .maximumSize(properties.getMaxClients() * Operation.values().length)
+            .build();
+    }
+
+    /**
+     * The identity of a client: the client header if given, else a digest of the API key (the key itself must not end
+     * up in the metrics), else the shared anonymous client.
+     */
+    public String clientOf(String clientId, String apiKey) {
+        if (!ObjectUtils.isEmpty(clientId)) {
+            return clientId;
+        }
+        if (!ObjectUtils.isEmpty(apiKey)) {
+            return "key-" + digest(apiKey);
+        }
+        return properties.getAnonymousClient();
+    }
+
+    /**
+     * Try to admit a request. An admitted request must be closed once done to free its concurrency slot.
+     */
+    public Admission admit(String client, Operation operation) {
+        Limiter limiter = limiters.get(new LimiterKey(client, operation), k -> new Limiter(budget(operation)));
+
+        Admission admission = limiter.tryAcquire();
+        if (admission.isAdmitted()) {
+            micrometerService.increment(MeterKeys.COUNT_ADMISSION_ADMITTED,
+                "client", metricClient(client), "operation", operation.name());
+        } else {
+            log.debug("Rejected {} of client {}: over {} budget", operation, client, admission.getRejection());
+            micrometerService.increment(MeterKeys.COUNT_ADMISSION_REJECTED,
+                "client", metricClient(client), "operation", operation.name(), "reason", admission.getRejection().name());
+        }
+        return admission;
+    }
+
+    private String metricClient(String client) {
+        return properties.getMetricClients().contains(client) || properties.getAnonymousClient().equals(client) ?
+            client :
+            properties.getOtherClient();
+    }
+
+    /**
+     * Take more tokens from the rate budget of a request already admitted, for requests whose cost is only known once
+     * their body is read (a batch of checks costs as much as that many checks). Takes no concurrency slot.
+     *
+     * @param weight tokens to take, on top of the one taken on admission.
+     */
+    public Admission charge(String client, Operation operation, int weight) {
+        if (weight <= 0) {
+            return Admission.ADMITTED;
+        }
+        Limiter limiter = limiters.get(new LimiterKey(client, operation), k -> new Limiter(budget(operation)));
+
+        Admission admission = limiter.tryTake(weight);
+        if (!admission.isAdmitted()) {
+            log.debug("Rejected {} of client {} weighing {}: over rate budget", operation, client, weight + 1);
+            micrometerService.increment(MeterKeys.COUNT_ADMISSION_REJECTED,
+                "client", metricClient(client), "operation", operation.name(), "reason", admission.getRejection().name());
+        }
+        return admission;
+    }
+
+    private AdmissionProperties.Budget budget(Operation operation) {
+        return switch (operation) {
+            case CHECK -> properties.getCheck();
+            case UPDATE -> properties.getUpdate();
+            case DELETE -> properties.getDelete();
+        };
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record LimiterKey(String client, Operation operation) {
+    }
+
+    /**
+     * Outcome of {@link #admit(String, Operation)}.
+     */
+    @Getter
+    public static class Admission implements AutoCloseable {
+
+        static final Admission ADMITTED = new Admission(null, 0, null);
+
+        private final Rejection rejection;
+
+        /**
+         * For a rejection on rate, how long until a token is available again.
+         */
+        private final long retryAfterSeconds;
+
+        private final Semaphore slot;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(Rejection rejection, long retryAfterSeconds, Semaphore slot) {
+            this.rejection = rejection;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.slot = slot;
+        }
+
+        public boolean isAdmitted() {
+            return rejection == null;
+        }
+
+        @Override
+        public void close() {
+            if (slot != null && released.compareAndSet(false, true)) {
+                slot.release();
+            }
+        }
+    }
+
+    /**
+     * Token bucket and concurrency limit of one client for one operation.
+     */
+    private static class Limiter {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private final Semaphore concurrency;
+        private final Lock lock = new ReentrantLock();
+
+        private double tokens;
+        private long refilledAtNanos;
+
+        Limiter(AdmissionProperties.Budget budget) {
+            this.tokensPerNano = budget.getRatePerSecond() / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, budget.getBurst());
+            this.concurrency = new Semaphore(Math.max(1, budget.getMaxConcurrent()));
+            this.tokens = capacity;
+            this.refilledAtNanos = System.nanoTime();
+        }
+
+        Admission tryAcquire() {
+            if (!concurrency.tryAcquire()) {
+                return new Admission(Rejection.CONCURRENCY, 1, null);
+            }
+
+            double missing;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * tokensPerNano);
+                refilledAtNanos = now;
+
+                if (tokens >= 1) {
+                    tokens--;
+                    return new Admission(null, 0, concurrency);
+                }
+                missing = 1 - tokens;
+            } finally {
+                lock.unlock();
+            }
+
+            concurrency.release();
+            return new Admission(Rejection.RATE, retryAfterSeconds(missing), null);
+        }
+
+        /**
+         * Take the tokens if a full bucket could hold them, which may run the bucket into debt: a heavy request is
+         * admitted once enough tokens have built up and the requests after it wait until the debt is paid off.
+         */
+        Admission tryTake(int weight) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * tokensPerNano);
+                refilledAtNanos = now;
+
+                double needed = Math.min(weight, capacity);
+                if (tokens >= needed) {
+                    tokens -= weight;
+                    return Admission.ADMITTED;
+                }
+                return new Admission(Rejection.RATE, retryAfterSeconds(needed - tokens), null);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long retryAfterSeconds(double missingTokens) {
+            if (tokensPerNano <= 0) {
+                return 60;
+            }
+            double nanos = missingTokens / tokensPerNano;
+            return Math.max(1, (long) Math.ceil(nanos / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.CacheProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shrinks the caches when the heap is under pressure and grows them back once it is not.
+ * <p>
+ * Heap use is measured after the last collection of the tenured pool, so that garbage which simply has not been
+ * collected yet does not trigger a shrink. Every check above the high watermark multiplies each cache's bound by the
+ * shrink factor (never going below the minimum fraction of its baseline), every check below the low watermark grows it
+ * back towards the baseline.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheHeapPressureMonitor implements SchedulingConfigurer {
+
+    private final CacheManager cacheManager;
+    private final CacheProperties cacheProperties;
+    private final MicrometerService micrometerService;
+
+    /**
+     * The bound each cache should have when there is no heap pressure.
+     */
+    private final Map<String, Long> baselines = new ConcurrentHashMap<>();
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        CacheProperties.HeapPressure heapPressure = cacheProperties.getHeapPressure();
+        if (heapPressure.isEnabled()) {
+            taskRegistrar.addFixedDelayTask(this::check, heapPressure.getCheckInterval());
+        }
+    }
+
+    /**
+     * Set the bound a cache returns to once the heap pressure subsides.
+     */
+    public void setBaseline(String cacheName, long maximum) {
+        baselines.put(cacheName, maximum);
+    }
+
+    public void check() {
+        check(heapUsedFraction());
+    }
+
+    void check(double usedFraction) {
+        CacheProperties.HeapPressure heapPressure = cacheProperties.getHeapPressure();
+
+        if (usedFraction >= heapPressure.getHighWatermark()) {
+            log.warn("Heap use after GC at {}%, shrinking caches", Math.round(usedFraction * 100));
+            resize(heapPressure.getShrinkFactor(), heapPressure.getMinimumFraction());
+            micrometerService.increment(MeterKeys.COUNT_CACHE_SHRINK);
+        } else if (usedFraction <= heapPressure.getLowWatermark()) {
+            resize(1 / heapPressure.getShrinkFactor(), heapPressure.getMinimumFraction());
+        }
+    }
+
+    private void resize(double factor, double minimumFraction) {
+        for (String name : cacheManager.getCacheNames()) {
+            if (!(cacheManager.getCache(name) instanceof CaffeineCache caffeineCache)) {
+                continue;
+            }
+            Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+            nativeCache.policy().eviction().ifPresent(eviction -> {
+                long baseline = baselines.computeIfAbsent(name, n -> eviction.getMaximum());
+                long current = eviction.getMaximum();
+                long target = Math.max(
+                    (long) (baseline * minimumFraction),
+                    Math.min(baseline, (long) (current * factor)));
+
+                if (target != current) {
+                    log.info("Resizing cache {} from {} to {} (baseline {})", name, current, target, baseline);
+                    eviction.setMaximum(target);
+                }
+            });
+        }
+    }
+
+    /**
+     * Fraction of the tenured heap pool in use after its last collection.
+     * Falls back on the overall heap use if no such pool is available.
+     */
+    static double heapUsedFraction() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // eden and survivor spaces do not support usage thresholds, the tenured pool does.
+            if (pool.getType() == MemoryType.HEAP
+                && pool.isUsageThresholdSupported()
+                && pool.isCollectionUsageThresholdSupported())
+            {
+                MemoryUsage usage = pool.getCollectionUsage();
+                long max = usage == null ? -1 : usage.getMax();
+                if (max > 0) {
+                    return (double) usage.getUsed() / max;
+                }
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+    }
+}
@@ -0,0 +1,573 @@
+package com.pink.family.assignment.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.dto.CheckJobDto;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.properties.CheckJobProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Batch check jobs: a (large) file of check requests, one {@link SpecificPersonCheckRequest} as JSON per line, checked
+ * in the background.
+ * <p>
+ * Each job gets its own directory holding the submitted input, the results written so far (one {@link Result} as JSON
+ * per line) and a checkpoint. The input is read in chunks, the persons requested by ID are loaded for the whole chunk
+ * at once with set based queries, and after each chunk the results are forced to disk before the checkpoint moves on.
+ * A job interrupted by a restart is resumed from its last checkpoint, results written past it are dropped.
+ * <p>
+ * Jobs run on a fixed number of workers, waiting for one in a queue of {@link CheckJobProperties#getMaxQueued()}.
+ * Submissions beyond it get a 503, an input larger than {@link CheckJobProperties#getMaxInputSize()} a 413, neither is
+ * kept. Of the finished jobs only the last {@link CheckJobProperties#getRetained()} are kept, the directories of older
+ * ones are deleted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "pink.config.jobs", name = "enabled", havingValue = "true")
+public class CheckJobService {
+
+    static final String INPUT = "input.ndjson";
+    static final String RESULTS = "results.ndjson";
+    static final String CHECKPOINT = "checkpoint.properties";
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final CheckJobProperties properties;
+    private final PersonService personService;
+    private final ObjectMapper objectMapper;
+    private final MicrometerService micrometerService;
+
+    private final ConcurrentMap<String, CheckJobDto> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Resumed jobs that did not fit in the queue, queued as soon as there is room.
+     */
+    private final Deque<String> waiting = new ConcurrentLinkedDeque<>();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Starts the workers and resumes the jobs that had not finished when the application stopped.
+     */
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(
+            properties.getWorkers(),
+            properties.getWorkers(),
+            0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(properties.getMaxQueued()),
+            Thread.ofPlatform().name("check-job-", 0).factory());
+        micrometerService.gauge(MeterKeys.GAUGE_JOB_QUEUED, () -> executor.getQueue().size() + waiting.size());
+
+        List<CheckJobDto> found;
+        try {
+            Files.createDirectories(properties.getDirectory());
+            try (Stream<Path> directories = Files.list(properties.getDirectory())) {
+                found = directories.filter(Files::isDirectory)
+                    .map(CheckJobService::recover)
+                    .flatMap(Optional::stream)
+                    .sorted(Comparator.comparing(CheckJobDto::getSubmitted))
+                    .toList();
+            }
+        } catch (IOException e) {
+            throw new PinkSystemException("Could not read the job directory " + properties.getDirectory(), e);
+        }
+
+        found.forEach(job -> jobs.put(job.getJobId(), job));
+        forgetFinished(properties.getRetained());
+        found.stream()
+            .filter(job -> job.getState() == CheckJobDto.State.QUEUED || job.getState() == CheckJobDto.State.RUNNING)
+            .forEach(job -> {
+                log.info("Resuming job {} at line {} of {}", job.getJobId(), job.getProcessed(), job.getTotal());
+                waiting.add(job.getJobId());
+            });
+        queueWaiting();
+    }
+
+    /**
+     * Stops the workers, jobs still running keep their last checkpoint and resume on the next start.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Store the input and queue the job.
+     *
+     * @param input check requests, one as JSON per line.
+     */
+    public CheckJobDto submit(InputStream input) {
+        // saves storing an input that would be refused anyway, the queue itself is what holds the line.
+        if (!waiting.isEmpty() || executor.getQueue().remainingCapacity() == 0) {
+            throw tooManyQueued();
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path directory = properties.getDirectory().resolve(jobId);
+        CheckJobDto job;
+        try {
+            Files.createDirectories(directory);
+            job = CheckJobDto.builder()
+                .jobId(jobId)
+                .state(CheckJobDto.State.QUEUED)
+                .total(copy(input, directory.resolve(INPUT), properties.getMaxInputSize().toBytes()))
+                .submitted(Instant.now())
+                .build();
+            save(directory, job, 0);
+        } catch (IOException e) {
+            delete(directory);
+            throw new PinkSystemException("Could not store the input of job " + jobId, e);
+        } catch (RuntimeException e) {
+            delete(directory);
+            throw e;
+        }
+
+        forgetFinished(properties.getRetained() - 1);
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            delete(directory);
+            throw tooManyQueued();
+        }
+        log.info("Job {} submitted with {} lines", jobId, job.getTotal());
+        return job;
+    }
+
+    public CheckJobDto status(String jobId) {
+        CheckJobDto job = jobs.get(jobId);
+        if (job == null) {
+            throw new PinkApiException("No job with ID " + jobId, 404);
+        }
+        return job;
+    }
+
+    /**
+     * The results of a job that is done.
+     */
+    public Path results(String jobId) {
+        CheckJobDto job = status(jobId);
+        if (job.getState() != CheckJobDto.State.DONE) {
+            throw new PinkApiException("Job " + jobId + " is " + job.getState().name().toLowerCase() + ", not done", 409);
+        }
+        return properties.getDirectory().resolve(jobId).resolve(RESULTS);
+    }
+
+    private static Optional<CheckJobDto> recover(Path directory) {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpoint)) {
+            // submission did not get as far as its first checkpoint, so was never accepted.
+            delete(directory);
+            return Optional.empty();
+        }
+        return Optional.of(load(checkpoint).getJob());
+    }
+
+    /**
+     * Queue the resumed jobs waiting for room, in the order they were submitted, as far as there is room.
+     */
+    private void queueWaiting() {
+        String jobId;
+        while ((jobId = waiting.poll()) != null) {
+            String next = jobId;
+            try {
+                executor.execute(() -> run(next));
+            } catch (RejectedExecutionException e) {
+                if (!executor.isShutdown()) {
+                    waiting.addFirst(next);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete the oldest finished jobs, keeping the given number of them.
+     */
+    private void forgetFinished(int keep) {
+        List<CheckJobDto> finished = jobs.values().stream()
+            .filter(job -> job.getFinished() != null)
+            .sorted(Comparator.comparing(CheckJobDto::getFinished))
+            .toList();
+        int excess = finished.size() - keep;
+        for (int i = 0; i < excess; i++) {
+            String jobId = finished.get(i).getJobId();
+            jobs.remove(jobId);
+            delete(properties.getDirectory().resolve(jobId));
+            log.debug("Job {} forgotten", jobId);
+        }
+    }
+
+    private static PinkApiException tooManyQueued() {
+        return new PinkApiException("Too many jobs queued, try again later", 503);
+    }
+
+    private void run(String jobId) {
+        try {
+            process(jobId);
+        } finally {
+            queueWaiting();
+        }
+    }
+
+    private void process(String jobId) {
+        Path directory = properties.getDirectory().resolve(jobId);
+        Checkpoint checkpoint = load(directory.resolve(CHECKPOINT));
+        CheckJobDto job = checkpoint.getJob().toBuilder().state(CheckJobDto.State.RUNNING).build();
+        // the results up to the last checkpoint saved, always saved along with the processed lines they are for.
+        long resultsBytes = checkpoint.getResultsBytes();
+        jobs.put(jobId, job);
+
+        try (BufferedReader input = Files.newBufferedReader(directory.resolve(INPUT));
+             FileChannel results = FileChannel.open(
+                 directory.resolve(RESULTS), StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+        {
+            // drop what was written after the last checkpoint, those lines are processed again.
+            results.truncate(resultsBytes);
+            results.position(resultsBytes);
+            for (long line = 0; line < job.getProcessed(); line++) {
+                input.readLine();
+            }
+
+            List<String> chunk;
+            while (!(chunk = readChunk(input)).isEmpty()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Job {} stopped at line {}, resumes on the next start", jobId, job.getProcessed());
+                    return;
+                }
+
+                List<Result> resolved = resolve(job.getProcessed() + 1, chunk);
+                write(results, resolved);
+                results.force(false);
+
+                long passed = resolved.stream().filter(Result::isPassed).count();
+                CheckJobDto next = job.toBuilder()
+                    .processed(job.getProcessed() + chunk.size())
+                    .passed(job.getPassed() + passed)
+                    .failed(job.getFailed() + resolved.size() - passed)
+                    .build();
+                save(directory, next, results.position());
+                job = next;
+                resultsBytes = results.position();
+                jobs.put(jobId, job);
+                micrometerService.increment(MeterKeys.COUNT_JOB_CHECKED, resolved.size());
+            }
+
+            job = job.toBuilder().state(CheckJobDto.State.DONE).finished(Instant.now()).build();
+            save(directory, job, results.position());
+            jobs.put(jobId, job);
+            log.info("Job {} done, {} passed and {} failed", jobId, job.getPassed(), job.getFailed());
+        } catch (Exception e) {
+            if (executor.isShutdown()) {
+                log.info("Job {} stopped at line {}, resumes on the next start", jobId, job.getProcessed());
+                return;
+            }
+            log.error("Job {} failed at line {}", jobId, job.getProcessed(), e);
+            job = job.toBuilder().state(CheckJobDto.State.FAILED).finished(Instant.now()).error(e.getMessage()).build();
+            jobs.put(jobId, job);
+            try {
+                save(directory, job, resultsBytes);
+            } catch (IOException ioe) {
+                log.error("Could not save the state of job {}", jobId, ioe);
+            }
+        }
+    }
+
+    private List<String> readChunk(BufferedReader input) throws IOException {
+        List<String> chunk = new ArrayList<>(properties.getChunkSize());
+        String line;
+        while (chunk.size() < properties.getChunkSize() && (line = input.readLine()) != null) {
+            chunk.add(line);
+        }
+        return chunk;
+    }
+
+    /**
+     * Check the requests of a chunk. Blank lines give no result.
+     *
+     * @param firstLine line number of the first request in the chunk, counting from 1.
+     */
+    private List<Result> resolve(long firstLine, List<String> chunk) {
+        List<SpecificPersonCheckRequest> requests = new ArrayList<>(chunk.size());
+        Set<Long> externalIds = new HashSet<>();
+        for (String line : chunk) {
+            SpecificPersonCheckRequest request = parse(line);
+            requests.add(request);
+            if (request != null && request.getId() != null) {
+                externalIds.add(request.getId());
+            }
+        }
+
+        Map<Long, Optional<String>> byExternalId = externalIds.isEmpty() ?
+            Map.of() :
+            withRetry(() -> personService.checkExternalIds(externalIds));
+
+        List<Result> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (ObjectUtils.isEmpty(chunk.get(i).trim())) {
+                continue;
+            }
+
+            SpecificPersonCheckRequest request = requests.get(i);
+            Result.ResultBuilder result = Result.builder().line(firstLine + i);
+            if (request == null) {
+                results.add(result.passed(false).code(400).reason(ErrorMessages.UNREADABLE_CHECK_REQUEST).build());
+                continue;
+            }
+
+            result.requestId(request.getRequestId()).id(request.getId());
+            if (request.getId() != null) {
+                results.add(outcome(result, byExternalId.get(request.getId()), false));
+            } else if (ObjectUtils.isEmpty(request.getName()) || request.getDateOfBirth() == null) {
+                results.add(outcome(result, Optional.of(ErrorMessages.MISSING_ID_NAME_DOB), false));
+            } else {
+                try {
+                    CheckResultDto checked = withRetry(() ->
+                        personService.checkNameSurnameDob(request.getName(), request.getDateOfBirth()));
+                    results.add(outcome(result, checked.asOptional(), checked.isStale()));
+                } catch (PinkApiException e) {
+                    results.add(result.passed(false).code(e.getResponseCode()).reason(e.getMessage()).build());
+                }
+            }
+        }
+        return results;
+    }
+
+    private SpecificPersonCheckRequest parse(String line) {
+        if (ObjectUtils.isEmpty(line.trim())) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(line, SpecificPersonCheckRequest.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Unreadable check request: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private static Result outcome(Result.ResultBuilder result, Optional<String> reason, boolean stale) {
+        return reason
+            .map(r -> result.passed(false).code(444).reason(r))
+            .orElseGet(() -> result.passed(true))
+            .stale(stale)
+            .build();
+    }
+
+    /**
+     * Jobs share the database with the API, so a call refused because the database is busy is retried after a while
+     * instead of failing the job.
+     */
+    private <T> T withRetry(Supplier<T> databaseCall) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return databaseCall.get();
+            } catch (PinkApiException e) {
+                if (e.getResponseCode() != 503 || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Database busy, retrying in {}s", attempt);
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void write(FileChannel results, List<Result> resolved) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Result result : resolved) {
+            objectMapper.writeValue(bytes, result);
+            bytes.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            results.write(buffer);
+        }
+    }
+
+    /**
+     * Copy the input to the job's directory.
+     *
+     * @return the number of lines in it.
+     * @throws PinkApiException with a 413 once the input turns out larger than the maximum.
+     */
+    private static long copy(InputStream input, Path target, long maxBytes) throws IOException {
+        long lines = 0;
+        long bytes = 0;
+        int last = '\n';
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                bytes += read;
+                if (bytes > maxBytes) {
+                    throw new PinkApiException("Job input is larger than " + maxBytes + " bytes", 413);
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (read > 0) {
+                    last = buffer[read - 1];
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+        return last == '\n' ? lines : lines + 1;
+    }
+
+    /**
+     * Write the checkpoint next to the current one and then move it in place, so a crash leaves either the old or the
+     * new checkpoint, never half of one.
+     */
+    private static void save(Path directory, CheckJobDto job, long resultsBytes) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("jobId", job.getJobId());
+        checkpoint.setProperty("state", job.getState().name());
+        checkpoint.setProperty("total", String.valueOf(job.getTotal()));
+        checkpoint.setProperty("processed", String.valueOf(job.getProcessed()));
+        checkpoint.setProperty("passed", String.valueOf(job.getPassed()));
+        checkpoint.setProperty("failed", String.valueOf(job.getFailed()));
+        checkpoint.setProperty("resultsBytes", String.valueOf(resultsBytes));
+        checkpoint.setProperty("submitted", job.getSubmitted().toString());
+        if (job.getFinished() != null) {
+            checkpoint.setProperty("finished", job.getFinished().toString());
+        }
+        if (job.getError() != null) {
+            checkpoint.setProperty("error", job.getError());
+        }
+
+        Path next = directory.resolve(CHECKPOINT + ".next");
+        try (Writer writer = Files.newBufferedWriter(next)) {
+            checkpoint.store(writer, null);
+        }
+        Files.move(next, directory.resolve(CHECKPOINT),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Checkpoint load(Path file) {
+        Properties checkpoint = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            checkpoint.load(reader);
+        } catch (IOException e) {
+            throw new PinkSystemException("Could not read the checkpoint " + file, e);
+        }
+
+        String finished = checkpoint.getProperty("finished");
+        CheckJobDto job = CheckJobDto.builder()
+            .jobId(checkpoint.getProperty("jobId"))
+            .state(CheckJobDto.State.valueOf(checkpoint.getProperty("state")))
+            .total(Long.parseLong(checkpoint.getProperty("total")))
+            .processed(Long.parseLong(checkpoint.getProperty("processed")))
+            .passed(Long.parseLong(checkpoint.getProperty("passed")))
+            .failed(Long.parseLong(checkpoint.getProperty("failed")))
+            .submitted(Instant.parse(checkpoint.getProperty("submitted")))
+            .finished(finished == null ? null : Instant.parse(finished))
+            .error(checkpoint.getProperty("error"))
+            .build();
+        return new Checkpoint(job, Long.parseLong(checkpoint.getProperty("resultsBytes")));
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", directory, e);
+        }
+    }
+
+    /**
+     * Outcome of one check request in the results of a job.
+     */
+    @Value
+    @Builder
+    @Jacksonized
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+
+        /**
+         * Line of the request in the input, counting from 1.
+         */
+        long line;
+
+        String requestId;
+        Long id;
+        boolean passed;
+
+        /**
+         * The response code the REST API would have given for a failed check, null if it passed.
+         */
+        Integer code;
+        String reason;
+        boolean stale;
+    }
+
+    @Value
+    private static class Checkpoint {
+        CheckJobDto job;
+        long resultsBytes;
+    }
+}
@@ -0,0 +1,138 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.BulkheadProperties;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs database calls in one of two isolated lanes, one for the reads of the checks and one for the writes of the
+ * updates and deletes, see {@link BulkheadProperties}. A lane that is full refuses further calls with a 503 once they
+ * waited too long, while the other lane carries on unaffected.
+ * <p>
+ * Both lanes then share the {@link DatabaseConcurrencyLimiter}, where the reads go first when calls have to queue.
+ * A call never waits for a lane beyond the request's deadline, and runs with the remaining time as its query timeout,
+ * see {@link DeadlineService}.
+ * <p>
+ * Publishes the calls in progress and waiting, the refused calls and the call time per lane.
+ */
+@Slf4j
+@Service
+public class DatabaseBulkheads {
+
+    public enum Lane {
+        READ,
+        WRITE
+    }
+
+    private final BulkheadProperties properties;
+    private final DatabaseConcurrencyLimiter databaseConcurrencyLimiter;
+    private final DeadlineService deadlineService;
+    private final MicrometerService micrometerService;
+    private final Map<Lane, Semaphore> lanes = new EnumMap<>(Lane.class);
+
+    public DatabaseBulkheads(
+        BulkheadProperties properties,
+        DatabaseConcurrencyLimiter databaseConcurrencyLimiter,
+        DeadlineService deadlineService,
+        MicrometerService micrometerService)
+    {
+        this.properties = properties;
+        this.databaseConcurrencyLimiter = databaseConcurrencyLimiter;
+        this.deadlineService = deadlineService;
+        this.micrometerService = micrometerService;
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new Semaphore(Math.max(1, budget(lane).getMaxConcurrent()), true));
+        }
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        if (properties.isEnabled()) {
+            lanes.forEach((lane, semaphore) -> {
+                String tag = tag(lane);
+                int size = Math.max(1, budget(lane).getMaxConcurrent());
+                micrometerService.gauge(MeterKeys.GAUGE_DB_LANE_IN_USE, () -> size - semaphore.availablePermits(), "lane", tag);
+                micrometerService.gauge(MeterKeys.GAUGE_DB_LANE_WAITING, semaphore::getQueueLength, "lane", tag);
+            });
+        }
+    }
+
+    public <T> T read(Supplier<T> databaseCall) {
+        return call(Lane.READ, databaseCall);
+    }
+
+    public <T> T write(Supplier<T> databaseCall) {
+        return call(Lane.WRITE, databaseCall);
+    }
+
+    public void write(Runnable databaseCall) {
+        call(Lane.WRITE, () -> {
+            databaseCall.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the database call in the lane.
+     *
+     * @throws PinkApiException with a 503 if the lane stayed full for too long, a 504 if the deadline passed.
+     */
+    public <T> T call(Lane lane, Supplier<T> databaseCall) {
+        deadlineService.checkNotExpired();
+
+        // reads are read only, and go first at the shared limit.
+        boolean priority = lane == Lane.READ;
+        Supplier<T> withinDeadline = () -> deadlineService.within(priority, databaseCall);
+        if (!properties.isEnabled()) {
+            return databaseConcurrencyLimiter.call(priority, withinDeadline);
+        }
+
+        Semaphore semaphore = lanes.get(lane);
+        Duration maxWait = deadlineService.remaining()
+            .filter(remaining -> remaining.compareTo(budget(lane).getMaxWait()) < 0)
+            .orElse(budget(lane).getMaxWait());
+        try {
+            if (!semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                deadlineService.checkNotExpired();
+                log.debug("Database {} lane full, refusing", lane);
+                micrometerService.increment(MeterKeys.COUNT_DB_LANE_REJECTED, "lane", tag(lane));
+                throw new PinkApiException("Service temporarily unavailable", 503);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on the database");
+        }
+
+        Timer.Sample sample = micrometerService.getSample();
+        try {
+            return databaseConcurrencyLimiter.call(priority, withinDeadline);
+        } finally {
+            semaphore.release();
+            micrometerService.time(MeterKeys.TIME_DB_LANE, sample, "lane", tag(lane));
+        }
+    }
+
+    private BulkheadProperties.Lane budget(Lane lane) {
+        return switch (lane) {
+            case READ -> properties.getRead();
+            case WRITE -> properties.getWrite();
+        };
+    }
+
+    private static String tag(Lane lane) {
+        return lane.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,134 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.DegradedModeProperties;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker around the database reads.
+ * <p>
+ * After a number of consecutive failed (or too slow) reads the circuit opens and reads are refused outright, so that
+ * requests do not keep piling up on a saturated database. Once the open duration has passed a single trial read is
+ * let through (half open): success closes the circuit, failure opens it again. A trial read that has not reported back
+ * within another open duration is given up on, and the next read is let through as a new trial, so a trial that never
+ * reports back can not keep the circuit half open for good.
+ * <p>
+ * Guarded by a lock rather than {@code synchronized}, so a virtual thread never pins its carrier here.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DatabaseCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final DegradedModeProperties properties;
+    private final MicrometerService micrometerService;
+
+    private final Lock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private long trialStartedAtNanos;
+    private Timer.Sample openSample;
+
+    @PostConstruct
+    void registerGauge() {
+        micrometerService.gauge(MeterKeys.GAUGE_DB_CIRCUIT_OPEN, () -> getState() == State.CLOSED ? 0 : 1);
+    }
+
+    /**
+     * @return true if a read may go ahead.
+     */
+    public boolean allowRequest() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long openDuration = properties.getCircuitBreaker().getOpenDuration().toNanos();
+            return switch (state) {
+                case CLOSED -> true;
+                case HALF_OPEN -> {
+                    if (now - trialStartedAtNanos >= openDuration) {
+                        log.warn("Database circuit trial read did not report back, letting another one through");
+                        trialStartedAtNanos = now;
+                        yield true;
+                    }
+                    yield false; // the trial read is still in flight.
+                }
+                case OPEN -> {
+                    if (now - openedAtNanos >= openDuration) {
+                        log.info("Database circuit half open, letting a trial read through");
+                        state = State.HALF_OPEN;
+                        trialStartedAtNanos = now;
+                        yield true;
+                    }
+                    yield false;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordSuccess() {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                log.info("Database circuit closed");
+                micrometerService.time(MeterKeys.TIME_DB_CIRCUIT_OPEN, openSample);
+                openSample = null;
+                state = State.CLOSED;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordFailure() {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN
+                || (state == State.CLOSED && consecutiveFailures >= properties.getCircuitBreaker().getFailureThreshold()))
+            {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            log.warn("Database circuit open after {} consecutive failures", consecutiveFailures);
+            micrometerService.increment(MeterKeys.COUNT_DB_CIRCUIT_OPEN);
+        }
+        if (openSample == null) {
+            openSample = micrometerService.getSample();
+        }
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+    }
+}
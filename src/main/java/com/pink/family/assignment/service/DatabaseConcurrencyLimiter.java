@@ -0,0 +1,87 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.DatabaseLimiterProperties;
+import com.pink.family.assignment.util.AdaptiveConcurrencyLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the database work in progress at a limit that follows the database's latency, see
+ * {@link AdaptiveConcurrencyLimiter}. Calls over the limit queue for a short while, beyond that they are refused with
+ * a 503 rather than pile up on the connection pool.
+ * <p>
+ * Publishes the current limit, the calls in flight and queued, and the number of refused calls.
+ */
+@Slf4j
+@Service
+public class DatabaseConcurrencyLimiter {
+
+    private final DatabaseLimiterProperties properties;
+    private final MicrometerService micrometerService;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public DatabaseConcurrencyLimiter(DatabaseLimiterProperties properties, MicrometerService micrometerService) {
+        this.properties = properties;
+        this.micrometerService = micrometerService;
+        this.limiter = new AdaptiveConcurrencyLimiter(
+            properties.getInitialLimit(),
+            properties.getMinLimit(),
+            properties.getMaxLimit(),
+            properties.getMaxQueue(),
+            properties.getTolerance(),
+            properties.getSmoothing(),
+            properties.getLongTermWindow());
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        if (properties.isEnabled()) {
+            micrometerService.gauge(MeterKeys.GAUGE_DB_LIMIT, limiter::getLimit);
+            micrometerService.gauge(MeterKeys.GAUGE_DB_LIMIT_IN_FLIGHT, limiter::getInFlight);
+            micrometerService.gauge(MeterKeys.GAUGE_DB_LIMIT_QUEUED, limiter::getQueued);
+        }
+    }
+
+    /**
+     * Run the database call within the limit.
+     *
+     * @throws PinkApiException with a 503 if no slot came free in time.
+     */
+    public <T> T call(Supplier<T> databaseCall) {
+        return call(true, databaseCall);
+    }
+
+    /**
+     * Same as {@link #call(Supplier)}, but a call without priority only gets a slot while no prioritised call waits.
+     */
+    public <T> T call(boolean priority, Supplier<T> databaseCall) {
+        if (!properties.isEnabled()) {
+            return databaseCall.get();
+        }
+
+        try {
+            if (!limiter.acquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS, priority)) {
+                log.debug("Database limit of {} reached, refusing", limiter.getLimit());
+                micrometerService.increment(MeterKeys.COUNT_DB_LIMIT_REJECTED);
+                throw new PinkApiException("Service temporarily unavailable", 503);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on the database");
+        }
+
+        long start = System.nanoTime();
+        try {
+            return databaseCall.get();
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+}
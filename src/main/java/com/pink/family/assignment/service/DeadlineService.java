@@ -0,0 +1,112 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.properties.DeadlineProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the deadline of the current request, i.e. the time after which the client no longer waits for the
+ * response.
+ * <p>
+ * The deadline is kept in the {@link MDC} next to the request ID, so it follows the request onto the threads the work
+ * is handed to (see {@link com.pink.family.assignment.util.MdcUtil}) all the way down to the database calls. These run
+ * in a transaction with the remaining time as timeout, which Hibernate applies as the query timeout of every
+ * statement, so a query the client gave up on is cancelled rather than holding on to its connection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadlineService {
+
+    private final DeadlineProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Set the deadline of the current request from the timeout the client asked for, in milliseconds. Without one, or
+     * with one that can not be read, the default timeout applies.
+     */
+    public void setDeadline(String requestedTimeout) {
+        Duration timeout = properties.getDefaultTimeout();
+        if (!ObjectUtils.isEmpty(requestedTimeout)) {
+            try {
+                timeout = Duration.ofMillis(Long.parseLong(requestedTimeout.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring unreadable timeout {}", requestedTimeout);
+            }
+        }
+        if (timeout.compareTo(properties.getMaxTimeout()) > 0) {
+            timeout = properties.getMaxTimeout();
+        }
+        MDC.put(Constants.DEADLINE_MDC, String.valueOf(System.currentTimeMillis() + timeout.toMillis()));
+    }
+
+    public void clearDeadline() {
+        MDC.remove(Constants.DEADLINE_MDC);
+    }
+
+    /**
+     * Time left until the deadline, empty if the request has no deadline.
+     */
+    public Optional<Duration> remaining() {
+        String deadline = MDC.get(Constants.DEADLINE_MDC);
+        if (deadline == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofMillis(Long.parseLong(deadline) - System.currentTimeMillis()));
+    }
+
+    public boolean isExpired() {
+        return remaining().map(left -> !left.isPositive()).orElse(false);
+    }
+
+    /**
+     * @throws PinkApiException with a 504 if the deadline has passed, there is no point starting any more work.
+     */
+    public void checkNotExpired() {
+        if (isExpired()) {
+            throw new PinkApiException(ErrorMessages.DEADLINE_EXCEEDED, 504);
+        }
+    }
+
+    /**
+     * Run the database call within the remaining time. JDBC query timeouts are whole seconds, so the timeout is the
+     * remaining time rounded up.
+     *
+     * @throws PinkApiException with a 504 if the deadline passed before or during the call.
+     */
+    public <T> T within(boolean readOnly, Supplier<T> databaseCall) {
+        Optional<Duration> remaining = remaining();
+        if (remaining.isEmpty()) {
+            return databaseCall.get();
+        }
+        checkNotExpired();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.setTimeout((int) Math.ceil(remaining.get().toMillis() / 1000.0));
+        try {
+            return transaction.execute(status -> databaseCall.get());
+        } catch (RuntimeException e) {
+            if (isExpired()) {
+                log.debug("Deadline passed during a database call", e);
+                throw new PinkApiException(ErrorMessages.DEADLINE_EXCEEDED, 504);
+            }
+            throw e;
+        }
+    }
+
+    public static class Constants {
+        public static final String DEADLINE_MDC = "DEADLINE_MDC_MARKER";
+    }
+}
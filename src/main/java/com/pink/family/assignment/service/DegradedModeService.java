@@ -0,0 +1,269 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.pink.family.assignment.CacheConfig;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.properties.DegradedModeProperties;
+import com.pink.family.assignment.util.MaskUtil;
+import com.pink.family.assignment.util.MdcUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate for the person checks.
+ * <p>
+ * When enabled, every check runs its database read on a separate pool and waits at most the latency budget. If the
+ * read does not finish in time, the connection pool is exhausted, or the {@link DatabaseCircuitBreaker} is open, the
+ * last known result for the same check is served instead (marked stale), as it is when the read pool itself is
+ * exhausted. A read that overran its budget carries on in the background and refreshes the last known result when it
+ * completes.
+ * <p>
+ * If there is no last known result the check simply waits for the database, as it would without degraded mode.
+ */
+@Slf4j
+@Service
+public class DegradedModeService {
+
+    /**
+     * Stored for a check that passed, as the cache does not hold nulls.
+     */
+    private static final String PASSED = "";
+
+    private final DegradedModeProperties properties;
+    private final DatabaseCircuitBreaker circuitBreaker;
+    private final MicrometerService micrometerService;
+    private final Cache<Object, Object> lastKnown;
+    private final ThreadPoolExecutor readExecutor;
+
+    public DegradedModeService(
+        DegradedModeProperties properties,
+        DatabaseCircuitBreaker circuitBreaker,
+        MicrometerService micrometerService,
+        CacheManager cacheManager)
+    {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.micrometerService = micrometerService;
+
+        if (cacheManager.getCache(CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT) instanceof CaffeineCache cache) {
+            this.lastKnown = cache.getNativeCache();
+        } else {
+            throw new PinkSystemException("Last known check result cache is not configured as a caffeine cache");
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.readExecutor = new ThreadPoolExecutor(
+            properties.getReadThreads(),
+            properties.getReadThreads(),
+            60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(properties.getReadQueueCapacity()),
+            r -> {
+                Thread thread = new Thread(r, "degraded-read-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.readExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readExecutor.shutdown();
+    }
+
+    public static String externalIdKey(Long externalId) {
+        return "ID_" + externalId;
+    }
+
+    public static String nameDobKey(String name, LocalDate dob) {
+        return "NAME_DOB_" + name + '_' + dob;
+    }
+
+    /**
+     * The keys of every check a change of the persons may affect: by ID and by name and date of birth of each person
+     * and of its relatives of the given types, and by ID of the other external IDs the change touched.
+     */
+    public static Set<String> affectedKeys(
+        Collection<Long> externalIds,
+        Collection<PersonDto> persons,
+        Set<RelationshipType> relativeTypes)
+    {
+        Set<String> keys = new HashSet<>();
+        externalIds.forEach(externalId -> keys.add(externalIdKey(externalId)));
+        for (PersonDto person : persons) {
+            addKeys(keys, person);
+            relativeTypes.forEach(type -> person.getRelations(type).forEach(relative -> addKeys(keys, relative)));
+        }
+        return keys;
+    }
+
+    private static void addKeys(Set<String> keys, PersonDto person) {
+        keys.add(externalIdKey(person.getExternalId()));
+        if (person.getName() != null && person.getDateOfBirth() != null) {
+            keys.add(nameDobKey(person.getName(), person.getDateOfBirth()));
+        }
+    }
+
+    /**
+     * Run the check, falling back on the last known result if the database is degraded.
+     *
+     * @param key identifies the check, see {@link #externalIdKey(Long)} and {@link #nameDobKey(String, LocalDate)}
+     * @param check the check itself, including its database read
+     */
+    public CheckResultDto check(String key, Supplier<Optional<String>> check) {
+        if (!properties.isEnabled()) {
+            return CheckResultDto.fresh(check.get());
+        }
+
+        Optional<String> last = Optional.ofNullable((String) lastKnown.getIfPresent(key));
+
+        if (!circuitBreaker.allowRequest()) {
+            micrometerService.increment(MeterKeys.COUNT_DB_CIRCUIT_REJECTED);
+            return last
+                .map(reason -> serveStale(key, reason, "circuit open"))
+                .orElseThrow(() -> new PinkApiException("Service temporarily unavailable", 503));
+        }
+
+        CompletableFuture<Optional<String>> read;
+        try {
+            read = CompletableFuture.supplyAsync(MdcUtil.wrap(() -> checkAndRemember(key, check)), readExecutor);
+        } catch (RejectedExecutionException e) {
+            if (last.isPresent()) {
+                // the read never happens, so it counts as failed: reads piling up beyond the pool are as much a sign
+                // of a struggling database as a slow one, and a trial read must report back to leave half open.
+                circuitBreaker.recordFailure();
+                return serveStale(key, last.get(), "read pool exhausted");
+            }
+            log.debug("Degraded read pool exhausted, reading on the request thread");
+            return CheckResultDto.fresh(checkAndRemember(key, check));
+        }
+
+        try {
+            return CheckResultDto.fresh(read.get(properties.getLatencyBudget().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            if (last.isPresent()) {
+                // the read carries on in the background and refreshes the last known result.
+                return serveStale(key, last.get(), "latency budget exceeded");
+            }
+            try {
+                return CheckResultDto.fresh(read.join());
+            } catch (CompletionException completionException) {
+                throw asRuntime(completionException.getCause());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (last.isPresent() && isDatabaseUnavailable(cause)) {
+                return serveStale(key, last.get(), cause.getClass().getSimpleName());
+            }
+            throw asRuntime(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on the database");
+        }
+    }
+
+    /**
+     * Forget the last known results of the checks, as the persons they are about changed, see
+     * {@link #affectedKeys(Collection, Collection, Set)}. Forgets now and again once the surrounding transaction (if
+     * any) completes, so a check that read the persons before the change was committed can not leave its result
+     * behind.
+     */
+    public void forget(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<String> toForget = Set.copyOf(keys);
+        lastKnown.invalidateAll(toForget);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lastKnown.invalidateAll(toForget);
+                }
+            });
+        }
+    }
+
+    private Optional<String> checkAndRemember(String key, Supplier<Optional<String>> check) {
+        long start = System.nanoTime();
+        Optional<String> result;
+        try {
+            result = check.get();
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                circuitBreaker.recordFailure();
+            } else {
+                // the database answered, the problem lies elsewhere.
+                circuitBreaker.recordSuccess();
+            }
+            throw e;
+        }
+
+        // a read that succeeded but blew the budget still counts against the database.
+        if (System.nanoTime() - start > properties.getLatencyBudget().toNanos()) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+
+        lastKnown.put(key, result.orElse(PASSED));
+        return result;
+    }
+
+    private CheckResultDto serveStale(String key, String reason, String why) {
+        log.warn("Serving stale result for {} ({})", MaskUtil.mask(key, 3, 2, 6), why);
+        micrometerService.increment(MeterKeys.COUNT_CHECK_STALE);
+        return CheckResultDto.stale(Optional.of(reason));
+    }
+
+    /**
+     * True for the failures that mean the database is saturated or unreachable, rather than a problem with the data.
+     */
+    static boolean isDatabaseUnavailable(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException
+                || t instanceof DataAccessResourceFailureException
+                || t instanceof TransientDataAccessException
+                || t instanceof SQLTransientException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RuntimeException asRuntime(Throwable cause) {
+        return cause instanceof RuntimeException runtimeException ?
+            runtimeException :
+            new PinkSystemException("Check failed: " + cause);
+    }
+}
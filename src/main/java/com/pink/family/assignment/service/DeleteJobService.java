@@ -0,0 +1,174 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.dto.DeleteJobDto;
+import com.pink.family.assignment.properties.DeletionProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Soft delete jobs: a (long) list of IDs deleted in the background, a chunk per transaction, see
+ * {@link DeletionProperties#getChunkSize()}.
+ * <p>
+ * Jobs run one at a time on a single worker, so a few large deletes do not take up the database's write capacity.
+ * Submissions beyond the queue get a 503. Jobs are only kept in memory: one interrupted by a restart is lost along with
+ * its progress, but the chunks it deleted stay deleted and soft deleting is idempotent, so submitting the list again is
+ * all it takes to finish it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "pink.config.deletion.jobs", name = "enabled", havingValue = "true")
+public class DeleteJobService {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final DeletionProperties properties;
+    private final PersonService personService;
+    private final MicrometerService micrometerService;
+
+    private final ConcurrentMap<String, DeleteJobDto> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(
+            1, 1,
+            0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("delete-job-", 0).factory());
+        micrometerService.gauge(MeterKeys.GAUGE_DELETE_JOB_QUEUED, () -> executor.getQueue().size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue the job.
+     *
+     * @param externalIds the persons to soft delete, deleted in the order given.
+     */
+    public DeleteJobDto submit(List<Long> externalIds) {
+        if (executor.getQueue().size() >= properties.getJobs().getMaxQueued()) {
+            throw new PinkApiException("Too many jobs queued, try again later", 503);
+        }
+
+        List<Long> toDelete = List.copyOf(new LinkedHashSet<>(externalIds));
+        DeleteJobDto job = DeleteJobDto.builder()
+            .jobId(UUID.randomUUID().toString())
+            .state(DeleteJobDto.State.QUEUED)
+            .total(toDelete.size())
+            .submitted(Instant.now())
+            .build();
+
+        log.info("Delete job {} submitted with {} IDs", job.getJobId(), job.getTotal());
+        forgetFinished();
+        jobs.put(job.getJobId(), job);
+        executor.execute(() -> run(job.getJobId(), toDelete));
+        return job;
+    }
+
+    public DeleteJobDto status(String jobId) {
+        DeleteJobDto job = jobs.get(jobId);
+        if (job == null) {
+            throw new PinkApiException("No job with ID " + jobId, 404);
+        }
+        return job;
+    }
+
+    private void run(String jobId, List<Long> toDelete) {
+        DeleteJobDto job = jobs.get(jobId).toBuilder().state(DeleteJobDto.State.RUNNING).build();
+        jobs.put(jobId, job);
+
+        int chunkSize = properties.getChunkSize();
+        try {
+            for (int from = 0; from < toDelete.size(); from += chunkSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Delete job {} stopped after {} of {} IDs", jobId, job.getProcessed(), job.getTotal());
+                    return;
+                }
+
+                Set<Long> chunk = new HashSet<>(toDelete.subList(from, Math.min(toDelete.size(), from + chunkSize)));
+                withRetry(() -> personService.softDeleteChunk(chunk));
+
+                job = job.toBuilder().processed(job.getProcessed() + chunk.size()).build();
+                jobs.put(jobId, job);
+                micrometerService.increment(MeterKeys.COUNT_JOB_DELETED, chunk.size());
+            }
+
+            job = job.toBuilder().state(DeleteJobDto.State.DONE).finished(Instant.now()).build();
+            jobs.put(jobId, job);
+            log.info("Delete job {} done, {} IDs deleted", jobId, job.getProcessed());
+        } catch (Exception e) {
+            log.error("Delete job {} failed after {} of {} IDs", jobId, job.getProcessed(), job.getTotal(), e);
+            jobs.put(jobId, job.toBuilder()
+                .state(DeleteJobDto.State.FAILED)
+                .finished(Instant.now())
+                .error(e.getMessage())
+                .build());
+        }
+    }
+
+    /**
+     * Jobs share the database with the API, so a chunk refused because the database is busy is retried after a while
+     * instead of failing the job.
+     */
+    private void withRetry(Runnable databaseCall) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                databaseCall.run();
+                return;
+            } catch (PinkApiException e) {
+                if (e.getResponseCode() != 503 || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Database busy, retrying in {}s", attempt);
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the oldest finished jobs beyond the number retained.
+     */
+    private void forgetFinished() {
+        List<DeleteJobDto> finished = jobs.values().stream()
+            .filter(job -> job.getFinished() != null)
+            .sorted(Comparator.comparing(DeleteJobDto::getFinished))
+            .toList();
+        int excess = finished.size() - properties.getJobs().getRetained() + 1;
+        for (int i = 0; i < excess; i++) {
+            jobs.remove(finished.get(i).getJobId());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.pink.family.assignment.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pink.family.assignment.properties.DiagnosticsProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which requests are traced, and makes debug logging happen for those only.
+ * <p>
+ * A traced request is flagged in the {@link MDC} next to its request ID (see {@link LoggingService}). A logback
+ * {@link TurboFilter} lets debug logging through for threads carrying the flag, so {@code log.isDebugEnabled()} is true
+ * and every lazily built diagnostic (graph dumps, {@link com.pink.family.assignment.api.exception.PinkDebugException})
+ * is produced for that request, while it costs nothing for all the others.
+ * <p>
+ * Request IDs traced at runtime are dropped after {@link DiagnosticsProperties#getTraceDuration()}, and only so many are
+ * kept, so the endpoint can not make them pile up. Those configured at startup stay until untraced.
+ */
+@Slf4j
+@Service
+public class DiagnosticsService {
+
+    private static final int SAMPLE_BUCKETS = 10_000;
+
+    private final DiagnosticsProperties diagnosticsProperties;
+    private final Set<String> configuredRequestIds = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> tracedRequestIds;
+    private final TraceTurboFilter traceTurboFilter;
+
+    public DiagnosticsService(DiagnosticsProperties diagnosticsProperties) {
+        this.diagnosticsProperties = diagnosticsProperties;
+        this.configuredRequestIds.addAll(diagnosticsProperties.getTraceRequestIds());
+        this.tracedRequestIds = Caffeine.newBuilder()
+            .expireAfterWrite(diagnosticsProperties.getTraceDuration())
+            .maximumSize(diagnosticsProperties.getMaxTracedRequests())
+            .build();
+        this.traceTurboFilter = new TraceTurboFilter(diagnosticsProperties.getTraceLoggerPrefix());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext) {
+            traceTurboFilter.start();
+            loggerContext.addTurboFilter(traceTurboFilter);
+        } else {
+            log.warn("Logging is not done by logback, requests can not be traced");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext) {
+            loggerContext.getTurboFilterList().remove(traceTurboFilter);
+            traceTurboFilter.stop();
+        }
+    }
+
+    /**
+     * Whether the request with this ID is traced, because it was asked for or because it is in the sample.
+     */
+    public boolean isTraced(String requestId) {
+        if (requestId == null) {
+            return false;
+        }
+        if (configuredRequestIds.contains(requestId) || tracedRequestIds.getIfPresent(requestId) != null) {
+            return true;
+        }
+        double sampleRate = diagnosticsProperties.getTraceSampleRate();
+        return sampleRate > 0 && Math.floorMod(requestId.hashCode(), SAMPLE_BUCKETS) < sampleRate * SAMPLE_BUCKETS;
+    }
+
+    /**
+     * Trace the request with this ID from now on, for the configured trace duration.
+     */
+    public void trace(String requestId) {
+        tracedRequestIds.put(requestId, Boolean.TRUE);
+        log.info("Tracing request {} for {}", requestId, diagnosticsProperties.getTraceDuration());
+    }
+
+    /**
+     * Stop tracing the request with this ID, unless it is in the sample.
+     */
+    public void untrace(String requestId) {
+        configuredRequestIds.remove(requestId);
+        tracedRequestIds.invalidate(requestId);
+    }
+
+    public Set<String> getTracedRequestIds() {
+        Set<String> requestIds = new HashSet<>(configuredRequestIds);
+        requestIds.addAll(tracedRequestIds.asMap().keySet());
+        return Set.copyOf(requestIds);
+    }
+
+    /**
+     * Flag the current thread's request as traced, or not.
+     */
+    void mark(String requestId) {
+        if (isTraced(requestId)) {
+            MDC.put(Constants.TRACE_MDC, requestId);
+        } else {
+            MDC.remove(Constants.TRACE_MDC);
+        }
+    }
+
+    void clear() {
+        MDC.remove(Constants.TRACE_MDC);
+    }
+
+    /**
+     * Lets debug and up through for the application's loggers, whatever their level, while a traced request is handled.
+     */
+    private static class TraceTurboFilter extends TurboFilter {
+
+        private final String loggerPrefix;
+
+        TraceTurboFilter(String loggerPrefix) {
+            this.loggerPrefix = loggerPrefix;
+        }
+
+        @Override
+        public FilterReply decide(
+            Marker marker,
+            Logger logger,
+            Level level,
+            String format,
+            Object[] params,
+            Throwable t
+        ) {
+            if (!level.isGreaterOrEqual(Level.DEBUG)
+                || !logger.getName().startsWith(loggerPrefix)
+                || MDC.get(Constants.TRACE_MDC) == null) {
+                return FilterReply.NEUTRAL;
+            }
+            return FilterReply.ACCEPT;
+        }
+    }
+
+    public static class Constants {
+        public static final String TRACE_MDC = "TRACE_MDC_MARKER";
+    }
+}
@@ -0,0 +1,277 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.dto.PersonUpdateDto;
+import com.pink.family.assignment.properties.GroupCommitProperties;
+import com.pink.family.assignment.util.MdcUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit of updates: updates made at about the same time are applied in one transaction, so under a burst of
+ * writes they share a commit rather than waiting on one each.
+ * <p>
+ * Updates queue in the order they arrive. A single committer takes the first waiting update, waits up to the window for
+ * more to join it (fewer if the batch fills up first) and applies them in that order in one transaction, see
+ * {@link PersonDao#updatePersons(List)}, holding the {@link PersonLocks} of every person the batch touches. As batches
+ * are applied one at a time as well, updates of the same person always apply in the order they arrived. Each caller
+ * waits for the commit of its batch and gets its own result. Once committed, the last known checks the batch changed
+ * are forgotten, see {@link DegradedModeService#affectedKeys(java.util.Collection, java.util.Collection, Set)}.
+ * <p>
+ * Should the batch fail, its updates are applied again each in a transaction of its own, so only the update that fails
+ * fails its caller.
+ * <p>
+ * Callers wait no longer than the deadline of their request. An update given up on before its batch is taken up is
+ * left out of it; once its batch is being committed it is applied all the same. The committer runs each update with
+ * the {@link MDC} of the request that made it, and a shared commit with the one of the first update in the batch and
+ * the latest deadline of all of them, as no caller waits past that.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GroupCommitService {
+
+    private final GroupCommitProperties properties;
+    private final PersonDao personDao;
+    private final DatabaseBulkheads databaseBulkheads;
+    private final MicrometerService micrometerService;
+    private final PersonLocks personLocks;
+    private final DeadlineService deadlineService;
+    private final DegradedModeService degradedModeService;
+
+    private BlockingQueue<Pending> queue;
+    private Thread committer;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(properties.getMaxQueued());
+        micrometerService.gauge(MeterKeys.GAUGE_GROUP_COMMIT_QUEUED, queue::size);
+        committer = Thread.ofPlatform().daemon().name("group-commit").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (committer == null) {
+            return;
+        }
+        committer.interrupt();
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return committer != null;
+    }
+
+    /**
+     * Apply the update with the others made at about the same time, waiting for their shared commit.
+     *
+     * @return the person after the update, null if it is deleted.
+     * @throws PinkApiException with a 504 if the deadline of the request passed before the commit.
+     */
+    public PersonDto update(PersonUpdateDto update) {
+        deadlineService.checkNotExpired();
+        Pending pending = new Pending(update, MDC.getCopyOfContextMap(), new CompletableFuture<>());
+        if (!committer.isAlive() || !queue.offer(pending)) {
+            throw new PinkApiException("Too many updates queued, try again later", 503);
+        }
+
+        Optional<Duration> remaining = deadlineService.remaining();
+        try {
+            return remaining.isEmpty() ?
+                pending.getResult().get() :
+                pending.getResult().get(remaining.get().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // leaves the update out of its batch, unless that is being committed already.
+            pending.getResult().cancel(false);
+            throw new PinkApiException(ErrorMessages.DEADLINE_EXCEEDED, 504);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException ?
+                runtimeException :
+                new PinkSystemException("Update failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on the commit of an update");
+        }
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                commit(nextBatch());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            List<Pending> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(pending -> pending.getResult().completeExceptionally(
+                new PinkApiException("Shutting down, update not applied", 503)));
+        }
+    }
+
+    private List<Pending> nextBatch() throws InterruptedException {
+        List<Pending> batch = new ArrayList<>(properties.getMaxBatchSize());
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + properties.getWindow().toNanos();
+        while (batch.size() < properties.getMaxBatchSize()) {
+            // whatever is waiting already joins without waiting on the window.
+            queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.getMaxBatchSize() || remaining <= 0) {
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void commit(List<Pending> batch) {
+        batch.removeIf(pending -> pending.getResult().isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+        MdcUtil.callWith(batchContext(batch), () -> {
+            commitTogether(batch);
+            return null;
+        });
+    }
+
+    private void commitTogether(List<Pending> batch) {
+        List<PersonUpdateDto> updates = batch.stream().map(Pending::getUpdate).toList();
+        List<PersonDto> results;
+        try {
+            results = apply(updates, () -> personDao.updatePersons(updates));
+        } catch (RuntimeException e) {
+            if (batch.size() > 1 && !isBusy(e)) {
+                log.debug("Batch of {} updates failed, applying them one at a time: {}", batch.size(), e.getMessage());
+                micrometerService.increment(MeterKeys.COUNT_GROUP_COMMIT_SPLIT);
+                batch.forEach(this::commitAlone);
+            } else {
+                batch.forEach(pending -> pending.getResult().completeExceptionally(e));
+            }
+            return;
+        }
+
+        micrometerService.increment(MeterKeys.COUNT_GROUP_COMMIT);
+        micrometerService.increment(MeterKeys.COUNT_GROUP_COMMIT_UPDATES, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).getResult().complete(results.get(i));
+        }
+    }
+
+    private void commitAlone(Pending pending) {
+        if (pending.getResult().isDone()) {
+            return;
+        }
+        MdcUtil.callWith(pending.getContext(), () -> {
+            try {
+                PersonUpdateDto update = pending.getUpdate();
+                pending.getResult().complete(apply(List.of(update), () -> Arrays.asList(personDao.updatePerson(
+                    update.getExternalId(), update.getName(), update.getDateOfBirth(), update.getRelatedIdsByType())))
+                    .getFirst());
+            } catch (RuntimeException e) {
+                pending.getResult().completeExceptionally(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Apply the updates in one transaction, holding the locks of every person they touch. Once committed, forget the
+     * last known checks of the updated persons as they were and are, and of their relatives then and now.
+     */
+    private List<PersonDto> apply(List<PersonUpdateDto> updates, Supplier<List<PersonDto>> write) {
+        Set<Long> touched = updates.stream()
+            .flatMap(update -> update.touchedIds().stream())
+            .collect(Collectors.toSet());
+        Set<Long> updated = updates.stream().map(PersonUpdateDto::getExternalId).collect(Collectors.toSet());
+
+        List<PersonDto> changed = new ArrayList<>();
+        List<PersonDto> results = personLocks.withLocks(touched, () -> {
+            changed.addAll(databaseBulkheads.read(() -> personDao.findPersonsFromExternalIds(updated, 1)).values());
+            return databaseBulkheads.write(write);
+        });
+        results.stream().filter(Objects::nonNull).forEach(changed::add);
+        degradedModeService.forget(
+            DegradedModeService.affectedKeys(touched, changed, EnumSet.allOf(RelationshipType.class)));
+        return results;
+    }
+
+    /**
+     * The MDC of the first update of the batch, with the latest deadline of all of them, none if one has none.
+     */
+    private static Map<String, String> batchContext(List<Pending> batch) {
+        Map<String, String> context = new HashMap<>();
+        Optional.ofNullable(batch.getFirst().getContext()).ifPresent(context::putAll);
+        context.remove(DeadlineService.Constants.DEADLINE_MDC);
+
+        long latest = Long.MIN_VALUE;
+        for (Pending pending : batch) {
+            String deadline = pending.getContext() == null ?
+                null :
+                pending.getContext().get(DeadlineService.Constants.DEADLINE_MDC);
+            if (deadline == null) {
+                return context;
+            }
+            latest = Math.max(latest, Long.parseLong(deadline));
+        }
+        context.put(DeadlineService.Constants.DEADLINE_MDC, String.valueOf(latest));
+        return context;
+    }
+
+    /**
+     * Refused before it reached the database, applying the updates one at a time would only be refused as well.
+     */
+    private static boolean isBusy(RuntimeException e) {
+        return e instanceof PinkApiException apiException && apiException.getResponseCode() == 503;
+    }
+
+    @Value
+    private static class Pending {
+        PersonUpdateDto update;
+        Map<String, String> context;
+        CompletableFuture<PersonDto> result;
+    }
+}
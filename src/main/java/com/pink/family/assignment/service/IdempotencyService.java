@@ -0,0 +1,213 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.IdempotencyProperties;
+import com.pink.family.assignment.util.MaskUtil;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per client and idempotency key.
+ * <p>
+ * The first successful response for a key is kept and replayed for every retry with the same key. A duplicate arriving
+ * while the first is still in progress waits for it rather than running again. If the first fails nothing is kept, and
+ * one of the waiting duplicates runs the request instead.
+ * <p>
+ * Responses are kept in a store of their own rather than one of the {@link org.springframework.cache.CacheManager}
+ * caches, which are shrunk under heap pressure, evict by size and can be invalidated through the actuator. A response
+ * is only dropped once {@link IdempotencyProperties#getRetention()} has passed, so a retry within that time is never
+ * run twice. The store is bounded by counting rather than by eviction: once it holds
+ * {@link IdempotencyProperties#getMaxStored()} responses, or a client {@link IdempotencyProperties#getMaxStoredPerClient()},
+ * new keyed updates are refused with a 503 until responses expire. Updates in progress count as well.
+ * <p>
+ * Keys are scoped to the client, one client's key can neither replay nor block another's request. A key reused for a
+ * different request is refused with a 422.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyProperties properties;
+    private final MicrometerService micrometerService;
+    private final Cache<Key, Completed> completed;
+    private final ConcurrentMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong stored = new AtomicLong();
+    private final ConcurrentMap<String, Long> storedByClient = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyProperties properties, MicrometerService micrometerService) {
+        this.properties = properties;
+        this.micrometerService = micrometerService;
+        this.completed = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getRetention())
+            // on the thread expiring the response, so its place is free again once cleaned up.
+            .executor(Runnable::run)
+            .removalListener((Key key, Completed response, RemovalCause cause) -> {
+                if (key != null && cause != RemovalCause.REPLACED) {
+                    release(key.getClient());
+                }
+            })
+            .build();
+        micrometerService.gauge(MeterKeys.GAUGE_IDEMPOTENT_STORED, completed::estimatedSize);
+    }
+
+    /**
+     * Run the request, or replay the response of an earlier run with the same key.
+     *
+     * @param client the client making the request, the key is only looked up among its own.
+     * @param idempotencyKey the client's idempotency key, without one the request simply runs.
+     * @param request what was asked for, to tell a retry from a different request with the same key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String client, String idempotencyKey, Object request, Supplier<T> action) {
+        if (ObjectUtils.isEmpty(idempotencyKey)) {
+            return new Outcome<>(action.get(), false);
+        }
+        Key key = new Key(client, idempotencyKey);
+
+        while (true) {
+            Completed done = completed.getIfPresent(key);
+            if (done != null) {
+                checkSameRequest(key, done.getRequest(), request);
+                log.debug("Replaying response for idempotency key {}", mask(key));
+                micrometerService.increment(MeterKeys.COUNT_IDEMPOTENT_REPLAYED);
+                return new Outcome<>((T) done.getResponse(), true);
+            }
+
+            InFlight mine = new InFlight(request, new CompletableFuture<>());
+            InFlight running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                reserve(key, mine);
+                return new Outcome<>(run(key, mine, action), false);
+            }
+
+            checkSameRequest(key, running.getRequest(), request);
+            if (awaitCompleted(key, running)) {
+                continue; // replayed from the cache on the next pass.
+            }
+            log.debug("Update with idempotency key {} failed, running it again", mask(key));
+        }
+    }
+
+    private <T> T run(Key key, InFlight mine, Supplier<T> action) {
+        try {
+            T response = action.get();
+            completed.put(key, new Completed(mine.getRequest(), response));
+            mine.getDone().complete(true);
+            return response;
+        } catch (RuntimeException e) {
+            release(key.getClient());
+            mine.getDone().complete(false);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Take a place in the store for the response about to be produced, or refuse the update if the store, or the
+     * client's part of it, is full. Expired responses are cleaned up first before refusing.
+     */
+    private void reserve(Key key, InFlight mine) {
+        if (tryReserve(key.getClient())) {
+            return;
+        }
+        completed.cleanUp();
+        if (tryReserve(key.getClient())) {
+            return;
+        }
+        log.warn("Idempotency store full, refusing update with key {} of client {}", mask(key), key.getClient());
+        micrometerService.increment(MeterKeys.COUNT_IDEMPOTENT_REFUSED);
+        mine.getDone().complete(false);
+        inFlight.remove(key, mine);
+        throw new PinkApiException(ErrorMessages.IDEMPOTENCY_STORE_FULL, 503);
+    }
+
+    private boolean tryReserve(String client) {
+        long total = stored.incrementAndGet();
+        long ofClient = storedByClient.merge(client, 1L, Long::sum);
+        if (total > properties.getMaxStored() || ofClient > properties.getMaxStoredPerClient()) {
+            release(client);
+            return false;
+        }
+        return true;
+    }
+
+    private void release(String client) {
+        stored.decrementAndGet();
+        storedByClient.computeIfPresent(client, (c, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * @return true if the running request completed successfully, false if it failed.
+     */
+    private boolean awaitCompleted(Key key, InFlight running) {
+        micrometerService.increment(MeterKeys.COUNT_IDEMPOTENT_WAITED);
+        try {
+            return running.getDone().get(properties.getInFlightWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Gave up waiting on the update with idempotency key {}", mask(key));
+            throw new PinkApiException("Update with the same Idempotency-Key still in progress", 409);
+        } catch (ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on an update with the same Idempotency-Key");
+        }
+    }
+
+    private static void checkSameRequest(Key key, Object first, Object request) {
+        if (!Objects.equals(first, request)) {
+            log.debug("Idempotency key {} reused for a different request", mask(key));
+            throw new PinkApiException(ErrorMessages.IDEMPOTENCY_KEY_REUSED, 422);
+        }
+    }
+
+    private static String mask(Key key) {
+        return MaskUtil.mask(key.getIdempotencyKey(), 4, 0, 8);
+    }
+
+    /**
+     * The response, and whether it was replayed from an earlier run rather than produced now.
+     */
+    @Value
+    public static class Outcome<T> {
+        T response;
+        boolean replayed;
+    }
+
+    @Value
+    private static class Key {
+        String client;
+        String idempotencyKey;
+    }
+
+    @Value
+    private static class Completed {
+        Object request;
+        Object response;
+    }
+
+    @Value
+    private static class InFlight {
+        Object request;
+        CompletableFuture<Boolean> done;
+    }
+}
@@ -1,5 +1,6 @@
 package com.pink.family.assignment.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
@@ -9,12 +10,16 @@ import java.util.UUID;
 
 /**
  * Service used for logging.
- * Used {@link MDC} to keep track of request information.
+ * Used {@link MDC} to keep track of request information, including whether the request is traced, see
+ * {@link DiagnosticsService}.
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class LoggingService {
 
+    private final DiagnosticsService diagnosticsService;
+
     /**
      * Generate a new ID.
      */
@@ -32,6 +37,7 @@ public class LoggingService {
             id = generateID();
         }
         MDC.put(Constants.REQUEST_ID_MDC, id);
+        diagnosticsService.mark(id);
     }
 
     /**
@@ -50,6 +56,13 @@ public class LoggingService {
         return requestId;
     }
 
+    /**
+     * Clear the Request ID, so it does not leak into the next request handled by the same thread.
+     */
+    public void clearRequestId() {
+        MDC.remove(Constants.REQUEST_ID_MDC);
+        diagnosticsService.clear();
+    }
 
     public static class Constants {
         public static final String REQUEST_ID_MDC = "CORRELATION_ID_MDC_MARKER";
@@ -1,6 +1,7 @@
 package com.pink.family.assignment.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +28,54 @@ public class MicrometerService {
         ).increment();
     }
 
+    /**
+     * Increment the counter by more than one at once.
+     */
+    public void increment(String name, double amount) {
+        counters.computeIfAbsent(name, n ->
+            Counter.builder(n)
+                .description("Custom counter: " + n)
+                .register(meterRegistry)
+        ).increment(amount);
+    }
+
+    /**
+     * Increment the counter with these tags, given as key/value pairs.
+     */
+    public void increment(String name, String... tags) {
+        counters.computeIfAbsent(name + "|" + String.join(",", tags), n ->
+            Counter.builder(name)
+                .description("Custom counter: " + name)
+                .tags(tags)
+                .register(meterRegistry)
+        ).increment();
+    }
+
+    /**
+     * Register a gauge that reads its value from the supplier whenever it is published.
+     */
+    public void gauge(String name, Supplier<Number> value) {
+        Gauge.builder(name, value)
+            .description("Custom gauge: " + name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Same as {@link #gauge(String, Supplier)}, with tags given as key/value pairs.
+     */
+    public void gauge(String name, Supplier<Number> value, String... tags) {
+        Gauge.builder(name, value)
+            .description("Custom gauge: " + name)
+            .tags(tags)
+            .register(meterRegistry);
+    }
+
+    public void time(String name, Timer.Sample sample, String... tags) {
+        sample.stop(Timer.builder(name)
+            .tags(tags)
+            .register(meterRegistry));
+    }
+
     public void time(String name, Timer.Sample sample) {
         sample.stop(getTimer(name));
     }
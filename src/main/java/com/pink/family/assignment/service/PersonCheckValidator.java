@@ -0,0 +1,89 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkDebugException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Core validation logic of the person check, shared by the servlet and the reactive stack.
+ */
+@Slf4j
+@Component
+public class PersonCheckValidator {
+
+    /**
+     * Check that the person has a partner and exactly 3 children shared with that partner, and at least one child
+     * under 18.
+     *
+     * @return An empty string if the person passes, otherwise the error.
+     */
+    public String validatePartnerAndChildren(PersonDto person) {
+
+        log.debug("Validating that Person has Partner and shared Children:\n{}", person);
+
+        Set<PersonDto> children = person.getRelations(RelationshipType.PARENT);
+        Set<PersonDto> partners = person.getRelations(RelationshipType.PARTNER);
+
+        if (children == null || children.size() != 3) {
+            PinkDebugException.atDebug(log).log("Person {} does not have exactly 3 children", person.getName());
+            return ErrorMessages.NOT_EXACTLY_3_CHILDREN;
+        }
+
+        if (partners == null || partners.isEmpty()) {
+            PinkDebugException.atDebug(log).log("Person {} does not any partners", person);
+            return ErrorMessages.NO_PARTNER;
+        }
+
+        boolean hasUnder18 = children.stream()
+            .anyMatch(child -> child.getDateOfBirth() != null &&
+                child.getDateOfBirth().isAfter(LocalDate.now().minusYears(18)));
+
+        if (!hasUnder18) {
+            PinkDebugException.atDebug(log).log("All children of {} are 18 or older", person);
+            return ErrorMessages.NO_UNDERAGE_CHILD;
+        }
+
+        // Find partners shared by all children (excluding the main person)
+        Set<PersonDto> sharedPartners = new HashSet<>(partners);
+
+        for (PersonDto child : children) {
+            Set<PersonDto> childParents = child.getRelations(RelationshipType.CHILD);
+
+            // We expect at least the primary parent to be there.
+            if (childParents == null || childParents.isEmpty()) {
+                log.error("Child {} has no parent records. This should not be possible, likely a mapping or data issue",
+                    child
+                );
+                throw new PinkSystemException("CHILD " + child.getName() + " has no parent records");
+            }
+
+            // Remove main person, only keep other parents/partners
+            Set<PersonDto> otherParents = new HashSet<>(childParents);
+            otherParents.remove(person);
+
+            if (otherParents.isEmpty()) {
+                // child has no other parent besides main person
+                PinkDebugException.atDebug(log).log("Child {} haas no other parents", child);
+                return ErrorMessages.NO_SHARED_CHILDREN;
+            }
+
+            // intersecting, checking if the children is shared between the main and any of their partners.
+            sharedPartners.retainAll(otherParents);
+
+            if (sharedPartners.isEmpty()) {
+                PinkDebugException.atDebug(log).log("No children are shared by {}", person);
+                return ErrorMessages.NO_SHARED_CHILDREN;
+            }
+        }
+
+        return ""; // no error
+    }
+}
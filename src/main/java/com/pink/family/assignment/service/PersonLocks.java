@@ -0,0 +1,103 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.api.exception.PinkSystemException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.PersonLockProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks on external IDs, held by an update for every person it touches: the person itself and each person it
+ * relates it to. Both sides of a relationship are written by the update, so two updates that could write the same
+ * relationship (A listing B as partner while B lists A) always share at least one lock and run one after the other.
+ * <p>
+ * The IDs are spread over a fixed number of locks. An update takes the locks of all its IDs in ascending order of the
+ * lock, the same canonical order for every update, so updates waiting on each other can never wait in a circle.
+ * Locks are taken before the transaction starts and released after it commits, so the next update sees what the last
+ * one wrote.
+ */
+@Slf4j
+@Component
+public class PersonLocks {
+
+    private final PersonLockProperties properties;
+    private final MicrometerService micrometerService;
+    private final ReentrantLock[] stripes;
+
+    public PersonLocks(PersonLockProperties properties, MicrometerService micrometerService) {
+        this.properties = properties;
+        this.micrometerService = micrometerService;
+        this.stripes = new ReentrantLock[Math.max(1, properties.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run the update holding the locks of all the external IDs it touches.
+     *
+     * @throws PinkApiException with a 503 if the locks could not be had within the timeout.
+     */
+    public <T> T withLocks(Collection<Long> externalIds, Supplier<T> update) {
+        if (!properties.isEnabled()) {
+            return update.get();
+        }
+
+        List<ReentrantLock> held = lock(externalIds);
+        try {
+            return update.get();
+        } finally {
+            unlock(held);
+        }
+    }
+
+    private List<ReentrantLock> lock(Collection<Long> externalIds) {
+        int[] order = externalIds.stream()
+            .filter(Objects::nonNull)
+            .mapToInt(this::stripe)
+            .distinct()
+            .sorted()
+            .toArray();
+
+        List<ReentrantLock> held = new ArrayList<>(order.length);
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        try {
+            for (int stripe : order) {
+                ReentrantLock lock = stripes[stripe];
+                if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    log.debug("Timed out waiting on the locks of {} persons", externalIds.size());
+                    micrometerService.increment(MeterKeys.COUNT_PERSON_LOCK_TIMEOUT);
+                    unlock(held);
+                    throw new PinkApiException("Service temporarily unavailable", 503);
+                }
+                held.add(lock);
+            }
+        } catch (InterruptedException e) {
+            unlock(held);
+            Thread.currentThread().interrupt();
+            throw new PinkSystemException("Interrupted while waiting on the locks of an update");
+        }
+        return held;
+    }
+
+    private static void unlock(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+        held.clear();
+    }
+
+    int stripe(Long externalId) {
+        int hash = Long.hashCode(externalId);
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
@@ -1,24 +1,38 @@
 package com.pink.family.assignment.service;
 
 import com.pink.family.assignment.api.exception.PinkDebugException;
-import com.pink.family.assignment.api.exception.PinkSystemException;
 import com.pink.family.assignment.constants.ErrorMessages;
 import com.pink.family.assignment.constants.MeterKeys;
 import com.pink.family.assignment.database.dao.PersonDao;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.CheckResultDto;
 import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.dto.PersonUpdateDto;
+import com.pink.family.assignment.properties.DeletionProperties;
 import com.pink.family.assignment.util.MaskUtil;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @Service
@@ -27,10 +41,36 @@ public class PersonService {
 
     private final PersonDao personDao;
     private final MicrometerService micrometerService;
+    private final DegradedModeService degradedModeService;
+    private final PersonCheckValidator personCheckValidator;
+    private final DatabaseBulkheads databaseBulkheads;
+    private final DeletionProperties deletionProperties;
+    private final GroupCommitService groupCommitService;
+    private final PersonLocks personLocks;
 
 
+    /**
+     * Soft delete the persons a chunk at a time, each chunk in a transaction of its own. Chunks deleted before a
+     * failure stay deleted, deleting them again is harmless.
+     */
     public void softDeletePersons(Set<Long> toDelete) {
-        personDao.softDeletePersons(toDelete);
+        List<Long> ids = List.copyOf(toDelete);
+        int chunkSize = deletionProperties.getChunkSize();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            softDeleteChunk(new HashSet<>(ids.subList(from, Math.min(ids.size(), from + chunkSize))));
+        }
+    }
+
+    /**
+     * Soft delete the persons in a single transaction. Once committed, the last known checks of the persons and of
+     * their relatives are forgotten.
+     */
+    public void softDeleteChunk(Set<Long> toDelete) {
+        Collection<PersonDto> deleted =
+            databaseBulkheads.read(() -> personDao.findPersonsFromExternalIds(toDelete, 1)).values();
+        databaseBulkheads.write(() -> personDao.softDeletePersons(toDelete));
+        degradedModeService.forget(DegradedModeService.affectedKeys(
+            toDelete, deleted, EnumSet.allOf(RelationshipType.class)));
     }
 
     /**
@@ -38,35 +78,50 @@ public class PersonService {
      * child under 18.
      */
     public Optional<String> hasPartnerAndChildrenNameSurnameDob(String name, LocalDate dob) {
+        return checkNameSurnameDob(name, dob).asOptional();
+    }
+
+    /**
+     * Same as {@link #hasPartnerAndChildrenNameSurnameDob(String, LocalDate)}, but the result may be the last known
+     * (stale) one if the database is degraded.
+     */
+    public CheckResultDto checkNameSurnameDob(String name, LocalDate dob) {
 
         Timer.Sample timer = micrometerService.getSample();
         try {
-            Set<PersonDto> persons = personDao.findAllPersonFromNameDobWithPartnerChildren(name, dob);
+            return degradedModeService.check(
+                DegradedModeService.nameDobKey(name, dob),
+                () -> validateNameSurnameDob(name, dob));
+        } finally {
+            micrometerService.time(MeterKeys.TIME_CHECK_PARTNER_CHILDREN_FALLBACK, timer);
+            micrometerService.increment(MeterKeys.COUNT_CHECK_PARTNER_CHILDREN_FALLBACK);
+        }
+    }
 
-            if (persons.isEmpty()) {
-                log.debug("No person found with name {} and dob {}", name, dob, PinkDebugException.inst());
-                return Optional.of(ErrorMessages.NO_RECORD);
-            }
+    private Optional<String> validateNameSurnameDob(String name, LocalDate dob) {
+        Set<PersonDto> persons =
+            databaseBulkheads.read(() -> personDao.findAllPersonFromNameDobWithPartnerChildren(name, dob));
 
-            if (persons.size() > 1) {
-                log.debug("Found Multiple of {} {}", name, dob, PinkDebugException.inst());
-                return Optional.of(ErrorMessages.NO_DISTINCT_RECORD);
-            }
+        if (persons.isEmpty()) {
+            PinkDebugException.atDebug(log).log("No person found with name {} and dob {}", name, dob);
+            return Optional.of(ErrorMessages.NO_RECORD);
+        }
 
-            PersonDto person = persons.iterator().next();
-            if (person.isDeleted()) {
-                return Optional.empty();
-            }
+        if (persons.size() > 1) {
+            PinkDebugException.atDebug(log).log("Found Multiple of {} {}", name, dob);
+            return Optional.of(ErrorMessages.NO_DISTINCT_RECORD);
+        }
 
-            String error = validatePersonPartnerAndChildren(person);
-            if (error.isEmpty()) {
-                return Optional.empty();
-            } else {
-                return Optional.of(error);
-            }
-        } finally {
-            micrometerService.time(MeterKeys.TIME_CHECK_PARTNER_CHILDREN_FALLBACK, timer);
-            micrometerService.increment(MeterKeys.COUNT_CHECK_PARTNER_CHILDREN_FALLBACK);
+        PersonDto person = persons.iterator().next();
+        if (person.isDeleted()) {
+            return Optional.empty();
+        }
+
+        String error = personCheckValidator.validatePartnerAndChildren(person);
+        if (error.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(error);
         }
     }
 
@@ -78,100 +133,162 @@ public class PersonService {
      * encountered.
      */
     public Optional<String> hasPartnerAndChildrenExternalId(Long externalId) {
+        return checkExternalId(externalId).asOptional();
+    }
+
+    /**
+     * Same as {@link #hasPartnerAndChildrenExternalId(Long)}, but the result may be the last known (stale) one if the
+     * database is degraded.
+     */
+    public CheckResultDto checkExternalId(Long externalId) {
 
         Timer.Sample timer = micrometerService.getSample();
         try {
-            Optional<PersonDto> optPerson = personDao.findPersonFromExternalId(externalId, 3);
-
-            if (optPerson.isEmpty()) {
-                log.debug("No person found for external ID {}",
-                    MaskUtil.maskExternalId(externalId),
-                    PinkDebugException.inst()
-                );
-                return Optional.of(ErrorMessages.NO_RECORD);
-            }
-
-            PersonDto person = optPerson.get();
-            if (person.isDeleted()) {
-                return Optional.empty();
-            }
-
-            String error = validatePersonPartnerAndChildren(person);
-            if (error.isEmpty()) {
-                return Optional.empty();
-            } else {
-                return Optional.of(error);
+            if (personDao.isKnownDeleted(externalId)) {
+                log.debug("Person {} is deleted, ignoring", MaskUtil.maskExternalId(externalId));
+                micrometerService.increment(MeterKeys.COUNT_TOMBSTONE_HIT);
+                return CheckResultDto.fresh(Optional.empty());
             }
+            return degradedModeService.check(
+                DegradedModeService.externalIdKey(externalId),
+                () -> validateExternalId(externalId));
         } finally {
             micrometerService.time(MeterKeys.TIME_CHECK_PARTNER_CHILDREN_ID, timer);
             micrometerService.increment(MeterKeys.COUNT_CHECK_PARTNER_CHILDREN_ID);
         }
-
     }
 
     /**
-     * Core validation logic used by both methods.
+     * Read a person, with its direct relations if asked for, in a read only transaction.
+     *
+     * @return empty if the person does not exist or is deleted.
      */
-    private String validatePersonPartnerAndChildren(PersonDto person) {
-
-        log.debug("Validating that Person has Partner and shared Children:\n{}", person);
-
-        Set<PersonDto> children = person.getRelations(RelationshipType.PARENT);
-        Set<PersonDto> partners = person.getRelations(RelationshipType.PARTNER);
-
-        if (children == null || children.size() != 3) {
-            log.debug("Person {} does not have exactly 3 children", person.getName(), PinkDebugException.inst());
-            return ErrorMessages.NOT_EXACTLY_3_CHILDREN;
+    public Optional<PersonDto> findPerson(Long externalId, boolean withRelations) {
+        if (personDao.isKnownDeleted(externalId)) {
+            return Optional.empty();
         }
+        return databaseBulkheads.read(() -> personDao.findPersonFromExternalId(externalId, withRelations ? 1 : 0))
+            .filter(person -> !person.isDeleted());
+    }
 
-        if (partners == null || partners.isEmpty()) {
-            log.debug("Person {} does not any partners", person, PinkDebugException.inst());
-            return ErrorMessages.NO_PARTNER;
+    /**
+     * Same as {@link #findPerson(Long, boolean)} for many persons at once, loaded with set based queries, so the
+     * number of queries does not grow with the number of persons.
+     *
+     * @return the persons by external ID, without the ones that do not exist or are deleted.
+     */
+    public Map<Long, PersonDto> findPersons(Set<Long> externalIds, boolean withRelations) {
+        Set<Long> toLoad = externalIds.stream()
+            .filter(externalId -> !personDao.isKnownDeleted(externalId))
+            .collect(Collectors.toSet());
+        if (toLoad.isEmpty()) {
+            return Map.of();
         }
 
-        boolean hasUnder18 = children.stream()
-            .anyMatch(child -> child.getDateOfBirth() != null &&
-                child.getDateOfBirth().isAfter(LocalDate.now().minusYears(18)));
+        return databaseBulkheads.read(() -> personDao.findPersonsFromExternalIds(toLoad, withRelations ? 1 : 0))
+            .entrySet()
+            .stream()
+            .filter(entry -> !entry.getValue().isDeleted())
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
 
-        if (!hasUnder18) {
-            log.debug("All children of {} are 18 or older", person, PinkDebugException.inst());
-            return ErrorMessages.NO_UNDERAGE_CHILD;
-        }
+    /**
+     * Every person that is not deleted, with its direct relations, in internal ID order.
+     * <p>
+     * Lazy: a page is read once the stream gets to it, each with a query of its own in a short read only transaction
+     * going through the read bulkhead, so memory use does not grow with the number of persons and no connection is
+     * held between pages. Pages are not a snapshot, persons changed while the stream is consumed may be seen either
+     * way.
+     */
+    public Stream<PersonDto> exportPersons(int pageSize) {
+        Iterator<List<PersonDto>> pages = new Iterator<>() {
+            private Long after = Long.MIN_VALUE;
+            private List<PersonDto> next;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !last) {
+                    Long from = after;
+                    next = databaseBulkheads.read(() -> personDao.findPageAfter(from, pageSize));
+                    last = next.size() < pageSize;
+                    if (!next.isEmpty()) {
+                        after = next.getLast().getInternalId();
+                    }
+                }
+                return next != null && !next.isEmpty();
+            }
 
-        // Find partners shared by all children (excluding the main person)
-        Set<PersonDto> sharedPartners = new HashSet<>(partners);
+            @Override
+            public List<PersonDto> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<PersonDto> page = next;
+                next = null;
+                return page;
+            }
+        };
 
-        for (PersonDto child : children) {
-            Set<PersonDto> childParents = child.getRelations(RelationshipType.CHILD);
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .flatMap(List::stream);
+    }
 
-            // We expect at least the primary parent to be there.
-            if (childParents == null || childParents.isEmpty()) {
-                log.error("Child {} has no parent records. This should not be possible, likely a mapping or data issue",
-                    child
-                );
-                throw new PinkSystemException("CHILD " + child.getName() + " has no parent records");
+    /**
+     * Same as {@link #hasPartnerAndChildrenExternalId(Long)} for many persons at once, loaded with set based queries.
+     * Meant for bulk checks, so it goes to the database directly rather than falling back on last known results.
+     *
+     * @return the outcome by external ID, for every given external ID.
+     */
+    public Map<Long, Optional<String>> checkExternalIds(Set<Long> externalIds) {
+        Map<Long, Optional<String>> results = new HashMap<>();
+
+        Set<Long> toLoad = new HashSet<>();
+        for (Long externalId : externalIds) {
+            if (personDao.isKnownDeleted(externalId)) {
+                results.put(externalId, Optional.empty());
+            } else {
+                toLoad.add(externalId);
             }
+        }
+        if (toLoad.isEmpty()) {
+            return results;
+        }
 
-            // Remove main person, only keep other parents/partners
-            Set<PersonDto> otherParents = new HashSet<>(childParents);
-            otherParents.remove(person);
+        Map<Long, PersonDto> persons = databaseBulkheads.read(() -> personDao.findPersonsFromExternalIds(toLoad, 3));
+        for (Long externalId : toLoad) {
+            PersonDto person = persons.get(externalId);
+            results.put(externalId, person == null ? Optional.of(ErrorMessages.NO_RECORD) : validate(person));
+        }
+        return results;
+    }
 
-            if (otherParents.isEmpty()) {
-                // child has no other parent besides main person
-                log.debug("Child {} haas no other parents", child, PinkDebugException.inst());
-                return ErrorMessages.NO_SHARED_CHILDREN;
-            }
+    private Optional<String> validateExternalId(Long externalId) {
+        Optional<PersonDto> optPerson =
+            databaseBulkheads.read(() -> personDao.findPersonFromExternalId(externalId, 3));
 
-            // intersecting, checking if the children is shared between the main and any of their partners.
-            sharedPartners.retainAll(otherParents);
+        if (optPerson.isEmpty()) {
+            PinkDebugException.atDebug(log)
+                .addArgument(() -> MaskUtil.maskExternalId(externalId))
+                .log("No person found for external ID {}");
+            return Optional.of(ErrorMessages.NO_RECORD);
+        }
 
-            if (sharedPartners.isEmpty()) {
-                log.debug("No children are shared by {}", person, PinkDebugException.inst());
-                return ErrorMessages.NO_SHARED_CHILDREN;
-            }
+        return validate(optPerson.get());
+    }
+
+    private Optional<String> validate(PersonDto person) {
+        if (person.isDeleted()) {
+            return Optional.empty();
         }
 
-        return ""; // no error
+        String error = personCheckValidator.validatePartnerAndChildren(person);
+        if (error.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(error);
+        }
     }
 
     public PersonDto retrieveAndUpdate(
@@ -184,15 +301,86 @@ public class PersonService {
     ){
         Timer.Sample timer = micrometerService.getSample();
         try {
+            if (personDao.isKnownDeleted(externalId)) {
+                log.debug("Person {} is deleted, not updating", MaskUtil.maskExternalId(externalId));
+                micrometerService.increment(MeterKeys.COUNT_TOMBSTONE_HIT);
+                return null;
+            }
+
             Map<RelationshipType, Set<Long>> relations = new HashMap<>();
             relations.put(RelationshipType.CHILD, parentsId);
             relations.put(RelationshipType.PARENT, childrenIds);
             relations.put(RelationshipType.PARTNER, partnerIds);
 
-            return personDao.updatePerson(externalId, name, dateOfBirth, relations);
+            if (groupCommitService.isEnabled()) {
+                // the committer takes the locks for the whole batch, and forgets the checks it changed.
+                return groupCommitService.update(PersonUpdateDto.builder()
+                    .externalId(externalId)
+                    .name(name)
+                    .dateOfBirth(dateOfBirth)
+                    .relatedIdsByType(relations)
+                    .build());
+            }
+
+            Set<Long> touched = PersonUpdateDto.touchedIds(externalId, relations);
+            return personLocks.withLocks(touched, () -> {
+                List<PersonDto> changed = new ArrayList<>(
+                    databaseBulkheads.read(() -> personDao.findPersonFromExternalId(externalId, 1)).stream().toList());
+                PersonDto updated =
+                    databaseBulkheads.write(() -> personDao.updatePerson(externalId, name, dateOfBirth, relations));
+                if (updated != null) {
+                    changed.add(updated);
+                }
+
+                // committed, the checks of the person as it was and is, and of its relatives then and now changed.
+                degradedModeService.forget(DegradedModeService.affectedKeys(
+                    touched, changed, EnumSet.allOf(RelationshipType.class)));
+                return updated;
+            });
         } finally {
             micrometerService.time(MeterKeys.TIME_RETRIEVE_AND_UPDATE, timer);
             micrometerService.increment(MeterKeys.COUNT_RETRIEVE_AND_UPDATE);
         }
     }
+
+    /**
+     * Change part of a person, see {@link PersonDao#patchPerson(Long, String, LocalDate, Map)}.
+     *
+     * @return the person after the change, empty if it does not exist or is deleted.
+     */
+    public Optional<PersonDto> patchPerson(
+        Long externalId,
+        String name,
+        LocalDate dateOfBirth,
+        Map<RelationshipType, Set<Long>> relatedIdsByType
+    ) {
+        Timer.Sample timer = micrometerService.getSample();
+        try {
+            if (personDao.isKnownDeleted(externalId)) {
+                log.debug("Person {} is deleted, not patching", MaskUtil.maskExternalId(externalId));
+                micrometerService.increment(MeterKeys.COUNT_TOMBSTONE_HIT);
+                return Optional.empty();
+            }
+
+            Set<Long> touched = PersonUpdateDto.touchedIds(externalId, relatedIdsByType);
+            return personLocks.withLocks(touched, () -> {
+                List<PersonDto> changed = new ArrayList<>(
+                    databaseBulkheads.read(() -> personDao.findPersonFromExternalId(externalId, 1)).stream().toList());
+                Optional<PersonDto> patched = databaseBulkheads.write(() ->
+                    personDao.patchPerson(externalId, name, dateOfBirth, relatedIdsByType));
+                patched.ifPresent(changed::add);
+
+                // Committed. The checks of the person as it was and is changed, and of everyone it was or now is
+                // related to by the patched types, or by any type if its name or date of birth changed.
+                Set<RelationshipType> relativeTypes = ObjectUtils.isEmpty(name) && dateOfBirth == null ?
+                    relatedIdsByType.keySet() :
+                    EnumSet.allOf(RelationshipType.class);
+                degradedModeService.forget(DegradedModeService.affectedKeys(touched, changed, relativeTypes));
+                return patched;
+            });
+        } finally {
+            micrometerService.time(MeterKeys.TIME_PATCH, timer);
+            micrometerService.increment(MeterKeys.COUNT_PATCH);
+        }
+    }
 }
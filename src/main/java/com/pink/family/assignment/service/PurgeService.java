@@ -0,0 +1,65 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.properties.DeletionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Moves the persons soft deleted longer ago than the retention, with their relationships, from the hot tables to the
+ * archive tables, see {@link PersonDao#purgeDeletedBefore(Instant, int)}.
+ * <p>
+ * A batch per transaction, each through the write bulkhead like any other write, so a purge never holds many locks at
+ * once and gives way to the API when the database is busy. What is left over is purged on the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PurgeService implements SchedulingConfigurer {
+
+    private final PersonDao personDao;
+    private final DatabaseBulkheads databaseBulkheads;
+    private final DeletionProperties deletionProperties;
+    private final MicrometerService micrometerService;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        DeletionProperties.Purge purge = deletionProperties.getPurge();
+        if (purge.isEnabled()) {
+            taskRegistrar.addFixedDelayTask(this::purge, purge.getInterval());
+        }
+    }
+
+    /**
+     * Purge until no person deleted before the cutoff is left.
+     *
+     * @return the number of persons purged.
+     */
+    public long purge() {
+        DeletionProperties.Purge purge = deletionProperties.getPurge();
+        Instant cutoff = Instant.now().minus(purge.getRetention());
+
+        long total = 0;
+        int purged;
+        try {
+            do {
+                purged = databaseBulkheads.write(() -> personDao.purgeDeletedBefore(cutoff, purge.getBatchSize()));
+                total += purged;
+                micrometerService.increment(MeterKeys.COUNT_PERSONS_PURGED, purged);
+            } while (purged == purge.getBatchSize() && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            log.warn("Purge stopped after {} persons, continues on the next run: {}", total, e.getMessage());
+        }
+
+        if (total > 0) {
+            log.info("Purged {} persons deleted before {}", total, cutoff);
+        }
+        return total;
+    }
+}
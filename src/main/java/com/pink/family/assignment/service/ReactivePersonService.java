@@ -0,0 +1,133 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkDebugException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.reactive.ReactivePersonDao;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.util.MaskUtil;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The reactive counterpart of {@link PersonService}, used by the reactive stack. The checks apply the same rules
+ * (see {@link PersonCheckValidator}) and record the same metrics.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonService {
+
+    private final ReactivePersonDao reactivePersonDao;
+    private final MicrometerService micrometerService;
+    private final PersonCheckValidator personCheckValidator;
+
+    /**
+     * Reactive version of {@link PersonService#hasPartnerAndChildrenExternalId(Long)}.
+     */
+    public Mono<Optional<String>> checkExternalId(Long externalId) {
+        if (reactivePersonDao.isKnownDeleted(externalId)) {
+            log.debug("Person {} is deleted, ignoring", MaskUtil.maskExternalId(externalId));
+            micrometerService.increment(MeterKeys.COUNT_TOMBSTONE_HIT);
+            return Mono.just(Optional.empty());
+        }
+
+        Mono<Optional<String>> check = reactivePersonDao.findPersonFromExternalId(externalId, 3)
+            .map(this::validate)
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                PinkDebugException.atDebug(log)
+                    .addArgument(() -> MaskUtil.maskExternalId(externalId))
+                    .log("No person found for external ID {}");
+                return Optional.of(ErrorMessages.NO_RECORD);
+            }));
+
+        return timed(check, MeterKeys.TIME_CHECK_PARTNER_CHILDREN_ID, MeterKeys.COUNT_CHECK_PARTNER_CHILDREN_ID);
+    }
+
+    /**
+     * Reactive version of {@link PersonService#hasPartnerAndChildrenNameSurnameDob(String, LocalDate)}.
+     */
+    public Mono<Optional<String>> checkNameSurnameDob(String name, LocalDate dob) {
+        Mono<Optional<String>> check = reactivePersonDao.findAllPersonFromNameDobWithPartnerChildren(name, dob)
+            // two are enough to know the match is not distinct.
+            .take(2)
+            .collectList()
+            .map(persons -> {
+                if (persons.isEmpty()) {
+                    PinkDebugException.atDebug(log).log("No person found with name {} and dob {}", name, dob);
+                    return Optional.of(ErrorMessages.NO_RECORD);
+                }
+                if (persons.size() > 1) {
+                    PinkDebugException.atDebug(log).log("Found Multiple of {} {}", name, dob);
+                    return Optional.of(ErrorMessages.NO_DISTINCT_RECORD);
+                }
+                return validate(persons.getFirst());
+            });
+
+        return timed(
+            check,
+            MeterKeys.TIME_CHECK_PARTNER_CHILDREN_FALLBACK,
+            MeterKeys.COUNT_CHECK_PARTNER_CHILDREN_FALLBACK);
+    }
+
+    private Optional<String> validate(PersonDto person) {
+        if (person.isDeleted()) {
+            return Optional.empty();
+        }
+        String error = personCheckValidator.validatePartnerAndChildren(person);
+        return error.isEmpty() ? Optional.empty() : Optional.of(error);
+    }
+
+    /**
+     * Reactive version of {@link PersonService#retrieveAndUpdate}.
+     *
+     * @return The updated person, empty if the person is deleted.
+     */
+    public Mono<PersonDto> retrieveAndUpdate(
+        Long externalId,
+        String name,
+        LocalDate dateOfBirth,
+        Set<Long> parentsId,
+        Set<Long> partnerIds,
+        Set<Long> childrenIds
+    ) {
+        Map<RelationshipType, Set<Long>> relations = new EnumMap<>(RelationshipType.class);
+        relations.put(RelationshipType.CHILD, parentsId);
+        relations.put(RelationshipType.PARENT, childrenIds);
+        relations.put(RelationshipType.PARTNER, partnerIds);
+
+        return timed(
+            reactivePersonDao.updatePerson(externalId, name, dateOfBirth, relations),
+            MeterKeys.TIME_RETRIEVE_AND_UPDATE,
+            MeterKeys.COUNT_RETRIEVE_AND_UPDATE);
+    }
+
+    public Mono<Void> softDeletePersons(Set<Long> toDelete) {
+        return reactivePersonDao.softDeletePersons(toDelete);
+    }
+
+    /**
+     * Time from subscription until the result is complete, failed or cancelled.
+     */
+    private <T> Mono<T> timed(Mono<T> mono, String timerName, String counterName) {
+        return Mono.defer(() -> {
+            Timer.Sample timer = micrometerService.getSample();
+            return mono.doFinally(signal -> {
+                micrometerService.time(timerName, timer);
+                micrometerService.increment(counterName);
+            });
+        });
+    }
+}
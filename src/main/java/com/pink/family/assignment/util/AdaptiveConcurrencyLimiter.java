@@ -0,0 +1,185 @@
+package com.pink.family.assignment.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to the latency of the work it guards, in the style of a gradient limiter.
+ * <p>
+ * A long term average of the latency is compared to the short term one. While they agree the limit grows by a small
+ * headroom (the square root of the limit), so it keeps probing for more throughput. Once the short term latency rises
+ * above the long term one (beyond the tolerance), work is queueing up downstream and the limit shrinks by their ratio.
+ * The limit is smoothed and kept within its bounds.
+ * <p>
+ * Comparing two averages of the same traffic, rather than against a minimum latency, keeps the limit stable when the
+ * guarded work mixes fast and slow calls (e.g. cache hits and database reads).
+ * <p>
+ * Work over the limit waits in a bounded queue for a limited time, beyond that it is refused. Queued work with
+ * priority is let through before any without.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longTermWeight;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private int queuedPriority;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * @param tolerance how much higher the short term latency may be than the long term one before the limit shrinks.
+     * @param smoothing weight of a new limit estimate against the current limit, between 0 and 1.
+     * @param longTermWindow number of samples the long term latency is averaged over.
+     */
+    public AdaptiveConcurrencyLimiter(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        int maxQueue,
+        double tolerance,
+        double smoothing,
+        int longTermWindow)
+    {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.tolerance = Math.max(1, tolerance);
+        this.smoothing = smoothing;
+        this.longTermWeight = 2.0 / (Math.max(1, longTermWindow) + 1);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    /**
+     * Take a slot, waiting in the queue for at most the given time if the limit is reached.
+     *
+     * @return false if the queue is full or the wait timed out.
+     */
+    public boolean acquire(long maxWait, TimeUnit unit) throws InterruptedException {
+        return acquire(maxWait, unit, true);
+    }
+
+    /**
+     * Same as {@link #acquire(long, TimeUnit)}, but work without priority only gets a slot while no prioritised work
+     * is queued.
+     */
+    public boolean acquire(long maxWait, TimeUnit unit, boolean priority) throws InterruptedException {
+        lock.lock();
+        try {
+            if (hasSlot(priority)) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueue) {
+                return false;
+            }
+
+            queued++;
+            if (priority) {
+                queuedPriority++;
+            }
+            try {
+                long remaining = unit.toNanos(maxWait);
+                while (!hasSlot(priority)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+                if (priority) {
+                    queuedPriority--;
+                    // work without priority may have been held back by this one.
+                    released.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasSlot(boolean priority) {
+        return inFlight < getLimit() && (priority || queuedPriority == 0);
+    }
+
+    /**
+     * Give the slot back, with how long the work took. Failed work should pass its latency as well, a timing out
+     * database is exactly what the limit has to react to.
+     */
+    public void release(long rttNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= getLimit() / 2;
+            inFlight--;
+            update(Math.max(1, rttNanos), saturated);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, boolean saturated) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos = shortRttNanos * 0.9 + rttNanos * 0.1;
+        longRttNanos = longRttNanos * (1 - longTermWeight) + rttNanos * longTermWeight;
+
+        // after a slow spell the long term average lags behind, let it catch up so the limit can recover.
+        if (longRttNanos > shortRttNanos * 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // while far from the limit latency says nothing about it, so do not grow it.
+        if (!saturated) {
+            return;
+        }
+
+        double gradient = Math.clamp(tolerance * longRttNanos / shortRttNanos, 0.5, 1.0);
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.pink.family.assignment.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compressed set of long values, in the style of a Roaring bitmap.
+ * <p>
+ * Values are split on their high bits into chunks of 65536. A sparse chunk is kept as a sorted array of its low 16
+ * bits (2 bytes per value), a dense chunk as a plain bitmap (8 KB regardless of how many values it holds). Chunks
+ * switch between the two at {@link #ARRAY_MAX} values, the point where both take the same space.
+ * <p>
+ * Not thread safe.
+ */
+public class CompressedLongBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private final Map<Long, Container> containers = new HashMap<>();
+    private long cardinality;
+
+    public boolean contains(long value) {
+        Container container = containers.get(high(value));
+        return container != null && container.contains(low(value));
+    }
+
+    /**
+     * @return true if the value was not yet present.
+     */
+    public boolean add(long value) {
+        Long key = high(value);
+        Container container = containers.getOrDefault(key, ArrayContainer.EMPTY);
+        int before = container.cardinality();
+        Container updated = container.add(low(value));
+        if (updated != container) {
+            containers.put(key, updated);
+        }
+        boolean added = updated.cardinality() != before;
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * @return true if the value was present.
+     */
+    public boolean remove(long value) {
+        Long key = high(value);
+        Container container = containers.get(key);
+        if (container == null) {
+            return false;
+        }
+        int before = container.cardinality();
+        Container updated = container.remove(low(value));
+        if (updated.cardinality() == 0) {
+            containers.remove(key);
+        } else if (updated != container) {
+            containers.put(key, updated);
+        }
+        boolean removed = updated.cardinality() != before;
+        if (removed) {
+            cardinality--;
+        }
+        return removed;
+    }
+
+    public void clear() {
+        containers.clear();
+        cardinality = 0;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Rough estimate of the memory held by the values, excluding the chunk index.
+     */
+    public long sizeInBytes() {
+        return containers.values().stream().mapToLong(Container::sizeInBytes).sum();
+    }
+
+    private static long high(long value) {
+        return value >> 16;
+    }
+
+    private static char low(long value) {
+        return (char) value;
+    }
+
+    private interface Container {
+        boolean contains(char low);
+
+        /**
+         * @return this container, or the container replacing it.
+         */
+        Container add(char low);
+
+        /**
+         * @return this container, or the container replacing it.
+         */
+        Container remove(char low);
+
+        int cardinality();
+
+        long sizeInBytes();
+    }
+
+    /**
+     * Sorted array of the low bits, for sparse chunks.
+     */
+    private static final class ArrayContainer implements Container {
+
+        static final ArrayContainer EMPTY = new ArrayContainer(new char[0], 0);
+
+        private char[] values;
+        private int size;
+
+        private ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            index = -index - 1;
+            // the shared empty instance is never written to.
+            ArrayContainer target = this == EMPTY ? new ArrayContainer(new char[4], 0) : this;
+            if (target.size == target.values.length) {
+                target.values = Arrays.copyOf(target.values, Math.min(ARRAY_MAX, target.size * 2));
+            }
+            System.arraycopy(target.values, index, target.values, index + 1, target.size - index);
+            target.values[index] = low;
+            target.size++;
+            return target;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index < 0) {
+                return this;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            if (values.length > 16 && size < values.length / 4) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 2L * values.length;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Plain bitmap of the low bits, for dense chunks.
+     */
+    private static final class BitmapContainer implements Container {
+
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            long word = words[low >>> 6];
+            long updated = word | (1L << low);
+            if (updated != word) {
+                words[low >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long word = words[low >>> 6];
+            long updated = word & ~(1L << low);
+            if (updated == word) {
+                return this;
+            }
+            words[low >>> 6] = updated;
+            cardinality--;
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 8L * BITMAP_WORDS;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int size = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+    }
+}
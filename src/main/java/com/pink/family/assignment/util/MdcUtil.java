@@ -0,0 +1,60 @@
+package com.pink.family.assignment.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Utility class used to carry the {@link MDC} (and so the request ID) across threads.
+ * <p>
+ * The MDC is thread local, so work handed off to another thread (a pool, a virtual thread) loses it unless it is
+ * captured when the work is created and restored when it runs.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class MdcUtil {
+
+    /**
+     * Wrap the supplier so it runs with the MDC of the calling thread. The MDC of the thread that ends up running it
+     * is restored afterwards.
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> callWith(context, supplier);
+    }
+
+    /**
+     * Run the supplier with the given MDC, captured earlier with {@link MDC#getCopyOfContextMap()}. The MDC of the
+     * calling thread is restored afterwards.
+     */
+    public static <T> T callWith(Map<String, String> context, Supplier<T> supplier) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        setContext(context);
+        try {
+            return supplier.get();
+        } finally {
+            setContext(previous);
+        }
+    }
+
+    /**
+     * Same as {@link #wrap(Supplier)}, for a runnable.
+     */
+    public static Runnable wrap(Runnable runnable) {
+        Supplier<Void> wrapped = wrap(() -> {
+            runnable.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.pink.family.assignment;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.pink.family.assignment.properties.CacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTest {
+
+    private static Policy.Eviction<Object, Object> eviction(CacheManager cacheManager, String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache()
+            .policy().eviction().orElseThrow();
+    }
+
+    @Test
+    @DisplayName("The total maximum weight is shared by the person graph caches, the last known results count entries")
+    void maximumWeight_sharedByPersonGraph() {
+        CacheProperties properties = new CacheProperties();
+        properties.setMaximumWeight(DataSize.ofMegabytes(10));
+
+        CacheManager cacheManager = new CacheConfig(properties).cacheManager();
+
+        for (String name : CacheConfig.Constant.PERSON_GRAPH_CACHES) {
+            assertThat(eviction(cacheManager, name).isWeighted()).isTrue();
+        }
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSON_BY_EXTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(1).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSONS_BY_NAME_DOB).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(1).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSON_NODE_BY_INTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(4).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.ADJACENCY_BY_INTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(4).toBytes());
+        Policy.Eviction<Object, Object> lastKnown =
+            eviction(cacheManager, CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT);
+        assertThat(lastKnown.isWeighted()).isFalse();
+        assertThat(lastKnown.getMaximum()).isEqualTo(CacheConfig.Constant.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    @DisplayName("Configured shares split the total, a cache with a maximum weight of its own is left out of it")
+    void maximumWeight_configuredShares() {
+        CacheProperties.CacheSpec byExternalId = new CacheProperties.CacheSpec();
+        byExternalId.setWeightShare(2);
+        CacheProperties.CacheSpec adjacency = new CacheProperties.CacheSpec();
+        adjacency.setMaximumWeight(DataSize.ofMegabytes(3));
+        CacheProperties properties = new CacheProperties();
+        properties.setMaximumWeight(DataSize.ofMegabytes(7));
+        properties.setCaches(Map.of(
+            CacheConfig.Constant.PERSON_BY_EXTERNAL_ID, byExternalId,
+            CacheConfig.Constant.ADJACENCY_BY_INTERNAL_ID, adjacency));
+
+        CacheManager cacheManager = new CacheConfig(properties).cacheManager();
+
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSON_BY_EXTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(2).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSONS_BY_NAME_DOB).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(1).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.PERSON_NODE_BY_INTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(4).toBytes());
+        assertThat(eviction(cacheManager, CacheConfig.Constant.ADJACENCY_BY_INTERNAL_ID).getMaximum())
+            .isEqualTo(DataSize.ofMegabytes(3).toBytes());
+    }
+
+    @Test
+    @DisplayName("The last known results are bounded by weight when given a maximum weight of their own")
+    void lastKnown_ownMaximumWeight() {
+        CacheProperties.CacheSpec spec = new CacheProperties.CacheSpec();
+        spec.setMaximumWeight(DataSize.ofKilobytes(64));
+        CacheProperties properties = new CacheProperties();
+        properties.setMaximumWeight(DataSize.ofMegabytes(4));
+        properties.setCaches(Map.of(CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT, spec));
+
+        CacheManager cacheManager = new CacheConfig(properties).cacheManager();
+
+        Policy.Eviction<Object, Object> lastKnown =
+            eviction(cacheManager, CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT);
+        assertThat(lastKnown.isWeighted()).isTrue();
+        assertThat(lastKnown.getMaximum()).isEqualTo(DataSize.ofKilobytes(64).toBytes());
+    }
+}
@@ -0,0 +1,91 @@
+package com.pink.family.assignment.api.actuator;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pink.family.assignment.properties.CacheProperties;
+import com.pink.family.assignment.service.CacheHeapPressureMonitor;
+import com.pink.family.assignment.service.MicrometerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class PersonCacheEndpointTest {
+
+    private static final String CACHE = "test";
+
+    private CaffeineCacheManager cacheManager;
+    private PersonCacheEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CACHE, Caffeine.newBuilder()
+            .maximumSize(100)
+            .recordStats()
+            .build());
+
+        endpoint = new PersonCacheEndpoint(
+            cacheManager,
+            new CacheHeapPressureMonitor(cacheManager, new CacheProperties(), mock(MicrometerService.class)));
+
+        Cache cache = cacheManager.getCache(CACHE);
+        cache.put(1201L, "a");
+        cache.put(1202L, "b");
+        cache.put(3301L, "c");
+    }
+
+    @Test
+    @DisplayName("Reports size, bound and hit ratio")
+    void read() {
+        cacheManager.getCache(CACHE).get(1201L);
+        cacheManager.getCache(CACHE).get(9999L);
+
+        PersonCacheEndpoint.CacheDetails details = endpoint.cache(CACHE);
+        assertThat(details.getSize()).isEqualTo(3);
+        assertThat(details.getMaximum()).isEqualTo(100);
+        assertThat(details.getHitRatio()).isEqualTo(0.5);
+        assertThat(details.getHottestKeys()).hasSize(3);
+        assertThat(endpoint.caches()).containsOnlyKeys(CACHE);
+        assertThat(endpoint.cache("unknown")).isNull();
+    }
+
+    @Test
+    @DisplayName("The hottest keys are masked, IDs revealing only their first and last two digits")
+    void hottestKeys_masked() {
+        Cache cache = cacheManager.getCache(CACHE);
+        cache.invalidate();
+        cache.put(1234567L, "a");
+        cache.put("ID_7654321", "b");
+        cache.put("NAME_DOB_Jane_1990-05-20", "c");
+        cache.put("Jane_1990-05-20", "d");
+
+        assertThat(endpoint.cache(CACHE).getHottestKeys()).containsExactlyInAnyOrder(
+            "12***67",
+            "ID_76***21",
+            "NAME_DOB_***************",
+            "***************");
+    }
+
+    @Test
+    @DisplayName("Resizes the eviction bound in place, keeping the entries")
+    void resize() {
+        PersonCacheEndpoint.CacheDetails details = endpoint.resize(CACHE, 500);
+        assertThat(details.getMaximum()).isEqualTo(500);
+        assertThat(details.getSize()).isEqualTo(3);
+
+        assertThatThrownBy(() -> endpoint.resize(CACHE, -1)).isInstanceOf(InvalidEndpointRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Invalidates by key pattern or everything")
+    void invalidate() {
+        assertThat(endpoint.invalidate(CACHE, "12.*").getSize()).isEqualTo(1);
+        assertThat(endpoint.invalidate(CACHE, null).getSize()).isZero();
+    }
+}
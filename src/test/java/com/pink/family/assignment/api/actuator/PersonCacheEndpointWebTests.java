@@ -0,0 +1,68 @@
+package com.pink.family.assignment.api.actuator;
+
+import com.pink.family.assignment.CacheConfig;
+import com.pink.family.assignment.service.DegradedModeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The cache endpoint over the web, with its default access.
+ */
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=personcaches")
+@AutoConfigureMockMvc
+class PersonCacheEndpointWebTests {
+
+    private static final String PATH = "/actuator/personcaches/" + CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT));
+        cache.clear();
+        cache.put(DegradedModeService.externalIdKey(7654321L), "");
+    }
+
+    @Test
+    @DisplayName("Reads the cache with its hottest keys masked")
+    void read_keysMasked() throws Exception {
+        mockMvc.perform(get(PATH))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.size").value(1))
+            .andExpect(jsonPath("$.hottestKeys[0]").value("ID_76***21"));
+    }
+
+    @Test
+    @DisplayName("Invalidating is not open over the web by default")
+    void invalidate_notOpen() throws Exception {
+        mockMvc.perform(delete(PATH))
+            .andExpect(status().isMethodNotAllowed())
+            .andExpect(header().string(HttpHeaders.ALLOW, "GET"))
+            .andExpect(jsonPath("$.code").value("405"));
+
+        assertThat(cache.get(DegradedModeService.externalIdKey(7654321L))).isNotNull();
+    }
+}
@@ -0,0 +1,140 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.dto.CheckJobDto;
+import com.pink.family.assignment.service.CheckJobService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch check jobs, submitted, polled and their results downloaded.
+ */
+@SpringBootTest(properties = {
+    "pink.config.jobs.enabled=true",
+    "pink.config.jobs.max-input-size=1KB"
+})
+@AutoConfigureMockMvc
+class CheckJobControllerTests {
+
+    private static final String PATH = "/v1/jobs/checks";
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void jobDirectory(DynamicPropertyRegistry registry) {
+        registry.add("pink.config.jobs.directory", () -> directory.toString());
+    }
+
+    private JsonNode jobStatus(String jobId) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(PATH + "/{jobId}", jobId))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray());
+    }
+
+    private <T> T read(MvcResult result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsByteArray(), type);
+    }
+
+    @Test
+    @DisplayName("A submitted job is accepted, can be polled and once done its results downloaded, one per line")
+    void submit_pollAndDownload() throws Exception {
+        MvcResult submitted = mockMvc.perform(post(PATH)
+                .contentType(CheckJobController.NDJSON)
+                .content("""
+                    {"requestId":"RQ1","id":999}
+                    not json
+                    """))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists(HttpHeaders.LOCATION))
+            .andReturn();
+        JsonNode job = read(submitted, JsonNode.class);
+        String jobId = job.get("jobId").asText();
+        assertThat(job.get("state").asText()).isEqualTo(CheckJobDto.State.QUEUED.name());
+        assertThat(job.get("total").asLong()).isEqualTo(2);
+        assertThat(submitted.getResponse().getHeader(HttpHeaders.LOCATION)).endsWith(PATH + "/" + jobId);
+
+        await().until(() -> jobStatus(jobId).get("state").asText().equals(CheckJobDto.State.DONE.name()));
+        JsonNode done = jobStatus(jobId);
+        assertThat(done.get("processed").asLong()).isEqualTo(2);
+        assertThat(done.get("failed").asLong()).isEqualTo(2);
+
+        MvcResult results = mockMvc.perform(get(PATH + "/{jobId}/results", jobId))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(CheckJobController.NDJSON))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + jobId + "-results.ndjson\""))
+            .andReturn();
+        List<CheckJobService.Result> lines = Arrays.stream(
+                results.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n"))
+            .map(line -> {
+                try {
+                    return objectMapper.readValue(line, CheckJobService.Result.class);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .toList();
+        assertThat(lines).extracting(CheckJobService.Result::getLine).containsExactly(1L, 2L);
+        assertThat(lines.get(0).getRequestId()).isEqualTo("RQ1");
+        assertThat(lines.get(0).getCode()).isEqualTo(444);
+        assertThat(lines.get(0).getReason()).isEqualTo(ErrorMessages.NO_RECORD);
+        assertThat(lines.get(1).getCode()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("An unknown job is a 404, for its progress and its results alike")
+    void unknownJob_notFound() throws Exception {
+        mockMvc.perform(get(PATH + "/{jobId}", "no-job"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get(PATH + "/{jobId}/results", "no-job"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("An input over the maximum size is a 413")
+    void inputTooLarge_payloadTooLarge() throws Exception {
+        ErrorResponse error = read(mockMvc.perform(post(PATH)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"id\":2}\n".repeat(200)))
+            .andExpect(status().isPayloadTooLarge())
+            .andReturn(), ErrorResponse.class);
+
+        assertThat(error.getCode()).isEqualTo("413");
+    }
+}
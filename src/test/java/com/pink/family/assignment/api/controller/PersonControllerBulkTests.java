@@ -0,0 +1,255 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.BatchPersonCheckRequest;
+import com.pink.family.api.rest.server.model.BatchPersonCheckResponse;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonBasic;
+import com.pink.family.api.rest.server.model.PersonCheckResult;
+import com.pink.family.api.rest.server.model.PersonLookupRequest;
+import com.pink.family.api.rest.server.model.PersonLookupResponse;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The requests that carry many persons at once, each admitted by the number of persons it carries.
+ */
+@SpringBootTest(properties = {
+    "pink.config.admission.enabled=true",
+    "pink.config.admission.check.rate-per-second=1",
+    "pink.config.admission.check.burst=20"
+})
+@AutoConfigureMockMvc
+class PersonControllerBulkTests {
+
+    private static final long MAIN_ID = 1L;
+    private static final long PARTNER_ID = 2L;
+    private static final LocalDate MAIN_DOB = LocalDate.of(1980, 1, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames()
+            .forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
+        personRelationshipDao.deleteAll();
+        personDao.deleteAll();
+
+        // A family that passes the check: partner, three shared children, one of them under 18.
+        Set<Long> children = Set.of(3L, 4L, 5L);
+        personDao.updatePerson(3L, "Child1", LocalDate.of(2000, 1, 1), Map.of());
+        personDao.updatePerson(4L, "Child2", LocalDate.of(2002, 1, 1), Map.of());
+        personDao.updatePerson(5L, "Child3", LocalDate.now().minusYears(10), Map.of());
+        personDao.updatePerson(PARTNER_ID, "Partner", LocalDate.of(1981, 1, 1), Map.of(
+            RelationshipType.PARENT, children));
+        personDao.updatePerson(MAIN_ID, "Main", MAIN_DOB, Map.of(
+            RelationshipType.PARTNER, Set.of(PARTNER_ID),
+            RelationshipType.PARENT, children));
+    }
+
+    private ResultActions postJson(String path, String client, Object body) throws Exception {
+        return mockMvc.perform(post(path)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .header("X-Client-Id", client)
+            .content(objectMapper.writeValueAsBytes(body)));
+    }
+
+    private <T> T read(MvcResult result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsByteArray(), type);
+    }
+
+    private static BatchPersonCheckRequest checksOf(LongStream ids) {
+        return new BatchPersonCheckRequest().requests(ids
+            .mapToObj(id -> new SpecificPersonCheckRequest().requestId("RQ" + id).id(id))
+            .toList());
+    }
+
+    @Nested
+    class BatchCheck {
+
+        private static final String PATH = "/v1/people/check-existing-persons";
+
+        @Test
+        @DisplayName("Every person gets its own result, in the order of the request")
+        void results_inRequestOrder() throws Exception {
+            BatchPersonCheckRequest request = new BatchPersonCheckRequest().requests(List.of(
+                new SpecificPersonCheckRequest().requestId("RQ_ID").id(MAIN_ID),
+                new SpecificPersonCheckRequest().requestId("RQ_UNKNOWN").id(999L),
+                new SpecificPersonCheckRequest().requestId("RQ_MISSING").name("Main"),
+                new SpecificPersonCheckRequest().requestId("RQ_NAME").name("Main").dateOfBirth(MAIN_DOB),
+                new SpecificPersonCheckRequest().requestId("RQ_CHILD").id(3L)));
+
+            BatchPersonCheckResponse response = read(
+                postJson(PATH, "batch-results", request)
+                    .andExpect(status().isOk())
+                    .andReturn(),
+                BatchPersonCheckResponse.class);
+
+            List<PersonCheckResult> results = response.getResults();
+            assertThat(results).extracting(PersonCheckResult::getRequestId)
+                .containsExactly("RQ_ID", "RQ_UNKNOWN", "RQ_MISSING", "RQ_NAME", "RQ_CHILD");
+            assertThat(results).extracting(PersonCheckResult::getPassed)
+                .containsExactly(true, false, false, true, false);
+            assertThat(results.get(0).getError()).isNull();
+            assertThat(results.get(1).getError().getCode()).isEqualTo("444");
+            assertThat(results.get(1).getError().getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+            assertThat(results.get(2).getError().getMessage()).isEqualTo(ErrorMessages.MISSING_ID_NAME_DOB);
+            assertThat(results.get(4).getError().getMessage()).isEqualTo(ErrorMessages.NOT_EXACTLY_3_CHILDREN);
+        }
+
+        @Test
+        @DisplayName("More than the 1000 persons a batch may hold is a 400")
+        void overMaxItems_badRequest() throws Exception {
+            ErrorResponse error = read(
+                postJson(PATH, "batch-too-large", checksOf(LongStream.rangeClosed(1, 1001)))
+                    .andExpect(status().isBadRequest())
+                    .andReturn(),
+                ErrorResponse.class);
+
+            assertThat(error.getCode()).isEqualTo("400");
+            assertThat(error.getMessage()).startsWith(ErrorMessages.INVALID_REQUEST).contains("requests");
+        }
+
+        @Test
+        @DisplayName("A batch costs its client one check per person, over budget it is a 429 with a Retry-After")
+        void weighedByPersons() throws Exception {
+            postJson(PATH, "batch-budget", checksOf(LongStream.rangeClosed(1, 10)))
+                .andExpect(status().isOk());
+
+            ErrorResponse error = read(
+                postJson(PATH, "batch-budget", checksOf(LongStream.rangeClosed(1, 15)))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                    .andReturn(),
+                ErrorResponse.class);
+            assertThat(error.getMessage()).isEqualTo(ErrorMessages.TOO_MANY_REQUESTS);
+
+            // another client has a budget of its own.
+            postJson(PATH, "batch-other", checksOf(LongStream.rangeClosed(1, 15)))
+                .andExpect(status().isOk());
+        }
+    }
+
+    @Nested
+    class Lookup {
+
+        private static final String PATH = "/v1/people/lookup";
+
+        private static PersonLookupRequest idsOf(LongStream ids) {
+            return new PersonLookupRequest().ids(ids.boxed().toList());
+        }
+
+        @Test
+        @DisplayName("Persons are returned in the order of the request, the unknown ones listed as not found")
+        void persons_inRequestOrder() throws Exception {
+            PersonLookupResponse response = read(
+                postJson(PATH, "lookup-results", new PersonLookupRequest().ids(List.of(PARTNER_ID, 999L, MAIN_ID)))
+                    .andExpect(status().isOk())
+                    .andReturn(),
+                PersonLookupResponse.class);
+
+            assertThat(response.getPersons()).extracting(FullPerson::getId).containsExactly(PARTNER_ID, MAIN_ID);
+            assertThat(response.getNotFound()).containsExactly(999L);
+
+            FullPerson main = response.getPersons().get(1);
+            assertThat(main.getName()).isEqualTo("Main");
+            assertThat(main.getPartner().getId()).isEqualTo(PARTNER_ID);
+            assertThat(main.getChildren()).extracting(PersonBasic::getId).containsExactly(3L, 4L, 5L);
+        }
+
+        @Test
+        @DisplayName("Only the relations asked for are returned")
+        void fields_selectRelations() throws Exception {
+            PersonLookupResponse response = read(
+                mockMvc.perform(post(PATH)
+                        .param("fields", "partner")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Client-Id", "lookup-fields")
+                        .content(objectMapper.writeValueAsBytes(new PersonLookupRequest().ids(List.of(MAIN_ID)))))
+                    .andExpect(status().isOk())
+                    .andReturn(),
+                PersonLookupResponse.class);
+
+            FullPerson main = response.getPersons().getFirst();
+            assertThat(main.getPartner().getId()).isEqualTo(PARTNER_ID);
+            assertThat(main.getChildren()).isNullOrEmpty();
+        }
+
+        @Test
+        @DisplayName("An unknown field is a 400")
+        void unknownField_badRequest() throws Exception {
+            mockMvc.perform(post(PATH)
+                    .param("fields", "siblings")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-Client-Id", "lookup-bad-field")
+                    .content(objectMapper.writeValueAsBytes(new PersonLookupRequest().ids(List.of(MAIN_ID)))))
+                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("More than 1000 IDs is a 400")
+        void overMaxItems_badRequest() throws Exception {
+            postJson(PATH, "lookup-too-large", idsOf(LongStream.rangeClosed(1, 1001)))
+                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("A lookup costs its client one check per ID, over budget it is a 429 with a Retry-After")
+        void weighedByIds() throws Exception {
+            postJson(PATH, "lookup-budget", idsOf(LongStream.rangeClosed(1, 10)))
+                .andExpect(status().isOk());
+
+            postJson(PATH, "lookup-budget", idsOf(LongStream.rangeClosed(1, 15)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+            // repeated IDs are only loaded, and charged, once.
+            postJson(PATH, "lookup-repeated", new PersonLookupRequest().ids(
+                    LongStream.range(0, 100).mapToObj(i -> MAIN_ID).toList()))
+                .andExpect(status().isOk());
+        }
+    }
+}
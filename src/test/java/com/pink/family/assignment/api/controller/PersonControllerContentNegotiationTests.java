@@ -0,0 +1,194 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.api.converter.ProtobufJacksonHttpMessageConverter;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The binary encodings of the API, each round tripped through the controller.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PersonControllerContentNegotiationTests {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String PROTOBUF = "application/x-protobuf";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private ProtobufJacksonHttpMessageConverter protobufConverter;
+
+    @BeforeEach
+    void setUp() {
+        personRelationshipDao.deleteAll();
+        personDao.deleteAll();
+    }
+
+    private byte[] encode(String mediaType, Object value) throws Exception {
+        return switch (mediaType) {
+            case CBOR -> cborConverter.getObjectMapper().writeValueAsBytes(value);
+            case SMILE -> smileConverter.getObjectMapper().writeValueAsBytes(value);
+            default -> protobufConverter.getObjectMapper()
+                .writer(protobufConverter.schemaFor(value.getClass()))
+                .writeValueAsBytes(value);
+        };
+    }
+
+    private <T> T decode(String mediaType, byte[] body, Class<T> type) throws Exception {
+        return switch (mediaType) {
+            case CBOR -> cborConverter.getObjectMapper().readValue(body, type);
+            case SMILE -> smileConverter.getObjectMapper().readValue(body, type);
+            default -> {
+                ObjectMapper mapper = protobufConverter.getObjectMapper();
+                yield mapper.readerFor(type).with(protobufConverter.schemaFor(type)).readValue(body);
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {CBOR, SMILE, PROTOBUF})
+    @DisplayName("A person is posted and returned in the requested encoding")
+    void post_roundTrip(String mediaType) throws Exception {
+        personDao.updatePerson(2L, "Partner", LocalDate.of(1979, 1, 1), Map.of());
+
+        PersonDetailsRequest request = new PersonDetailsRequest()
+            .id(1L)
+            .name("Main")
+            .birthDate(LocalDate.of(1980, 1, 1))
+            .partner(new Relation().id(2L));
+
+        MvcResult result = mockMvc.perform(post("/v1/people")
+                .contentType(mediaType)
+                .accept(mediaType)
+                .content(encode(mediaType, request)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(mediaType))
+            .andReturn();
+
+        FullPerson person = decode(mediaType, result.getResponse().getContentAsByteArray(), FullPerson.class);
+        assertThat(person.getId()).isEqualTo(1L);
+        assertThat(person.getName()).isEqualTo("Main");
+        assertThat(person.getBirthDate()).isEqualTo(LocalDate.of(1980, 1, 1));
+        assertThat(person.getPartner().getId()).isEqualTo(2L);
+        assertThat(person.getPartner().getName()).isEqualTo("Partner");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {CBOR, SMILE, PROTOBUF})
+    @DisplayName("A failed check returns the error in the requested encoding")
+    void check_error(String mediaType) throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/people/check-existing-person")
+                .contentType(mediaType)
+                .accept(mediaType)
+                .content(encode(mediaType, new SpecificPersonCheckRequest().requestId("RQ1").id(999L))))
+            .andExpect(status().is(444))
+            .andExpect(content().contentType(mediaType))
+            .andReturn();
+
+        ErrorResponse error = decode(mediaType, result.getResponse().getContentAsByteArray(), ErrorResponse.class);
+        assertThat(error.getCode()).isEqualTo("444");
+        assertThat(error.getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+        assertThat(error.getRequestId()).isEqualTo("RQ1");
+    }
+
+    @Test
+    @DisplayName("A binary request can still be answered in JSON")
+    void check_binaryRequest_jsonResponse() throws Exception {
+        mockMvc.perform(post("/v1/people/check-existing-person")
+                .contentType(CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(encode(CBOR, new SpecificPersonCheckRequest().id(999L))))
+            .andExpect(status().is(444))
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "*/*"})
+    @DisplayName("Without asking for an encoding, persons and errors alike are answered in JSON")
+    void noAccept_json(String accept) throws Exception {
+        personDao.updatePerson(1L, "Main", LocalDate.of(1980, 1, 1), Map.of());
+
+        mockMvc.perform(withAccept(get("/v1/people/{id}", 1L), accept))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        MvcResult notFound = mockMvc.perform(withAccept(get("/v1/people/{id}", 999L), accept))
+            .andExpect(status().isNotFound())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andReturn();
+        assertThat(new ObjectMapper().readValue(notFound.getResponse().getContentAsByteArray(), ErrorResponse.class)
+            .getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+
+        mockMvc.perform(withAccept(post("/v1/people/check-existing-person"), accept)
+                .contentType(PROTOBUF)
+                .content(encode(PROTOBUF, new SpecificPersonCheckRequest().id(999L))))
+            .andExpect(status().is(444))
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    private static MockHttpServletRequestBuilder withAccept(MockHttpServletRequestBuilder request, String accept) {
+        return accept.isEmpty() ? request : request.header(HttpHeaders.ACCEPT, accept);
+    }
+
+    @Test
+    @DisplayName("The IDs to delete have no Protobuf message, but can be sent in the other encodings")
+    void delete_encodings() throws Exception {
+        mockMvc.perform(delete("/v1/people")
+                .contentType(CBOR)
+                .content(encode(CBOR, List.of(1L, 2L))))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/v1/people")
+                .contentType(PROTOBUF)
+                .content(new byte[]{8, 1}))
+            .andExpect(status().isUnsupportedMediaType());
+    }
+}
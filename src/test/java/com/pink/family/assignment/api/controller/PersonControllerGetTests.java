@@ -0,0 +1,230 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonBasic;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /v1/people/{id}, a single person with its ETag, and the conditional requests made with it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PersonControllerGetTests {
+
+    private static final long MAIN_ID = 1L;
+    private static final long PARTNER_ID = 2L;
+    private static final long CHILD_ID = 3L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames()
+            .forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
+        personRelationshipDao.deleteAll();
+        personDao.deleteAll();
+
+        personDao.updatePerson(MAIN_ID, "Main", LocalDate.of(1980, 1, 1), Map.of(
+            RelationshipType.PARTNER, Set.of(PARTNER_ID),
+            RelationshipType.PARENT, Set.of(CHILD_ID)));
+    }
+
+    private static MockHttpServletRequestBuilder getPerson(long id) {
+        return get("/v1/people/{id}", id).accept(MediaType.APPLICATION_JSON);
+    }
+
+    private ResultActions getPerson(long id, String ifNoneMatch) throws Exception {
+        return mockMvc.perform(getPerson(id).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch));
+    }
+
+    private String eTagOf(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    }
+
+    private <T> T read(MvcResult result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsByteArray(), type);
+    }
+
+    @Test
+    @DisplayName("The person is returned with its relations and a weak ETag")
+    void person_withETag() throws Exception {
+        MvcResult result = mockMvc.perform(getPerson(MAIN_ID))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn();
+
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).matches("W/\"[0-9a-f]+\"");
+        FullPerson person = read(result, FullPerson.class);
+        assertThat(person.getId()).isEqualTo(MAIN_ID);
+        assertThat(person.getName()).isEqualTo("Main");
+        assertThat(person.getPartner().getId()).isEqualTo(PARTNER_ID);
+        assertThat(person.getChildren()).extracting(PersonBasic::getId).containsExactly(CHILD_ID);
+    }
+
+    @Test
+    @DisplayName("Reading the same person twice gives the same ETag, another selection of fields another one")
+    void eTag_followsFields() throws Exception {
+        String all = eTagOf(getPerson(MAIN_ID));
+
+        assertThat(eTagOf(getPerson(MAIN_ID))).isEqualTo(all);
+        assertThat(eTagOf(getPerson(MAIN_ID).param("fields", "partner"))).isNotEqualTo(all);
+        assertThat(eTagOf(getPerson(MAIN_ID).param("fields", "parents,partner,children"))).isEqualTo(all);
+    }
+
+    @Nested
+    class IfNoneMatch {
+
+        @Test
+        @DisplayName("The current ETag is a 304 without a body, the ETag sent along again")
+        void current_notModified() throws Exception {
+            String eTag = eTagOf(getPerson(MAIN_ID));
+
+            MvcResult result = getPerson(MAIN_ID, eTag)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andReturn();
+
+            assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("The comparison is weak, the ETag without its W/ matches too")
+        void strongForm_notModified() throws Exception {
+            String eTag = eTagOf(getPerson(MAIN_ID));
+
+            getPerson(MAIN_ID, eTag.substring(2))
+                .andExpect(status().isNotModified());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"*", "W/\"other\", %s", "\"other\" , %s"})
+        @DisplayName("Any person matches *, the ETag matches anywhere in a list")
+        void anyOf_notModified(String ifNoneMatch) throws Exception {
+            String eTag = eTagOf(getPerson(MAIN_ID));
+
+            getPerson(MAIN_ID, ifNoneMatch.formatted(eTag))
+                .andExpect(status().isNotModified());
+        }
+
+        @Test
+        @DisplayName("Another ETag is a 200 with the person")
+        void otherETag_ok() throws Exception {
+            getPerson(MAIN_ID, "W/\"other\"")
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("After the person changes its old ETag is a 200 with the new ETag")
+        void changed_ok() throws Exception {
+            String before = eTagOf(getPerson(MAIN_ID));
+            mockMvc.perform(patch("/v1/people/{id}", MAIN_ID)
+                    .contentType("application/merge-patch+json")
+                    .content("""
+                        {"name": "Renamed"}
+                        """))
+                .andExpect(status().isOk());
+
+            MvcResult result = getPerson(MAIN_ID, before)
+                .andExpect(status().isOk())
+                .andReturn();
+
+            assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(before);
+            assertThat(read(result, FullPerson.class).getName()).isEqualTo("Renamed");
+        }
+
+        @Test
+        @DisplayName("The ETag of one selection of fields does not match another")
+        void otherFields_ok() throws Exception {
+            String partnerOnly = eTagOf(getPerson(MAIN_ID).param("fields", "partner"));
+
+            getPerson(MAIN_ID, partnerOnly)
+                .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("An unknown person is a 404, also with If-None-Match: *")
+    void unknownPerson_notFound() throws Exception {
+        ErrorResponse error = read(
+            mockMvc.perform(getPerson(999L))
+                .andExpect(status().isNotFound())
+                .andReturn(),
+            ErrorResponse.class);
+        assertThat(error.getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+
+        getPerson(999L, "*")
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("A deleted person is a 404")
+    void deletedPerson_notFound() throws Exception {
+        personDao.softDeletePersons(Set.of(MAIN_ID));
+
+        mockMvc.perform(getPerson(MAIN_ID))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("An unknown field is a 400")
+    void unknownField_badRequest() throws Exception {
+        ErrorResponse error = read(
+            mockMvc.perform(getPerson(MAIN_ID).param("fields", "partner,siblings"))
+                .andExpect(status().isBadRequest())
+                .andReturn(),
+            ErrorResponse.class);
+
+        assertThat(error.getCode()).isEqualTo("400");
+        assertThat(error.getMessage()).contains("siblings");
+    }
+}
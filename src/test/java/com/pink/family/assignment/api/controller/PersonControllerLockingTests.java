@@ -0,0 +1,174 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.PersonEntity;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Overlapping family updates made at the same time, which without the person locks can deadlock, fail on a duplicate
+ * relationship or create the same person twice.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+    "logging.level.com.pink.family=INFO"
+})
+@AutoConfigureMockMvc
+class PersonControllerLockingTests {
+
+    private static final LocalDate DOB = LocalDate.of(1990, 5, 20);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(50);
+
+    @BeforeEach
+    void setUp() {
+        personRelationshipDao.deleteAll();
+        personRelationshipDao.flush();
+
+        personDao.deleteAll();
+        personDao.flush();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Partners listing each other at the same time both succeed, each relationship written once")
+    void partnersListingEachOther() throws Exception {
+        int pairs = 25;
+        List<PersonDetailsRequest> requests = new ArrayList<>();
+        for (long pair = 0; pair < pairs; pair++) {
+            long first = 1000 + pair * 3;
+            long second = first + 1;
+            long child = first + 2;
+            requests.add(request(first, second, child));
+            requests.add(request(second, first, child));
+        }
+
+        postAllAtOnce(requests);
+
+        for (long pair = 0; pair < pairs; pair++) {
+            long first = 1000 + pair * 3;
+            long second = first + 1;
+            long child = first + 2;
+            assertFamily(first, second, Set.of(child));
+            assertFamily(second, first, Set.of(child));
+            assertThat(relatedIds(child, RelationshipType.CHILD)).containsExactlyInAnyOrder(first, second);
+        }
+
+        Set<PersonEntity> persons = personDao.findAll();
+        assertThat(persons).hasSize(pairs * 3);
+        // partner, and each parent to the child, both ways.
+        assertThat(personRelationshipDao.findIdsInvolving(
+            persons.stream().map(PersonEntity::getInternalId).collect(Collectors.toSet())))
+            .hasSize(pairs * 6);
+    }
+
+    @Test
+    @DisplayName("Many updates of the same family at the same time lose none of the children they add")
+    void sameFamilyNoLostRelationships() throws Exception {
+        long first = 2000;
+        long second = 2001;
+        int children = 20;
+        Set<Long> childIds = LongStream.range(0, children).map(i -> 3000 + i).boxed().collect(Collectors.toSet());
+
+        List<PersonDetailsRequest> requests = new ArrayList<>();
+        for (Long child : childIds) {
+            requests.add(request(first, second, child));
+            requests.add(request(second, first, child));
+        }
+
+        postAllAtOnce(requests);
+
+        assertFamily(first, second, childIds);
+        assertFamily(second, first, childIds);
+        assertThat(personDao.findAll()).hasSize(children + 2);
+    }
+
+    /**
+     * Post every request from its own thread, released together, and expect all of them to succeed.
+     */
+    private void postAllAtOnce(List<PersonDetailsRequest> requests) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (PersonDetailsRequest request : requests) {
+            futures.add(executor.submit(() -> {
+                go.await();
+                return mockMvc.perform(post("/v1/people")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                    .andReturn().getResponse().getStatus();
+            }));
+        }
+
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<Integer> future : futures) {
+            // a deadlock would hang here until the database's lock timeout.
+            assertThat(future.get(1, TimeUnit.MINUTES)).isEqualTo(200);
+        }
+        log.info("{} overlapping updates took {} ms", requests.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void assertFamily(long personId, long partnerId, Set<Long> childIds) {
+        assertThat(relatedIds(personId, RelationshipType.PARTNER)).containsExactly(partnerId);
+        assertThat(relatedIds(personId, RelationshipType.PARENT)).containsExactlyInAnyOrderElementsOf(childIds);
+    }
+
+    private Set<Long> relatedIds(long personId, RelationshipType type) {
+        PersonDto person = personDao.findPersonFromExternalId(personId, 1).orElseThrow();
+        return person.getRelations(type).stream().map(PersonDto::getExternalId).collect(Collectors.toSet());
+    }
+
+    private static PersonDetailsRequest request(long id, long partnerId, long childId) {
+        return new PersonDetailsRequest()
+            .id(id)
+            .name("Person " + id)
+            .birthDate(DOB)
+            .partner(new Relation().id(partnerId))
+            .children(List.of(new Relation().id(childId)));
+    }
+}
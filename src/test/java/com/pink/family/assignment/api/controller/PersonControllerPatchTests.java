@@ -0,0 +1,163 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonBasic;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /v1/people/{id}, a JSON Merge Patch of a single person.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PersonControllerPatchTests {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final long MAIN_ID = 1L;
+    private static final long PARTNER_ID = 2L;
+    private static final long CHILD_ID = 3L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames()
+            .forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
+        personRelationshipDao.deleteAll();
+        personDao.deleteAll();
+
+        personDao.updatePerson(MAIN_ID, "Main", LocalDate.of(1980, 1, 1), Map.of(
+            RelationshipType.PARTNER, Set.of(PARTNER_ID),
+            RelationshipType.PARENT, Set.of(CHILD_ID)));
+    }
+
+    private ResultActions patchPerson(long id, String json) throws Exception {
+        return mockMvc.perform(patch("/v1/people/{id}", id)
+            .contentType(MERGE_PATCH)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(json));
+    }
+
+    private <T> T read(MvcResult result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsByteArray(), type);
+    }
+
+    @Test
+    @DisplayName("Only the members in the patch change, a relation set to null is removed on both sides")
+    void mergePatch_changesOnlyNamedMembers() throws Exception {
+        FullPerson person = read(
+            patchPerson(MAIN_ID, """
+                {"name": "Renamed", "partner": null}
+                """)
+                .andExpect(status().isOk())
+                .andReturn(),
+            FullPerson.class);
+
+        assertThat(person.getId()).isEqualTo(MAIN_ID);
+        assertThat(person.getName()).isEqualTo("Renamed");
+        assertThat(person.getBirthDate()).isEqualTo(LocalDate.of(1980, 1, 1));
+        assertThat(person.getPartner()).isNull();
+        assertThat(person.getChildren()).extracting(PersonBasic::getId).containsExactly(CHILD_ID);
+
+        PersonDto partner = personDao.findPersonFromExternalId(PARTNER_ID, 1).orElseThrow();
+        assertThat(partner.getRelations(RelationshipType.PARTNER)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Relations in the patch replace the current ones, persons not known yet are added")
+    void mergePatch_replacesRelations() throws Exception {
+        FullPerson person = read(
+            patchPerson(MAIN_ID, """
+                {"parents": [10, 11], "children": [12]}
+                """)
+                .andExpect(status().isOk())
+                .andReturn(),
+            FullPerson.class);
+
+        assertThat(Set.of(person.getParent1().getId(), person.getParent2().getId()))
+            .containsExactlyInAnyOrder(10L, 11L);
+        assertThat(person.getChildren()).extracting(PersonBasic::getId).containsExactly(12L);
+        assertThat(person.getPartner().getId()).isEqualTo(PARTNER_ID);
+        assertThat(personDao.findPersonFromExternalId(CHILD_ID, 1).orElseThrow()
+            .getRelations(RelationshipType.CHILD)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("An unknown person is a 404, and is not created")
+    void unknownPerson_notFound() throws Exception {
+        ErrorResponse error = read(
+            patchPerson(999L, """
+                {"name": "Nobody"}
+                """)
+                .andExpect(status().isNotFound())
+                .andReturn(),
+            ErrorResponse.class);
+
+        assertThat(error.getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+        assertThat(personDao.findByExternalIdEntity(999L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A deleted person is a 404")
+    void deletedPerson_notFound() throws Exception {
+        personDao.softDeletePersons(Set.of(MAIN_ID));
+
+        patchPerson(MAIN_ID, """
+                {"name": "Back again"}
+                """)
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Three parents is a 400, and nothing changes")
+    void threeParents_badRequest() throws Exception {
+        ErrorResponse error = read(
+            patchPerson(MAIN_ID, """
+                {"name": "Renamed", "parents": [10, 11, 12]}
+                """)
+                .andExpect(status().isBadRequest())
+                .andReturn(),
+            ErrorResponse.class);
+
+        assertThat(error.getCode()).isEqualTo("400");
+        assertThat(personDao.findPersonFromExternalId(MAIN_ID, 0).orElseThrow().getName()).isEqualTo("Main");
+    }
+}
@@ -0,0 +1,213 @@
+package com.pink.family.assignment.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.database.cache.PersonGraphCache;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares request throughput with platform worker threads against virtual threads and the reactive stack, for 1k, 10k
+ * and 50k concurrent clients. The graph cache is cleared before every round so the requests actually block on JDBC.
+ * <p>
+ * Run with -Djdk.tracePinnedThreads=short to have any virtual thread that pins its carrier reported. The operating
+ * system may need a higher open file limit for the larger rounds.
+ */
+@Disabled
+@Slf4j
+class PersonControllerThreadingBenchmarkTests {
+
+    private static final int[] CLIENT_COUNTS = {1_000, 10_000, 50_000};
+    private static final int WARM_UP_CLIENTS = 1_000;
+    private static final int PERSONS = 1_000;
+    private static final long FIRST_EXTERNAL_ID = 1_000_000L;
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+            "logging.level.com.pink.family=INFO",
+            "spring.threads.virtual.enabled=false"
+        })
+    class PlatformThreads extends Benchmark {
+        PlatformThreads() {
+            super("platform threads");
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+            "logging.level.com.pink.family=INFO",
+            "spring.threads.virtual.enabled=true"
+        })
+    class VirtualThreads extends Benchmark {
+        VirtualThreads() {
+            super("virtual threads");
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+            "logging.level.com.pink.family=INFO",
+            "spring.main.web-application-type=reactive"
+        })
+    class ReactiveStack extends Benchmark {
+        ReactiveStack() {
+            super("reactive");
+        }
+    }
+
+    abstract class Benchmark {
+
+        private final String mode;
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private PersonDao personDao;
+
+        @Autowired
+        private PersonRelationshipDao personRelationshipDao;
+
+        @Autowired
+        private PersonGraphCache personGraphCache;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        Benchmark(String mode) {
+            this.mode = mode;
+        }
+
+        @BeforeEach
+        void setUp() {
+            personRelationshipDao.deleteAll();
+            personDao.deleteAll();
+
+            // pairs of partners, so every check has some graph to load.
+            for (long id = FIRST_EXTERNAL_ID; id < FIRST_EXTERNAL_ID + PERSONS; id += 2) {
+                personDao.updatePerson(id, "Person" + id, LocalDate.of(1980, 1, 1), Map.of(
+                    RelationshipType.PARTNER, Set.of(id + 1)));
+            }
+        }
+
+        @Test
+        void throughput() throws Exception {
+            HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofMinutes(1))
+                .build();
+
+            // whichever mode runs first would otherwise pay for the JIT.
+            runRound(client, WARM_UP_CLIENTS);
+
+            for (int clients : CLIENT_COUNTS) {
+                personGraphCache.clear();
+                runRound(client, clients);
+            }
+        }
+
+        private void runRound(HttpClient client, int clients) throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger failures = new AtomicInteger();
+            List<Future<Long>> latencies = new ArrayList<>(clients);
+
+            long roundStart;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    HttpRequest request = checkRequest("RQ" + i);
+                    latencies.add(executor.submit(() -> {
+                        start.await();
+                        long requestStart = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200 && response.statusCode() != 444) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        return System.nanoTime() - requestStart;
+                    }));
+                }
+
+                roundStart = System.nanoTime();
+                start.countDown();
+            } // waits for every client to finish.
+
+            long roundNanos = System.nanoTime() - roundStart;
+            long[] sorted = new long[clients];
+            long totalLatency = 0;
+            for (int i = 0; i < clients; i++) {
+                sorted[i] = latencies.get(i).get();
+                totalLatency += sorted[i];
+            }
+            Arrays.sort(sorted);
+
+            log.info(
+                """
+                ***************************************************
+                {}: {} clients
+                Throughput: {} requests/s, failures: {}, wall time: {} s
+                Latency: average {} ms, p50 {} ms, p99 {} ms
+                ***************************************************""",
+                mode,
+                clients,
+                String.format("%.1f", clients / (roundNanos / 1_000_000_000.0)),
+                failures.get(),
+                String.format("%.3f", roundNanos / 1_000_000_000.0),
+                String.format("%.3f", totalLatency / (double) clients / 1_000_000.0),
+                String.format("%.3f", sorted[clients / 2] / 1_000_000.0),
+                String.format("%.3f", sorted[(int) (clients * 0.99)] / 1_000_000.0));
+        }
+
+        private HttpRequest checkRequest(String requestId) throws Exception {
+            long externalId = FIRST_EXTERNAL_ID + ThreadLocalRandom.current().nextInt(PERSONS);
+            SpecificPersonCheckRequest body = new SpecificPersonCheckRequest()
+                .requestId(requestId)
+                .id(externalId);
+
+            return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/people/check-existing-person"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        }
+    }
+}
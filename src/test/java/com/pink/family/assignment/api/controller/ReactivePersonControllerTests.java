@@ -0,0 +1,153 @@
+package com.pink.family.assignment.api.controller;
+
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reactive stack against the same H2 database the JPA side uses, so the data can be set up and verified through
+ * the DAO.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactivePersonControllerTests {
+
+    private static final long MAIN_ID = 100L;
+    private static final long PARTNER_ID = 200L;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao personRelationshipDao;
+
+    @BeforeEach
+    void setUp() {
+        personRelationshipDao.deleteAll();
+        personDao.deleteAll();
+    }
+
+    private void createFamily() {
+        personDao.updatePerson(PARTNER_ID, "Partner", LocalDate.of(1979, 1, 1), Map.of());
+        for (long child = 300; child < 303; child++) {
+            personDao.updatePerson(child, "Child" + child, LocalDate.now().minusYears(child - 290), Map.of(
+                RelationshipType.CHILD, Set.of(MAIN_ID, PARTNER_ID)));
+        }
+        personDao.updatePerson(MAIN_ID, "Main", LocalDate.of(1980, 1, 1), Map.of(
+            RelationshipType.PARTNER, Set.of(PARTNER_ID)));
+    }
+
+    private WebTestClient.ResponseSpec check(SpecificPersonCheckRequest request) {
+        return webTestClient.post()
+            .uri("/v1/people/check-existing-person")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(request)
+            .exchange();
+    }
+
+    @Test
+    @DisplayName("A matching family passes, by ID and by name and date of birth")
+    void check_passes() {
+        createFamily();
+
+        check(new SpecificPersonCheckRequest().id(MAIN_ID))
+            .expectStatus().isOk()
+            .expectBody().isEmpty();
+
+        check(new SpecificPersonCheckRequest().name("Main").dateOfBirth(LocalDate.of(1980, 1, 1)))
+            .expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("An unknown person is reported with a 444 and the request ID")
+    void check_noRecord() {
+        check(new SpecificPersonCheckRequest().requestId("RQ1").id(999L))
+            .expectStatus().isEqualTo(444)
+            .expectBody()
+            .jsonPath("$.code").isEqualTo("444")
+            .jsonPath("$.message").isEqualTo(ErrorMessages.NO_RECORD)
+            .jsonPath("$.requestId").isEqualTo("RQ1");
+
+        check(new SpecificPersonCheckRequest().name("Nobody"))
+            .expectStatus().isEqualTo(444);
+    }
+
+    @Test
+    @DisplayName("Posting a person creates them along with their relations on both sides")
+    void post_createsRelations() {
+        PersonDetailsRequest request = new PersonDetailsRequest()
+            .id(MAIN_ID)
+            .name("Main")
+            .birthDate(LocalDate.of(1980, 1, 1))
+            .partner(new Relation().id(PARTNER_ID))
+            .children(List.of(new Relation().id(300L)));
+
+        webTestClient.post()
+            .uri("/v1/people")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(request)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.id").isEqualTo(MAIN_ID)
+            .jsonPath("$.partner.id").isEqualTo(PARTNER_ID)
+            .jsonPath("$.children[0].id").isEqualTo(300);
+
+        PersonDto main = personDao.findPersonFromExternalId(MAIN_ID, 1).orElseThrow();
+        assertThat(main.hasRelationExId(RelationshipType.PARTNER, PARTNER_ID)).isTrue();
+        assertThat(main.hasRelationExId(RelationshipType.PARENT, 300L)).isTrue();
+        assertThat(personDao.findPersonFromExternalId(300L, 1).orElseThrow()
+            .hasRelationExId(RelationshipType.CHILD, MAIN_ID)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deleted persons pass the check and are no longer updated")
+    void delete_ignoresPerson() {
+        personDao.updatePerson(MAIN_ID, "Main", LocalDate.of(1980, 1, 1), Map.of());
+
+        webTestClient.method(HttpMethod.DELETE)
+            .uri("/v1/people")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(MAIN_ID))
+            .exchange()
+            .expectStatus().isOk();
+
+        assertThat(personDao.findByExternalIdEntity(MAIN_ID).orElseThrow().isDeleted()).isTrue();
+        check(new SpecificPersonCheckRequest().id(MAIN_ID)).expectStatus().isOk();
+
+        webTestClient.post()
+            .uri("/v1/people")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new PersonDetailsRequest().id(MAIN_ID).name("Changed"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().isEmpty();
+        assertThat(personDao.findByExternalIdEntity(MAIN_ID).orElseThrow().getName()).isEqualTo("Main");
+    }
+}
@@ -0,0 +1,107 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.api.exception.ApiExceptionHandler;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.properties.DiagnosticsProperties;
+import com.pink.family.assignment.service.DiagnosticsService;
+import com.pink.family.assignment.service.LoggingService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Compares producing the 444 for a failed check the old way, by throwing a {@link PinkApiException} at the
+ * {@link ApiExceptionHandler} and serializing its response, against returning the response and writing it from
+ * pre-serialized JSON.
+ * <p>
+ * The cost of an exception grows with the depth of the stack it is thrown from, so both are also measured from 150
+ * frames deep, about what a request thread has below the controller.
+ */
+@Disabled
+@Slf4j
+class FailedCheckResponseBenchmarkTests {
+
+    private static final int WARM_UP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int REQUEST_STACK_DEPTH = 150;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoggingService loggingService = new LoggingService(new DiagnosticsService(new DiagnosticsProperties()));
+    private final ApiExceptionHandler apiExceptionHandler = new ApiExceptionHandler(loggingService);
+    private final PreSerializedErrorResponseConverter converter =
+        new PreSerializedErrorResponseConverter(objectMapper, 444, ErrorMessages.CHECK_FAILURES);
+
+    @BeforeEach
+    void setUp() {
+        loggingService.setRequestId("RQ0001");
+    }
+
+    @AfterEach
+    void tearDown() {
+        loggingService.clearRequestId();
+    }
+
+    @Test
+    void throwVersusReturn() {
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %-28s %12s%n", "Depth", "Path", "ns/response"));
+        for (int depth : new int[]{0, REQUEST_STACK_DEPTH}) {
+            measure(report, depth, "thrown, serialized", () -> atDepth(depth, this::thrown));
+            measure(report, depth, "returned, pre-serialized", () -> atDepth(depth, this::returned));
+        }
+        log.info(report.toString());
+    }
+
+    private int thrown() {
+        try {
+            throw new PinkApiException(ErrorMessages.NO_PARTNER, 444, false);
+        } catch (PinkApiException e) {
+            ResponseEntity<ErrorResponse> response = apiExceptionHandler.handleApiError(e);
+            try {
+                return objectMapper.writeValueAsBytes(response.getBody()).length;
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private int returned() {
+        ResponseEntity<ErrorResponse> response =
+            ApiExceptionHandler.errorResponse(444, ErrorMessages.NO_PARTNER, loggingService.getRequestId(), false);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        try {
+            converter.write(response.getBody(), MediaType.APPLICATION_JSON, output);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return output.getBodyAsBytes().length;
+    }
+
+    private static int atDepth(int depth, IntSupplier work) {
+        return depth == 0 ? work.getAsInt() : atDepth(depth - 1, work);
+    }
+
+    private static void measure(StringBuilder report, int depth, String path, IntSupplier response) {
+        long sink = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            sink += response.getAsInt();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += response.getAsInt();
+        }
+        long nanos = (System.nanoTime() - start) / ITERATIONS;
+
+        report.append(String.format("%-10d %-28s %12d%n", depth, path, nanos + (sink == 0 ? 1 : 0)));
+    }
+}
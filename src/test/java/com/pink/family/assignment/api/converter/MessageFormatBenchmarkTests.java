@@ -0,0 +1,132 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonBasic;
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compares the cost of parsing and serializing each API message in JSON, CBOR, Smile and Protobuf, per message, along
+ * with the encoded size.
+ */
+@Disabled
+@Slf4j
+class MessageFormatBenchmarkTests {
+
+    private static final int WARM_UP_ITERATIONS = 100_000;
+    private static final int ITERATIONS = 500_000;
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    void parseAndSerialize() throws Exception {
+        ObjectMapper json = builder().build();
+        ObjectMapper cbor = builder().cbor().build();
+        ObjectMapper smile = builder().smile().build();
+        ProtobufJacksonHttpMessageConverter protobuf =
+            new ProtobufJacksonHttpMessageConverter(builder().factory(new ProtobufFactory()).build());
+
+        List<Object> messages = List.of(
+            new SpecificPersonCheckRequest()
+                .requestId("RQ0001")
+                .id(123456782L)
+                .name("Jane")
+                .dateOfBirth(LocalDate.of(1990, 5, 20)),
+            new PersonDetailsRequest()
+                .id(42L)
+                .name("Ada Lovelace")
+                .birthDate(LocalDate.of(1815, 12, 10))
+                .parent1(new Relation().id(1L))
+                .parent2(new Relation().id(2L))
+                .partner(new Relation().id(3L))
+                .children(List.of(new Relation().id(4L), new Relation().id(5L), new Relation().id(6L))),
+            new FullPerson()
+                .id(42L)
+                .name("Ada Lovelace")
+                .birthDate(LocalDate.of(1815, 12, 10))
+                .partner(basic(3L, "William King"))
+                .children(List.of(
+                    basic(4L, "Byron King"),
+                    basic(5L, "Anne Isabella King"),
+                    basic(6L, "Ralph King"))),
+            new ErrorResponse()
+                .code("444")
+                .message("No matching person found or criteria not met")
+                .requestId("RQ0001"));
+
+        StringBuilder report = new StringBuilder(String.format(
+            "%n%-28s %-9s %10s %12s %12s%n", "Message", "Format", "Bytes", "Write ns", "Read ns"));
+        for (Object message : messages) {
+            Class<?> type = message.getClass();
+            measure(report, message, "JSON", json.writerFor(type), json.readerFor(type));
+            measure(report, message, "CBOR", cbor.writerFor(type), cbor.readerFor(type));
+            measure(report, message, "Smile", smile.writerFor(type), smile.readerFor(type));
+            measure(report, message, "Protobuf",
+                protobuf.getObjectMapper().writerFor(type).with(protobuf.schemaFor(type)),
+                protobuf.getObjectMapper().readerFor(type).with(protobuf.schemaFor(type)));
+        }
+        log.info(report.toString());
+    }
+
+    private static void measure(
+        StringBuilder report, Object message, String format, ObjectWriter writer, ObjectReader reader) throws Exception
+    {
+        byte[] encoded = writer.writeValueAsBytes(message);
+
+        Function<Integer, Long> write = iterations -> {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += unchecked(() -> writer.writeValueAsBytes(message)).length;
+            }
+            return (System.nanoTime() - start) / iterations + (sink == 0 ? 1 : 0);
+        };
+        Function<Integer, Long> read = iterations -> {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += unchecked(() -> reader.readValue(encoded)).hashCode();
+            }
+            return (System.nanoTime() - start) / iterations + (sink == 42 ? 1 : 0);
+        };
+
+        write.apply(WARM_UP_ITERATIONS);
+        read.apply(WARM_UP_ITERATIONS);
+
+        report.append(String.format("%-28s %-9s %10d %12d %12d%n",
+            message.getClass().getSimpleName(), format, encoded.length, write.apply(ITERATIONS), read.apply(ITERATIONS)));
+    }
+
+    private static PersonBasic basic(long id, String name) {
+        return new PersonBasic().id(id).name(name).birthDate(LocalDate.of(1840, 1, 1));
+    }
+
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+
+    private static <T> T unchecked(ThrowingSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.assignment.constants.ErrorMessages;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreSerializedErrorResponseConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PreSerializedErrorResponseConverter converter =
+        new PreSerializedErrorResponseConverter(objectMapper, 444, ErrorMessages.CHECK_FAILURES);
+
+    private String write(ErrorResponse errorResponse) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(errorResponse, MediaType.APPLICATION_JSON, output);
+        return output.getBodyAsString();
+    }
+
+    @Test
+    @DisplayName("Writes exactly what the object mapper would, for every known reason")
+    void write_knownReasons() throws IOException {
+        for (String reason : ErrorMessages.CHECK_FAILURES) {
+            ErrorResponse error = new ErrorResponse().code("444").message(reason).requestId("RQ0001");
+            assertThat(write(error)).isEqualTo(objectMapper.writeValueAsString(error));
+        }
+    }
+
+    @Test
+    @DisplayName("Escapes the request ID that is spliced in")
+    void write_escapesRequestId() throws IOException {
+        ErrorResponse error = new ErrorResponse()
+            .code("444")
+            .message(ErrorMessages.NO_RECORD)
+            .requestId("a \"quoted\" \\ id\né中");
+        String json = write(error);
+
+        assertThat(json).isEqualTo(objectMapper.writeValueAsString(error));
+        assertThat(objectMapper.readValue(json, ErrorResponse.class).getRequestId()).isEqualTo(error.getRequestId());
+    }
+
+    @Test
+    @DisplayName("Anything else is serialized as usual")
+    void write_otherResponses() throws IOException {
+        ErrorResponse unknownReason = new ErrorResponse().code("444").message("Something else").requestId("RQ1");
+        ErrorResponse otherCode = new ErrorResponse().code("503").message(ErrorMessages.NO_RECORD).requestId("RQ1");
+        ErrorResponse noRequestId = new ErrorResponse().code("444").message(ErrorMessages.NO_RECORD);
+
+        assertThat(write(unknownReason)).isEqualTo(objectMapper.writeValueAsString(unknownReason));
+        assertThat(write(otherCode)).isEqualTo(objectMapper.writeValueAsString(otherCode));
+        assertThat(write(noRequestId)).isEqualTo(objectMapper.writeValueAsString(noRequestId));
+    }
+
+    @Test
+    @DisplayName("Only writes error responses as JSON")
+    void supports() {
+        assertThat(converter.canWrite(ErrorResponse.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(ErrorResponse.class, MediaType.APPLICATION_CBOR)).isFalse();
+        assertThat(converter.canWrite(String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(ErrorResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+}
@@ -0,0 +1,178 @@
+package com.pink.family.assignment.api.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufField;
+import com.pink.family.api.rest.protobuf.FamilyApiProto;
+import com.pink.family.api.rest.server.model.BatchPersonCheckRequest;
+import com.pink.family.api.rest.server.model.BatchPersonCheckResponse;
+import com.pink.family.api.rest.server.model.ErrorResponse;
+import com.pink.family.api.rest.server.model.FullPerson;
+import com.pink.family.api.rest.server.model.PersonBasic;
+import com.pink.family.api.rest.server.model.PersonCheckResult;
+import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.PersonLookupRequest;
+import com.pink.family.api.rest.server.model.PersonLookupResponse;
+import com.pink.family.api.rest.server.model.PersonMergePatch;
+import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.api.rest.server.model.SpecificPersonCheckRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encodes the API models against the published family-api.proto, read and written by the classes protoc generates
+ * from it, as a client would.
+ */
+class ProtobufJacksonHttpMessageConverterTest {
+
+    private final ProtobufJacksonHttpMessageConverter converter = new ProtobufJacksonHttpMessageConverter(
+        new Jackson2ObjectMapperBuilder()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .factory(new ProtobufFactory())
+            .build());
+
+    private byte[] write(Object value) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(value, MediaType.APPLICATION_PROTOBUF, output);
+        return output.getBodyAsBytes();
+    }
+
+    private <T> T read(Class<T> type, byte[] body) throws IOException {
+        MockHttpInputMessage input = new MockHttpInputMessage(body);
+        input.getHeaders().setContentType(MediaType.APPLICATION_PROTOBUF);
+        return type.cast(converter.read(type, input));
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {
+        PersonDetailsRequest.class,
+        Relation.class,
+        FullPerson.class,
+        PersonBasic.class,
+        ErrorResponse.class,
+        SpecificPersonCheckRequest.class,
+        BatchPersonCheckRequest.class,
+        BatchPersonCheckResponse.class,
+        PersonCheckResult.class,
+        PersonLookupRequest.class,
+        PersonLookupResponse.class
+    })
+    @DisplayName("Every property of a model has a field in its message, and the other way round")
+    void message_matchesModel(Class<?> model) {
+        ObjectMapper objectMapper = converter.getObjectMapper();
+        List<String> properties = objectMapper.getSerializationConfig()
+            .introspect(objectMapper.constructType(model))
+            .findProperties()
+            .stream()
+            .map(BeanPropertyDefinition::getName)
+            .toList();
+        Iterable<ProtobufField> message = converter.schemaFor(model).getRootType().fields();
+        List<String> fields = StreamSupport.stream(message.spliterator(), false)
+            .map(field -> field.name)
+            .toList();
+
+        assertThat(converter.canRead(model, MediaType.APPLICATION_PROTOBUF)).isTrue();
+        assertThat(converter.canWrite(model, MediaType.APPLICATION_PROTOBUF)).isTrue();
+        assertThat(fields).containsExactlyInAnyOrderElementsOf(properties);
+    }
+
+    @Test
+    @DisplayName("Field numbers are the ones published, not the order of the model's properties")
+    void fieldNumbers_published() {
+        ProtobufField dateOfBirth = converter.schemaFor(SpecificPersonCheckRequest.class).getRootType()
+            .field("dateOfBirth");
+
+        assertThat(dateOfBirth.id)
+            .isEqualTo(FamilyApiProto.SpecificPersonCheckRequest.DATEOFBIRTH_FIELD_NUMBER)
+            .isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("A person written by the converter is read by a client of the published schema")
+    void write_readByClient() throws IOException {
+        FullPerson person = new FullPerson()
+            .id(42L)
+            .name("Ada Lovelace")
+            .birthDate(LocalDate.of(1815, 12, 10))
+            .partner(new PersonBasic().id(3L).name("William King"))
+            .children(List.of(new PersonBasic().id(4L), new PersonBasic().id(5L)));
+
+        FamilyApiProto.FullPerson decoded = FamilyApiProto.FullPerson.parseFrom(write(person));
+
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getName()).isEqualTo("Ada Lovelace");
+        assertThat(decoded.getBirthDate()).isEqualTo("1815-12-10");
+        assertThat(decoded.hasParent1()).isFalse();
+        assertThat(decoded.getPartner().getName()).isEqualTo("William King");
+        assertThat(decoded.getChildrenList()).extracting(FamilyApiProto.PersonBasic::getId).containsExactly(4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Repeated IDs are packed both ways, as proto3 clients write and expect them")
+    void repeatedIds_packed() throws IOException {
+        byte[] request = FamilyApiProto.PersonLookupRequest.newBuilder()
+            .addAllIds(List.of(1L, 300L, 70_000L))
+            .build()
+            .toByteArray();
+
+        assertThat(read(PersonLookupRequest.class, request).getIds()).containsExactly(1L, 300L, 70_000L);
+
+        PersonLookupResponse response = new PersonLookupResponse()
+            .persons(List.of(new FullPerson().id(1L).name("Main")))
+            .notFound(List.of(300L, 70_000L));
+        FamilyApiProto.PersonLookupResponse decoded = FamilyApiProto.PersonLookupResponse.parseFrom(write(response));
+
+        assertThat(decoded.getPersonsList()).extracting(FamilyApiProto.FullPerson::getName).containsExactly("Main");
+        assertThat(decoded.getNotFoundList()).containsExactly(300L, 70_000L);
+    }
+
+    @Test
+    @DisplayName("A check written by a client is read by the converter, its result read back by the client")
+    void check_roundTrip() throws IOException {
+        byte[] request = FamilyApiProto.SpecificPersonCheckRequest.newBuilder()
+            .setRequestId("RQ1")
+            .setId(999L)
+            .setDateOfBirth("1990-05-20")
+            .build()
+            .toByteArray();
+
+        SpecificPersonCheckRequest check = read(SpecificPersonCheckRequest.class, request);
+        assertThat(check.getRequestId()).isEqualTo("RQ1");
+        assertThat(check.getId()).isEqualTo(999L);
+        assertThat(check.getName()).isNull();
+        assertThat(check.getDateOfBirth()).isEqualTo(LocalDate.of(1990, 5, 20));
+
+        PersonCheckResult result = new PersonCheckResult()
+            .requestId("RQ1")
+            .passed(false)
+            .error(new ErrorResponse().code("444").message("No record").requestId("RQ1"));
+        FamilyApiProto.PersonCheckResult decoded = FamilyApiProto.PersonCheckResult.parseFrom(write(result));
+
+        assertThat(decoded.hasPassed()).isTrue();
+        assertThat(decoded.getPassed()).isFalse();
+        assertThat(decoded.hasStale()).isFalse();
+        assertThat(decoded.getError().getCode()).isEqualTo("444");
+    }
+
+    @Test
+    @DisplayName("A model without a message, such as the merge patch, is left to the other converters")
+    void modelWithoutMessage_notHandled() {
+        assertThat(converter.canRead(PersonMergePatch.class, MediaType.APPLICATION_PROTOBUF)).isFalse();
+        assertThat(converter.canWrite(PersonMergePatch.class, MediaType.APPLICATION_PROTOBUF)).isFalse();
+    }
+}
@@ -0,0 +1,169 @@
+package com.pink.family.assignment.api.grpc;
+
+import com.pink.family.api.grpc.BatchCheckRequest;
+import com.pink.family.api.grpc.CheckResponse;
+import com.pink.family.api.grpc.PersonCheckServiceGrpc;
+import com.pink.family.api.grpc.SpecificPersonCheckRequest;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.properties.DiagnosticsProperties;
+import com.pink.family.assignment.properties.GrpcProperties;
+import com.pink.family.assignment.service.DiagnosticsService;
+import com.pink.family.assignment.service.LoggingService;
+import com.pink.family.assignment.service.PersonService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PersonCheckGrpcServiceTest {
+
+    private PersonService personService;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        personService = mock(PersonService.class);
+        when(personService.checkExternalId(1L)).thenReturn(CheckResultDto.fresh(Optional.empty()));
+        when(personService.checkExternalId(2L)).thenReturn(CheckResultDto.fresh(Optional.of(ErrorMessages.NO_RECORD)));
+        when(personService.checkNameSurnameDob("Jane", LocalDate.of(1990, 5, 20)))
+            .thenReturn(CheckResultDto.fresh(Optional.empty()));
+
+        GrpcProperties properties = new GrpcProperties();
+        properties.setMaxBatchSize(3);
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new PersonCheckGrpcService(personService, new LoggingService(new DiagnosticsService(new DiagnosticsProperties())), properties))
+            .build()
+            .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    private static SpecificPersonCheckRequest byId(String requestId, long id) {
+        return SpecificPersonCheckRequest.newBuilder().setRequestId(requestId).setId(id).build();
+    }
+
+    @Test
+    @DisplayName("A single check passes, or fails with the same 444 error the REST API gives")
+    void check() {
+        PersonCheckServiceGrpc.PersonCheckServiceBlockingStub stub = PersonCheckServiceGrpc.newBlockingStub(channel);
+
+        CheckResponse passed = stub.check(byId("RQ1", 1L));
+        assertThat(passed.getPassed()).isTrue();
+        assertThat(passed.getRequestId()).isEqualTo("RQ1");
+        assertThat(passed.hasError()).isFalse();
+
+        CheckResponse failed = stub.check(byId("RQ2", 2L));
+        assertThat(failed.getPassed()).isFalse();
+        assertThat(failed.getError().getCode()).isEqualTo("444");
+        assertThat(failed.getError().getMessage()).isEqualTo(ErrorMessages.NO_RECORD);
+        assertThat(failed.getError().getRequestId()).isEqualTo("RQ2");
+    }
+
+    @Test
+    @DisplayName("Without an ID the name and date of birth are used, and both are then required")
+    void check_fallback() {
+        PersonCheckServiceGrpc.PersonCheckServiceBlockingStub stub = PersonCheckServiceGrpc.newBlockingStub(channel);
+
+        assertThat(stub.check(SpecificPersonCheckRequest.newBuilder()
+            .setName("Jane")
+            .setDateOfBirth("1990-05-20")
+            .build()).getPassed()).isTrue();
+
+        CheckResponse missing = stub.check(SpecificPersonCheckRequest.newBuilder().setName("Jane").build());
+        assertThat(missing.getError().getCode()).isEqualTo("444");
+        assertThat(missing.getRequestId()).isNotEmpty();
+
+        CheckResponse badDate = stub.check(SpecificPersonCheckRequest.newBuilder()
+            .setName("Jane")
+            .setDateOfBirth("20-05-1990")
+            .build());
+        assertThat(badDate.getError().getCode()).isEqualTo("400");
+    }
+
+    @Test
+    @DisplayName("A batch is answered in request order and is limited in size")
+    void batchCheck() {
+        PersonCheckServiceGrpc.PersonCheckServiceBlockingStub stub = PersonCheckServiceGrpc.newBlockingStub(channel);
+
+        List<CheckResponse> responses = stub.batchCheck(BatchCheckRequest.newBuilder()
+            .addRequests(byId("RQ1", 2L))
+            .addRequests(byId("RQ2", 1L))
+            .addRequests(byId("RQ3", 2L))
+            .build()).getResponsesList();
+
+        assertThat(responses).extracting(CheckResponse::getRequestId).containsExactly("RQ1", "RQ2", "RQ3");
+        assertThat(responses).extracting(CheckResponse::getPassed).containsExactly(false, true, false);
+
+        BatchCheckRequest tooLarge = BatchCheckRequest.newBuilder()
+            .addAllRequests(List.of(byId("a", 1L), byId("b", 1L), byId("c", 1L), byId("d", 1L)))
+            .build();
+        assertThatThrownBy(() -> stub.batchCheck(tooLarge))
+            .isInstanceOfSatisfying(StatusRuntimeException.class, e ->
+                assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+    }
+
+    @Test
+    @DisplayName("A stream answers every check in order, and an unexpected error does not end it")
+    void checkStream() throws Exception {
+        when(personService.checkExternalId(3L)).thenThrow(new IllegalStateException("boom"));
+
+        List<CheckResponse> responses = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        StreamObserver<SpecificPersonCheckRequest> requests = PersonCheckServiceGrpc.newStub(channel)
+            .checkStream(new StreamObserver<>() {
+                @Override
+                public void onNext(CheckResponse response) {
+                    responses.add(response);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    completed.completeExceptionally(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                    completed.complete(null);
+                }
+            });
+
+        requests.onNext(byId("RQ1", 1L));
+        requests.onNext(byId("RQ2", 3L));
+        requests.onNext(byId("RQ3", 2L));
+        requests.onNext(byId("RQ4", 1L));
+        requests.onCompleted();
+        completed.get(10, TimeUnit.SECONDS);
+
+        assertThat(responses).extracting(CheckResponse::getRequestId).containsExactly("RQ1", "RQ2", "RQ3", "RQ4");
+        assertThat(responses).extracting(r -> r.getError().getCode()).containsExactly("", "500", "444", "");
+    }
+}
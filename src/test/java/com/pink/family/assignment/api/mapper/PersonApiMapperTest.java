@@ -2,13 +2,18 @@ package com.pink.family.assignment.api.mapper;
 
 import com.pink.family.api.rest.server.model.FullPerson;
 import com.pink.family.api.rest.server.model.PersonDetailsRequest;
+import com.pink.family.api.rest.server.model.PersonMergePatch;
 import com.pink.family.api.rest.server.model.Relation;
+import com.pink.family.assignment.api.exception.PinkApiException;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
 import com.pink.family.assignment.dto.PersonDto;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -129,4 +134,70 @@ class PersonApiMapperTest {
         assertNull(result.getPartner());
         assertTrue(result.getChildren().isEmpty());
     }
+
+    @Test
+    @DisplayName("Should map only the selected relations, parents and children ordered by ID")
+    void testFieldSelection() {
+        PersonDto person = basePerson(1L, "Person");
+        person.addRelationship(RelationshipType.CHILD, basePerson(3L, "Parent Two"));
+        person.addRelationship(RelationshipType.CHILD, basePerson(2L, "Parent One"));
+        person.addRelationship(RelationshipType.PARTNER, basePerson(4L, "Partner"));
+        person.addRelationship(RelationshipType.PARENT, basePerson(6L, "Child Two"));
+        person.addRelationship(RelationshipType.PARENT, basePerson(5L, "Child One"));
+
+        FullPerson all = PersonApiMapper.mapToApi(person, PersonApiMapper.parseFields(null));
+        assertEquals(2L, all.getParent1().getId());
+        assertEquals(3L, all.getParent2().getId());
+        assertEquals(4L, all.getPartner().getId());
+        assertEquals(java.util.List.of(5L, 6L), all.getChildren().stream().map(c -> c.getId()).toList());
+
+        FullPerson partnerOnly = PersonApiMapper.mapToApi(person, PersonApiMapper.parseFields("partner"));
+        assertEquals(4L, partnerOnly.getPartner().getId());
+        assertNull(partnerOnly.getParent1());
+        assertTrue(partnerOnly.getChildren().isEmpty());
+
+        assertThrows(PinkApiException.class, () -> PersonApiMapper.parseFields("partner,cousins"));
+    }
+
+    @Test
+    @DisplayName("ETag should change with the person, the selected relations and the selection, but not otherwise")
+    void testETag() {
+        PersonDto person = basePerson(1L, "Person");
+        person.addRelationship(RelationshipType.PARTNER, basePerson(2L, "Partner"));
+        String tag = PersonApiMapper.eTag(person, PersonApiMapper.parseFields(null));
+
+        PersonDto same = basePerson(1L, "Person");
+        same.addRelationship(RelationshipType.PARTNER, basePerson(2L, "Partner"));
+        assertEquals(tag, PersonApiMapper.eTag(same, PersonApiMapper.parseFields(null)));
+        assertTrue(tag.startsWith("W/\""));
+
+        PersonDto renamedPartner = basePerson(1L, "Person");
+        renamedPartner.addRelationship(RelationshipType.PARTNER, basePerson(2L, "Renamed"));
+        assertNotEquals(tag, PersonApiMapper.eTag(renamedPartner, PersonApiMapper.parseFields(null)));
+        assertEquals(
+            PersonApiMapper.eTag(person, PersonApiMapper.parseFields("children")),
+            PersonApiMapper.eTag(renamedPartner, PersonApiMapper.parseFields("children")));
+
+        assertNotEquals(tag, PersonApiMapper.eTag(person, PersonApiMapper.parseFields("")));
+    }
+
+    @Test
+    @DisplayName("Merge patch relations: null removes, left out is not touched, more than two parents is refused")
+    void testMergePatchRelations() {
+        Map<RelationshipType, Set<Long>> relations = PersonApiMapper.mapRelations(new PersonMergePatch()
+            .partner(null)
+            .children(List.of(3L, 4L)));
+
+        assertEquals(Set.of(RelationshipType.PARTNER, RelationshipType.PARENT), relations.keySet());
+        assertTrue(relations.get(RelationshipType.PARTNER).isEmpty());
+        assertEquals(Set.of(3L, 4L), relations.get(RelationshipType.PARENT));
+
+        assertTrue(PersonApiMapper.mapRelations(new PersonMergePatch().name("Renamed")).isEmpty());
+        assertEquals(Set.of(5L, 6L), PersonApiMapper.mapRelations(new PersonMergePatch().parents(List.of(5L, 6L)))
+            .get(RelationshipType.CHILD));
+
+        PinkApiException exception = assertThrows(PinkApiException.class,
+            () -> PersonApiMapper.mapRelations(new PersonMergePatch().parents(List.of(5L, 6L, 7L))));
+        assertEquals(400, exception.getResponseCode());
+    }
 }
@@ -0,0 +1,111 @@
+package com.pink.family.assignment.database.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.pink.family.assignment.CacheConfig;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PersonGraphCacheTests {
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao relationshipDao;
+
+    @Autowired
+    private PersonGraphCache personGraphCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        relationshipDao.deleteAll();
+        personDao.deleteAll();
+        personGraphCache.clear();
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    @Test
+    @DisplayName("Neighbourhood is assembled from cached nodes and adjacency lists")
+    void loadGraph_assemblesFromCache() {
+        personDao.updatePerson(100L, "Main", LocalDate.of(1980, 1, 1), Map.of(
+            RelationshipType.PARTNER, Set.of(200L),
+            RelationshipType.PARENT, Set.of(300L, 301L)));
+
+        Optional<PersonDto> first = personDao.findPersonFromExternalId(100L, 3);
+        assertThat(first).isPresent();
+        assertThat(first.get().getRelations(RelationshipType.PARENT)).hasSize(2);
+        assertThat(first.get().hasRelationExId(RelationshipType.PARTNER, 200L)).isTrue();
+
+        Cache<Object, Object> nodes = nativeCache(CacheConfig.Constant.PERSON_NODE_BY_INTERNAL_ID);
+        assertThat(nodes.estimatedSize()).isEqualTo(4);
+        long hitsBefore = nodes.stats().hitCount();
+
+        // the partner is a root in their own right and is already fully cached.
+        Optional<PersonDto> partner = personDao.findPersonFromExternalId(200L, 3);
+        assertThat(partner).isPresent();
+        assertThat(partner.get().hasRelationExId(RelationshipType.PARTNER, 100L)).isTrue();
+        assertThat(nodes.stats().hitCount()).isGreaterThan(hitsBefore);
+        assertThat(nodes.estimatedSize()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Updates evict the affected nodes so the next read sees the change")
+    void updatePerson_evictsAffectedNodes() {
+        personDao.updatePerson(100L, "Main", LocalDate.of(1980, 1, 1), Map.of(
+            RelationshipType.PARENT, Set.of(300L)));
+        assertThat(personDao.findPersonFromExternalId(300L, 3).orElseThrow()
+            .getRelations(RelationshipType.CHILD)).hasSize(1);
+
+        personDao.updatePerson(200L, "Partner", LocalDate.of(1981, 1, 1), Map.of(
+            RelationshipType.PARENT, Set.of(300L)));
+
+        PersonDto child = personDao.findPersonFromExternalId(300L, 3).orElseThrow();
+        assertThat(child.getRelations(RelationshipType.CHILD)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Soft delete is visible through the cache")
+    void softDelete_evictsNode() {
+        personDao.updatePerson(100L, "Main", LocalDate.of(1980, 1, 1), Map.of());
+        assertThat(personDao.findPersonFromExternalId(100L, 3).orElseThrow().isDeleted()).isFalse();
+
+        personDao.softDeletePersons(Set.of(100L));
+
+        assertThat(personDao.findPersonFromExternalId(100L, 3).orElseThrow().isDeleted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Name and date of birth lookups follow renames")
+    void nameDob_followsRename() {
+        personDao.updatePerson(100L, "Main", LocalDate.of(1980, 1, 1), Map.of());
+        assertThat(personDao.findAllPersonFromNameDobWithPartnerChildren("Main", LocalDate.of(1980, 1, 1))).hasSize(1);
+
+        personDao.updatePerson(100L, "Renamed", null, Map.of());
+
+        assertThat(personDao.findAllPersonFromNameDobWithPartnerChildren("Main", LocalDate.of(1980, 1, 1))).isEmpty();
+        assertThat(personDao.findAllPersonFromNameDobWithPartnerChildren("Renamed", LocalDate.of(1980, 1, 1))).hasSize(1);
+    }
+}
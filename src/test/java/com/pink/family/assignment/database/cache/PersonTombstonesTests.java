@@ -0,0 +1,61 @@
+package com.pink.family.assignment.database.cache;
+
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.dao.PersonRelationshipDao;
+import com.pink.family.assignment.database.entity.PersonEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PersonTombstonesTests {
+
+    @Autowired
+    private PersonDao personDao;
+
+    @Autowired
+    private PersonRelationshipDao relationshipDao;
+
+    @Autowired
+    private PersonTombstones personTombstones;
+
+    @BeforeEach
+    void setUp() {
+        relationshipDao.deleteAll();
+        personDao.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Soft delete records tombstones for existing persons only, and updates are then refused")
+    void softDelete_marksExisting() {
+        personDao.updatePerson(100L, "Main", LocalDate.of(1980, 1, 1), Map.of());
+
+        personDao.softDeletePersons(Set.of(100L, 999L));
+
+        assertThat(personDao.isKnownDeleted(100L)).isTrue();
+        assertThat(personDao.isKnownDeleted(999L)).isFalse();
+        assertThat(personDao.updatePerson(100L, "Changed", null, Map.of())).isNull();
+        assertThat(personDao.findByExternalIdEntity(100L).orElseThrow().getName()).isEqualTo("Main");
+    }
+
+    @Test
+    @DisplayName("Rebuild loads the persons already deleted in the database")
+    void rebuild_loadsFromDatabase() {
+        personDao.save(PersonEntity.builder().externalId(200L).name("Gone").dateOfBirth(LocalDate.of(1970, 1, 1)).deleted(true).build());
+        personTombstones.clear();
+        assertThat(personDao.isKnownDeleted(200L)).isFalse();
+
+        personTombstones.rebuild();
+
+        assertThat(personDao.isKnownDeleted(200L)).isTrue();
+        assertThat(personTombstones.size()).isEqualTo(1);
+    }
+}
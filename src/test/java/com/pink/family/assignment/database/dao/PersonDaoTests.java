@@ -4,6 +4,7 @@ import com.pink.family.assignment.database.entity.PersonEntity;
 import com.pink.family.assignment.database.entity.PersonRelationshipEntity;
 import com.pink.family.assignment.database.entity.id.PersonRelationshipId;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.database.repository.ArchivedPersonRepository;
 
 import com.pink.family.assignment.dto.PersonDto;
 import jakarta.persistence.EntityManager;
@@ -18,7 +19,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -372,6 +376,195 @@ public class PersonDaoTests {
 
     }
 
+    @Nested
+    class FindPageAfter {
+
+        @Test
+        @DisplayName("Pages through every person that is not deleted once, in order, with its direct relations")
+        void testFindPageAfter_PagesThroughAll() {
+            Long mainId = getId();
+            Long partnerId = mainId + 1;
+            Long childId = mainId + 2;
+            Long deletedId = mainId + 3;
+            personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of(
+                RelationshipType.PARTNER, Set.of(partnerId),
+                RelationshipType.PARENT, Set.of(childId)));
+            personDao.updatePerson(deletedId, "Deleted", LocalDate.of(1970, 1, 1), Map.of());
+            personDao.softDeletePersons(Set.of(deletedId));
+
+            List<PersonDto> exported = new ArrayList<>();
+            Long after = Long.MIN_VALUE;
+            List<PersonDto> page;
+            do {
+                page = personDao.findPageAfter(after, 2);
+                exported.addAll(page);
+                if (!page.isEmpty()) {
+                    after = page.getLast().getInternalId();
+                }
+            } while (page.size() == 2);
+
+            assertThat(exported).extracting(PersonDto::getExternalId)
+                .containsExactlyInAnyOrder(mainId, partnerId, childId);
+            assertThat(exported).extracting(PersonDto::getInternalId).isSorted();
+
+            PersonDto main = exported.stream()
+                .filter(person -> person.getExternalId().equals(mainId))
+                .findFirst()
+                .orElseThrow();
+            assertThat(main.getRelations(RelationshipType.PARTNER)).extracting(PersonDto::getExternalId)
+                .containsExactly(partnerId);
+            assertThat(main.getRelations(RelationshipType.PARENT)).extracting(PersonDto::getExternalId)
+                .containsExactly(childId);
+        }
+    }
+
+    @Nested
+    class PurgeDeletedBefore {
+
+        @Autowired
+        private ArchivedPersonRepository archivedPersonRepository;
+
+        @Test
+        @DisplayName("Moves deleted persons and their relationships to the archive, their IDs stay deleted")
+        void testPurgeDeletedBefore_Archives() {
+            Long mainId = getId();
+            Long partnerId = mainId + 1;
+            personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of(
+                RelationshipType.PARTNER, Set.of(partnerId)));
+            personDao.softDeletePersons(Set.of(mainId));
+            entityManager.flush();
+
+            assertThat(personDao.purgeDeletedBefore(Instant.now().minusSeconds(60), 100)).isZero();
+            assertThat(personDao.purgeDeletedBefore(Instant.now().plusSeconds(60), 100)).isEqualTo(1);
+            entityManager.clear();
+
+            assertThat(personDao.findByExternalIdEntity(mainId)).isEmpty();
+            assertThat(archivedPersonRepository.existsByExternalId(mainId)).isTrue();
+            PersonDto partner = personDao.findPersonFromExternalId(partnerId, 1).orElseThrow();
+            assertThat(partner.getRelations(RelationshipType.PARTNER)).isEmpty();
+
+            assertThat(personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of())).isNull();
+            assertThat(personDao.findByExternalIdEntity(mainId)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("A purged ID named as a relative is neither created again nor related to")
+        void testPurgeDeletedBefore_RelativeStaysDeleted() {
+            Long purgedId = getId();
+            Long otherId = purgedId + 1;
+            Long childId = purgedId + 2;
+            personDao.updatePerson(purgedId, "Purged", LocalDate.of(1980, 1, 1), Map.of());
+            personDao.softDeletePersons(Set.of(purgedId));
+            entityManager.flush();
+            assertThat(personDao.purgeDeletedBefore(Instant.now().plusSeconds(60), 100)).isEqualTo(1);
+            entityManager.clear();
+
+            PersonDto updated = personDao.updatePerson(otherId, "Other", LocalDate.of(1981, 1, 1), Map.of(
+                RelationshipType.PARTNER, Set.of(purgedId),
+                RelationshipType.PARENT, Set.of(childId)));
+            assertThat(updated.getRelations(RelationshipType.PARTNER)).isEmpty();
+            assertThat(personDao.findByExternalIdEntity(purgedId)).isEmpty();
+
+            Optional<PersonDto> patched = personDao.patchPerson(otherId, null, null, Map.of(
+                RelationshipType.CHILD, Set.of(purgedId)));
+            assertThat(patched).isPresent();
+            assertThat(patched.get().getRelations(RelationshipType.CHILD)).isEmpty();
+            assertThat(patched.get().getRelations(RelationshipType.PARENT)).extracting(PersonDto::getExternalId)
+                .containsExactly(childId);
+            assertThat(personDao.findByExternalIdEntity(purgedId)).isEmpty();
+        }
+    }
+
+    @Nested
+    class PatchPerson {
+
+        private PersonDto find(Long externalId) {
+            return personDao.findPersonFromExternalId(externalId, 1).orElseThrow();
+        }
+
+        @Test
+        @DisplayName("Replaces the relations of a patched type, on both sides")
+        void testPatchPerson_ReplacesRelations() {
+            Long mainId = getId();
+            Long oldPartnerId = mainId + 1;
+            Long newPartnerId = mainId + 2;
+            personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of(
+                RelationshipType.PARTNER, Set.of(oldPartnerId)));
+            personDao.updatePerson(newPartnerId, "New", LocalDate.of(1982, 1, 1), Map.of());
+
+            PersonDto patched = personDao.patchPerson(mainId, null, null, Map.of(
+                RelationshipType.PARTNER, Set.of(newPartnerId))).orElseThrow();
+
+            assertThat(patched.getRelations(RelationshipType.PARTNER)).extracting(PersonDto::getExternalId)
+                .containsExactly(newPartnerId);
+            assertThat(find(newPartnerId).getRelations(RelationshipType.PARTNER)).extracting(PersonDto::getExternalId)
+                .containsExactly(mainId);
+            assertThat(find(oldPartnerId).getRelations(RelationshipType.PARTNER)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("An empty set removes every relation of the type, on both sides")
+        void testPatchPerson_RemovesRelations() {
+            Long mainId = getId();
+            Long firstChildId = mainId + 1;
+            Long secondChildId = mainId + 2;
+            personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of(
+                RelationshipType.PARENT, Set.of(firstChildId, secondChildId)));
+
+            PersonDto patched = personDao.patchPerson(mainId, null, null, Map.of(
+                RelationshipType.PARENT, Set.of())).orElseThrow();
+
+            assertThat(patched.getRelations(RelationshipType.PARENT)).isEmpty();
+            assertThat(find(firstChildId).getRelations(RelationshipType.CHILD)).isEmpty();
+            assertThat(find(secondChildId).getRelations(RelationshipType.CHILD)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Relations of the types left out of the patch are left alone, on both sides")
+        void testPatchPerson_LeavesOtherTypesAlone() {
+            Long mainId = getId();
+            Long partnerId = mainId + 1;
+            Long childId = mainId + 2;
+            Long parentId = mainId + 3;
+            personDao.updatePerson(mainId, "Main", LocalDate.of(1980, 1, 1), Map.of(
+                RelationshipType.PARTNER, Set.of(partnerId),
+                RelationshipType.PARENT, Set.of(childId)));
+
+            PersonDto patched = personDao.patchPerson(mainId, "Renamed", null, Map.of(
+                RelationshipType.CHILD, Set.of(parentId))).orElseThrow();
+
+            assertThat(patched.getName()).isEqualTo("Renamed");
+            assertThat(patched.getDateOfBirth()).isEqualTo(LocalDate.of(1980, 1, 1));
+            assertThat(patched.getRelations(RelationshipType.CHILD)).extracting(PersonDto::getExternalId)
+                .containsExactly(parentId);
+            assertThat(patched.getRelations(RelationshipType.PARTNER)).extracting(PersonDto::getExternalId)
+                .containsExactly(partnerId);
+            assertThat(patched.getRelations(RelationshipType.PARENT)).extracting(PersonDto::getExternalId)
+                .containsExactly(childId);
+            assertThat(find(parentId).getRelations(RelationshipType.PARENT)).extracting(PersonDto::getExternalId)
+                .containsExactly(mainId);
+            assertThat(find(partnerId).getRelations(RelationshipType.PARTNER)).extracting(PersonDto::getExternalId)
+                .containsExactly(mainId);
+            assertThat(find(childId).getRelations(RelationshipType.CHILD)).extracting(PersonDto::getExternalId)
+                .containsExactly(mainId);
+        }
+
+        @Test
+        @DisplayName("Nothing is patched, or created, for an unknown or deleted person")
+        void testPatchPerson_UnknownOrDeleted() {
+            Long unknownId = getId();
+            Long deletedId = unknownId + 1;
+            personDao.updatePerson(deletedId, "Deleted", LocalDate.of(1980, 1, 1), Map.of());
+            personDao.softDeletePersons(Set.of(deletedId));
+            // the deletion is a bulk update, read the person again as the next transaction would.
+            entityManager.clear();
+
+            assertThat(personDao.patchPerson(unknownId, "Name", null, Map.of())).isEmpty();
+            assertThat(personDao.findByExternalIdEntity(unknownId)).isEmpty();
+            assertThat(personDao.patchPerson(deletedId, "Name", null, Map.of())).isEmpty();
+        }
+    }
+
     private Long getId() {
         return ThreadLocalRandom.current().nextInt(1000) + System.nanoTime() % 100000;
     }
@@ -0,0 +1,120 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.AdmissionProperties;
+import com.pink.family.assignment.service.AdmissionControlService.Admission;
+import com.pink.family.assignment.service.AdmissionControlService.Operation;
+import com.pink.family.assignment.service.AdmissionControlService.Rejection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlService service;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setCheck(new AdmissionProperties.Budget(0.001, 3, 2));
+        properties.setUpdate(new AdmissionProperties.Budget(0.001, 1, 1));
+        properties.setMetricClients(Set.of("batch"));
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new AdmissionControlService(properties, new MicrometerService(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Rejects on rate once the burst is used up, per client")
+    void rate_perClient() {
+        for (int i = 0; i < 3; i++) {
+            service.admit("batch", Operation.CHECK).close();
+        }
+
+        Admission rejected = service.admit("batch", Operation.CHECK);
+        assertThat(rejected.isAdmitted()).isFalse();
+        assertThat(rejected.getRejection()).isEqualTo(Rejection.RATE);
+        assertThat(rejected.getRetryAfterSeconds()).isPositive();
+
+        // other clients, and other operations of the same client, have their own budget.
+        assertThat(service.admit("web", Operation.CHECK).isAdmitted()).isTrue();
+        assertThat(service.admit("batch", Operation.UPDATE).isAdmitted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Rejects on concurrency while the client's requests are in progress, until one is done")
+    void concurrency_released() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setCheck(new AdmissionProperties.Budget(1000, 1000, 2));
+        service = new AdmissionControlService(properties, new MicrometerService(meterRegistry));
+
+        Admission first = service.admit("batch", Operation.CHECK);
+        Admission second = service.admit("batch", Operation.CHECK);
+
+        Admission third = service.admit("batch", Operation.CHECK);
+        assertThat(third.getRejection()).isEqualTo(Rejection.CONCURRENCY);
+        third.close();
+
+        first.close();
+        first.close(); // closing twice must not free a second slot
+        assertThat(service.admit("batch", Operation.CHECK).isAdmitted()).isTrue();
+        assertThat(service.admit("batch", Operation.CHECK).isAdmitted()).isFalse();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Counts admitted and rejected requests per client and operation")
+    void counters() {
+        service.admit("batch", Operation.UPDATE).close();
+        service.admit("batch", Operation.UPDATE).close();
+
+        assertThat(meterRegistry.get(MeterKeys.COUNT_ADMISSION_ADMITTED)
+            .tags("client", "batch", "operation", "UPDATE").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MeterKeys.COUNT_ADMISSION_REJECTED)
+            .tags("client", "batch", "operation", "UPDATE", "reason", "RATE").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Clients not named in the configuration share one metric series")
+    void counters_otherClients() {
+        service.admit("client-1", Operation.UPDATE).close();
+        service.admit("client-2", Operation.UPDATE).close();
+
+        assertThat(meterRegistry.get(MeterKeys.COUNT_ADMISSION_ADMITTED)
+            .tags("client", "other", "operation", "UPDATE").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(MeterKeys.COUNT_ADMISSION_ADMITTED).tag("client", "client-1").counter())
+            .isNull();
+    }
+
+    @Test
+    @DisplayName("A bulk request takes its weight from the rate budget, running it into debt beyond the burst")
+    void charge_weighted() {
+        service.admit("batch", Operation.CHECK).close();
+        assertThat(service.charge("batch", Operation.CHECK, 2).isAdmitted()).isTrue();
+        assertThat(service.admit("batch", Operation.CHECK).isAdmitted()).isFalse();
+
+        service.admit("bulk", Operation.CHECK).close();
+        assertThat(service.charge("bulk", Operation.CHECK, 999).isAdmitted()).isFalse();
+        assertThat(service.charge("other", Operation.CHECK, 999).isAdmitted()).isTrue();
+        Admission afterDebt = service.charge("other", Operation.CHECK, 1);
+        assertThat(afterDebt.isAdmitted()).isFalse();
+        assertThat(afterDebt.getRetryAfterSeconds()).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("Identifies clients by header, else by a digest of the API key, else as anonymous")
+    void clientOf() {
+        assertThat(service.clientOf("batch", "secret")).isEqualTo("batch");
+        assertThat(service.clientOf(null, "secret"))
+            .startsWith("key-")
+            .doesNotContain("secret")
+            .isEqualTo(service.clientOf("", "secret"));
+        assertThat(service.clientOf(null, null)).isEqualTo("anonymous");
+    }
+}
@@ -0,0 +1,91 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pink.family.assignment.database.cache.PersonCacheWeigher;
+import com.pink.family.assignment.database.cache.PersonNode;
+import com.pink.family.assignment.properties.CacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CacheHeapPressureMonitorTest {
+
+    private static final String CACHE = "test";
+    private static final long MAX_WEIGHT = 100_000;
+
+    private CaffeineCacheManager cacheManager;
+    private CacheHeapPressureMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CACHE, Caffeine.newBuilder()
+            .maximumWeight(MAX_WEIGHT)
+            .weigher(new PersonCacheWeigher())
+            .build());
+
+        monitor = new CacheHeapPressureMonitor(cacheManager, new CacheProperties(), mock(MicrometerService.class));
+    }
+
+    private long maximum() {
+        return ((CaffeineCache) cacheManager.getCache(CACHE)).getNativeCache()
+            .policy().eviction().orElseThrow().getMaximum();
+    }
+
+    @Test
+    @DisplayName("Shrinks under pressure, never below the minimum fraction, and grows back afterwards")
+    void shrinkAndRestore() {
+        monitor.check(0.9);
+        assertThat(maximum()).isEqualTo(MAX_WEIGHT / 2);
+
+        for (int i = 0; i < 10; i++) {
+            monitor.check(0.9);
+        }
+        assertThat(maximum()).isEqualTo(MAX_WEIGHT / 10);
+
+        // between the watermarks nothing changes.
+        monitor.check(0.8);
+        assertThat(maximum()).isEqualTo(MAX_WEIGHT / 10);
+
+        for (int i = 0; i < 10; i++) {
+            monitor.check(0.5);
+        }
+        assertThat(maximum()).isEqualTo(MAX_WEIGHT);
+    }
+
+    @Test
+    @DisplayName("Weight grows with the size of the cached structure")
+    void weigher_scalesWithStructure() {
+        PersonCacheWeigher weigher = new PersonCacheWeigher();
+        PersonNode node = PersonNode.builder()
+            .internalId(1L).externalId(2L).name("Ada").dateOfBirth(LocalDate.of(1815, 12, 10)).build();
+
+        Set<Long> few = Set.of(1L, 2L);
+        Set<Long> many = LongStream.range(0, 1000).boxed().collect(Collectors.toSet());
+
+        assertThat(weigher.weigh(1L, node)).isGreaterThan(weigher.weigh(1L, 2L));
+        assertThat(weigher.weigh("k", many)).isGreaterThan(100 * weigher.weigh("k", few));
+    }
+
+    @Test
+    @DisplayName("A last known check result weighs its key and reason, a passed check only its key")
+    void weigher_checkResults() {
+        PersonCacheWeigher weigher = new PersonCacheWeigher();
+        String key = "ID_12345";
+        String longerKey = "NAME_DOB_Ada|1815-12-10";
+        String reason = "Person does not have exactly three children";
+
+        assertThat(weigher.weigh(longerKey, "") - weigher.weigh(key, "")).isEqualTo(longerKey.length() - key.length());
+        assertThat(weigher.weigh(key, reason) - weigher.weigh(key, "")).isGreaterThan(reason.length());
+    }
+}
@@ -0,0 +1,291 @@
+package com.pink.family.assignment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.ErrorMessages;
+import com.pink.family.assignment.dto.CheckJobDto;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.properties.CheckJobProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final PersonService personService = mock(PersonService.class);
+
+    private CheckJobProperties properties;
+    private CheckJobService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CheckJobProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setWorkers(1);
+        properties.setChunkSize(2);
+
+        when(personService.checkExternalIds(any())).thenAnswer(invocation -> {
+            Set<Long> externalIds = invocation.getArgument(0);
+            return externalIds.stream().collect(Collectors.toMap(
+                id -> id,
+                id -> id % 2 == 0 ? Optional.<String>empty() : Optional.of(ErrorMessages.NO_PARTNER)));
+        });
+        when(personService.checkNameSurnameDob("Jane", LocalDate.of(1990, 5, 20)))
+            .thenReturn(CheckResultDto.fresh(Optional.empty()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Checks every line, by ID a chunk at a time, and keeps the results in input order")
+    void submit_processesInChunks() throws IOException {
+        start();
+        CheckJobDto submitted = service.submit(input("""
+            {"requestId":"RQ1","id":2}
+            {"id":3}
+
+            {"name":"Jane","dateOfBirth":"1990-05-20"}
+            not json
+            {"id":4}"""));
+        assertThat(submitted.getTotal()).isEqualTo(6);
+
+        CheckJobDto done = awaitState(submitted.getJobId(), CheckJobDto.State.DONE);
+        assertThat(done.getProcessed()).isEqualTo(6);
+        assertThat(done.getPassed()).isEqualTo(3);
+        assertThat(done.getFailed()).isEqualTo(2);
+
+        List<CheckJobService.Result> results = results(submitted.getJobId());
+        assertThat(results).extracting(CheckJobService.Result::getLine).containsExactly(1L, 2L, 4L, 5L, 6L);
+        assertThat(results).extracting(CheckJobService.Result::isPassed).containsExactly(true, false, true, false, true);
+        assertThat(results.get(0).getRequestId()).isEqualTo("RQ1");
+        assertThat(results.get(1).getCode()).isEqualTo(444);
+        assertThat(results.get(1).getReason()).isEqualTo(ErrorMessages.NO_PARTNER);
+        assertThat(results.get(3).getCode()).isEqualTo(400);
+
+        verify(personService).checkExternalIds(Set.of(2L, 3L));
+        verify(personService).checkExternalIds(Set.of(4L));
+    }
+
+    @Test
+    @DisplayName("Results are only available once the job is done, unknown jobs are a 404")
+    void results_notDone() throws IOException {
+        Path job = directory.resolve("a-job");
+        Files.createDirectories(job);
+        Files.writeString(job.resolve(CheckJobService.INPUT), "{\"id\":2}\n");
+        Files.writeString(job.resolve(CheckJobService.CHECKPOINT), checkpoint("a-job", "FAILED", 0, 0));
+        start();
+
+        assertThatThrownBy(() -> service.results("a-job"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(409);
+        assertThatThrownBy(() -> service.status("no-job"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(404);
+    }
+
+    @Test
+    @DisplayName("A job interrupted by a restart resumes at its checkpoint, dropping results written past it")
+    void restart_resumesAtCheckpoint() throws IOException {
+        String firstChunk = "{\"line\":1,\"id\":2,\"passed\":true,\"stale\":false}\n"
+            + "{\"line\":2,\"id\":3,\"passed\":false,\"code\":444,\"reason\":\"" + ErrorMessages.NO_PARTNER + "\",\"stale\":false}\n";
+        Path job = directory.resolve("a-job");
+        Files.createDirectories(job);
+        Files.writeString(job.resolve(CheckJobService.INPUT), "{\"id\":2}\n{\"id\":3}\n{\"id\":4}\n");
+        Files.writeString(job.resolve(CheckJobService.RESULTS), firstChunk + "{\"line\":3,\"id\":4,\"pas");
+        Files.writeString(job.resolve(CheckJobService.CHECKPOINT),
+            checkpoint("a-job", "RUNNING", 2, firstChunk.getBytes(StandardCharsets.UTF_8).length));
+
+        start();
+
+        CheckJobDto done = awaitState("a-job", CheckJobDto.State.DONE);
+        assertThat(done.getProcessed()).isEqualTo(3);
+        assertThat(done.getPassed()).isEqualTo(2);
+        assertThat(done.getFailed()).isEqualTo(1);
+        assertThat(results("a-job")).extracting(CheckJobService.Result::getLine).containsExactly(1L, 2L, 3L);
+        verify(personService, times(1)).checkExternalIds(any());
+        verify(personService).checkExternalIds(Set.of(4L));
+    }
+
+    @Test
+    @DisplayName("An input over the maximum size is a 413, and nothing of it is kept")
+    void submit_inputTooLarge() throws IOException {
+        properties.setMaxInputSize(DataSize.ofBytes(20));
+        start();
+
+        assertThatThrownBy(() -> service.submit(input("{\"id\":2}\n{\"id\":3}\n{\"id\":4}\n")))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(413);
+        try (Stream<Path> directories = Files.list(directory)) {
+            assertThat(directories).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Submissions beyond the queue are a 503, and nothing of them is kept")
+    void submit_queueFull() throws Exception {
+        properties.setMaxQueued(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return Map.of(2L, Optional.<String>empty());
+        }).when(personService).checkExternalIds(any());
+        start();
+
+        // the first runs, the second waits in the queue.
+        CheckJobDto running = service.submit(input("{\"id\":2}"));
+        CheckJobDto queued = service.submit(input("{\"id\":2}"));
+        assertThatThrownBy(() -> service.submit(input("{\"id\":2}")))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+        try (Stream<Path> directories = Files.list(directory)) {
+            assertThat(directories).hasSize(2);
+        }
+
+        release.countDown();
+        awaitState(running.getJobId(), CheckJobDto.State.DONE);
+        awaitState(queued.getJobId(), CheckJobDto.State.DONE);
+    }
+
+    @Test
+    @DisplayName("A failed job keeps the checkpoint of its last chunk, processed lines and results alike")
+    void failure_keepsLastCheckpoint() throws IOException {
+        when(personService.checkExternalIds(Set.of(4L))).thenThrow(new IllegalStateException("Connection lost"));
+        start();
+
+        CheckJobDto submitted = service.submit(input("{\"id\":2}\n{\"id\":3}\n{\"id\":4}\n"));
+        CheckJobDto failed = awaitState(submitted.getJobId(), CheckJobDto.State.FAILED);
+        assertThat(failed.getProcessed()).isEqualTo(2);
+        assertThat(failed.getError()).isEqualTo("Connection lost");
+
+        Path job = directory.resolve(submitted.getJobId());
+        Properties checkpoint = new Properties();
+        try (Reader reader = Files.newBufferedReader(job.resolve(CheckJobService.CHECKPOINT))) {
+            checkpoint.load(reader);
+        }
+        assertThat(checkpoint.getProperty("state")).isEqualTo("FAILED");
+        assertThat(checkpoint.getProperty("processed")).isEqualTo("2");
+        assertThat(Long.parseLong(checkpoint.getProperty("resultsBytes")))
+            .isEqualTo(Files.size(job.resolve(CheckJobService.RESULTS)));
+    }
+
+    @Test
+    @DisplayName("Only the last finished jobs are kept, older ones are forgotten and their directory deleted")
+    void finished_onlyLastRetained() throws IOException {
+        properties.setRetained(2);
+        start();
+
+        CheckJobDto first = service.submit(input("{\"id\":2}"));
+        awaitState(first.getJobId(), CheckJobDto.State.DONE);
+        CheckJobDto second = service.submit(input("{\"id\":2}"));
+        awaitState(second.getJobId(), CheckJobDto.State.DONE);
+        CheckJobDto third = service.submit(input("{\"id\":2}"));
+
+        assertThatThrownBy(() -> service.status(first.getJobId()))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(404);
+        assertThat(directory.resolve(first.getJobId())).doesNotExist();
+        assertThat(service.status(second.getJobId()).getState()).isEqualTo(CheckJobDto.State.DONE);
+        awaitState(third.getJobId(), CheckJobDto.State.DONE);
+    }
+
+    @Test
+    @DisplayName("On startup the finished jobs beyond the ones retained are deleted")
+    void restart_forgetsOldFinished() throws IOException {
+        properties.setRetained(1);
+        for (String jobId : List.of("old-job", "last-job", "new-job")) {
+            Path job = directory.resolve(jobId);
+            Files.createDirectories(job);
+            Files.writeString(job.resolve(CheckJobService.INPUT), "{\"id\":2}\n");
+        }
+        Files.writeString(directory.resolve("old-job").resolve(CheckJobService.CHECKPOINT),
+            checkpoint("old-job", "DONE", 3, 0) + "finished=2026-01-01T01:00:00Z\n");
+        Files.writeString(directory.resolve("last-job").resolve(CheckJobService.CHECKPOINT),
+            checkpoint("last-job", "DONE", 3, 0) + "finished=2026-01-01T02:00:00Z\n");
+        Files.writeString(directory.resolve("new-job").resolve(CheckJobService.CHECKPOINT),
+            checkpoint("new-job", "RUNNING", 0, 0));
+
+        start();
+
+        assertThat(directory.resolve("old-job")).doesNotExist();
+        assertThat(service.status("last-job").getState()).isEqualTo(CheckJobDto.State.DONE);
+        awaitState("new-job", CheckJobDto.State.DONE);
+    }
+
+    private void start() {
+        service = new CheckJobService(
+            properties, personService, objectMapper, new MicrometerService(new SimpleMeterRegistry()));
+        service.start();
+    }
+
+    private CheckJobDto awaitState(String jobId, CheckJobDto.State state) {
+        await().until(() -> service.status(jobId).getState() == state);
+        return service.status(jobId);
+    }
+
+    private List<CheckJobService.Result> results(String jobId) throws IOException {
+        return Files.readAllLines(service.results(jobId)).stream()
+            .map(line -> {
+                try {
+                    return objectMapper.readValue(line, CheckJobService.Result.class);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .toList();
+    }
+
+    private static ByteArrayInputStream input(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String checkpoint(String jobId, String state, long processed, long resultsBytes) {
+        return "jobId=" + jobId + "\n"
+            + "state=" + state + "\n"
+            + "total=3\n"
+            + "processed=" + processed + "\n"
+            + "passed=" + (processed / 2) + "\n"
+            + "failed=" + (processed / 2) + "\n"
+            + "resultsBytes=" + resultsBytes + "\n"
+            + "submitted=2026-01-01T00:00:00Z\n";
+    }
+}
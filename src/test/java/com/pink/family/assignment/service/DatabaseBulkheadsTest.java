@@ -0,0 +1,90 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.constants.MeterKeys;
+import com.pink.family.assignment.properties.BulkheadProperties;
+import com.pink.family.assignment.properties.DatabaseLimiterProperties;
+import com.pink.family.assignment.properties.DeadlineProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class DatabaseBulkheadsTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private DatabaseBulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setEnabled(true);
+        properties.setRead(new BulkheadProperties.Lane(2, Duration.ofMillis(50)));
+        properties.setWrite(new BulkheadProperties.Lane(1, Duration.ofMillis(50)));
+
+        meterRegistry = new SimpleMeterRegistry();
+        MicrometerService micrometerService = new MicrometerService(meterRegistry);
+        bulkheads = new DatabaseBulkheads(
+            properties,
+            new DatabaseConcurrencyLimiter(new DatabaseLimiterProperties(), micrometerService),
+            new DeadlineService(new DeadlineProperties(), mock(PlatformTransactionManager.class)),
+            micrometerService);
+        bulkheads.registerGauges();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A full write lane refuses further writes, while reads carry on")
+    void fullWriteLane_readsUnaffected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> write = CompletableFuture.supplyAsync(() -> bulkheads.write(() -> {
+            started.countDown();
+            await();
+            return "written";
+        }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> bulkheads.write(() -> "second"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+        assertThat(bulkheads.read(() -> "read")).isEqualTo("read");
+
+        assertThat(meterRegistry.get(MeterKeys.COUNT_DB_LANE_REJECTED).tags("lane", "write").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(MeterKeys.GAUGE_DB_LANE_IN_USE).tags("lane", "write").gauge().value())
+            .isEqualTo(1);
+
+        release.countDown();
+        assertThat(write.get(5, TimeUnit.SECONDS)).isEqualTo("written");
+        assertThat(meterRegistry.get(MeterKeys.TIME_DB_LANE).tags("lane", "read").timer().count()).isEqualTo(1);
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.properties.DeadlineProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DeadlineServiceTest {
+
+    private PlatformTransactionManager transactionManager;
+    private DeadlineService service;
+
+    @BeforeEach
+    void setUp() {
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.setDefaultTimeout(Duration.ofSeconds(10));
+        properties.setMaxTimeout(Duration.ofSeconds(30));
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new DeadlineService(properties, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Takes the client's timeout, capped at the maximum, or the default without a readable one")
+    void setDeadline() {
+        service.setDeadline("2500");
+        assertThat(service.remaining()).hasValueSatisfying(left -> assertThat(left).isBetween(
+            Duration.ofSeconds(2), Duration.ofMillis(2500)));
+
+        service.setDeadline("3600000");
+        assertThat(service.remaining().orElseThrow()).isLessThanOrEqualTo(Duration.ofSeconds(30));
+
+        service.setDeadline("soon");
+        assertThat(service.remaining().orElseThrow()).isGreaterThan(Duration.ofSeconds(9));
+
+        service.clearDeadline();
+        assertThat(service.remaining()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Runs the database call with the remaining time, rounded up to seconds, as transaction timeout")
+    void within_setsTimeout() {
+        service.setDeadline("2500");
+
+        assertThat(service.within(true, () -> "done")).isEqualTo("done");
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getTimeout()).isEqualTo(3);
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Without a deadline the call runs as is")
+    void within_noDeadline() {
+        assertThat(service.within(false, () -> "done")).isEqualTo("done");
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Gives a 504 once the deadline has passed, before or during the call")
+    void expired() {
+        service.setDeadline("0");
+        assertThatThrownBy(() -> service.within(true, () -> "never"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(504);
+
+        service.setDeadline("50");
+        assertThatThrownBy(() -> service.within(true, () -> {
+            sleep(100);
+            throw new QueryTimeoutException("cancelled");
+        }))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(504);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
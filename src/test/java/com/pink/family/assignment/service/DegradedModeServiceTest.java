@@ -0,0 +1,257 @@
+package com.pink.family.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pink.family.assignment.CacheConfig;
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.CheckResultDto;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.properties.DegradedModeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DegradedModeServiceTest {
+
+    private static final String KEY = DegradedModeService.externalIdKey(1L);
+
+    private DegradedModeProperties properties;
+    private CaffeineCacheManager cacheManager;
+    private MicrometerService micrometerService;
+    private DatabaseCircuitBreaker circuitBreaker;
+    private DegradedModeService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DegradedModeProperties();
+        properties.setEnabled(true);
+        properties.setLatencyBudget(Duration.ofMillis(50));
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT, Caffeine.newBuilder().build());
+
+        micrometerService = new MicrometerService(new SimpleMeterRegistry());
+        circuitBreaker = new DatabaseCircuitBreaker(properties, micrometerService);
+        service = new DegradedModeService(properties, circuitBreaker, micrometerService, cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Serves the last known result, marked stale, when the database overruns the budget")
+    void slowRead_servesStale() throws InterruptedException {
+        assertThat(service.check(KEY, () -> Optional.of("No partner"))).isEqualTo(CheckResultDto.fresh(Optional.of("No partner")));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CheckResultDto result = service.check(KEY, () -> {
+            await(release);
+            return Optional.empty();
+        });
+        release.countDown();
+
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getReason()).isEqualTo("No partner");
+    }
+
+    @Test
+    @DisplayName("Opens the circuit after consecutive database failures and serves stale, or 503 without a last result")
+    void failures_openCircuit() {
+        service.check(KEY, Optional::empty);
+
+        for (int i = 0; i < 2; i++) {
+            CheckResultDto result = service.check(KEY, () -> {
+                throw new DataAccessResourceFailureException("down");
+            });
+            assertThat(result.isStale()).isTrue();
+            assertThat(result.asOptional()).isEmpty();
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+
+        assertThat(service.check(KEY, () -> Optional.of("not called")).isStale()).isTrue();
+        assertThatThrownBy(() -> service.check(DegradedModeService.externalIdKey(2L), Optional::empty))
+            .isInstanceOfSatisfying(PinkApiException.class, e -> assertThat(e.getResponseCode()).isEqualTo(503));
+    }
+
+    @Test
+    @DisplayName("Without a last known result a slow check simply waits for the database")
+    void slowRead_noLastKnown_waits() {
+        CheckResultDto result = service.check(KEY, () -> {
+            sleep(100);
+            return Optional.of("No children");
+        });
+        assertThat(result).isEqualTo(CheckResultDto.fresh(Optional.of("No children")));
+    }
+
+    @Test
+    @DisplayName("Serves the last known result, marked stale, when the read pool is exhausted")
+    void readPoolExhausted_servesStale() {
+        service.shutdown();
+        properties.setReadThreads(1);
+        properties.setReadQueueCapacity(1);
+        service = new DegradedModeService(properties, circuitBreaker, micrometerService, cacheManager);
+        service.check(KEY, () -> Optional.of("No partner"));
+
+        // one read takes the only thread, the other the only place in the queue.
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blocked = Stream.of(2L, 3L)
+            .map(id -> Thread.ofPlatform().start(() -> service.check(DegradedModeService.externalIdKey(id), () -> {
+                await(release);
+                return Optional.empty();
+            })))
+            .toList();
+        Awaitility.await().until(() -> blocked.stream().allMatch(thread ->
+            thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING));
+
+        CheckResultDto result = service.check(KEY, () -> Optional.of("not called"));
+        release.countDown();
+
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getReason()).isEqualTo("No partner");
+    }
+
+    @Test
+    @DisplayName("A trial read the exhausted read pool can not take opens the circuit again, rather than leaving it half open")
+    void readPoolExhausted_trialRead_reopens() {
+        service.shutdown();
+        properties.setReadThreads(1);
+        properties.setReadQueueCapacity(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(100));
+        service = new DegradedModeService(properties, circuitBreaker, micrometerService, cacheManager);
+        service.check(KEY, () -> Optional.of("No partner"));
+
+        // one read takes the only thread, and only then the other the only place in the queue.
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofPlatform().start(() -> service.check(DegradedModeService.externalIdKey(2L), () -> {
+            running.countDown();
+            await(release);
+            return Optional.empty();
+        }));
+        await(running);
+        Thread second = Thread.ofPlatform().start(() -> service.check(DegradedModeService.externalIdKey(3L), () -> {
+            await(release);
+            return Optional.empty();
+        }));
+        List<Thread> blocked = List.of(first, second);
+        Awaitility.await().until(() -> blocked.stream().allMatch(thread ->
+            thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING));
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        sleep(150);
+
+        CheckResultDto result = service.check(KEY, () -> Optional.of("not called"));
+
+        assertThat(result.isStale()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+        release.countDown();
+        Awaitility.await().until(() -> blocked.stream().noneMatch(Thread::isAlive));
+        sleep(150);
+        assertThat(service.check(DegradedModeService.externalIdKey(4L), () -> Optional.of("No children")))
+            .isEqualTo(CheckResultDto.fresh(Optional.of("No children")));
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("A trial read that never reports back is given up on after another open duration")
+    void trialRead_noReport_anotherTrial() {
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(100));
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        sleep(150);
+
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+
+        sleep(150);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Forgets the last known results now, and again once the surrounding transaction completes")
+    void forget_againAfterCompletion() {
+        service.check(KEY, () -> Optional.of("No partner"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.forget(Set.of(KEY));
+            assertThat(lastKnown(KEY)).isNull();
+
+            // a check that read before the commit.
+            service.check(KEY, () -> Optional.of("No partner"));
+            assertThat(lastKnown(KEY)).isNotNull();
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+            assertThat(lastKnown(KEY)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("A change affects the checks by ID and by name and date of birth, of the persons and relatives")
+    void affectedKeys() {
+        PersonDto person = PersonDto.builder()
+            .externalId(1L)
+            .name("Jane")
+            .dateOfBirth(LocalDate.of(1990, 5, 20))
+            .build();
+        person.addRelationship(RelationshipType.PARTNER,
+            PersonDto.builder().externalId(2L).name("John").dateOfBirth(LocalDate.of(1989, 1, 1)).build());
+        person.addRelationship(RelationshipType.PARENT, PersonDto.builder().externalId(3L).build());
+
+        assertThat(DegradedModeService.affectedKeys(Set.of(4L), List.of(person), Set.of(RelationshipType.PARTNER)))
+            .containsExactlyInAnyOrder(
+                DegradedModeService.externalIdKey(1L),
+                DegradedModeService.nameDobKey("Jane", LocalDate.of(1990, 5, 20)),
+                DegradedModeService.externalIdKey(2L),
+                DegradedModeService.nameDobKey("John", LocalDate.of(1989, 1, 1)),
+                DegradedModeService.externalIdKey(4L));
+    }
+
+    private Object lastKnown(String key) {
+        return cacheManager.getCache(CacheConfig.Constant.LAST_KNOWN_CHECK_RESULT).get(key);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
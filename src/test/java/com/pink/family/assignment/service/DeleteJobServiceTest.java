@@ -0,0 +1,85 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.dto.DeleteJobDto;
+import com.pink.family.assignment.properties.DeletionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DeleteJobServiceTest {
+
+    private final PersonService personService = mock(PersonService.class);
+
+    private DeleteJobService service;
+
+    @BeforeEach
+    void setUp() {
+        DeletionProperties properties = new DeletionProperties();
+        properties.setChunkSize(2);
+        properties.getJobs().setEnabled(true);
+
+        service = new DeleteJobService(properties, personService, new MicrometerService(new SimpleMeterRegistry()));
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Deletes the distinct IDs a chunk at a time, in the order given")
+    void submit_deletesInChunks() {
+        DeleteJobDto submitted = service.submit(List.of(1L, 2L, 3L, 2L, 4L, 5L));
+        assertThat(submitted.getTotal()).isEqualTo(5);
+
+        DeleteJobDto done = awaitState(submitted.getJobId(), DeleteJobDto.State.DONE);
+        assertThat(done.getProcessed()).isEqualTo(5);
+        assertThat(done.getFinished()).isNotNull();
+
+        verify(personService).softDeleteChunk(Set.of(1L, 2L));
+        verify(personService).softDeleteChunk(Set.of(3L, 4L));
+        verify(personService).softDeleteChunk(Set.of(5L));
+    }
+
+    @Test
+    @DisplayName("A chunk that fails fails the job, the chunks before it stay deleted")
+    void submit_failedChunk() {
+        doThrow(new PinkApiException("Broken", 500)).when(personService).softDeleteChunk(Set.of(3L, 4L));
+
+        DeleteJobDto submitted = service.submit(List.of(1L, 2L, 3L, 4L, 5L));
+
+        DeleteJobDto failed = awaitState(submitted.getJobId(), DeleteJobDto.State.FAILED);
+        assertThat(failed.getProcessed()).isEqualTo(2);
+        assertThat(failed.getError()).isEqualTo("Broken");
+        verify(personService, times(2)).softDeleteChunk(any());
+    }
+
+    @Test
+    @DisplayName("Unknown jobs are a 404")
+    void status_unknown() {
+        assertThatThrownBy(() -> service.status("no-job"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(404);
+    }
+
+    private DeleteJobDto awaitState(String jobId, DeleteJobDto.State state) {
+        await().until(() -> service.status(jobId).getState() == state);
+        return service.status(jobId);
+    }
+}
@@ -0,0 +1,105 @@
+package com.pink.family.assignment.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.pink.family.assignment.api.exception.PinkDebugException;
+import com.pink.family.assignment.properties.DiagnosticsProperties;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagnosticsServiceTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("com.pink.family.assignment.diagnostics.test");
+
+    private DiagnosticsProperties properties;
+    private DiagnosticsService service;
+
+    @BeforeEach
+    void setUp() {
+        logger.setLevel(Level.INFO);
+        properties = new DiagnosticsProperties();
+        properties.setTraceRequestIds(Set.of("RQ-TRACED"));
+        service = new DiagnosticsService(properties);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        logger.setLevel(null);
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Debug logging is only enabled while a traced request is handled")
+    void mark_enablesDebugForTracedRequest() {
+        service.mark("RQ-OTHER");
+        assertThat(logger.isDebugEnabled()).isFalse();
+        assertThat(PinkDebugException.atDebug(logger)).isInstanceOf(NOPLoggingEventBuilder.class);
+
+        service.mark("RQ-TRACED");
+        assertThat(logger.isDebugEnabled()).isTrue();
+        assertThat(PinkDebugException.atDebug(logger)).isNotInstanceOf(NOPLoggingEventBuilder.class);
+
+        service.clear();
+        assertThat(logger.isDebugEnabled()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Request IDs can be traced and untraced at runtime")
+    void trace_untrace() {
+        assertThat(service.isTraced("RQ-NEW")).isFalse();
+
+        service.trace("RQ-NEW");
+        assertThat(service.isTraced("RQ-NEW")).isTrue();
+        assertThat(service.getTracedRequestIds()).containsExactlyInAnyOrder("RQ-TRACED", "RQ-NEW");
+
+        service.untrace("RQ-NEW");
+        assertThat(service.isTraced("RQ-NEW")).isFalse();
+        assertThat(service.isTraced(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Request IDs traced at runtime expire and are bounded in number, the configured ones stay")
+    void trace_expiresAndBounded() {
+        properties.setTraceDuration(Duration.ofMillis(200));
+        properties.setMaxTracedRequests(2);
+        service.stop();
+        service = new DiagnosticsService(properties);
+
+        service.trace("RQ-1");
+        service.trace("RQ-2");
+        service.trace("RQ-3");
+        Awaitility.await().until(() -> service.getTracedRequestIds().size() == 3);
+        assertThat(service.getTracedRequestIds()).contains("RQ-TRACED", "RQ-3");
+
+        Awaitility.await().until(() -> !service.isTraced("RQ-3"));
+        assertThat(service.getTracedRequestIds()).containsExactly("RQ-TRACED");
+        assertThat(service.isTraced("RQ-TRACED")).isTrue();
+    }
+
+    @Test
+    @DisplayName("The sample rate traces roughly that fraction of requests, always the same ones")
+    void sampleRate_tracesFraction() {
+        properties.setTraceSampleRate(0.1);
+
+        long traced = IntStream.range(0, 10_000).filter(i -> service.isTraced("RQ" + i)).count();
+        assertThat(traced).isBetween(800L, 1200L);
+        assertThat(service.isTraced("RQ42")).isEqualTo(service.isTraced("RQ42"));
+
+        properties.setTraceSampleRate(0);
+        assertThat(IntStream.range(0, 10_000).filter(i -> service.isTraced("RQ" + i)).count()).isZero();
+    }
+}
@@ -0,0 +1,217 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.database.dao.PersonDao;
+import com.pink.family.assignment.database.entity.enums.RelationshipType;
+import com.pink.family.assignment.dto.PersonDto;
+import com.pink.family.assignment.dto.PersonUpdateDto;
+import com.pink.family.assignment.properties.BulkheadProperties;
+import com.pink.family.assignment.properties.DatabaseLimiterProperties;
+import com.pink.family.assignment.properties.DeadlineProperties;
+import com.pink.family.assignment.properties.GroupCommitProperties;
+import com.pink.family.assignment.properties.PersonLockProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GroupCommitServiceTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final PersonDao personDao = mock(PersonDao.class);
+    private final DegradedModeService degradedModeService = mock(DegradedModeService.class);
+
+    private GroupCommitProperties properties;
+    private GroupCommitService service;
+    private DeadlineService deadlineService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GroupCommitProperties();
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(3);
+        properties.setWindow(Duration.ofMinutes(1));
+
+        when(personDao.updatePersons(anyList())).thenAnswer(invocation -> {
+            List<PersonUpdateDto> updates = invocation.getArgument(0);
+            return updates.stream().map(GroupCommitServiceTest::updated).toList();
+        });
+        when(personDao.updatePerson(any(), any(), any(), any())).thenAnswer(invocation ->
+            PersonDto.builder().externalId(invocation.getArgument(0)).name(invocation.getArgument(1)).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        service.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Updates made together share a transaction, each caller getting its own result")
+    void update_sharesTransaction() throws Exception {
+        start();
+
+        List<CompletableFuture<PersonDto>> results = List.of(1L, 2L, 3L).stream()
+            .map(id -> CompletableFuture.supplyAsync(() -> service.update(update(id)), executor))
+            .toList();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).getExternalId()).isEqualTo(i + 1L);
+        }
+        verify(personDao).updatePersons(anyList());
+        verify(personDao, never()).updatePerson(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Once committed, the checks of the persons as they were and are, and of relatives, are forgotten")
+    void update_forgetsChangedChecks() {
+        PersonDto before = PersonDto.builder()
+            .externalId(1L)
+            .name("Old name")
+            .dateOfBirth(LocalDate.of(1980, 1, 1))
+            .build();
+        before.addRelationship(RelationshipType.PARTNER, PersonDto.builder().externalId(2L).build());
+        when(personDao.findPersonsFromExternalIds(Set.of(1L), 1)).thenReturn(Map.of(1L, before));
+        properties.setWindow(Duration.ofMillis(10));
+        start();
+
+        service.update(PersonUpdateDto.builder()
+            .externalId(1L)
+            .name("Person 1")
+            .dateOfBirth(LocalDate.of(1980, 1, 1))
+            .relatedIdsByType(Map.of(RelationshipType.PARENT, Set.of(3L)))
+            .build());
+
+        verify(degradedModeService).forget(Set.of(
+            DegradedModeService.externalIdKey(1L),
+            DegradedModeService.externalIdKey(2L),
+            DegradedModeService.externalIdKey(3L),
+            DegradedModeService.nameDobKey("Old name", LocalDate.of(1980, 1, 1))));
+    }
+
+    @Test
+    @DisplayName("A batch is committed once the window has passed, even if it is not full")
+    void update_windowPassed() {
+        properties.setWindow(Duration.ofMillis(10));
+        start();
+
+        assertThat(service.update(update(1L)).getExternalId()).isEqualTo(1L);
+        verify(personDao).updatePersons(List.of(update(1L)));
+    }
+
+    @Test
+    @DisplayName("A failed batch is applied again one update at a time, only the failing update fails its caller")
+    void update_failedBatchSplit() throws Exception {
+        when(personDao.updatePersons(anyList())).thenThrow(new IllegalStateException("Duplicate key"));
+        when(personDao.updatePerson(eq(2L), any(), any(), any())).thenThrow(new IllegalStateException("Duplicate key"));
+        start();
+
+        List<CompletableFuture<PersonDto>> results = List.of(1L, 2L, 3L).stream()
+            .map(id -> CompletableFuture.supplyAsync(() -> service.update(update(id)), executor))
+            .toList();
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getExternalId()).isEqualTo(1L);
+        assertThatThrownBy(() -> results.get(1).get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Duplicate key");
+        assertThat(results.get(2).get(5, TimeUnit.SECONDS).getExternalId()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Once stopped, updates are refused with a 503")
+    void update_stopped() {
+        start();
+        service.stop();
+
+        assertThatThrownBy(() -> service.update(update(1L)))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("The caller waits no longer than its deadline, its update is then left out of the batch")
+    void update_deadlinePassed() throws Exception {
+        start();
+        deadlineService.setDeadline("100");
+
+        assertThatThrownBy(() -> service.update(update(1L)))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(504);
+
+        // the two updates fill up the batch the first is still waiting in.
+        MDC.clear();
+        List<CompletableFuture<PersonDto>> results = List.of(2L, 3L).stream()
+            .map(id -> CompletableFuture.supplyAsync(() -> service.update(update(id)), executor))
+            .toList();
+        for (CompletableFuture<PersonDto> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        verify(personDao).updatePersons(List.of(update(2L), update(3L)));
+    }
+
+    @Test
+    @DisplayName("The update is committed with the MDC of the request that made it")
+    void update_carriesMdc() {
+        List<String> seen = new CopyOnWriteArrayList<>();
+        when(personDao.updatePersons(anyList())).thenAnswer(invocation -> {
+            seen.add(MDC.get(LoggingService.Constants.REQUEST_ID_MDC));
+            List<PersonUpdateDto> updates = invocation.getArgument(0);
+            return updates.stream().map(GroupCommitServiceTest::updated).toList();
+        });
+        properties.setWindow(Duration.ofMillis(10));
+        start();
+
+        MDC.put(LoggingService.Constants.REQUEST_ID_MDC, "request-1");
+        service.update(update(1L));
+
+        assertThat(seen).containsExactly("request-1");
+    }
+
+    private void start() {
+        MicrometerService micrometerService = new MicrometerService(new SimpleMeterRegistry());
+        deadlineService = new DeadlineService(new DeadlineProperties(), mock(PlatformTransactionManager.class));
+        DatabaseBulkheads bulkheads = new DatabaseBulkheads(
+            new BulkheadProperties(),
+            new DatabaseConcurrencyLimiter(new DatabaseLimiterProperties(), micrometerService),
+            deadlineService,
+            micrometerService);
+        service = new GroupCommitService(properties, personDao, bulkheads, micrometerService,
+            new PersonLocks(new PersonLockProperties(), micrometerService), deadlineService, degradedModeService);
+        service.start();
+    }
+
+    private static PersonUpdateDto update(Long externalId) {
+        return PersonUpdateDto.builder()
+            .externalId(externalId)
+            .name("Person " + externalId)
+            .relatedIdsByType(Map.of())
+            .build();
+    }
+
+    private static PersonDto updated(PersonUpdateDto update) {
+        return PersonDto.builder().externalId(update.getExternalId()).name(update.getName()).build();
+    }
+}
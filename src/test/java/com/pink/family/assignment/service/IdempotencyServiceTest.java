@@ -0,0 +1,165 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.properties.IdempotencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private static final String CLIENT = "client-a";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(new IdempotencyProperties(), new MicrometerService(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Replays the first response for a retry with the same key")
+    void retry_replayed() {
+        IdempotencyService.Outcome<String> first =
+            service.execute(CLIENT, "key-1", "request", () -> "response-" + runs.incrementAndGet());
+        IdempotencyService.Outcome<String> retry =
+            service.execute(CLIENT, "key-1", "request", () -> "response-" + runs.incrementAndGet());
+
+        assertThat(first.isReplayed()).isFalse();
+        assertThat(retry.isReplayed()).isTrue();
+        assertThat(retry.getResponse()).isEqualTo("response-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Refuses a key reused for a different request with a 422, and runs every request without a key")
+    void keyReused_orMissing() {
+        service.execute(CLIENT, "key-1", "request", () -> "response");
+
+        assertThatThrownBy(() -> service.execute(CLIENT, "key-1", "other request", () -> "response"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(422);
+
+        service.execute(CLIENT, null, "request", runs::incrementAndGet);
+        service.execute(CLIENT, "", "request", runs::incrementAndGet);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Keys are scoped to the client, the same key from another client is a request of its own")
+    void keys_scopedPerClient() {
+        service.execute(CLIENT, "key-1", "request", () -> "response-" + runs.incrementAndGet());
+
+        IdempotencyService.Outcome<String> other =
+            service.execute("client-b", "key-1", "other request", () -> "response-" + runs.incrementAndGet());
+        IdempotencyService.Outcome<String> retry =
+            service.execute(CLIENT, "key-1", "request", () -> "response-" + runs.incrementAndGet());
+
+        assertThat(other.isReplayed()).isFalse();
+        assertThat(other.getResponse()).isEqualTo("response-2");
+        assertThat(retry.isReplayed()).isTrue();
+        assertThat(retry.getResponse()).isEqualTo("response-1");
+    }
+
+    @Test
+    @DisplayName("A duplicate in flight waits for the first run instead of running again")
+    void concurrentDuplicate_waits() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyService.Outcome<Integer>> first = CompletableFuture.supplyAsync(
+            () -> service.execute(CLIENT, "key-1", "request", () -> {
+                started.countDown();
+                await(release);
+                return runs.incrementAndGet();
+            }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<IdempotencyService.Outcome<Integer>> duplicate = CompletableFuture.supplyAsync(
+            () -> service.execute(CLIENT, "key-1", "request", runs::incrementAndGet), executor);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getResponse()).isEqualTo(1);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getResponse()).isEqualTo(1);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Nothing is kept for a failed run, the retry runs again")
+    void failure_notKept() {
+        assertThatThrownBy(() -> service.execute(CLIENT, "key-1", "request", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        IdempotencyService.Outcome<Integer> retry = service.execute(CLIENT, "key-1", "request", runs::incrementAndGet);
+        assertThat(retry.isReplayed()).isFalse();
+        assertThat(retry.getResponse()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A client with its part of the store full is refused with a 503, nothing kept is dropped for it")
+    void clientFull_refused() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxStoredPerClient(2);
+        service = new IdempotencyService(properties, new MicrometerService(new SimpleMeterRegistry()));
+        service.execute(CLIENT, "key-1", "request", () -> "response-1");
+        assertThatThrownBy(() -> service.execute(CLIENT, "key-2", "request", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+        service.execute(CLIENT, "key-2", "request", () -> "response-2");
+
+        assertThatThrownBy(() -> service.execute(CLIENT, "key-3", "request", runs::incrementAndGet))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+        assertThat(runs).hasValue(0);
+
+        assertThat(service.execute(CLIENT, "key-1", "request", () -> "again").getResponse()).isEqualTo("response-1");
+        assertThat(service.execute("client-b", "key-3", "request", () -> "response-b").isReplayed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A full store takes new keys again once responses expire")
+    void storeFull_untilExpired() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxStored(1);
+        properties.setRetention(Duration.ofMillis(200));
+        service = new IdempotencyService(properties, new MicrometerService(new SimpleMeterRegistry()));
+        service.execute(CLIENT, "key-1", "request", () -> "response-1");
+
+        assertThatThrownBy(() -> service.execute("client-b", "key-2", "request", () -> "response-2"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+
+        Awaitility.await().ignoreExceptions().until(() ->
+            !service.execute("client-b", "key-2", "request", () -> "response-2").isReplayed());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pink.family.assignment.service;
+
+import com.pink.family.assignment.api.exception.PinkApiException;
+import com.pink.family.assignment.properties.PersonLockProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersonLocksTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PersonLocks locks;
+
+    @BeforeEach
+    void setUp() {
+        locks = locks(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("An update touching a person another update holds waits, and gets a 503 after the timeout")
+    void overlapping_waits() throws Exception {
+        locks = locks(Duration.ofMillis(50));
+        CountDownLatch held = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> locks.withLocks(List.of(1L, 2L), () -> {
+            held.countDown();
+            await();
+            return "first";
+        }), executor);
+        assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> locks.withLocks(List.of(2L, 3L), () -> "second"))
+            .isInstanceOf(PinkApiException.class)
+            .extracting("responseCode").isEqualTo(503);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(locks.withLocks(List.of(2L, 3L), () -> "second")).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName("Updates of different persons do not wait on each other")
+    void disjoint_noWait() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> locks.withLocks(List.of(1L), () -> {
+            held.countDown();
+            await();
+            return null;
+        }), executor);
+        assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Long other = 2L;
+        while (locks.stripe(other) == locks.stripe(1L)) {
+            other++;
+        }
+        assertThat(locks.withLocks(List.of(other), () -> "other")).isEqualTo("other");
+    }
+
+    @Test
+    @DisplayName("Locks taken in any order of IDs cannot deadlock")
+    void oppositeOrder_noDeadlock() throws Exception {
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<Long> ids = i % 2 == 0 ? List.of(1L, 2L, 3L) : List.of(3L, 2L, 1L);
+            updates.add(CompletableFuture.supplyAsync(() -> locks.withLocks(ids, () -> 1), executor));
+        }
+        for (CompletableFuture<Integer> update : updates) {
+            assertThat(update.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+    }
+
+    private static PersonLocks locks(Duration timeout) {
+        PersonLockProperties properties = new PersonLockProperties();
+        properties.setTimeout(timeout);
+        return new PersonLocks(properties, new MicrometerService(new SimpleMeterRegistry()));
+    }
+
+    private void await() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
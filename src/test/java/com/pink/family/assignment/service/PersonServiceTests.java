@@ -5,16 +5,19 @@ import com.pink.family.assignment.database.dao.PersonDao;
 import com.pink.family.assignment.database.entity.enums.RelationshipType;
 import com.pink.family.assignment.dto.PersonDto;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -28,6 +31,9 @@ class PersonServiceTests {
     @MockBean
     private PersonDao personDao;
 
+    @SpyBean
+    private DegradedModeService degradedModeService;
+
     @Autowired
     private MicrometerService micrometerService;
 
@@ -69,6 +75,15 @@ class PersonServiceTests {
         return map;
     }
 
+    /**
+     * The keys of the last known checks forgotten, all at once.
+     */
+    private Collection<String> forgottenKeys() {
+        ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+        verify(degradedModeService).forget(keys.capture());
+        return keys.getValue();
+    }
+
     private void linkPartners(PersonDto a, PersonDto b) {
         a.getRelations(RelationshipType.PARTNER).add(b);
         b.getRelations(RelationshipType.PARTNER).add(a);
@@ -206,4 +221,105 @@ class PersonServiceTests {
                 .contains(ErrorMessages.NO_SHARED_CHILDREN);
         }
     }
+
+    @Nested
+    class FindPersonsTests {
+
+        @Test
+        @DisplayName("Loads all persons in one call, leaving out deleted and remembered deleted ones")
+        void findPersons_leavesOutDeleted() {
+            PersonDto main = buildPerson(1L, "Main");
+            PersonDto deleted = PersonDto.builder()
+                .internalId(2L)
+                .externalId(1002L)
+                .name("Deleted")
+                .deleted(true)
+                .relationships(emptyRelationships())
+                .build();
+
+            when(personDao.isKnownDeleted(anyLong())).thenReturn(false);
+            when(personDao.isKnownDeleted(1003L)).thenReturn(true);
+            when(personDao.findPersonsFromExternalIds(Set.of(1001L, 1002L, 1004L), 1))
+                .thenReturn(Map.of(1001L, main, 1002L, deleted));
+
+            assertThat(personService.findPersons(Set.of(1001L, 1002L, 1003L, 1004L), true))
+                .isEqualTo(Map.of(1001L, main));
+            verify(personDao, times(1)).findPersonsFromExternalIds(any(), anyInt());
+        }
+    }
+
+    @Nested
+    class PatchPersonTests {
+
+        @Test
+        @DisplayName("Forgets the last known checks of the person and of the relatives it was and now is related to")
+        void patchPerson_forgetsRelativesChecks() {
+            PersonDto main = buildPerson(1L, "Main");
+            PersonDto oldPartner = buildPerson(2L, "Old partner");
+            PersonDto child = buildPerson(3L, "Child");
+            linkPartners(main, oldPartner);
+            addChildren(main, child);
+            Map<RelationshipType, Set<Long>> patch = Map.of(RelationshipType.PARTNER, Set.of(1004L));
+
+            when(personDao.isKnownDeleted(anyLong())).thenReturn(false);
+            when(personDao.findPersonFromExternalId(1001L, 1)).thenReturn(Optional.of(main));
+            when(personDao.patchPerson(1001L, null, null, patch)).thenReturn(Optional.of(main));
+
+            assertThat(personService.patchPerson(1001L, null, null, patch)).contains(main);
+
+            Assertions.assertThat(forgottenKeys()).containsExactlyInAnyOrder(
+                DegradedModeService.externalIdKey(1001L),
+                DegradedModeService.nameDobKey("Main", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.externalIdKey(1002L),
+                DegradedModeService.nameDobKey("Old partner", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.externalIdKey(1004L));
+        }
+
+        @Test
+        @DisplayName("A new name changes the checks of all relatives, by ID and by name and date of birth")
+        void patchPerson_renamed_forgetsAllRelativesChecks() {
+            PersonDto main = buildPerson(1L, "Main");
+            PersonDto child = buildPerson(3L, "Child");
+            addChildren(main, child);
+            PersonDto renamed = buildPerson(1L, "Renamed");
+            addChildren(renamed, child);
+
+            when(personDao.isKnownDeleted(anyLong())).thenReturn(false);
+            when(personDao.findPersonFromExternalId(1001L, 1)).thenReturn(Optional.of(main));
+            when(personDao.patchPerson(1001L, "Renamed", null, Map.of())).thenReturn(Optional.of(renamed));
+
+            personService.patchPerson(1001L, "Renamed", null, Map.of());
+
+            Assertions.assertThat(forgottenKeys()).containsExactlyInAnyOrder(
+                DegradedModeService.externalIdKey(1001L),
+                DegradedModeService.nameDobKey("Main", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.nameDobKey("Renamed", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.externalIdKey(1003L),
+                DegradedModeService.nameDobKey("Child", LocalDate.of(1980, 1, 1)));
+        }
+    }
+
+    @Nested
+    class SoftDeleteTests {
+
+        @Test
+        @DisplayName("Once deleted, the checks of the persons and of their relatives are forgotten")
+        void softDeleteChunk_forgetsChecks() {
+            PersonDto main = buildPerson(1L, "Main");
+            PersonDto partner = buildPerson(2L, "Partner");
+            linkPartners(main, partner);
+
+            when(personDao.findPersonsFromExternalIds(Set.of(1001L, 1005L), 1)).thenReturn(Map.of(1001L, main));
+
+            personService.softDeleteChunk(Set.of(1001L, 1005L));
+
+            verify(personDao).softDeletePersons(Set.of(1001L, 1005L));
+            Assertions.assertThat(forgottenKeys()).containsExactlyInAnyOrder(
+                DegradedModeService.externalIdKey(1001L),
+                DegradedModeService.nameDobKey("Main", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.externalIdKey(1002L),
+                DegradedModeService.nameDobKey("Partner", LocalDate.of(1980, 1, 1)),
+                DegradedModeService.externalIdKey(1005L));
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package com.pink.family.assignment.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("Grows the limit while latency holds, shrinks it once latency rises")
+    void adapts_toLatency() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 0, 1.5, 0.2, 600);
+
+        runSaturated(limiter, FAST, 200);
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        runSaturated(limiter, SLOW, 5);
+        assertThat(limiter.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    @DisplayName("Stays within its bounds")
+    void bounds() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 16, 0, 1.5, 0.5, 600);
+
+        runSaturated(limiter, FAST, 500);
+        assertThat(limiter.getLimit()).isEqualTo(16);
+
+        runSaturated(limiter, SLOW * 100, 20);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Queues up to the queue size for at most the wait time, and refuses beyond that")
+    void queue_andRefuse() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, 1.5, 0.2, 600);
+
+        assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(limiter.acquire(10, TimeUnit.MILLISECONDS)).isFalse();
+
+        CompletableFuture<Boolean> queued = acquireAsync(limiter, true);
+        while (limiter.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // the queue holds a single call.
+        assertThat(limiter.acquire(5, TimeUnit.SECONDS)).isFalse();
+
+        limiter.release(FAST);
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Queued work with priority gets the next slot, ahead of work without")
+    void priority_first() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2, 1.5, 0.2, 600);
+        assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+
+        CompletableFuture<Boolean> write = acquireAsync(limiter, false);
+        while (limiter.getQueued() < 1) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<Boolean> read = acquireAsync(limiter, true);
+        while (limiter.getQueued() < 2) {
+            Thread.onSpinWait();
+        }
+
+        limiter.release(FAST);
+        assertThat(read.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(write).isNotDone();
+
+        limiter.release(FAST);
+        assertThat(write.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static CompletableFuture<Boolean> acquireAsync(AdaptiveConcurrencyLimiter limiter, boolean priority) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(5, TimeUnit.SECONDS, priority);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, runnable -> Thread.ofPlatform().daemon().start(runnable));
+    }
+
+    /**
+     * Fill the limit and release every slot with the given latency, as many times as asked.
+     */
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, long rttNanos, int rounds)
+        throws InterruptedException
+    {
+        for (int round = 0; round < rounds; round++) {
+            int taken = 0;
+            while (limiter.acquire(0, TimeUnit.NANOSECONDS)) {
+                taken++;
+            }
+            for (int i = 0; i < taken; i++) {
+                limiter.release(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pink.family.assignment.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedLongBitmapTest {
+
+    @Test
+    @DisplayName("Behaves like a set across sparse and dense chunks, including negative values")
+    void matchesHashSet() {
+        CompressedLongBitmap bitmap = new CompressedLongBitmap();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            // a dense chunk, a sparse chunk far away and some negative values.
+            long value = switch (i % 3) {
+                case 0 -> random.nextInt(10_000);
+                case 1 -> 1L << 40 | random.nextInt(1 << 16);
+                default -> -random.nextInt(100);
+            };
+            boolean remove = random.nextInt(4) == 0;
+            if (remove) {
+                assertThat(bitmap.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(bitmap.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        expected.forEach(value -> assertThat(bitmap.contains(value)).isTrue());
+        assertThat(bitmap.contains(5_000_000L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Dense chunks fall back to a bitmap and back to an array once they thin out")
+    void switchesRepresentation() {
+        CompressedLongBitmap bitmap = new CompressedLongBitmap();
+        for (long i = 0; i < 65_536; i++) {
+            bitmap.add(i);
+        }
+        assertThat(bitmap.sizeInBytes()).isEqualTo(8192);
+
+        for (long i = 100; i < 65_536; i++) {
+            bitmap.remove(i);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(100);
+        assertThat(bitmap.sizeInBytes()).isLessThan(8192);
+        assertThat(bitmap.contains(99)).isTrue();
+        assertThat(bitmap.contains(100)).isFalse();
+    }
+}
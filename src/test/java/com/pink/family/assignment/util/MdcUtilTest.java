@@ -0,0 +1,46 @@
+package com.pink.family.assignment.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MdcUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("The MDC of the submitting thread is visible to the wrapped work, and not left behind")
+    void wrap_carriesMdc() throws Exception {
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            MDC.put("id", "first");
+            String seen = CompletableFuture.supplyAsync(MdcUtil.wrap(() -> MDC.get("id")), executor).get();
+            assertThat(seen).isEqualTo("first");
+
+            // the worker thread is reused, the previous request ID must not linger there.
+            MDC.clear();
+            assertThat(executor.submit(() -> MDC.get("id")).get()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Works across virtual threads")
+    void wrap_virtualThread() throws Exception {
+        MDC.put("id", "virtual");
+        String[] seen = new String[1];
+        Thread thread = Thread.ofVirtual().start(MdcUtil.wrap(() -> {
+            seen[0] = MDC.get("id");
+        }));
+        thread.join();
+        assertThat(seen[0]).isEqualTo("virtual");
+    }
+}